@@ -1,29 +1,59 @@
 package org.cryptos.api.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.cryptos.api.dto.ChunkedUploadDTO;
 import org.cryptos.api.dto.CurrencyNormalizedPriceDTO;
+import org.cryptos.api.dto.CurrencyStatsFileResultDTO;
+import org.cryptos.api.dto.CurrencyStatsIngestDTO;
 import org.cryptos.api.dto.CurrencyStatsMinMaxDTO;
+import org.cryptos.api.dto.IngestJobDTO;
+import org.cryptos.api.dto.TickStreamAckDTO;
+import org.cryptos.service.ChunkedUploadService;
+import org.cryptos.service.CurrencyStatsBatchService;
 import org.cryptos.service.CurrencyStatsService;
+import org.cryptos.service.IngestJobService;
+import org.cryptos.service.TickStreamService;
+import org.cryptos.service.domain.ChunkedUploadDomain;
 import org.cryptos.service.domain.CurrencyNormalizedPriceDomain;
+import org.cryptos.service.domain.CurrencyStatsFileResultDomain;
+import org.cryptos.service.domain.CurrencyStatsIngestDomain;
 import org.cryptos.service.domain.CurrencyStatsMinMaxDomain;
+import org.cryptos.service.domain.IngestJobDomain;
+import org.cryptos.service.domain.TickStreamAckDomain;
+import org.cryptos.service.exception.UploadRangeException;
+import org.cryptos.service.ingest.TickStream;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.WebAsyncTask;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 /**
  * REST controller for managing currency statistics operations.
@@ -33,16 +63,25 @@ import java.util.List;
 @RequiredArgsConstructor
 public class CurrencyStatsController {
 
+    private static final Pattern CONTENT_RANGE = Pattern.compile("bytes (\\d{1,18})-(\\d{1,18})/(\\d{1,18}|\\*)");
+
     private final CurrencyStatsService currencyStatsService;
+    private final IngestJobService ingestJobService;
+    private final CurrencyStatsBatchService currencyStatsBatchService;
+    private final ChunkedUploadService chunkedUploadService;
+    private final TickStreamService tickStreamService;
+    private final ObjectMapper objectMapper;
 
     /**
      * Uploads a file containing currency statistics.
      * The file must be in multipart form data format, and the currency must be pre-created.
+     * The gzip compressed file is decompressed on the fly.
      *
-     * @param file the file containing currency statistics in CSV format
+     * @param file the file containing currency statistics in CSV format, may be gzip compressed
+     * @return the number of stored rows and the ingest throughput
      */
     @Operation(summary = "Upload a file with currency statistics", description = "Uploads a file containing currency statistics. " +
-            "The file must be in multipart form data format. The currency must be pre-created."
+            "The file must be in multipart form data format, it may be gzip compressed. The currency must be pre-created."
     )
     @ApiResponses(value = {
             @ApiResponse(responseCode = "201", description = "New currency statistics successfully uploaded"),
@@ -51,8 +90,237 @@ public class CurrencyStatsController {
             @ApiResponse(responseCode = "500", description = "Internal server error"),})
     @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     @ResponseStatus(HttpStatus.CREATED)
-    public void createStats(@RequestParam("file") MultipartFile file) {
-        currencyStatsService.createStats(file.getResource());
+    public CurrencyStatsIngestDTO createStats(@RequestParam("file") MultipartFile file) {
+        return convertIngestToDTO(currencyStatsService.createStats(file.getResource()));
+    }
+
+    /**
+     * Uploads a file containing the interleaved statistics of multiple currencies.
+     * The file must be in multipart form data format, and all the currencies must be pre-created.
+     *
+     * @param file the file containing currency statistics in CSV format
+     * @return the number of stored rows and the ingest throughput of every currency
+     */
+    @Operation(summary = "Upload a file with statistics of multiple currencies", description = "Uploads a file " +
+            "containing the interleaved statistics of multiple currencies. The file must be in multipart form data " +
+            "format. All the currencies must be pre-created."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "201", description = "New currency statistics successfully uploaded"),
+            @ApiResponse(responseCode = "400", description = "CSV file must contain exactly 3 columns per line"),
+            @ApiResponse(responseCode = "404", description = "Currency 'X' not found, need to enable the currency first"),
+            @ApiResponse(responseCode = "500", description = "Internal server error"),})
+    @PostMapping(value = "/mixed", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @ResponseStatus(HttpStatus.CREATED)
+    public List<CurrencyStatsIngestDTO> createMixedStats(@RequestParam("file") MultipartFile file) {
+        return currencyStatsService.createMixedStats(file.getResource()).stream()
+                .map(this::convertIngestToDTO)
+                .toList();
+    }
+
+    /**
+     * Uploads multiple files containing currency statistics, or ZIP archives of such files.
+     * The files are stored concurrently, each file in its own transaction, the currencies must be pre-created.
+     *
+     * @param files the CSV files or ZIP archives of CSV files
+     * @return the result of every CSV file
+     */
+    @Operation(summary = "Upload multiple files or ZIP archives with currency statistics", description = "Uploads " +
+            "multiple files containing currency statistics or ZIP archives of such files. The files are stored " +
+            "concurrently, the failure of one file does not affect the others. The currencies must be pre-created."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "The files are processed, see the result of every file"),
+            @ApiResponse(responseCode = "400", description = "Exception occurs while reading ZIP archive"),
+            @ApiResponse(responseCode = "500", description = "Internal server error"),})
+    @PostMapping(value = "/batch", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @ResponseStatus(HttpStatus.OK)
+    public List<CurrencyStatsFileResultDTO> createStatsBatch(@RequestParam("files") List<MultipartFile> files) {
+        return currencyStatsBatchService.createStats(files.stream().map(MultipartFile::getResource).toList()).stream()
+                .map(this::convertFileResultToDTO)
+                .toList();
+    }
+
+    /**
+     * Accepts a file containing currency statistics for the asynchronous upload.
+     * The file is processed in the background, the progress is available by the returned job id.
+     *
+     * @param file the file containing currency statistics in CSV format
+     * @return the queued job
+     */
+    @Operation(summary = "Upload a file with currency statistics asynchronously", description = "Accepts a file containing " +
+            "currency statistics and processes it in the background. The file must be in multipart form data format. " +
+            "The currency must be pre-created. The progress is available by the returned job id."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "202", description = "The upload job is accepted"),
+            @ApiResponse(responseCode = "429", description = "Too many upload jobs in progress, retry later"),
+            @ApiResponse(responseCode = "500", description = "Internal server error"),})
+    @PostMapping(value = "/jobs", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    public IngestJobDTO createStatsAsync(@RequestParam("file") MultipartFile file) {
+        return convertJobToDTO(ingestJobService.submit(file.getResource()));
+    }
+
+    /**
+     * Accepts the live stream of price ticks in NDJSON format, one JSON object per line.
+     * The ticks are stored in micro-batches as they arrive, the acknowledgement is sent back as one NDJSON line
+     * after every stored micro-batch and once more when the request body is finished.
+     * The stream is opened on the asynchronous thread writing the response, so the writer slot is taken only
+     * while the request is processed. The request has its own timeout "currency.stream.request-timeout".
+     *
+     * @param body     the request body with the NDJSON ticks
+     * @param response the response the acknowledgements are written to
+     * @return the asynchronous task writing the NDJSON stream of the acknowledgements
+     */
+    @Operation(summary = "Stream price ticks", description = "Accepts the live stream of price ticks in NDJSON format, " +
+            "e.g. {\"timestamp\":1641308400000,\"symbol\":\"BTC\",\"price\":47111.11} per line. The ticks are stored " +
+            "in micro-batches as they arrive, the progress is acknowledged with one NDJSON line per stored micro-batch. " +
+            "The last line reports the totals and the error that stopped the stream, if any. " +
+            "The currencies must be pre-created."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "The stream is accepted, see the acknowledgements"),
+            @ApiResponse(responseCode = "429", description = "Too many tick streams in progress, retry later"),
+            @ApiResponse(responseCode = "500", description = "Internal server error"),})
+    @PostMapping(value = "/stream", consumes = MediaType.APPLICATION_NDJSON_VALUE,
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @ResponseStatus(HttpStatus.OK)
+    public WebAsyncTask<Void> createStatsStream(InputStream body, HttpServletResponse response) {
+        return new WebAsyncTask<>(tickStreamService.getRequestTimeout().toMillis(), () -> {
+            try (TickStream stream = tickStreamService.openStream()) {
+                response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+                OutputStream outputStream = response.getOutputStream();
+                TickStreamAckDomain result = stream.ingest(body, ack -> writeAck(outputStream, ack));
+                writeAck(outputStream, result);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Creates the resumable upload of a large file containing currency statistics.
+     * The file is sent by the chunks and the upload is completed afterwards.
+     *
+     * @return the created upload
+     */
+    @Operation(summary = "Create the resumable chunked upload", description = "Creates the upload of a large file " +
+            "containing currency statistics, which is sent in chunks by PUT /currencies/stats/uploads/{id} and " +
+            "completed by POST /currencies/stats/uploads/{id}/complete."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "201", description = "The upload is created"),
+            @ApiResponse(responseCode = "500", description = "Internal server error"),})
+    @PostMapping("/uploads")
+    @ResponseStatus(HttpStatus.CREATED)
+    public ChunkedUploadDTO createUpload() {
+        return convertUploadToDTO(chunkedUploadService.create());
+    }
+
+    /**
+     * Appends the chunk of the file to the upload, the complete lines received so far are stored immediately.
+     *
+     * @param id           the id of the upload
+     * @param contentRange the range of the chunk in the file, "bytes start-end/total" or "bytes start-end/*"
+     * @param chunk        the bytes of the chunk
+     * @return the upload with the received and the stored bytes
+     */
+    @Operation(summary = "Send the chunk of the chunked upload", description = "Appends the chunk of the file " +
+            "to the upload, the range of the chunk is given by the Content-Range header, e.g. 'bytes 0-1048575/*'. " +
+            "The chunk must start at or before the received bytes, the bytes received before are skipped. " +
+            "The complete lines are stored immediately. If they could not be stored, the bytes after the stored lines " +
+            "are discarded and must be sent again."
+    )
+    @Parameter(name = "id", description = "The id of the upload")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "The chunk is received"),
+            @ApiResponse(responseCode = "400", description = "CSV file must contain exactly 3 columns per line"),
+            @ApiResponse(responseCode = "404", description = "Upload '3f1c2b9e-6d0a-4c55-9f0e-2b8a7c1d4e5f' not found"),
+            @ApiResponse(responseCode = "416", description = "Upload '3f1c2b9e-6d0a-4c55-9f0e-2b8a7c1d4e5f' " +
+                    "expects the chunk at offset 1048576, but got 2097152"),
+            @ApiResponse(responseCode = "500", description = "Internal server error"),})
+    @PutMapping(value = "/uploads/{id}", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    @ResponseStatus(HttpStatus.OK)
+    public ChunkedUploadDTO appendUploadChunk(@PathVariable UUID id,
+                                              @RequestHeader(HttpHeaders.CONTENT_RANGE) String contentRange,
+                                              InputStream chunk) {
+        return convertUploadToDTO(chunkedUploadService.append(id, parseRangeStart(contentRange), chunk));
+    }
+
+    /**
+     * Get the state of the chunked upload, e.g. to resume it after a failure.
+     *
+     * @param id the id of the upload
+     * @return the upload with the received and the stored bytes
+     */
+    @Operation(summary = "Get the chunked upload by id", description = "Fetches the received bytes of the upload, " +
+            "the next chunk must start at them, the stored bytes and rows.")
+    @Parameter(name = "id", description = "The id of the upload")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "The upload successfully retrieved"),
+            @ApiResponse(responseCode = "404", description = "Upload '3f1c2b9e-6d0a-4c55-9f0e-2b8a7c1d4e5f' not found"),
+            @ApiResponse(responseCode = "500", description = "Internal server error"),})
+    @GetMapping("/uploads/{id}")
+    @ResponseStatus(HttpStatus.OK)
+    public ChunkedUploadDTO getUpload(@PathVariable UUID id) {
+        return convertUploadToDTO(chunkedUploadService.getUpload(id));
+    }
+
+    /**
+     * Completes the chunked upload, the last line is stored and the upload is deleted.
+     *
+     * @param id the id of the upload
+     * @return the number of stored rows and the ingest throughput
+     */
+    @Operation(summary = "Complete the chunked upload", description = "Stores the last line of the file, " +
+            "which may be not terminated by the line break, and deletes the upload.")
+    @Parameter(name = "id", description = "The id of the upload")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "201", description = "The upload is completed"),
+            @ApiResponse(responseCode = "400", description = "CSV file does not contain any statistics"),
+            @ApiResponse(responseCode = "404", description = "Upload '3f1c2b9e-6d0a-4c55-9f0e-2b8a7c1d4e5f' not found"),
+            @ApiResponse(responseCode = "500", description = "Internal server error"),})
+    @PostMapping("/uploads/{id}/complete")
+    @ResponseStatus(HttpStatus.CREATED)
+    public CurrencyStatsIngestDTO completeUpload(@PathVariable UUID id) {
+        return convertIngestToDTO(chunkedUploadService.complete(id));
+    }
+
+    /**
+     * Cancels the chunked upload, the rows stored so far are kept.
+     *
+     * @param id the id of the upload
+     */
+    @Operation(summary = "Cancel the chunked upload", description = "Deletes the upload, the rows stored so far are kept.")
+    @Parameter(name = "id", description = "The id of the upload")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "204", description = "The upload is cancelled"),
+            @ApiResponse(responseCode = "404", description = "Upload '3f1c2b9e-6d0a-4c55-9f0e-2b8a7c1d4e5f' not found"),
+            @ApiResponse(responseCode = "500", description = "Internal server error"),})
+    @DeleteMapping("/uploads/{id}")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void cancelUpload(@PathVariable UUID id) {
+        chunkedUploadService.cancel(id);
+    }
+
+    /**
+     * Get the status of the asynchronous upload job.
+     *
+     * @param id the id of the job
+     * @return the status, the progress, the throughput and the estimated remaining time of the job
+     */
+    @Operation(summary = "Get the upload job by id",
+            description = "Fetches the status of the asynchronous upload with the rows processed, rows per second, " +
+                    "the estimated remaining time and the final result.")
+    @Parameter(name = "id", description = "The id of the upload job")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "The upload job successfully retrieved"),
+            @ApiResponse(responseCode = "404", description = "Job '3f1c2b9e-6d0a-4c55-9f0e-2b8a7c1d4e5f' not found"),
+            @ApiResponse(responseCode = "500", description = "Internal server error"),})
+    @GetMapping("/jobs/{id}")
+    @ResponseStatus(HttpStatus.OK)
+    public IngestJobDTO getJob(@PathVariable UUID id) {
+        return convertJobToDTO(ingestJobService.getJob(id));
     }
 
     /**
@@ -137,6 +405,39 @@ public class CurrencyStatsController {
         return convertCurrenciesNormalizedToDTO(currencyStatsService.getHighestNormalizedPriceForDay(day));
     }
 
+    /**
+     * Parses the offset of the first byte of the chunk from the Content-Range header.
+     *
+     * @param contentRange the header value in the format "bytes start-end/total" or "bytes start-end/*"
+     * @return the offset of the first byte
+     * @throws UploadRangeException if the header is malformed
+     */
+    private long parseRangeStart(String contentRange) {
+        Matcher matcher = CONTENT_RANGE.matcher(contentRange.trim());
+        if (!matcher.matches() || Long.parseLong(matcher.group(1)) > Long.parseLong(matcher.group(2))) {
+            throw new UploadRangeException(
+                    "Content-Range '%s' must be in the format 'bytes start-end/total'".formatted(contentRange));
+        }
+        return Long.parseLong(matcher.group(1));
+    }
+
+    /**
+     * Writes the acknowledgement of the tick stream as one NDJSON line and sends it to the client immediately.
+     *
+     * @param outputStream the stream of the response
+     * @param ack          the acknowledgement to be written
+     * @throws UncheckedIOException if the client is gone
+     */
+    private void writeAck(OutputStream outputStream, TickStreamAckDomain ack) {
+        try {
+            outputStream.write(objectMapper.writeValueAsBytes(convertAckToDTO(ack)));
+            outputStream.write('\n');
+            outputStream.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
     /**
      * Converts business entity {@link CurrencyStatsMinMaxDomain} to DTO {@link CurrencyStatsMinMaxDTO}.
      *
@@ -153,6 +454,96 @@ public class CurrencyStatsController {
         );
     }
 
+    /**
+     * Converts business entity {@link CurrencyStatsIngestDomain} to DTO {@link CurrencyStatsIngestDTO}.
+     *
+     * @param domain the {@link CurrencyStatsIngestDomain} to be converted
+     * @return the corresponding {@link CurrencyStatsIngestDTO}
+     */
+    private CurrencyStatsIngestDTO convertIngestToDTO(CurrencyStatsIngestDomain domain) {
+        return new CurrencyStatsIngestDTO(
+                domain.symbol(),
+                domain.rows(),
+                domain.elapsedMillis(),
+                domain.rowsPerSecond()
+        );
+    }
+
+    /**
+     * Converts business entity {@link CurrencyStatsFileResultDomain} to DTO {@link CurrencyStatsFileResultDTO}.
+     *
+     * @param domain the {@link CurrencyStatsFileResultDomain} to be converted
+     * @return the corresponding {@link CurrencyStatsFileResultDTO}
+     */
+    private CurrencyStatsFileResultDTO convertFileResultToDTO(CurrencyStatsFileResultDomain domain) {
+        return new CurrencyStatsFileResultDTO(
+                domain.fileName(),
+                domain.symbol(),
+                domain.rows(),
+                domain.elapsedMillis(),
+                domain.rowsPerSecond(),
+                domain.error()
+        );
+    }
+
+    /**
+     * Converts business entity {@link IngestJobDomain} to DTO {@link IngestJobDTO}.
+     *
+     * @param domain the {@link IngestJobDomain} to be converted
+     * @return the corresponding {@link IngestJobDTO}
+     */
+    private IngestJobDTO convertJobToDTO(IngestJobDomain domain) {
+        return new IngestJobDTO(
+                domain.id(),
+                domain.status().name(),
+                domain.symbol(),
+                domain.rows(),
+                domain.bytes(),
+                domain.totalBytes(),
+                domain.elapsedMillis(),
+                domain.rowsPerSecond(),
+                domain.etaMillis(),
+                domain.error(),
+                domain.createdAt(),
+                domain.finishedAt()
+        );
+    }
+
+    /**
+     * Converts business entity {@link ChunkedUploadDomain} to DTO {@link ChunkedUploadDTO}.
+     *
+     * @param domain the {@link ChunkedUploadDomain} to be converted
+     * @return the corresponding {@link ChunkedUploadDTO}
+     */
+    private ChunkedUploadDTO convertUploadToDTO(ChunkedUploadDomain domain) {
+        return new ChunkedUploadDTO(
+                domain.id(),
+                domain.symbol(),
+                domain.receivedBytes(),
+                domain.committedBytes(),
+                domain.rows(),
+                domain.createdAt(),
+                domain.updatedAt()
+        );
+    }
+
+    /**
+     * Converts business entity {@link TickStreamAckDomain} to DTO {@link TickStreamAckDTO}.
+     *
+     * @param domain the {@link TickStreamAckDomain} to be converted
+     * @return the corresponding {@link TickStreamAckDTO}
+     */
+    private TickStreamAckDTO convertAckToDTO(TickStreamAckDomain domain) {
+        return new TickStreamAckDTO(
+                domain.received(),
+                domain.rows(),
+                domain.elapsedMillis(),
+                domain.rowsPerSecond(),
+                domain.finished(),
+                domain.error()
+        );
+    }
+
     /**
      * Converts business entity {@link CurrencyNormalizedPriceDomain} to DTO {@link CurrencyNormalizedPriceDTO}.
      *
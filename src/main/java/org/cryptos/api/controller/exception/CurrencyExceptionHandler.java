@@ -3,6 +3,10 @@ package org.cryptos.api.controller.exception;
 import lombok.extern.slf4j.Slf4j;
 import org.cryptos.service.exception.CurrencyServiceBaseException;
 import org.cryptos.service.exception.EntityNotFoundException;
+import org.cryptos.service.exception.IngestJobRejectedException;
+import org.cryptos.service.exception.IngestLockTimeoutException;
+import org.cryptos.service.exception.UploadRangeException;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -30,6 +34,59 @@ public class CurrencyExceptionHandler extends ResponseEntityExceptionHandler {
         return new ResponseStatusException(HttpStatus.NOT_FOUND, ex.getMessage(), ex);
     }
 
+    /**
+     * Handles {@link IngestJobRejectedException}. This exception is thrown when the upload job
+     * could not be accepted, because all the workers are busy and the queue is full.
+     *
+     * @param ex the exception thrown when the upload job is rejected
+     * @return a {@link ResponseStatusException} with HTTP status 429 (Too Many Requests)
+     */
+    @ExceptionHandler(IngestJobRejectedException.class)
+    public ResponseStatusException handleIngestJobRejectedException(IngestJobRejectedException ex) {
+        log.warn("IngestJobRejectedException occurs", ex);
+        return new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, ex.getMessage(), ex);
+    }
+
+    /**
+     * Handles {@link UploadRangeException}. This exception is thrown when the chunk of the chunked upload
+     * does not continue the received bytes, or its range is malformed.
+     *
+     * @param ex the exception thrown when the chunk range is wrong
+     * @return a {@link ResponseStatusException} with HTTP status 416 (Range Not Satisfiable)
+     */
+    @ExceptionHandler(UploadRangeException.class)
+    public ResponseStatusException handleUploadRangeException(UploadRangeException ex) {
+        log.warn("UploadRangeException occurs", ex);
+        return new ResponseStatusException(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE, ex.getMessage(), ex);
+    }
+
+    /**
+     * Handles {@link IngestLockTimeoutException}. This exception is thrown when the upload could not lock
+     * its currency in time, because another upload of the same currency is still in progress.
+     *
+     * @param ex the exception thrown when the currency lock is not acquired in time
+     * @return a {@link ResponseStatusException} with HTTP status 409 (Conflict)
+     */
+    @ExceptionHandler(IngestLockTimeoutException.class)
+    public ResponseStatusException handleIngestLockTimeoutException(IngestLockTimeoutException ex) {
+        log.warn("IngestLockTimeoutException occurs", ex);
+        return new ResponseStatusException(HttpStatus.CONFLICT, ex.getMessage(), ex);
+    }
+
+    /**
+     * Handles {@link DataIntegrityViolationException}. This exception is thrown when the uploaded statistics
+     * already exist for the same currency and date time, and the upload is not made in the upsert mode.
+     *
+     * @param ex the exception thrown when a database constraint is violated
+     * @return a {@link ResponseStatusException} with HTTP status 409 (Conflict)
+     */
+    @ExceptionHandler(DataIntegrityViolationException.class)
+    public ResponseStatusException handleDataIntegrityViolationException(DataIntegrityViolationException ex) {
+        log.error("DataIntegrityViolationException occurs", ex);
+        return new ResponseStatusException(HttpStatus.CONFLICT,
+                "The statistics already exist for the same currency and date time", ex);
+    }
+
     /**
      * Handles {@link CurrencyServiceBaseException}. This exception is thrown for general errors
      * related to currency service operations and means invalid user input.
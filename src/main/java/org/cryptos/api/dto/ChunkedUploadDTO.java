@@ -0,0 +1,26 @@
+package org.cryptos.api.dto;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Data Transfer Object (DTO) for representing the state of the CSV file uploaded in chunks.
+ * The next chunk of the file must start at the received bytes.
+ *
+ * @param id             the identifier of the upload
+ * @param symbol         the symbol of the uploaded currency, known when the first line of statistics is stored
+ * @param receivedBytes  the number of bytes of the file received so far, the offset of the next chunk
+ * @param committedBytes the number of bytes of the complete lines stored in the database
+ * @param rows           the number of statistics rows stored so far
+ * @param createdAt      the time when the upload was created
+ * @param updatedAt      the time when the last chunk was received or stored
+ */
+public record ChunkedUploadDTO(
+        UUID id,
+        String symbol,
+        long receivedBytes,
+        long committedBytes,
+        long rows,
+        LocalDateTime createdAt,
+        LocalDateTime updatedAt) {
+}
@@ -0,0 +1,21 @@
+package org.cryptos.api.dto;
+
+/**
+ * Data Transfer Object (DTO) for representing the result of the upload of one file of the multi-file upload.
+ * Contains the name of the file and either the number of stored rows with the ingest throughput or the error.
+ *
+ * @param fileName      the name of the uploaded file, "archive.zip!/entry.csv" for the entries of ZIP archives
+ * @param symbol        the symbol of the currency ("BTC", "ETH"), null if the upload failed
+ * @param rows          the number of statistics rows stored
+ * @param elapsedMillis the time spent on the upload in milliseconds
+ * @param rowsPerSecond the ingest throughput in rows per second
+ * @param error         the reason of the failure, null if the file is stored
+ */
+public record CurrencyStatsFileResultDTO(
+        String fileName,
+        String symbol,
+        long rows,
+        long elapsedMillis,
+        double rowsPerSecond,
+        String error) {
+}
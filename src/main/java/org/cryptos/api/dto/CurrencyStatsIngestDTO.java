@@ -0,0 +1,17 @@
+package org.cryptos.api.dto;
+
+/**
+ * Data Transfer Object (DTO) for representing the result of the currency statistics upload.
+ * Contains the currency symbol, the number of stored rows and the ingest throughput.
+ *
+ * @param symbol        the symbol of the currency ("BTC", "ETH")
+ * @param rows          the number of statistics rows stored
+ * @param elapsedMillis the time spent on the upload in milliseconds
+ * @param rowsPerSecond the ingest throughput in rows per second
+ */
+public record CurrencyStatsIngestDTO(
+        String symbol,
+        long rows,
+        long elapsedMillis,
+        double rowsPerSecond) {
+}
@@ -0,0 +1,36 @@
+package org.cryptos.api.dto;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Data Transfer Object (DTO) for representing the asynchronous currency statistics upload job.
+ * Contains the status and the progress of the upload, the ingest throughput and the estimated remaining time.
+ *
+ * @param id            the identifier of the job
+ * @param status        the status of the job (QUEUED, RUNNING, COMPLETED, FAILED)
+ * @param symbol        the symbol of the uploaded currency, known when the job is completed
+ * @param rows          the number of statistics rows written so far
+ * @param bytes         the number of bytes of the file parsed so far
+ * @param totalBytes    the size of the uploaded file
+ * @param elapsedMillis the time spent on the upload in milliseconds
+ * @param rowsPerSecond the ingest throughput in rows per second
+ * @param etaMillis     the estimated remaining time in milliseconds, null if unknown
+ * @param error         the reason of the failure, null unless the job failed
+ * @param createdAt     the time when the job was accepted
+ * @param finishedAt    the time when the job was completed or failed, null while it is not finished
+ */
+public record IngestJobDTO(
+        UUID id,
+        String status,
+        String symbol,
+        long rows,
+        long bytes,
+        long totalBytes,
+        long elapsedMillis,
+        double rowsPerSecond,
+        Long etaMillis,
+        String error,
+        LocalDateTime createdAt,
+        LocalDateTime finishedAt) {
+}
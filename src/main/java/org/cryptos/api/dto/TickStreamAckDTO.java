@@ -0,0 +1,21 @@
+package org.cryptos.api.dto;
+
+/**
+ * Data Transfer Object (DTO) for representing the acknowledgement of the streaming tick upload.
+ * Sent as one line of the NDJSON response after every written micro-batch and once more at the end of the stream.
+ *
+ * @param received      the number of ticks received and parsed so far
+ * @param rows          the number of statistics rows stored so far
+ * @param elapsedMillis the time since the stream was opened in milliseconds
+ * @param rowsPerSecond the ingest throughput in rows per second
+ * @param finished      whether the stream is finished and no more acknowledgements follow
+ * @param error         the reason the stream was stopped, or null
+ */
+public record TickStreamAckDTO(
+        long received,
+        long rows,
+        long elapsedMillis,
+        double rowsPerSecond,
+        boolean finished,
+        String error) {
+}
@@ -0,0 +1,57 @@
+package org.cryptos.persistence.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.EmbeddedId;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+
+/**
+ * Represents the price range of a currency for a day and its normalized price, (max price - min price) / min price,
+ * is mapped to the "currency_stats_daily_range" table in the database. The rows are derived from the daily buckets
+ * of "currency_stats_rollup" and recalculated with them, the index on the day and the normalized price finds
+ * the currency with the highest normalized price of the day by a single index lookup.
+ */
+@Entity
+@Table(
+        name = "currency_stats_daily_range",
+        indexes = @Index(name = "idx_currency_stats_daily_range_date_normalized_price",
+                columnList = "price_date, normalized_price DESC")
+)
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class CurrencyStatsDailyRangeEntity {
+
+    /**
+     * The day and the currency.
+     */
+    @EmbeddedId
+    private CurrencyStatsDailyRangeId id;
+
+    /**
+     * The lowest price of the currency for the day.
+     */
+    @Column(name = "min_price", nullable = false, precision = 25, scale = 7)
+    private BigDecimal minPrice;
+
+    /**
+     * The highest price of the currency for the day.
+     */
+    @Column(name = "max_price", nullable = false, precision = 25, scale = 7)
+    private BigDecimal maxPrice;
+
+    /**
+     * The normalized price of the currency for the day rounded to 20 decimal places, only to order the currencies,
+     * or null if the min price is zero. The exact one is calculated from the min and the max price.
+     */
+    @Column(name = "normalized_price", precision = 38, scale = 20)
+    private BigDecimal normalizedPrice;
+}
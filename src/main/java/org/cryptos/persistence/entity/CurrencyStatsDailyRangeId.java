@@ -0,0 +1,36 @@
+package org.cryptos.persistence.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * Primary key of {@link CurrencyStatsDailyRangeEntity}: the day and the currency.
+ */
+@Embeddable
+@Getter
+@Setter
+@EqualsAndHashCode
+@AllArgsConstructor
+@NoArgsConstructor
+public class CurrencyStatsDailyRangeId implements Serializable {
+
+    /**
+     * The day of the prices.
+     */
+    @Column(name = "price_date", nullable = false)
+    private LocalDate priceDate;
+
+    /**
+     * The symbol of the currency ("BTC", "ETH"), refers to "currency" table.
+     */
+    @Column(name = "currency_id", nullable = false)
+    private String currencyId;
+}
@@ -10,7 +10,9 @@ import jakarta.persistence.Id;
 import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
@@ -24,6 +26,8 @@ import java.time.LocalDateTime;
  * It holds information about the price at the specific date and time.
  * Default btree indexes are created on the "date_time", "currency_id", and "price" columns for improved query performance.
  * It's required for rapid filtering/search in persistence layer.
+ * The currency has only one price at the specific date and time, which is ensured by the unique constraint
+ * "uk_currency_stats_currency_date_time", so the repeated uploads may be upserted.
  *
  */
 @Entity
@@ -33,7 +37,9 @@ import java.time.LocalDateTime;
                 @Index(name = "idx_date_time", columnList = "date_time"),
                 @Index(name = "idx_currency_id", columnList = "currency_id"),
                 @Index(name = "idx_price", columnList = "price")
-        }
+        },
+        uniqueConstraints = @UniqueConstraint(name = "uk_currency_stats_currency_date_time",
+                columnNames = {"currency_id", "date_time"})
 )
 @Getter
 @Setter
@@ -41,12 +47,24 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 public class CurrencyStatsEntity {
 
+    /**
+     * Name of the sequence generating {@link #id} values.
+     */
+    public static final String ID_SEQUENCE = "currency_stats_seq";
+    /**
+     * Number of identifiers reserved by one sequence call, must match the sequence increment in DB.
+     */
+    public static final int ID_ALLOCATION_SIZE = 50;
+
     /**
      * Unique identifier for the currency statistics entry.
+     * Generated by the pooled "currency_stats_seq" sequence, so Hibernate reserves a block of identifiers
+     * with one sequence call and is able to send the inserts in JDBC batches.
      */
     @Id
     @Column(nullable = false, unique = true, updatable = false)
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = ID_SEQUENCE)
+    @SequenceGenerator(name = ID_SEQUENCE, sequenceName = ID_SEQUENCE, allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
 
     /**
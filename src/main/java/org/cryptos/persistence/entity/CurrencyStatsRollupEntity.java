@@ -0,0 +1,68 @@
+package org.cryptos.persistence.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.EmbeddedId;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Represents the pre-aggregated statistics of a currency in a time bucket of a minute, an hour or a day,
+ * is mapped to the "currency_stats_rollup" table in the database. The rows are derived from "currency_stats"
+ * and maintained by {@link org.cryptos.persistence.repository.CurrencyStatsRollupRepository}, so the statistics
+ * of long periods are aggregated from a few buckets instead of every price.
+ */
+@Entity
+@Table(
+        name = "currency_stats_rollup",
+        indexes = @Index(name = "idx_currency_stats_rollup_granularity_bucket", columnList = "granularity, bucket_start")
+)
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class CurrencyStatsRollupEntity {
+
+    /**
+     * The currency, the granularity and the start of the bucket.
+     */
+    @EmbeddedId
+    private CurrencyStatsRollupId id;
+
+    /**
+     * The date and time of the oldest price of the bucket.
+     */
+    @Column(name = "first_time", nullable = false)
+    private LocalDateTime firstTime;
+
+    /**
+     * The date and time of the newest price of the bucket.
+     */
+    @Column(name = "last_time", nullable = false)
+    private LocalDateTime lastTime;
+
+    /**
+     * The lowest price of the bucket.
+     */
+    @Column(name = "min_price", nullable = false, precision = 25, scale = 7)
+    private BigDecimal minPrice;
+
+    /**
+     * The highest price of the bucket.
+     */
+    @Column(name = "max_price", nullable = false, precision = 25, scale = 7)
+    private BigDecimal maxPrice;
+
+    /**
+     * The number of the prices of the bucket.
+     */
+    @Column(name = "row_count", nullable = false)
+    private long rowCount;
+}
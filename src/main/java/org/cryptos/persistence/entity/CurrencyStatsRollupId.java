@@ -0,0 +1,42 @@
+package org.cryptos.persistence.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * Primary key of {@link CurrencyStatsRollupEntity}: the currency, the granularity and the start of the bucket.
+ */
+@Embeddable
+@Getter
+@Setter
+@EqualsAndHashCode
+@AllArgsConstructor
+@NoArgsConstructor
+public class CurrencyStatsRollupId implements Serializable {
+
+    /**
+     * The symbol of the currency ("BTC", "ETH"), refers to "currency" table.
+     */
+    @Column(name = "currency_id", nullable = false)
+    private String currencyId;
+
+    /**
+     * The name of the {@link org.cryptos.persistence.repository.RollupGranularity} of the bucket.
+     */
+    @Column(name = "granularity", nullable = false, length = 8)
+    private String granularity;
+
+    /**
+     * The start of the bucket, the date and time truncated to the granularity.
+     */
+    @Column(name = "bucket_start", nullable = false)
+    private LocalDateTime bucketStart;
+}
@@ -0,0 +1,19 @@
+package org.cryptos.persistence.entity;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Lightweight row of the "currency_stats" table used by bulk write paths.
+ * Unlike {@link CurrencyStatsEntity} it is not managed by the persistence context,
+ * so it can be streamed straight into the database without dirty-tracking.
+ *
+ * @param symbol   the symbol of the currency ("BTC", "ETH"), refers to "currency" table
+ * @param dateTime the date and time when the currency price was actual
+ * @param price    the price of the currency at the specified date and time
+ */
+public record CurrencyStatsRow(
+        String symbol,
+        LocalDateTime dateTime,
+        BigDecimal price) {
+}
@@ -0,0 +1,19 @@
+package org.cryptos.persistence.entity;
+
+import java.time.LocalDateTime;
+
+/**
+ * Projection interface to get the date and time of the newest statistics of the currency with its symbol.
+ * This interface is used for queries that return the high-water mark of the loaded statistics of a particular currency.
+ */
+public interface CurrencyStatsWatermarkProjection {
+    /**
+     * Gets the symbol of the currency ("BTC", "ETH").
+     */
+    String getSymbol();
+
+    /**
+     * Gets the date and time of the newest statistics of this currency.
+     */
+    LocalDateTime getNewestDate();
+}
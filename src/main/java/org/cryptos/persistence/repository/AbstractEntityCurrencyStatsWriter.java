@@ -0,0 +1,39 @@
+package org.cryptos.persistence.repository;
+
+import org.cryptos.persistence.entity.CurrencyEntity;
+import org.cryptos.persistence.entity.CurrencyStatsEntity;
+import org.cryptos.persistence.entity.CurrencyStatsRow;
+
+import java.util.function.Function;
+
+/**
+ * Base class for the {@link CurrencyStatsWriter} implementations persisting the rows as {@link CurrencyStatsEntity}.
+ * The {@link CurrencyEntity} of every row is provided by the resolver, so no extra query per row is needed.
+ */
+abstract class AbstractEntityCurrencyStatsWriter implements CurrencyStatsWriter {
+
+    private final Function<String, CurrencyEntity> currencyResolver;
+
+    /**
+     * Creates a writer resolving the currencies with the given function.
+     *
+     * @param currencyResolver resolves the {@link CurrencyEntity} for the row symbol
+     */
+    protected AbstractEntityCurrencyStatsWriter(Function<String, CurrencyEntity> currencyResolver) {
+        this.currencyResolver = currencyResolver;
+    }
+
+    /**
+     * Converts {@link CurrencyStatsRow} to a new {@link CurrencyStatsEntity}.
+     *
+     * @param row the row to be converted
+     * @return the corresponding {@link CurrencyStatsEntity}
+     */
+    protected CurrencyStatsEntity convertToEntity(CurrencyStatsRow row) {
+        var entity = new CurrencyStatsEntity();
+        entity.setDateTime(row.dateTime());
+        entity.setCurrency(currencyResolver.apply(row.symbol()));
+        entity.setPrice(row.price());
+        return entity;
+    }
+}
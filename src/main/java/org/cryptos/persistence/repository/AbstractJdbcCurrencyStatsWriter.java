@@ -0,0 +1,108 @@
+package org.cryptos.persistence.repository;
+
+import org.cryptos.persistence.entity.CurrencyStatsRow;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.UncategorizedSQLException;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.jdbc.support.SQLExceptionTranslator;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Base class for the {@link CurrencyStatsWriter} implementations working on a plain JDBC {@link Connection}.
+ * Keeps track of the written rows, translates {@link SQLException} to Spring {@link DataAccessException}
+ * and returns the connection to the {@link DataSource} when the writer is closed.
+ */
+abstract class AbstractJdbcCurrencyStatsWriter implements CurrencyStatsWriter {
+
+    protected final Connection connection;
+    private final DataSource dataSource;
+    private final SQLExceptionTranslator exceptionTranslator;
+    private long writtenRows;
+    private boolean finished;
+
+    /**
+     * Creates a writer bound to the given connection.
+     *
+     * @param connection          the connection obtained from {@link DataSourceUtils}
+     * @param dataSource          the data source the connection belongs to
+     * @param exceptionTranslator the translator for {@link SQLException}
+     */
+    protected AbstractJdbcCurrencyStatsWriter(Connection connection,
+                                              DataSource dataSource,
+                                              SQLExceptionTranslator exceptionTranslator) {
+        this.connection = connection;
+        this.dataSource = dataSource;
+        this.exceptionTranslator = exceptionTranslator;
+    }
+
+    @Override
+    public final void write(List<CurrencyStatsRow> rows) {
+        try {
+            doWrite(rows);
+            writtenRows += rows.size();
+        } catch (SQLException e) {
+            throw translate("Write currency stats", e);
+        }
+    }
+
+    @Override
+    public final long finish() {
+        try {
+            doFinish();
+            finished = true;
+            return writtenRows;
+        } catch (SQLException e) {
+            throw translate("Finish currency stats write", e);
+        }
+    }
+
+    @Override
+    public final void close() {
+        try {
+            doClose(finished);
+        } catch (SQLException e) {
+            throw translate("Close currency stats writer", e);
+        } finally {
+            DataSourceUtils.releaseConnection(connection, dataSource);
+        }
+    }
+
+    /**
+     * Writes the rows using the bound connection.
+     *
+     * @param rows the rows to be written
+     * @throws SQLException if the database rejects the rows
+     */
+    protected abstract void doWrite(List<CurrencyStatsRow> rows) throws SQLException;
+
+    /**
+     * Sends all the buffered rows to the database.
+     *
+     * @throws SQLException if the database rejects the rows
+     */
+    protected abstract void doFinish() throws SQLException;
+
+    /**
+     * Releases the JDBC resources of the writer, the connection itself is released by the caller.
+     *
+     * @param finished true if {@link #finish()} was completed successfully
+     * @throws SQLException if the resources could not be released
+     */
+    protected abstract void doClose(boolean finished) throws SQLException;
+
+    /**
+     * Translates {@link SQLException} to Spring {@link DataAccessException}.
+     *
+     * @param task the description of the task that failed
+     * @param ex   the exception to be translated
+     * @return the translated exception
+     */
+    private DataAccessException translate(String task, SQLException ex) {
+        DataAccessException translated = exceptionTranslator.translate(task, null, ex);
+        return translated != null ? translated : new UncategorizedSQLException(task, null, ex);
+    }
+}
@@ -0,0 +1,16 @@
+package org.cryptos.persistence.repository;
+
+/**
+ * Defines how the upsert writer handles the row which already exists for the same currency and date time.
+ * The action is selected by the "currency.create-stats.on-conflict" property.
+ */
+public enum ConflictAction {
+    /**
+     * The existing row is kept, the new row is skipped.
+     */
+    NOTHING,
+    /**
+     * The price of the existing row is replaced with the new one.
+     */
+    UPDATE
+}
@@ -0,0 +1,80 @@
+package org.cryptos.persistence.repository;
+
+import org.cryptos.persistence.entity.CurrencyStatsRow;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.springframework.jdbc.support.SQLExceptionTranslator;
+
+import javax.sql.DataSource;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * PostgreSQL {@link CurrencyStatsWriter} based on the COPY protocol.
+ * A single "COPY ... FROM STDIN" operation is kept open for the whole writer lifetime,
+ * every written batch is encoded as CSV and streamed into it, so the rows are not parsed as separate INSERT statements.
+ * Identifiers are assigned by the "id" column default taken from the "currency_stats_seq" sequence.
+ */
+class CopyCurrencyStatsWriter extends AbstractJdbcCurrencyStatsWriter {
+
+    private static final String COPY_SQL =
+            "COPY currency_stats (currency_id, date_time, price) FROM STDIN WITH (FORMAT csv)";
+
+    private final CopyIn copyIn;
+    private final StringBuilder buffer = new StringBuilder();
+
+    /**
+     * Starts COPY operation on the given PostgreSQL connection.
+     *
+     * @param connection          the connection obtained from {@link org.springframework.jdbc.datasource.DataSourceUtils}
+     * @param dataSource          the data source the connection belongs to
+     * @param exceptionTranslator the translator for {@link SQLException}
+     * @throws SQLException if COPY operation could not be started
+     */
+    CopyCurrencyStatsWriter(Connection connection,
+                                DataSource dataSource,
+                                SQLExceptionTranslator exceptionTranslator) throws SQLException {
+        super(connection, dataSource, exceptionTranslator);
+        this.copyIn = connection.unwrap(PGConnection.class).getCopyAPI().copyIn(COPY_SQL);
+    }
+
+    @Override
+    protected void doWrite(List<CurrencyStatsRow> rows) throws SQLException {
+        buffer.setLength(0);
+        for (CurrencyStatsRow row : rows) {
+            appendCsvValue(row.symbol());
+            buffer.append(',').append(row.dateTime())
+                    .append(',').append(row.price().toPlainString())
+                    .append('\n');
+        }
+        byte[] bytes = buffer.toString().getBytes(StandardCharsets.UTF_8);
+        copyIn.writeToCopy(bytes, 0, bytes.length);
+    }
+
+    @Override
+    protected void doFinish() throws SQLException {
+        copyIn.endCopy();
+    }
+
+    @Override
+    protected void doClose(boolean finished) throws SQLException {
+        if (copyIn.isActive()) {
+            copyIn.cancelCopy();
+        }
+    }
+
+    /**
+     * Appends the value to the buffer, quoting it if it contains CSV special characters.
+     *
+     * @param value the value to be appended
+     */
+    private void appendCsvValue(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+            buffer.append(value);
+            return;
+        }
+        buffer.append('"').append(value.replace("\"", "\"\"")).append('"');
+    }
+}
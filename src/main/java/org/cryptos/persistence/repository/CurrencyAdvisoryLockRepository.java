@@ -0,0 +1,42 @@
+package org.cryptos.persistence.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repository of the PostgreSQL transaction level advisory locks of the currencies.
+ * The locks are taken on the connection of the current Spring transaction and released by PostgreSQL
+ * when the transaction is committed or rolled back, so they are held by the whole upload.
+ * Every currency is locked by the key combining the namespace of the application with the hash of its symbol,
+ * the different symbols with the same hash just share the lock.
+ */
+@Repository
+@RequiredArgsConstructor
+public class CurrencyAdvisoryLockRepository {
+
+    private static final long KEY_NAMESPACE = 0x43525950L << Integer.SIZE;
+    private static final String TRY_LOCK_SQL = "SELECT pg_try_advisory_xact_lock(?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Calculates the advisory lock key of the currency.
+     *
+     * @param symbol the normalized symbol of the currency
+     * @return the key of the lock
+     */
+    public long lockKey(String symbol) {
+        return KEY_NAMESPACE | Integer.toUnsignedLong(symbol.hashCode());
+    }
+
+    /**
+     * Tries to lock the key until the end of the current transaction without waiting.
+     *
+     * @param key the key of the lock
+     * @return true if the lock is held by the current transaction, false if another transaction holds it
+     */
+    public boolean tryLock(long key) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(TRY_LOCK_SQL, Boolean.class, key));
+    }
+}
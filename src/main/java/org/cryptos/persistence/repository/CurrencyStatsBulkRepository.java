@@ -0,0 +1,122 @@
+package org.cryptos.persistence.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.cryptos.persistence.entity.CurrencyStatsEntity;
+import org.cryptos.persistence.repository.JdbcBatchCurrencyStatsWriter.InsertSql;
+import org.postgresql.PGConnection;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.UncategorizedSQLException;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.jdbc.support.SQLExceptionSubclassTranslator;
+import org.springframework.jdbc.support.SQLExceptionTranslator;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Repository for bulk writes into the "currency_stats" table bypassing the JPA persistence context.
+ * PostgreSQL is written using the COPY protocol, any other database (H2) using multi-row JDBC batches.
+ * The upsert writers rely on the unique constraint on "currency_id" and "date_time".
+ * Writers are bound to the connection of the current Spring transaction, so the rows are committed
+ * or rolled back together with it.
+ */
+@Repository
+@RequiredArgsConstructor
+public class CurrencyStatsBulkRepository {
+
+    private final DataSource dataSource;
+    private final SQLExceptionTranslator exceptionTranslator = new SQLExceptionSubclassTranslator();
+
+    /**
+     * Opens a new {@link CurrencyStatsWriter} suitable for the underlying database.
+     * The writer must be closed by the caller.
+     *
+     * @return the writer bound to the current transaction connection
+     */
+    public CurrencyStatsWriter openWriter() {
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        try {
+            if (connection.isWrapperFor(PGConnection.class)) {
+                return new CopyCurrencyStatsWriter(connection, dataSource, exceptionTranslator);
+            }
+            return new JdbcBatchCurrencyStatsWriter(connection, dataSource, exceptionTranslator);
+        } catch (SQLException e) {
+            DataSourceUtils.releaseConnection(connection, dataSource);
+            throw translate("Open currency stats writer", e);
+        }
+    }
+
+    /**
+     * Opens a new {@link CurrencyStatsWriter} upserting the rows by the unique currency and date time.
+     * PostgreSQL is written with "INSERT ... ON CONFLICT", H2 with "INSERT ... ON CONFLICT DO NOTHING"
+     * or "MERGE ... USING" for updates. The writer must be closed by the caller.
+     *
+     * @param conflictAction the handling of the rows which already exist
+     * @return the writer bound to the current transaction connection
+     */
+    public CurrencyStatsWriter openUpsertWriter(ConflictAction conflictAction) {
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        try {
+            InsertSql upsertSql = connection.isWrapperFor(PGConnection.class)
+                    ? postgresUpsertSql(conflictAction)
+                    : h2UpsertSql(conflictAction);
+            return new JdbcBatchCurrencyStatsWriter(connection, dataSource, exceptionTranslator,
+                    upsertSql, conflictAction == ConflictAction.UPDATE);
+        } catch (SQLException e) {
+            DataSourceUtils.releaseConnection(connection, dataSource);
+            throw translate("Open currency stats upsert writer", e);
+        }
+    }
+
+    /**
+     * Builds the PostgreSQL upsert, the identifiers are assigned by the "id" column default.
+     *
+     * @param conflictAction the handling of the rows which already exist
+     * @return the upsert statement
+     */
+    private InsertSql postgresUpsertSql(ConflictAction conflictAction) {
+        String onConflict = switch (conflictAction) {
+            case NOTHING -> " ON CONFLICT (currency_id, date_time) DO NOTHING";
+            case UPDATE -> " ON CONFLICT (currency_id, date_time) DO UPDATE SET price = EXCLUDED.price";
+        };
+        return new InsertSql("INSERT INTO currency_stats (currency_id, date_time, price) VALUES ", "(?, ?, ?)", onConflict);
+    }
+
+    /**
+     * Builds the H2 upsert, the identifiers are taken from the "currency_stats_seq" sequence.
+     * H2 supports only "ON CONFLICT DO NOTHING", the updates are made by "MERGE ... USING", which updates
+     * only the price of the existing row and keeps its id, as "ON CONFLICT DO UPDATE" of PostgreSQL does.
+     *
+     * @param conflictAction the handling of the rows which already exist
+     * @return the upsert statement
+     */
+    private InsertSql h2UpsertSql(ConflictAction conflictAction) {
+        InsertSql insert = JdbcBatchCurrencyStatsWriter.INSERT;
+        return switch (conflictAction) {
+            case NOTHING -> new InsertSql(insert.prefix(), insert.values(), " ON CONFLICT DO NOTHING");
+            case UPDATE -> new InsertSql(
+                    "MERGE INTO currency_stats target USING (VALUES ",
+                    "(CAST(? AS VARCHAR(255)), CAST(? AS TIMESTAMP(6)), CAST(? AS NUMERIC(25, 7)))",
+                    ") AS source (currency_id, date_time, price)"
+                            + " ON target.currency_id = source.currency_id AND target.date_time = source.date_time"
+                            + " WHEN MATCHED THEN UPDATE SET price = source.price"
+                            + " WHEN NOT MATCHED THEN INSERT (id, currency_id, date_time, price)"
+                            + " VALUES (NEXT VALUE FOR " + CurrencyStatsEntity.ID_SEQUENCE
+                            + ", source.currency_id, source.date_time, source.price)");
+        };
+    }
+
+    /**
+     * Translates {@link SQLException} to Spring {@link DataAccessException}.
+     *
+     * @param task the description of the task that failed
+     * @param ex   the exception to be translated
+     * @return the translated exception
+     */
+    private DataAccessException translate(String task, SQLException ex) {
+        DataAccessException translated = exceptionTranslator.translate(task, null, ex);
+        return translated != null ? translated : new UncategorizedSQLException(task, null, ex);
+    }
+}
@@ -0,0 +1,65 @@
+package org.cryptos.persistence.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+/**
+ * Repository removing the duplicated rows of the "currency_stats" table, the rows with the same currency and date time.
+ * Of every group of duplicates the row with the lowest id is kept.
+ * The rows are deleted in the ranges of ids, every range is deleted by a separate statement in its own transaction,
+ * so only the deleted rows of one range are locked at a time. The duplicates of every row are looked up
+ * by the currency and the date time, so the index "idx_currency_stats_currency_date_time" of the migration script
+ * "currency_stats_dedup_index.sql" must exist, otherwise every range scans all the prices of its currencies.
+ */
+@Repository
+@RequiredArgsConstructor
+public class CurrencyStatsDeduplicationRepository {
+
+    private static final String ID_RANGE_SQL = "SELECT MIN(id), MAX(id) FROM currency_stats";
+    private static final String DELETE_DUPLICATES_SQL = """
+            DELETE FROM currency_stats
+            WHERE id BETWEEN ? AND ?
+              AND EXISTS (SELECT 1 FROM currency_stats kept
+                          WHERE kept.currency_id = currency_stats.currency_id
+                            AND kept.date_time = currency_stats.date_time
+                            AND kept.id < currency_stats.id)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Finds the range of the ids of the table.
+     *
+     * @return the lowest and the highest id, or empty if the table is empty
+     */
+    public Optional<IdRange> findIdRange() {
+        return jdbcTemplate.query(ID_RANGE_SQL, resultSet -> {
+            resultSet.next();
+            long minId = resultSet.getLong(1);
+            return resultSet.wasNull() ? Optional.<IdRange>empty() : Optional.of(new IdRange(minId, resultSet.getLong(2)));
+        });
+    }
+
+    /**
+     * Deletes the duplicated rows with the ids in the given range.
+     *
+     * @param fromId the lowest id of the range (inclusive)
+     * @param toId   the highest id of the range (inclusive)
+     * @return the number of deleted rows
+     */
+    public int deleteDuplicates(long fromId, long toId) {
+        return jdbcTemplate.update(DELETE_DUPLICATES_SQL, fromId, toId);
+    }
+
+    /**
+     * Range of the ids of the "currency_stats" table.
+     *
+     * @param minId the lowest id
+     * @param maxId the highest id
+     */
+    public record IdRange(long minId, long maxId) {
+    }
+}
@@ -3,6 +3,7 @@ package org.cryptos.persistence.repository;
 import org.cryptos.persistence.entity.CurrencyNormalizedPriceProjection;
 import org.cryptos.persistence.entity.CurrencyStatsEntity;
 import org.cryptos.persistence.entity.CurrencyStatsMinMaxProjection;
+import org.cryptos.persistence.entity.CurrencyStatsWatermarkProjection;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -45,6 +46,33 @@ public interface CurrencyStatsRepository extends JpaRepository<CurrencyStatsEnti
                                                               @Param("endDate") LocalDateTime endDate);
 
 
+    /**
+     * Finds the date and time of the newest statistics of the currency, the high-water mark of the loaded data.
+     *
+     * @param currencySymbol the symbol of the currency ("BTC", "ETH")
+     * @return an {@link Optional} containing the newest date and time, or empty if no statistics are stored
+     */
+    @Query("""
+            SELECT MAX(cstats.dateTime)
+            FROM CurrencyStatsEntity cstats
+            WHERE cstats.currency.symbol = :currencySymbol
+            """)
+    Optional<LocalDateTime> findNewestDateTimeBySymbol(@Param("currencySymbol") String currencySymbol);
+
+    /**
+     * Finds the date and time of the newest statistics of every currency with stored statistics.
+     *
+     * @return a list of {@link CurrencyStatsWatermarkProjection} with the newest date and time of every currency
+     */
+    @Query("""
+            SELECT c.symbol AS symbol,
+                   MAX(cstats.dateTime) AS newestDate
+            FROM CurrencyStatsEntity cstats
+            JOIN cstats.currency c
+            GROUP BY c.symbol
+            """)
+    List<CurrencyStatsWatermarkProjection> findNewestDateTimes();
+
     /**
      * Retrieves the normalized price for all currencies within a given date range.
      * The normalized price is calculated as (max price - min price) / min price.
@@ -0,0 +1,276 @@
+package org.cryptos.persistence.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.cryptos.persistence.entity.CurrencyNormalizedPriceProjection;
+import org.cryptos.persistence.entity.CurrencyStatsMinMaxProjection;
+import org.springframework.data.projection.ProjectionFactory;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Repository of the "currency_stats_rollup" table, the statistics of every currency pre-aggregated into the buckets
+ * of every {@link RollupGranularity}. The buckets of a period are recalculated from the finer buckets, the minutes
+ * from "currency_stats", so the rollups may be refreshed after any change of the prices. The statistics of a period
+ * are aggregated in one statement from the rollups of the periods covered by whole buckets and from the prices
+ * at the edges, with the same expressions as {@link CurrencyStatsRepository}, so the results are identical.
+ * The normalized price of every currency of every day is kept in the "currency_stats_daily_range" table,
+ * recalculated from the daily buckets, so the currency with the highest one of a day is found by the day.
+ */
+@Repository
+@RequiredArgsConstructor
+public class CurrencyStatsRollupRepository {
+
+    private static final ProjectionFactory PROJECTION_FACTORY = new SpelAwareProxyProjectionFactory();
+    private static final String DELETE_BUCKETS_SQL = """
+            DELETE FROM currency_stats_rollup
+            WHERE currency_id = ? AND granularity = ? AND bucket_start >= ? AND bucket_start < ?
+            """;
+    private static final String ROLL_UP_PRICES_SQL = """
+            INSERT INTO currency_stats_rollup
+                (currency_id, granularity, bucket_start, first_time, last_time, min_price, max_price, row_count)
+            SELECT currency_id, '%1$s', DATE_TRUNC('%2$s', date_time),
+                   MIN(date_time), MAX(date_time), MIN(price), MAX(price), COUNT(*)
+            FROM currency_stats
+            WHERE currency_id = ? AND date_time >= ? AND date_time < ?
+            GROUP BY currency_id, DATE_TRUNC('%2$s', date_time)
+            """;
+    private static final String ROLL_UP_BUCKETS_SQL = """
+            INSERT INTO currency_stats_rollup
+                (currency_id, granularity, bucket_start, first_time, last_time, min_price, max_price, row_count)
+            SELECT currency_id, '%1$s', DATE_TRUNC('%2$s', bucket_start),
+                   MIN(first_time), MAX(last_time), MIN(min_price), MAX(max_price), SUM(row_count)
+            FROM currency_stats_rollup
+            WHERE currency_id = ? AND granularity = '%3$s' AND bucket_start >= ? AND bucket_start < ?
+            GROUP BY currency_id, DATE_TRUNC('%2$s', bucket_start)
+            """;
+    private static final String PRICES_PART_SQL = """
+            SELECT currency_id, date_time AS first_time, date_time AS last_time, price AS min_price, price AS max_price
+            FROM currency_stats
+            WHERE date_time >= ? AND date_time < ?""";
+    private static final String BUCKETS_PART_SQL = """
+            SELECT currency_id, first_time, last_time, min_price, max_price
+            FROM currency_stats_rollup
+            WHERE granularity = '%s' AND bucket_start >= ? AND bucket_start < ?""";
+    private static final String STATS_SQL = """
+            SELECT currency_id AS symbol,
+                   MIN(first_time) AS oldest_date,
+                   MAX(last_time) AS newest_date,
+                   MIN(min_price) AS min_price,
+                   MAX(max_price) AS max_price,
+                   (MAX(max_price) - MIN(min_price)) / MIN(min_price) AS normalized_price
+            FROM (%s) parts
+            GROUP BY currency_id
+            ORDER BY normalized_price DESC
+            """;
+    private static final String DELETE_DAILY_RANGES_SQL = """
+            DELETE FROM currency_stats_daily_range
+            WHERE currency_id = ? AND price_date >= ? AND price_date < ?
+            """;
+    private static final String INSERT_DAILY_RANGES_SQL = """
+            INSERT INTO currency_stats_daily_range (price_date, currency_id, min_price, max_price, normalized_price)
+            SELECT CAST(bucket_start AS DATE), currency_id, min_price, max_price,
+                   CASE WHEN min_price = 0 THEN NULL ELSE (max_price - min_price) / min_price END
+            FROM currency_stats_rollup
+            WHERE currency_id = ? AND granularity = 'DAY' AND bucket_start >= ? AND bucket_start < ?
+            """;
+    private static final String HIGHEST_DAILY_RANGE_SQL = """
+            SELECT currency_id AS symbol, (max_price - min_price) / min_price AS normalized_price
+            FROM currency_stats_daily_range
+            WHERE price_date = ? AND normalized_price IS NOT NULL
+            ORDER BY normalized_price DESC, currency_id
+            LIMIT 1
+            """;
+    private static final String DATE_RANGE_SQL = """
+            SELECT MIN(date_time), MAX(date_time)
+            FROM currency_stats
+            WHERE currency_id = ?
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Period of the statistics read from the buckets of the granularity, or from the prices.
+     *
+     * @param granularity the granularity of the buckets, or null if the prices are read
+     * @param from        the start of the period (inclusive), the start of a bucket
+     * @param to          the end of the period (exclusive), the start of a bucket
+     */
+    public record RollupRange(RollupGranularity granularity, LocalDateTime from, LocalDateTime to) {
+    }
+
+    /**
+     * Dates and times of the oldest and the newest price of a currency.
+     *
+     * @param oldest the date and time of the oldest price
+     * @param newest the date and time of the newest price
+     */
+    public record DateRange(LocalDateTime oldest, LocalDateTime newest) {
+    }
+
+    /**
+     * Recalculates the buckets of the granularity starting in the period from the finer buckets,
+     * the minutes from the prices. The buckets without prices are removed.
+     *
+     * @param symbol      the symbol of the currency
+     * @param granularity the granularity of the recalculated buckets
+     * @param from        the start of the period (inclusive), the start of a bucket
+     * @param to          the end of the period (exclusive), the start of a bucket
+     * @return the number of the recalculated buckets
+     */
+    public int rollUp(String symbol, RollupGranularity granularity, LocalDateTime from, LocalDateTime to) {
+        jdbcTemplate.update(DELETE_BUCKETS_SQL, symbol, granularity.name(), from, to);
+        if (granularity.ordinal() == 0) {
+            return jdbcTemplate.update(ROLL_UP_PRICES_SQL.formatted(granularity.name(), granularity.sqlUnit()),
+                    symbol, from, to);
+        }
+        RollupGranularity finer = RollupGranularity.values()[granularity.ordinal() - 1];
+        return jdbcTemplate.update(ROLL_UP_BUCKETS_SQL.formatted(granularity.name(), granularity.sqlUnit(), finer.name()),
+                symbol, from, to);
+    }
+
+    /**
+     * Recalculates the normalized prices of the currency of the days in the period from the daily buckets,
+     * which must be recalculated first. The days without prices are removed.
+     *
+     * @param symbol  the symbol of the currency
+     * @param fromDay the first day of the period (inclusive)
+     * @param toDay   the last day of the period (exclusive)
+     * @return the number of the recalculated days
+     */
+    public int refreshDailyRanges(String symbol, LocalDate fromDay, LocalDate toDay) {
+        jdbcTemplate.update(DELETE_DAILY_RANGES_SQL, symbol, fromDay, toDay);
+        return jdbcTemplate.update(INSERT_DAILY_RANGES_SQL, symbol, fromDay.atStartOfDay(), toDay.atStartOfDay());
+    }
+
+    /**
+     * Finds the currency with the highest normalized price of the day, of the currencies with the same
+     * normalized price the one with the first symbol.
+     *
+     * @param day the day
+     * @return an {@link Optional} containing the {@link CurrencyNormalizedPriceProjection}, if any prices are stored
+     */
+    public Optional<CurrencyNormalizedPriceProjection> findHighestDailyRange(LocalDate day) {
+        return jdbcTemplate.query(HIGHEST_DAILY_RANGE_SQL, (resultSet, rowNum) -> {
+                    Map<String, Object> row = new HashMap<>();
+                    row.put("symbol", resultSet.getString("symbol"));
+                    row.put("normalizedPrice", resultSet.getBigDecimal("normalized_price"));
+                    return toProjection(CurrencyNormalizedPriceProjection.class, row);
+                }, day).stream()
+                .findFirst();
+    }
+
+    /**
+     * Finds the date and time of the oldest and the newest price of the currency.
+     *
+     * @param symbol the symbol of the currency
+     * @return the oldest and the newest date and time, or empty if no prices are stored
+     */
+    public Optional<DateRange> findDateRange(String symbol) {
+        return jdbcTemplate.query(DATE_RANGE_SQL, resultSet -> {
+            resultSet.next();
+            LocalDateTime oldest = resultSet.getObject(1, LocalDateTime.class);
+            return oldest == null
+                    ? Optional.<DateRange>empty()
+                    : Optional.of(new DateRange(oldest, resultSet.getObject(2, LocalDateTime.class)));
+        }, symbol);
+    }
+
+    /**
+     * Finds the statistics of the currency for the period split into the ranges,
+     * the same as {@link CurrencyStatsRepository#findStatsBySymbol} of the whole period.
+     *
+     * @param symbol the symbol of the currency
+     * @param ranges the adjacent ranges of the period
+     * @return an {@link Optional} containing the {@link CurrencyStatsMinMaxProjection}, if found
+     */
+    public Optional<CurrencyStatsMinMaxProjection> findStatsBySymbol(String symbol, List<RollupRange> ranges) {
+        return findStats(symbol, ranges).stream()
+                .findFirst()
+                .map(row -> toProjection(CurrencyStatsMinMaxProjection.class, row));
+    }
+
+    /**
+     * Finds the normalized price of all the currencies for the period split into the ranges,
+     * the same as {@link CurrencyStatsRepository#getNormalizedPricesForAllCurrenciesDesc} of the whole period.
+     *
+     * @param ranges the adjacent ranges of the period
+     * @return a list of {@link CurrencyNormalizedPriceProjection} ordered by the normalized price descending
+     */
+    public List<CurrencyNormalizedPriceProjection> getNormalizedPricesDesc(List<RollupRange> ranges) {
+        return findStats(null, ranges).stream()
+                .map(row -> toProjection(CurrencyNormalizedPriceProjection.class, row))
+                .toList();
+    }
+
+    /**
+     * Aggregates the statistics of the ranges by the currency in one statement.
+     *
+     * @param symbol the symbol of the currency, or null for all the currencies
+     * @param ranges the adjacent ranges of the period
+     * @return the statistics of every currency as the map of the projection properties
+     */
+    private List<Map<String, Object>> findStats(String symbol, List<RollupRange> ranges) {
+        if (ranges.isEmpty()) {
+            return List.of();
+        }
+        List<Object> parameters = new ArrayList<>();
+        String parts = ranges.stream()
+                .map(range -> {
+                    parameters.add(range.from());
+                    parameters.add(range.to());
+                    String part = range.granularity() == null
+                            ? PRICES_PART_SQL
+                            : BUCKETS_PART_SQL.formatted(range.granularity().name());
+                    if (symbol == null) {
+                        return part;
+                    }
+                    parameters.add(symbol);
+                    return part + " AND currency_id = ?";
+                })
+                .collect(Collectors.joining("\nUNION ALL\n"));
+        return jdbcTemplate.query(STATS_SQL.formatted(parts), (resultSet, rowNum) -> mapStats(resultSet),
+                parameters.toArray());
+    }
+
+    /**
+     * Creates the projection backed by the map of its properties.
+     *
+     * @param projectionType the type of the projection
+     * @param row            the properties of the projection
+     * @param <T>            the type of the projection
+     * @return the projection
+     */
+    private static <T> T toProjection(Class<T> projectionType, Map<String, Object> row) {
+        return PROJECTION_FACTORY.createProjection(projectionType, row);
+    }
+
+    /**
+     * Maps the statistics of a currency to the properties of the projections.
+     *
+     * @param resultSet the result set positioned on the statistics of a currency
+     * @return the map of the projection properties
+     * @throws SQLException if a column could not be read
+     */
+    private Map<String, Object> mapStats(ResultSet resultSet) throws SQLException {
+        Map<String, Object> row = new HashMap<>();
+        row.put("symbol", resultSet.getString("symbol"));
+        row.put("oldestDate", resultSet.getObject("oldest_date", LocalDateTime.class));
+        row.put("newestDate", resultSet.getObject("newest_date", LocalDateTime.class));
+        row.put("minPrice", resultSet.getBigDecimal("min_price"));
+        row.put("maxPrice", resultSet.getBigDecimal("max_price"));
+        row.put("normalizedPrice", resultSet.getBigDecimal("normalized_price"));
+        return row;
+    }
+}
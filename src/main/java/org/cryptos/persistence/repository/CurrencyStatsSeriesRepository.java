@@ -0,0 +1,63 @@
+package org.cryptos.persistence.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.time.LocalDateTime;
+
+/**
+ * Repository streaming all the rows of the "currency_stats" table, e.g. to build the price series in memory.
+ * The rows are fetched by the cursor in the chunks of {@value #FETCH_SIZE} rows, so the memory used by the query
+ * does not depend on the size of the table. PostgreSQL uses the cursor only inside a transaction.
+ */
+@Repository
+@RequiredArgsConstructor
+public class CurrencyStatsSeriesRepository {
+
+    private static final int FETCH_SIZE = 10_000;
+    private static final String ALL_PRICES_SQL = """
+            SELECT currency_id, date_time, price
+            FROM currency_stats
+            ORDER BY currency_id, date_time
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Consumer of the streamed prices.
+     */
+    @FunctionalInterface
+    public interface PriceConsumer {
+
+        /**
+         * Consumes the price of the currency.
+         *
+         * @param symbol   the symbol of the currency
+         * @param dateTime the date and time of the price
+         * @param price    the price
+         */
+        void accept(String symbol, LocalDateTime dateTime, BigDecimal price);
+    }
+
+    /**
+     * Streams all the prices ordered by the currency and the date and time.
+     *
+     * @param consumer the consumer of the prices, called for every row
+     */
+    @Transactional(readOnly = true)
+    public void streamAll(PriceConsumer consumer) {
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(ALL_PRICES_SQL);
+            statement.setFetchSize(FETCH_SIZE);
+            return statement;
+        }, (RowCallbackHandler) resultSet -> consumer.accept(
+                resultSet.getString(1),
+                resultSet.getTimestamp(2).toLocalDateTime(),
+                resultSet.getBigDecimal(3)));
+    }
+}
@@ -0,0 +1,41 @@
+package org.cryptos.persistence.repository;
+
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.cryptos.persistence.entity.CurrencyEntity;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.springframework.stereotype.Repository;
+
+import java.util.function.Function;
+
+/**
+ * Repository opening {@link StatelessCurrencyStatsWriter} for constant-memory writes into the "currency_stats" table.
+ * Every writer works on its own {@link StatelessSession} with its own connection and transactions,
+ * independent of the current Spring transaction.
+ */
+@Repository
+@RequiredArgsConstructor
+public class CurrencyStatsStatelessRepository {
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    /**
+     * Opens a new {@link StatelessCurrencyStatsWriter}. The writer must be closed by the caller.
+     *
+     * @param currencyResolver resolves the {@link CurrencyEntity} for the row symbol
+     * @param batchSize        the JDBC batch size of the session
+     * @param commitInterval   the number of rows committed in one transaction, 0 or less to commit only on finish
+     * @return the writer owning a new stateless session
+     */
+    public CurrencyStatsWriter openWriter(Function<String, CurrencyEntity> currencyResolver, int batchSize, int commitInterval) {
+        StatelessSession session = entityManagerFactory.unwrap(SessionFactory.class).openStatelessSession();
+        try {
+            session.setJdbcBatchSize(batchSize);
+            return new StatelessCurrencyStatsWriter(session, commitInterval, currencyResolver);
+        } catch (RuntimeException e) {
+            session.close();
+            throw e;
+        }
+    }
+}
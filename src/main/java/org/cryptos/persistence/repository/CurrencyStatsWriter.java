@@ -0,0 +1,35 @@
+package org.cryptos.persistence.repository;
+
+import org.cryptos.persistence.entity.CurrencyStatsRow;
+
+import java.util.List;
+
+/**
+ * Streaming writer of {@link CurrencyStatsRow} records into the "currency_stats" table.
+ * Instances are bound to the current transaction, see {@link JpaCurrencyStatsWriter}
+ * and {@link CurrencyStatsBulkRepository#openWriter()}.
+ * Rows passed to {@link #write(List)} may be buffered, so {@link #finish()} must be called to complete the write,
+ * {@link #close()} releases the resources and discards everything not finished yet.
+ */
+public interface CurrencyStatsWriter extends AutoCloseable {
+
+    /**
+     * Writes the rows into the "currency_stats" table.
+     *
+     * @param rows the rows to be written
+     */
+    void write(List<CurrencyStatsRow> rows);
+
+    /**
+     * Completes the write, all the rows passed before are sent to the database.
+     *
+     * @return the total number of rows written by this writer
+     */
+    long finish();
+
+    /**
+     * Releases the resources of the writer. If the writer was not finished, the pending rows are discarded.
+     */
+    @Override
+    void close();
+}
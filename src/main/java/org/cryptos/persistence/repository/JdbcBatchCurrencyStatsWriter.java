@@ -0,0 +1,184 @@
+package org.cryptos.persistence.repository;
+
+import org.cryptos.persistence.entity.CurrencyStatsEntity;
+import org.cryptos.persistence.entity.CurrencyStatsRow;
+import org.springframework.jdbc.support.SQLExceptionTranslator;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link CurrencyStatsWriter} sending multi-row statements in JDBC batches.
+ * Rows are grouped into multi-row "INSERT ... VALUES (...), (...)" statements which are sent as a single JDBC batch,
+ * the remainder which does not fill a whole statement is sent as a batch of single-row statements.
+ * The statement is defined by {@link InsertSql}, so the same writer is used for the plain inserts into the databases
+ * without COPY support (H2) and for the upserts into any database.
+ */
+class JdbcBatchCurrencyStatsWriter extends AbstractJdbcCurrencyStatsWriter {
+
+    static final int ROWS_PER_STATEMENT = 100;
+    /**
+     * Plain insert taking identifiers from the "currency_stats_seq" sequence shared with Hibernate.
+     */
+    static final InsertSql INSERT = new InsertSql(
+            "INSERT INTO currency_stats (id, currency_id, date_time, price) VALUES ",
+            "(NEXT VALUE FOR " + CurrencyStatsEntity.ID_SEQUENCE + ", ?, ?, ?)",
+            "");
+    private static final int COLUMNS = 3;
+
+    private final InsertSql insertSql;
+    private final boolean deduplicate;
+    private PreparedStatement multiRowStatement;
+    private PreparedStatement singleRowStatement;
+
+    /**
+     * Creates a writer of the plain inserts bound to the given connection.
+     *
+     * @param connection          the connection obtained from {@link org.springframework.jdbc.datasource.DataSourceUtils}
+     * @param dataSource          the data source the connection belongs to
+     * @param exceptionTranslator the translator for {@link SQLException}
+     */
+    JdbcBatchCurrencyStatsWriter(Connection connection,
+                                     DataSource dataSource,
+                                     SQLExceptionTranslator exceptionTranslator) {
+        this(connection, dataSource, exceptionTranslator, INSERT, false);
+    }
+
+    /**
+     * Creates a writer of the given statement bound to the given connection.
+     *
+     * @param connection          the connection obtained from {@link org.springframework.jdbc.datasource.DataSourceUtils}
+     * @param dataSource          the data source the connection belongs to
+     * @param exceptionTranslator the translator for {@link SQLException}
+     * @param insertSql           the statement writing the rows
+     * @param deduplicate         true to keep only the last row of the same currency and date time in a batch,
+     *                            required by "ON CONFLICT DO UPDATE" which cannot affect a row twice in one statement
+     */
+    JdbcBatchCurrencyStatsWriter(Connection connection,
+                                     DataSource dataSource,
+                                     SQLExceptionTranslator exceptionTranslator,
+                                     InsertSql insertSql,
+                                     boolean deduplicate) {
+        super(connection, dataSource, exceptionTranslator);
+        this.insertSql = insertSql;
+        this.deduplicate = deduplicate;
+    }
+
+    @Override
+    protected void doWrite(List<CurrencyStatsRow> batch) throws SQLException {
+        List<CurrencyStatsRow> rows = deduplicate ? deduplicate(batch) : batch;
+        int index = 0;
+        int multiRowStatements = rows.size() / ROWS_PER_STATEMENT;
+        if (multiRowStatements > 0) {
+            if (multiRowStatement == null) {
+                multiRowStatement = connection.prepareStatement(insertSql.build(ROWS_PER_STATEMENT));
+            }
+            for (int statement = 0; statement < multiRowStatements; statement++) {
+                for (int row = 0; row < ROWS_PER_STATEMENT; row++) {
+                    bind(multiRowStatement, row * COLUMNS, rows.get(index++));
+                }
+                multiRowStatement.addBatch();
+            }
+            multiRowStatement.executeBatch();
+        }
+        if (index < rows.size()) {
+            if (singleRowStatement == null) {
+                singleRowStatement = connection.prepareStatement(insertSql.build(1));
+            }
+            while (index < rows.size()) {
+                bind(singleRowStatement, 0, rows.get(index++));
+                singleRowStatement.addBatch();
+            }
+            singleRowStatement.executeBatch();
+        }
+    }
+
+    @Override
+    protected void doFinish() {
+        //every write is executed immediately, nothing is buffered
+    }
+
+    @Override
+    protected void doClose(boolean finished) throws SQLException {
+        try {
+            if (multiRowStatement != null) {
+                multiRowStatement.close();
+            }
+        } finally {
+            if (singleRowStatement != null) {
+                singleRowStatement.close();
+            }
+        }
+    }
+
+    /**
+     * Binds the row values to the statement parameters.
+     *
+     * @param statement the statement to bind the values to
+     * @param offset    the number of parameters preceding the row in the statement
+     * @param row       the row to be bound
+     * @throws SQLException if a value could not be bound
+     */
+    private void bind(PreparedStatement statement, int offset, CurrencyStatsRow row) throws SQLException {
+        statement.setString(offset + 1, row.symbol());
+        statement.setObject(offset + 2, row.dateTime());
+        statement.setBigDecimal(offset + 3, row.price());
+    }
+
+    /**
+     * Keeps only the last row of every currency and date time, preserving the order of the rows.
+     *
+     * @param rows the rows to be written
+     * @return the rows without duplicates
+     */
+    private static List<CurrencyStatsRow> deduplicate(List<CurrencyStatsRow> rows) {
+        Map<CurrencyStatsRowKey, CurrencyStatsRow> unique = new LinkedHashMap<>(rows.size() * 2);
+        for (CurrencyStatsRow row : rows) {
+            unique.put(new CurrencyStatsRowKey(row.symbol(), row.dateTime()), row);
+        }
+        return unique.size() == rows.size() ? rows : new ArrayList<>(unique.values());
+    }
+
+    /**
+     * Statement writing the rows, built of the prefix, the value tuples separated by comma and the suffix.
+     *
+     * @param prefix the beginning of the statement up to the value tuples ("INSERT INTO ... VALUES ")
+     * @param values the value tuple with 3 parameters: currency id, date time, price
+     * @param suffix the end of the statement after the value tuples (" ON CONFLICT ...")
+     */
+    record InsertSql(String prefix, String values, String suffix) {
+
+        /**
+         * Builds the statement with the given number of value tuples.
+         *
+         * @param rows the number of rows written by the statement
+         * @return the SQL of the statement
+         */
+        String build(int rows) {
+            var sql = new StringBuilder(prefix);
+            for (int row = 0; row < rows; row++) {
+                if (row > 0) {
+                    sql.append(", ");
+                }
+                sql.append(values);
+            }
+            return sql.append(suffix).toString();
+        }
+    }
+
+    /**
+     * Natural key of the currency statistics row.
+     *
+     * @param symbol   the currency symbol
+     * @param dateTime the date and time of the price
+     */
+    private record CurrencyStatsRowKey(String symbol, LocalDateTime dateTime) {
+    }
+}
@@ -0,0 +1,59 @@
+package org.cryptos.persistence.repository;
+
+import jakarta.persistence.EntityManager;
+import org.cryptos.persistence.entity.CurrencyEntity;
+import org.cryptos.persistence.entity.CurrencyStatsEntity;
+import org.cryptos.persistence.entity.CurrencyStatsRow;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * {@link CurrencyStatsWriter} which converts the rows to {@link CurrencyStatsEntity}
+ * and persists them through {@link CurrencyStatsRepository#saveAll(Iterable)}.
+ * Each call of {@link #write(List)} is saved as one batch, then the persistence context is flushed and cleared,
+ * so the memory used by the writer does not grow with the number of written rows.
+ */
+public class JpaCurrencyStatsWriter extends AbstractEntityCurrencyStatsWriter {
+
+    private final CurrencyStatsRepository currencyStatsRepository;
+    private final EntityManager entityManager;
+    private long writtenRows;
+
+    /**
+     * Creates a writer saving the entities with the given repository.
+     *
+     * @param currencyStatsRepository the repository to save the entities with
+     * @param entityManager           the entity manager of the current transaction
+     * @param currencyResolver        resolves the {@link CurrencyEntity} for the row symbol
+     */
+    public JpaCurrencyStatsWriter(CurrencyStatsRepository currencyStatsRepository,
+                                  EntityManager entityManager,
+                                  Function<String, CurrencyEntity> currencyResolver) {
+        super(currencyResolver);
+        this.currencyStatsRepository = currencyStatsRepository;
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public void write(List<CurrencyStatsRow> rows) {
+        List<CurrencyStatsEntity> entities = rows.stream()
+                .map(this::convertToEntity)
+                .toList();
+        currencyStatsRepository.saveAll(entities);
+        //send the batch to DB and detach the entities, they are not needed anymore
+        entityManager.flush();
+        entityManager.clear();
+        writtenRows += entities.size();
+    }
+
+    @Override
+    public long finish() {
+        return writtenRows;
+    }
+
+    @Override
+    public void close() {
+        //entities are owned by the persistence context, nothing to release
+    }
+}
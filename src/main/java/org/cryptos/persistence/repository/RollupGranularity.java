@@ -0,0 +1,75 @@
+package org.cryptos.persistence.repository;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Locale;
+
+/**
+ * Defines the length of the time buckets of the "currency_stats_rollup" table, from the finest to the coarsest.
+ * Every granularity is aggregated from the finer one, the minutes from the "currency_stats" table.
+ */
+public enum RollupGranularity {
+    /**
+     * The buckets of one minute.
+     */
+    MINUTE(ChronoUnit.MINUTES),
+    /**
+     * The buckets of one hour.
+     */
+    HOUR(ChronoUnit.HOURS),
+    /**
+     * The buckets of one day.
+     */
+    DAY(ChronoUnit.DAYS);
+
+    private final ChronoUnit unit;
+
+    /**
+     * Creates the granularity.
+     *
+     * @param unit the length of the bucket
+     */
+    RollupGranularity(ChronoUnit unit) {
+        this.unit = unit;
+    }
+
+    /**
+     * Finds the start of the bucket of the date and time.
+     *
+     * @param dateTime the date and time
+     * @return the date and time truncated to the granularity
+     */
+    public LocalDateTime truncate(LocalDateTime dateTime) {
+        return dateTime.truncatedTo(unit);
+    }
+
+    /**
+     * Finds the start of the first bucket at or after the date and time.
+     *
+     * @param dateTime the date and time
+     * @return the date and time if it starts a bucket, otherwise the start of the next bucket
+     */
+    public LocalDateTime ceil(LocalDateTime dateTime) {
+        LocalDateTime truncated = truncate(dateTime);
+        return truncated.equals(dateTime) ? dateTime : next(truncated);
+    }
+
+    /**
+     * Finds the start of the next bucket.
+     *
+     * @param bucketStart the start of the bucket
+     * @return the start of the bucket after the given one
+     */
+    public LocalDateTime next(LocalDateTime bucketStart) {
+        return bucketStart.plus(1, unit);
+    }
+
+    /**
+     * Gets the unit of the SQL "DATE_TRUNC" function.
+     *
+     * @return the lower case name of the granularity
+     */
+    String sqlUnit() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+}
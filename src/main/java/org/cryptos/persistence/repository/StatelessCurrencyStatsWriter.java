@@ -0,0 +1,72 @@
+package org.cryptos.persistence.repository;
+
+import org.cryptos.persistence.entity.CurrencyEntity;
+import org.cryptos.persistence.entity.CurrencyStatsRow;
+import org.hibernate.StatelessSession;
+import org.hibernate.Transaction;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * {@link CurrencyStatsWriter} based on Hibernate {@link StatelessSession}.
+ * The inserted entities are not kept in any persistence context, and the own transaction of the session
+ * is committed every "commitInterval" rows, so neither the memory nor the transaction size grows with the file size.
+ * The rows committed before a failure stay in the database.
+ */
+public class StatelessCurrencyStatsWriter extends AbstractEntityCurrencyStatsWriter {
+
+    private final StatelessSession session;
+    private final int commitInterval;
+    private Transaction transaction;
+    private long writtenRows;
+    private long uncommittedRows;
+
+    /**
+     * Creates a writer and begins the first transaction of the session.
+     *
+     * @param session          the session owned by the writer, closed together with the writer
+     * @param commitInterval   the number of rows committed in one transaction, 0 or less to commit only on finish
+     * @param currencyResolver resolves the {@link CurrencyEntity} for the row symbol
+     */
+    public StatelessCurrencyStatsWriter(StatelessSession session,
+                                        int commitInterval,
+                                        Function<String, CurrencyEntity> currencyResolver) {
+        super(currencyResolver);
+        this.session = session;
+        this.commitInterval = commitInterval;
+        this.transaction = session.beginTransaction();
+    }
+
+    @Override
+    public void write(List<CurrencyStatsRow> rows) {
+        for (CurrencyStatsRow row : rows) {
+            session.insert(convertToEntity(row));
+            writtenRows++;
+            uncommittedRows++;
+            if (commitInterval > 0 && uncommittedRows >= commitInterval) {
+                transaction.commit();
+                transaction = session.beginTransaction();
+                uncommittedRows = 0;
+            }
+        }
+    }
+
+    @Override
+    public long finish() {
+        transaction.commit();
+        uncommittedRows = 0;
+        return writtenRows;
+    }
+
+    @Override
+    public void close() {
+        try {
+            if (transaction.isActive()) {
+                transaction.rollback();
+            }
+        } finally {
+            session.close();
+        }
+    }
+}
@@ -0,0 +1,277 @@
+package org.cryptos.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.cryptos.service.domain.ChunkedUploadDomain;
+import org.cryptos.service.domain.CurrencyStatsIngestDomain;
+import org.cryptos.service.exception.CSVFileProcessException;
+import org.cryptos.service.exception.EntityNotFoundException;
+import org.cryptos.service.exception.UploadRangeException;
+import org.cryptos.service.ingest.ChunkedUpload;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Service for the resumable uploads of large CSV files in chunks.
+ * The client creates the upload, sends the file in chunks of any size by their byte offsets and completes the upload.
+ * Every chunk is stored in "currency.upload.directory" before it is acknowledged, then the complete lines received
+ * so far are stored by {@link CurrencyStatsService} in one transaction and the offset after the last stored line
+ * is saved. So an interrupted upload is resumed from the received bytes, also after a restart of the application,
+ * and the file is never parsed from the start again. The uploads not updated for "currency.upload.retention"
+ * are deleted.
+ */
+@Slf4j
+@Service
+public class ChunkedUploadService {
+
+    private final CurrencyStatsService currencyStatsService;
+    private final Path directory;
+    private final Duration retention;
+    private final Map<UUID, ChunkedUpload> uploads = new ConcurrentHashMap<>();
+
+    /**
+     * Creates the service and loads the uploads not completed before the restart.
+     *
+     * @param currencyStatsService the service storing the statistics
+     * @param directory            the directory of the upload files
+     * @param retention            the time the upload is kept without new chunks
+     * @throws UncheckedIOException if the uploads could not be loaded
+     */
+    public ChunkedUploadService(CurrencyStatsService currencyStatsService,
+                                @Value("${currency.upload.directory:./uploads}") Path directory,
+                                @Value("${currency.upload.retention:PT24H}") Duration retention) {
+        this.currencyStatsService = currencyStatsService;
+        this.retention = retention;
+        try {
+            this.directory = Files.createDirectories(directory);
+            for (ChunkedUpload upload : ChunkedUpload.recover(this.directory)) {
+                uploads.put(upload.getId(), upload);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Uploads could not be loaded from %s".formatted(directory), e);
+        }
+        if (!uploads.isEmpty()) {
+            log.info("{} chunked uploads resumed from {}", uploads.size(), directory);
+        }
+    }
+
+    /**
+     * Creates the empty upload.
+     *
+     * @return the {@link ChunkedUploadDomain} of the created upload
+     * @throws CSVFileProcessException if the upload files could not be created
+     */
+    public ChunkedUploadDomain create() {
+        purgeExpiredUploads();
+        ChunkedUpload upload;
+        try {
+            upload = ChunkedUpload.create(directory, UUID.randomUUID());
+        } catch (IOException e) {
+            throw new CSVFileProcessException("Exception occurs while creating the upload", e);
+        }
+        uploads.put(upload.getId(), upload);
+        return convertToDomain(upload);
+    }
+
+    /**
+     * Appends the chunk of the file and stores the complete lines received so far.
+     * The chunk may repeat the bytes received before, e.g. if the acknowledgement of the previous chunk was lost,
+     * they are skipped. If the lines could not be stored, the bytes received after the last stored line are discarded,
+     * so the client resends them from the committed bytes.
+     *
+     * @param id     the identifier of the upload
+     * @param offset the offset of the first byte of the chunk in the file
+     * @param chunk  the bytes of the chunk
+     * @return the {@link ChunkedUploadDomain} with the received and the committed bytes
+     * @throws EntityNotFoundException if the upload is unknown
+     * @throws UploadRangeException    if the chunk starts after the received bytes
+     * @throws CSVFileProcessException if the chunk could not be stored or an error occurs while processing the lines
+     */
+    public ChunkedUploadDomain append(UUID id, long offset, InputStream chunk) {
+        ChunkedUpload upload = findUpload(id);
+        synchronized (upload) {
+            validateActive(upload);
+            if (offset > upload.getReceivedBytes()) {
+                throw new UploadRangeException("Upload '%s' expects the chunk at offset %d, but got %d"
+                        .formatted(id, upload.getReceivedBytes(), offset));
+            }
+            try {
+                upload.append(offset, chunk);
+            } catch (IOException e) {
+                throw new CSVFileProcessException("Exception occurs while receiving the upload chunk", e);
+            }
+            ingest(upload, false);
+            return convertToDomain(upload);
+        }
+    }
+
+    /**
+     * Retrieves the state of the upload, e.g. to resume it from the received bytes.
+     *
+     * @param id the identifier of the upload
+     * @return the {@link ChunkedUploadDomain} with the received and the committed bytes
+     * @throws EntityNotFoundException if the upload is unknown
+     */
+    public ChunkedUploadDomain getUpload(UUID id) {
+        ChunkedUpload upload = findUpload(id);
+        synchronized (upload) {
+            return convertToDomain(upload);
+        }
+    }
+
+    /**
+     * Stores the last line, which may be not terminated by the line break, and deletes the upload.
+     *
+     * @param id the identifier of the upload
+     * @return the {@link CurrencyStatsIngestDomain} with the number of stored rows and the ingest throughput
+     * since the upload was created
+     * @throws EntityNotFoundException if the upload is unknown
+     * @throws CSVFileProcessException if the file does not contain statistics or the last line could not be processed
+     */
+    public CurrencyStatsIngestDomain complete(UUID id) {
+        ChunkedUpload upload = findUpload(id);
+        synchronized (upload) {
+            validateActive(upload);
+            ingest(upload, true);
+            if (upload.getSymbol() == null) {
+                throw new CSVFileProcessException("CSV file does not contain any statistics");
+            }
+            remove(upload);
+            long elapsedMillis = Math.max(Duration.between(upload.getCreatedAt(), LocalDateTime.now()).toMillis(), 1);
+            double rowsPerSecond = upload.getRows() * (double) TimeUnit.SECONDS.toMillis(1) / elapsedMillis;
+            return new CurrencyStatsIngestDomain(upload.getSymbol(), upload.getRows(), elapsedMillis, rowsPerSecond);
+        }
+    }
+
+    /**
+     * Deletes the upload, the rows stored so far are kept.
+     *
+     * @param id the identifier of the upload
+     * @throws EntityNotFoundException if the upload is unknown
+     */
+    public void cancel(UUID id) {
+        ChunkedUpload upload = findUpload(id);
+        synchronized (upload) {
+            validateActive(upload);
+            remove(upload);
+        }
+    }
+
+    /**
+     * Stores the received lines after the committed bytes and saves the new committed offset.
+     * The end of the part is saved before it is stored, so the part which may have been stored before the crash
+     * is stored again ignoring the existing rows instead of failing on them.
+     * If the lines could not be stored, the bytes after the committed offset are discarded.
+     *
+     * @param upload   the upload
+     * @param lastPart whether the received bytes are the end of the file, so the last line is complete as well
+     * @throws CSVFileProcessException if the data file could not be read
+     */
+    private void ingest(ChunkedUpload upload, boolean lastPart) {
+        try {
+            long end = lastPart ? upload.getReceivedBytes() : upload.findLastLineEnd();
+            if (end == upload.getCommittedBytes()) {
+                return;
+            }
+            boolean partPending = upload.isPartPending();
+            upload.prepare(end);
+            CurrencyStatsIngestDomain result;
+            try (InputStream part = upload.openPart(end)) {
+                result = currencyStatsService.createStatsPart(part, upload.getSymbol(), partPending);
+            } catch (RuntimeException e) {
+                upload.rollback();
+                throw e;
+            }
+            if (result.symbol() != null) {
+                upload.commit(result.symbol(), end, upload.getRows() + result.rows());
+            }
+        } catch (IOException e) {
+            throw new CSVFileProcessException("Exception occurs while reading CSV file", e);
+        }
+    }
+
+    /**
+     * Finds the upload by its identifier.
+     *
+     * @param id the identifier of the upload
+     * @return the upload
+     * @throws EntityNotFoundException if the upload is unknown
+     */
+    private ChunkedUpload findUpload(UUID id) {
+        ChunkedUpload upload = uploads.get(id);
+        if (upload == null) {
+            throw new EntityNotFoundException("Upload '%s' not found".formatted(id));
+        }
+        return upload;
+    }
+
+    /**
+     * Validates that the upload was not completed or cancelled by the concurrent request in the meantime.
+     *
+     * @param upload the upload locked by the caller
+     * @throws EntityNotFoundException if the upload is already removed
+     */
+    private void validateActive(ChunkedUpload upload) {
+        if (uploads.get(upload.getId()) != upload) {
+            throw new EntityNotFoundException("Upload '%s' not found".formatted(upload.getId()));
+        }
+    }
+
+    /**
+     * Removes the uploads not updated for longer than the retention.
+     */
+    private void purgeExpiredUploads() {
+        LocalDateTime expiredBefore = LocalDateTime.now().minus(retention);
+        for (ChunkedUpload upload : uploads.values()) {
+            synchronized (upload) {
+                if (uploads.get(upload.getId()) == upload && upload.getUpdatedAt().isBefore(expiredBefore)) {
+                    log.info("Upload {} expired after {} rows", upload.getId(), upload.getRows());
+                    remove(upload);
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes the upload and deletes its files, logging the failure instead of throwing it.
+     *
+     * @param upload the upload locked by the caller
+     */
+    private void remove(ChunkedUpload upload) {
+        uploads.remove(upload.getId());
+        try {
+            upload.delete();
+        } catch (IOException e) {
+            log.warn("Could not delete files of upload {}", upload.getId(), e);
+        }
+    }
+
+    /**
+     * Converts {@link ChunkedUpload} to business entity {@link ChunkedUploadDomain}.
+     *
+     * @param upload the {@link ChunkedUpload} to be converted
+     * @return the corresponding {@link ChunkedUploadDomain}
+     */
+    private ChunkedUploadDomain convertToDomain(ChunkedUpload upload) {
+        return new ChunkedUploadDomain(
+                upload.getId(),
+                upload.getSymbol(),
+                upload.getReceivedBytes(),
+                upload.getCommittedBytes(),
+                upload.getRows(),
+                upload.getCreatedAt(),
+                upload.getUpdatedAt()
+        );
+    }
+}
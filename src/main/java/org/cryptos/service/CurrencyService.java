@@ -31,6 +31,21 @@ public class CurrencyService {
     public void create(CurrencyDomain cryptoCurrency) {
         currencyRepository.save(new CurrencyEntity(cryptoCurrency.symbol()));
     }
+
+    /**
+     * Creates the currency unless it already exists.
+     *
+     * @param symbol the symbol of the currency ("BTC", "ETH")
+     * @return true if the currency was created, false if it already existed
+     */
+    public boolean createIfAbsent(String symbol) {
+        if (currencyRepository.existsById(symbol)) {
+            return false;
+        }
+        currencyRepository.save(new CurrencyEntity(symbol));
+        return true;
+    }
+
     /**
      * Retrieves a currency by its symbol.
      *
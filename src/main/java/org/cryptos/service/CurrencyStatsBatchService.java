@@ -0,0 +1,221 @@
+package org.cryptos.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.cryptos.service.domain.CurrencyStatsFileResultDomain;
+import org.cryptos.service.domain.CurrencyStatsIngestDomain;
+import org.cryptos.service.exception.CSVFileProcessException;
+import org.cryptos.service.exception.CurrencyServiceBaseException;
+import org.cryptos.service.ingest.ResourceSpooler;
+import org.cryptos.service.ingest.ZipEntryResource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipFile;
+
+/**
+ * Service for the multi-file currency statistics uploads.
+ * Every CSV file, or every CSV entry of the uploaded ZIP archives, is stored by {@link CurrencyStatsService}
+ * in its own transaction with the same validation rules as a single file upload.
+ * The files are processed concurrently on "currency.create-stats.batch.threads" workers.
+ */
+@Slf4j
+@Service
+public class CurrencyStatsBatchService {
+
+    private static final byte[] ZIP_MAGIC = {'P', 'K', 3, 4};
+
+    private final CurrencyStatsService currencyStatsService;
+    private final ExecutorService executor;
+
+    /**
+     * Creates the service with its own pool of workers.
+     *
+     * @param currencyStatsService the service storing the statistics
+     * @param threads              the number of files processed concurrently
+     */
+    public CurrencyStatsBatchService(CurrencyStatsService currencyStatsService,
+                                     @Value("${currency.create-stats.batch.threads:4}") int threads) {
+        this.currencyStatsService = currencyStatsService;
+        var threadNumber = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(Math.max(threads, 1),
+                runnable -> new Thread(runnable, "ingest-batch-" + threadNumber.incrementAndGet()));
+    }
+
+    /**
+     * Stops the workers when the application is shut down.
+     */
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Stores the currency statistics of all the given CSV files and ZIP archives of CSV files.
+     * The archives are recognized by their content, the entries not ending with ".csv" are skipped.
+     * The failure of one file does not affect the other files.
+     *
+     * @param resources the CSV files and ZIP archives
+     * @return the {@link CurrencyStatsFileResultDomain} of every CSV file in the order of the resources and entries
+     * @throws CSVFileProcessException if the archive could not be read or the upload was interrupted
+     */
+    public List<CurrencyStatsFileResultDomain> createStats(List<Resource> resources) {
+        List<ZipFile> zipFiles = new ArrayList<>();
+        List<Path> spooledFiles = new ArrayList<>();
+        try {
+            List<Resource> csvFiles = new ArrayList<>();
+            for (Resource resource : resources) {
+                if (isZip(resource)) {
+                    Path file = ResourceSpooler.spoolToTempFile(resource, ".zip");
+                    spooledFiles.add(file);
+                    var zipFile = new ZipFile(file.toFile());
+                    zipFiles.add(zipFile);
+                    csvFiles.addAll(listCsvEntries(zipFile, resource.getFilename()));
+                } else {
+                    csvFiles.add(resource);
+                }
+            }
+
+            List<Future<CurrencyStatsFileResultDomain>> futures = new ArrayList<>(csvFiles.size());
+            for (Resource csvFile : csvFiles) {
+                futures.add(executor.submit(() -> createFileStats(csvFile)));
+            }
+            return awaitAll(futures);
+        } catch (IOException e) {
+            throw new CSVFileProcessException("Exception occurs while reading ZIP archive", e);
+        } finally {
+            zipFiles.forEach(this::closeQuietly);
+            spooledFiles.forEach(this::deleteQuietly);
+        }
+    }
+
+    /**
+     * Stores the statistics of one CSV file converting the failure to the result.
+     *
+     * @param csvFile the CSV file
+     * @return the {@link CurrencyStatsFileResultDomain} of the file
+     */
+    private CurrencyStatsFileResultDomain createFileStats(Resource csvFile) {
+        try {
+            CurrencyStatsIngestDomain result = currencyStatsService.createStats(csvFile);
+            return new CurrencyStatsFileResultDomain(
+                    csvFile.getFilename(),
+                    result.symbol(),
+                    result.rows(),
+                    result.elapsedMillis(),
+                    result.rowsPerSecond(),
+                    null);
+        } catch (CurrencyServiceBaseException e) {
+            log.error("Upload of file {} failed", csvFile.getFilename(), e);
+            return createFailedResult(csvFile, e.getMessage());
+        } catch (RuntimeException e) {
+            log.error("Upload of file {} failed", csvFile.getFilename(), e);
+            return createFailedResult(csvFile, "An unexpected error occurred.");
+        }
+    }
+
+    /**
+     * Waits for all the files to be processed.
+     * If the waiting is interrupted, the remaining files are cancelled.
+     *
+     * @param futures the results of the files
+     * @return the results in the order of the futures
+     * @throws CSVFileProcessException if the waiting is interrupted
+     */
+    private List<CurrencyStatsFileResultDomain> awaitAll(List<Future<CurrencyStatsFileResultDomain>> futures) {
+        List<CurrencyStatsFileResultDomain> results = new ArrayList<>(futures.size());
+        try {
+            for (Future<CurrencyStatsFileResultDomain> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            futures.forEach(future -> future.cancel(true));
+            throw new CSVFileProcessException("Upload of files was interrupted", e);
+        } catch (ExecutionException e) {
+            //createFileStats converts all the failures to results
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Lists the CSV entries of the archive, the directories and the other files are skipped.
+     *
+     * @param zipFile     the opened archive
+     * @param archiveName the name of the uploaded archive
+     * @return the resources of the CSV entries in the archive order
+     */
+    private List<Resource> listCsvEntries(ZipFile zipFile, String archiveName) {
+        return Collections.list(zipFile.entries()).stream()
+                .filter(entry -> !entry.isDirectory())
+                .filter(entry -> entry.getName().toLowerCase(Locale.ROOT).endsWith(".csv"))
+                .map(entry -> (Resource) new ZipEntryResource(zipFile, entry, archiveName))
+                .toList();
+    }
+
+    /**
+     * Checks whether the resource is a ZIP archive by its first bytes.
+     *
+     * @param resource the uploaded resource
+     * @return true if the resource starts with the ZIP local file header signature
+     * @throws IOException if the resource could not be read
+     */
+    private boolean isZip(Resource resource) throws IOException {
+        try (InputStream inputStream = resource.getInputStream()) {
+            return Arrays.equals(inputStream.readNBytes(ZIP_MAGIC.length), ZIP_MAGIC);
+        }
+    }
+
+    /**
+     * Creates the result of the failed file.
+     *
+     * @param csvFile the failed CSV file
+     * @param error   the reason of the failure
+     * @return the {@link CurrencyStatsFileResultDomain} with the error
+     */
+    private CurrencyStatsFileResultDomain createFailedResult(Resource csvFile, String error) {
+        return new CurrencyStatsFileResultDomain(csvFile.getFilename(), null, 0, 0, 0, error);
+    }
+
+    /**
+     * Closes the archive logging the failure instead of throwing it.
+     *
+     * @param zipFile the archive to be closed
+     */
+    private void closeQuietly(ZipFile zipFile) {
+        try {
+            zipFile.close();
+        } catch (IOException e) {
+            log.warn("Could not close ZIP archive {}", zipFile.getName(), e);
+        }
+    }
+
+    /**
+     * Deletes the file logging the failure instead of throwing it.
+     *
+     * @param file the file to be deleted
+     */
+    private void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Could not delete temporary file {}", file, e);
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package org.cryptos.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.cryptos.service.domain.CurrencyStatsFileResultDomain;
+import org.cryptos.service.domain.CurrencyStatsIngestDomain;
+import org.cryptos.service.exception.CSVFileProcessException;
+import org.cryptos.service.exception.CurrencyServiceBaseException;
+import org.cryptos.service.ingest.CsvDecompressor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * One-off job loading all the CSV files of "currency.bootstrap.directory" at the application start,
+ * e.g. to build a new environment from the "prices" dump. Runs if "currency.bootstrap.enabled" is true.
+ * The currency of every file is read from its first line of statistics and created if missing,
+ * then the files are loaded on "currency.bootstrap.threads" workers, every file memory-mapped and parsed in chunks
+ * by {@link CurrencyStatsService#createStatsFromFile(Path)} in its own transaction. The largest files are started
+ * first, so the workers finish at about the same time. The failure of one file does not affect the other files,
+ * the result of every file and the total rows and throughput are logged.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "currency.bootstrap.enabled", havingValue = "true")
+public class CurrencyStatsBootstrapJob implements ApplicationRunner {
+
+    private final CurrencyService currencyService;
+    private final CurrencyStatsService currencyStatsService;
+    private final Path directory;
+    private final int threads;
+
+    /**
+     * Creates the job.
+     *
+     * @param currencyService      the service creating the missing currencies
+     * @param currencyStatsService the service storing the statistics
+     * @param directory            the directory of the CSV files
+     * @param threads              the number of files loaded concurrently
+     */
+    public CurrencyStatsBootstrapJob(CurrencyService currencyService,
+                                     CurrencyStatsService currencyStatsService,
+                                     @Value("${currency.bootstrap.directory:./prices}") Path directory,
+                                     @Value("${currency.bootstrap.threads:4}") int threads) {
+        this.currencyService = currencyService;
+        this.currencyStatsService = currencyStatsService;
+        this.directory = directory;
+        this.threads = Math.max(threads, 1);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        bootstrap();
+    }
+
+    /**
+     * Loads all the CSV files of the directory, creating the missing currencies first.
+     *
+     * @return the {@link CurrencyStatsFileResultDomain} of every file, the largest files first
+     * @throws CSVFileProcessException if the directory could not be listed or the loading was interrupted
+     */
+    public List<CurrencyStatsFileResultDomain> bootstrap() {
+        long startNanos = System.nanoTime();
+        List<Path> files = listCsvFiles();
+        log.info("Bootstrap of {} files from {} started", files.size(), directory);
+
+        Map<Path, CurrencyStatsFileResultDomain> results = new LinkedHashMap<>();
+        List<Path> loadedFiles = new ArrayList<>(files.size());
+        for (Path file : files) {
+            try {
+                String symbol = readSymbol(file);
+                if (currencyService.createIfAbsent(symbol)) {
+                    log.info("Currency {} of file {} created", symbol, file.getFileName());
+                }
+                loadedFiles.add(file);
+            } catch (CurrencyServiceBaseException e) {
+                log.error("Bootstrap of file {} failed", file.getFileName(), e);
+                results.put(file, createFailedResult(file, e.getMessage()));
+            }
+        }
+
+        var threadNumber = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, Math.max(loadedFiles.size(), 1)),
+                runnable -> new Thread(runnable, "bootstrap-" + threadNumber.incrementAndGet()));
+        try {
+            Map<Path, Future<CurrencyStatsFileResultDomain>> futures = new LinkedHashMap<>();
+            for (Path file : loadedFiles) {
+                futures.put(file, executor.submit(() -> createFileStats(file)));
+            }
+            for (Map.Entry<Path, Future<CurrencyStatsFileResultDomain>> future : futures.entrySet()) {
+                results.put(future.getKey(), future.getValue().get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CSVFileProcessException("Bootstrap of files was interrupted", e);
+        } catch (ExecutionException e) {
+            //createFileStats converts all the failures to results
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        List<CurrencyStatsFileResultDomain> orderedResults = files.stream().map(results::get).toList();
+        logSummary(orderedResults, startNanos);
+        return orderedResults;
+    }
+
+    /**
+     * Lists the plain and gzip compressed CSV files of the directory, the largest files first.
+     *
+     * @return the CSV files
+     * @throws CSVFileProcessException if the directory could not be listed
+     */
+    private List<Path> listCsvFiles() {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(Files::isRegularFile)
+                    .filter(file -> {
+                        String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+                        return name.endsWith(".csv") || name.endsWith(".csv.gz");
+                    })
+                    .sorted(Comparator.comparingLong(this::sizeOf).reversed())
+                    .toList();
+        } catch (IOException e) {
+            throw new CSVFileProcessException("Exception occurs while listing directory %s".formatted(directory), e);
+        }
+    }
+
+    /**
+     * Reads the currency symbol from the first line of statistics, the line after the header.
+     *
+     * @param file the CSV file
+     * @return the symbol of the currency
+     * @throws CSVFileProcessException if the file could not be read or does not contain statistics
+     */
+    private String readSymbol(Path file) {
+        try (var reader = new BufferedReader(new InputStreamReader(
+                CsvDecompressor.decompress(Files.newInputStream(file)), StandardCharsets.UTF_8))) {
+            //skip first as header
+            reader.readLine();
+            String line = reader.readLine();
+            String[] columns = line == null ? new String[0] : line.split(",", -1);
+            if (columns.length != 3 || columns[1].isBlank()) {
+                throw new CSVFileProcessException("CSV file does not contain any statistics");
+            }
+            return columns[1].strip().replace("\"", "");
+        } catch (IOException e) {
+            throw new CSVFileProcessException("Exception occurs while reading CSV file", e);
+        }
+    }
+
+    /**
+     * Stores the statistics of one file converting the failure to the result.
+     *
+     * @param file the CSV file
+     * @return the {@link CurrencyStatsFileResultDomain} of the file
+     */
+    private CurrencyStatsFileResultDomain createFileStats(Path file) {
+        try {
+            CurrencyStatsIngestDomain result = currencyStatsService.createStatsFromFile(file);
+            log.info("File {} of {} loaded: {} rows in {} ms", file.getFileName(), result.symbol(), result.rows(),
+                    result.elapsedMillis());
+            return new CurrencyStatsFileResultDomain(
+                    file.getFileName().toString(),
+                    result.symbol(),
+                    result.rows(),
+                    result.elapsedMillis(),
+                    result.rowsPerSecond(),
+                    null);
+        } catch (CurrencyServiceBaseException e) {
+            log.error("Bootstrap of file {} failed", file.getFileName(), e);
+            return createFailedResult(file, e.getMessage());
+        } catch (RuntimeException e) {
+            log.error("Bootstrap of file {} failed", file.getFileName(), e);
+            return createFailedResult(file, "An unexpected error occurred.");
+        }
+    }
+
+    /**
+     * Logs the total rows, the elapsed time and the throughput of the bootstrap.
+     *
+     * @param results    the results of all the files
+     * @param startNanos the {@link System#nanoTime()} value when the bootstrap was started
+     */
+    private void logSummary(List<CurrencyStatsFileResultDomain> results, long startNanos) {
+        long elapsedMillis = Math.max(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos), 1);
+        long rows = results.stream().mapToLong(CurrencyStatsFileResultDomain::rows).sum();
+        long failedFiles = results.stream().filter(result -> result.error() != null).count();
+        log.info("Bootstrap completed: {} files, {} failed, {} rows in {} ms ({} rows/s)", results.size(),
+                failedFiles, rows, elapsedMillis, Math.round(rows * (double) TimeUnit.SECONDS.toMillis(1) / elapsedMillis));
+    }
+
+    /**
+     * Gets the size of the file, so the unreadable files are sorted last and fail while loading.
+     *
+     * @param file the file
+     * @return the size in bytes, or 0 if it could not be read
+     */
+    private long sizeOf(Path file) {
+        try {
+            return Files.size(file);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Creates the result of the failed file.
+     *
+     * @param file  the failed CSV file
+     * @param error the reason of the failure
+     * @return the {@link CurrencyStatsFileResultDomain} with the error
+     */
+    private CurrencyStatsFileResultDomain createFailedResult(Path file, String error) {
+        return new CurrencyStatsFileResultDomain(file.getFileName().toString(), null, 0, 0, 0, error);
+    }
+}
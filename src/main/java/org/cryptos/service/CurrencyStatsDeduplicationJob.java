@@ -0,0 +1,61 @@
+package org.cryptos.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.cryptos.persistence.repository.CurrencyStatsDeduplicationRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * One-off job removing the duplicated currency statistics created before the unique constraint on the currency
+ * and date time was introduced. Runs at the application start if "currency.dedup.enabled" is true.
+ * The table is processed in the chunks of "currency.dedup.chunk-size" ids, every chunk is committed separately,
+ * so the job does not hold long locks and may be interrupted and restarted at any time.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "currency.dedup.enabled", havingValue = "true")
+public class CurrencyStatsDeduplicationJob implements ApplicationRunner {
+
+    private final CurrencyStatsDeduplicationRepository deduplicationRepository;
+    private final long chunkSize;
+
+    /**
+     * Creates the job.
+     *
+     * @param deduplicationRepository the repository deleting the duplicates
+     * @param chunkSize               the number of ids processed by one statement
+     */
+    public CurrencyStatsDeduplicationJob(CurrencyStatsDeduplicationRepository deduplicationRepository,
+                                         @Value("${currency.dedup.chunk-size:10000}") long chunkSize) {
+        this.deduplicationRepository = deduplicationRepository;
+        this.chunkSize = Math.max(chunkSize, 1);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        deduplicate();
+    }
+
+    /**
+     * Deletes the duplicated rows chunk by chunk, keeping the row with the lowest id of every currency and date time.
+     *
+     * @return the number of deleted rows
+     */
+    public long deduplicate() {
+        return deduplicationRepository.findIdRange()
+                .map(range -> {
+                    log.info("Deduplication of currency stats started for ids {}..{}", range.minId(), range.maxId());
+                    long deleted = 0;
+                    for (long fromId = range.minId(); fromId <= range.maxId(); fromId += chunkSize) {
+                        long toId = Math.min(fromId + chunkSize - 1, range.maxId());
+                        deleted += deduplicationRepository.deleteDuplicates(fromId, toId);
+                    }
+                    log.info("Deduplication of currency stats completed, {} rows deleted", deleted);
+                    return deleted;
+                })
+                .orElse(0L);
+    }
+}
@@ -0,0 +1,73 @@
+package org.cryptos.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.cryptos.persistence.entity.CurrencyEntity;
+import org.cryptos.persistence.repository.CurrencyRepository;
+import org.cryptos.persistence.repository.CurrencyStatsRollupRepository;
+import org.cryptos.service.rollup.CurrencyStatsRollups;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+
+/**
+ * One-off job creating the rollups of the prices stored before "currency.get-stats.rollups.enabled" was turned on.
+ * Runs at the application start if "currency.get-stats.rollups.rebuild" is true. The buckets are recalculated
+ * day by day, every day of every currency in its own transaction, so the job does not hold long locks
+ * and may be interrupted and restarted at any time.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "currency.get-stats.rollups.rebuild", havingValue = "true")
+public class CurrencyStatsRollupJob implements ApplicationRunner {
+
+    private final CurrencyRepository currencyRepository;
+    private final CurrencyStatsRollupRepository currencyStatsRollupRepository;
+    private final CurrencyStatsRollups currencyStatsRollups;
+
+    /**
+     * Creates the job.
+     *
+     * @param currencyRepository            the repository of the currencies
+     * @param currencyStatsRollupRepository the repository finding the days with the prices
+     * @param currencyStatsRollups          the rollups recalculating the days
+     */
+    public CurrencyStatsRollupJob(CurrencyRepository currencyRepository,
+                                  CurrencyStatsRollupRepository currencyStatsRollupRepository,
+                                  CurrencyStatsRollups currencyStatsRollups) {
+        this.currencyRepository = currencyRepository;
+        this.currencyStatsRollupRepository = currencyStatsRollupRepository;
+        this.currencyStatsRollups = currencyStatsRollups;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        rebuild();
+    }
+
+    /**
+     * Recalculates the buckets of every day with the prices of every currency.
+     *
+     * @return the number of the recalculated days
+     */
+    public long rebuild() {
+        long days = 0;
+        for (CurrencyEntity currency : currencyRepository.findAll()) {
+            String symbol = currency.getSymbol();
+            var range = currencyStatsRollupRepository.findDateRange(symbol);
+            if (range.isEmpty()) {
+                continue;
+            }
+            LocalDate lastDay = range.get().newest().toLocalDate();
+            log.info("Rebuilding rollups of {} from {} to {}", symbol, range.get().oldest().toLocalDate(), lastDay);
+            for (LocalDate day = range.get().oldest().toLocalDate(); !day.isAfter(lastDay); day = day.plusDays(1)) {
+                currencyStatsRollups.rebuild(symbol, day);
+                days++;
+            }
+        }
+        log.info("Rollups rebuilt, {} days of currencies recalculated", days);
+        return days;
+    }
+}
@@ -1,39 +1,81 @@
 package org.cryptos.service;
 
-import com.opencsv.CSVReader;
-import com.opencsv.exceptions.CsvValidationException;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
 import org.cryptos.persistence.entity.CurrencyEntity;
 import org.cryptos.persistence.entity.CurrencyNormalizedPriceProjection;
 import org.cryptos.persistence.entity.CurrencyStatsEntity;
 import org.cryptos.persistence.entity.CurrencyStatsMinMaxProjection;
+import org.cryptos.persistence.entity.CurrencyStatsRow;
+import org.cryptos.persistence.entity.CurrencyStatsWatermarkProjection;
+import org.cryptos.persistence.repository.ConflictAction;
 import org.cryptos.persistence.repository.CurrencyRepository;
+import org.cryptos.persistence.repository.CurrencyStatsBulkRepository;
 import org.cryptos.persistence.repository.CurrencyStatsRepository;
+import org.cryptos.persistence.repository.CurrencyStatsStatelessRepository;
+import org.cryptos.persistence.repository.CurrencyStatsWriter;
+import org.cryptos.persistence.repository.JpaCurrencyStatsWriter;
+import org.cryptos.service.cache.CurrencyStatsCache;
+import org.cryptos.service.cache.TimeWindowSnapper;
 import org.cryptos.service.domain.CurrencyNormalizedPriceDomain;
+import org.cryptos.service.domain.CurrencyStatsIngestDomain;
 import org.cryptos.service.domain.CurrencyStatsMinMaxDomain;
 import org.cryptos.service.exception.CSVFileProcessException;
 import org.cryptos.service.exception.EntityNotFoundException;
 import org.cryptos.service.exception.WrongTimePeriodException;
+import org.cryptos.service.ingest.AdaptiveBatchSizer;
+import org.cryptos.service.ingest.CountingInputStream;
+import org.cryptos.service.ingest.CsvDecompressor;
+import org.cryptos.service.ingest.CsvParserType;
+import org.cryptos.service.ingest.CurrencyIngestLock;
+import org.cryptos.service.ingest.CurrencyStatsCsvReader;
+import org.cryptos.service.ingest.CurrencyStatsTick;
+import org.cryptos.service.ingest.EpochMillisConverter;
+import org.cryptos.service.ingest.IngestPipeline;
+import org.cryptos.service.ingest.IngestMode;
+import org.cryptos.service.ingest.IngestProgressListener;
+import org.cryptos.service.ingest.OpenCsvCurrencyStatsReader;
+import org.cryptos.service.ingest.ParallelCsvParser;
+import org.cryptos.service.ingest.ResourceSpooler;
+import org.cryptos.service.ingest.StatelessSessionLimiter;
+import org.cryptos.service.ingest.TickCsvReader;
+import org.cryptos.service.rollup.CurrencyStatsRollups;
+import org.cryptos.service.series.PriceSeriesStore;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
 import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.unit.DataSize;
 
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.math.BigDecimal;
-import java.time.Instant;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.Period;
 import java.time.ZoneId;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
 
 /**
  * Service for handling currency statistics. Contains methods for uploading, retrieving and normalizing currency statistics.
  * The service is annotated with {@link Service} to notice it as a Spring service,
  * and {@link Transactional} to ensure that the operations are executed within a transaction context.
+ * The statistics are aggregated by the database, from the rollups of {@link CurrencyStatsRollups} if they are enabled,
+ * or in memory by {@link PriceSeriesStore} once it is ready. The results are cached by {@link CurrencyStatsCache}
+ * if it is enabled, the default time windows end at the current date and time snapped by {@link TimeWindowSnapper}.
  */
 @Service
 @Transactional
@@ -42,55 +84,280 @@ public class CurrencyStatsService {
 
     @Value("${currency.create-stats.batch-size:30}")
     private int batchSize;
+    @Value("${currency.create-stats.mode:jpa}")
+    private IngestMode ingestMode = IngestMode.JPA;
+    @Value("${currency.create-stats.on-conflict:nothing}")
+    private ConflictAction conflictAction = ConflictAction.NOTHING;
+    @Value("${currency.create-stats.commit-interval:0}")
+    private int commitInterval;
+    @Value("${currency.create-stats.parser:opencsv}")
+    private CsvParserType parserType = CsvParserType.OPENCSV;
+    @Value("${currency.create-stats.incremental:false}")
+    private boolean incremental;
+    @Value("${currency.create-stats.pipeline.enabled:false}")
+    private boolean pipelineEnabled;
+    @Value("${currency.create-stats.parallel.enabled:false}")
+    private boolean parallelEnabled;
+    @Value("${currency.create-stats.parallel.min-file-size:64MB}")
+    private DataSize parallelMinFileSize = DataSize.ofMegabytes(64);
     @Value("#{T(java.time.Period).parse('${currency.get-stats.default-before-period:P30D}')}")
     private Period defaultPeriodBefore;
 
     private final CurrencyRepository currencyRepository;
     private final CurrencyStatsRepository currencyStatsRepository;
+    private final CurrencyStatsBulkRepository currencyStatsBulkRepository;
+    private final CurrencyStatsStatelessRepository currencyStatsStatelessRepository;
+    private final StatelessSessionLimiter statelessSessionLimiter;
+    private final EntityManager entityManager;
+    private final ParallelCsvParser parallelCsvParser;
+    private final IngestPipeline ingestPipeline;
+    private final CurrencyIngestLock currencyIngestLock;
+    private final AdaptiveBatchSizer adaptiveBatchSizer;
+    private final PriceSeriesStore priceSeriesStore;
+    private final CurrencyStatsRollups currencyStatsRollups;
+    private final CurrencyStatsCache currencyStatsCache;
+    private final TimeWindowSnapper timeWindowSnapper;
 
     /**
      * Reads a CSV file containing currency statistics and creates {@link CurrencyStatsEntity} records in DB.
      * The method processes the file in batches, validating the data and ensuring that the file contains only one currency.
      * The currency statistics data is associated with an existing {@link CurrencyEntity}.
+     * The batches are written according to the configured {@link IngestMode}, only one batch is kept in memory.
+     * In {@link IngestMode#STATELESS} mode the rows are committed every "commitInterval" rows,
+     * otherwise the whole file is stored in the current transaction.
+     * If parallel parsing is enabled, the files of at least "parallelMinFileSize" bytes are parsed in chunks
+     * by {@link ParallelCsvParser}, the rejected lines are reported with their line numbers. The upserts replacing
+     * the existing prices are always parsed sequentially, see {@link #isParallelParsingAllowed()}.
+     * In the incremental mode the rows at or before the newest stored date and time of the currency (the watermark)
+     * are validated, but skipped without parsing the price and creating the entities.
+     * If the pipeline is enabled, the file is read and parsed on a separate thread by {@link IngestPipeline},
+     * while the parsed batches are written on the calling thread.
+     * The gzip compressed files are decompressed on the fly by {@link CsvDecompressor} and always parsed sequentially,
+     * the progress is reported in the compressed bytes.
+     * The currency is locked by {@link CurrencyIngestLock} before its watermark is read until the transaction
+     * is completed, so the concurrent uploads of the same currency are serialized.
      *
      * @param resource the resource containing the CSV file to process
+     * @return the {@link CurrencyStatsIngestDomain} with the number of stored rows and the ingest throughput
      * @throws CSVFileProcessException if an error occurs while reading or processing the CSV file
      * @throws EntityNotFoundException if the currency entity is not found in the repository,
      * @see #validateCurrencyMatch for extra cases when exception thrown
      * @see #validateCsvHeader for extra cases when exception thrown
      */
-    public void createStats(Resource resource) {
-        try (var reader = new CSVReader(new InputStreamReader(resource.getInputStream()))) {
-            String[] line;
-            List<CurrencyStatsEntity> batch = new ArrayList<>(batchSize);
+    public CurrencyStatsIngestDomain createStats(Resource resource) {
+        return createStats(resource, IngestProgressListener.NONE);
+    }
+
+    /**
+     * Reads a CSV file containing currency statistics and creates {@link CurrencyStatsEntity} records in DB,
+     * reporting the progress to the listener after every written batch.
+     *
+     * @param resource         the resource containing the CSV file to process
+     * @param progressListener the listener of the upload progress
+     * @return the {@link CurrencyStatsIngestDomain} with the number of stored rows and the ingest throughput
+     * @throws CSVFileProcessException if an error occurs while reading or processing the CSV file
+     * @throws EntityNotFoundException if the currency entity is not found in the repository,
+     * @see #createStats(Resource) for details
+     */
+    public CurrencyStatsIngestDomain createStats(Resource resource, IngestProgressListener progressListener) {
+        long startNanos = System.nanoTime();
+        try {
+            if (parallelEnabled && isParallelParsingAllowed() && resource.contentLength() >= parallelMinFileSize.toBytes()
+                    && !CsvDecompressor.isCompressed(resource)) {
+                return createStatsInParallel(resource, progressListener, startNanos);
+            }
+            return createStatsSequentially(resource, progressListener, startNanos);
+        } catch (IOException e) {
+            throw new CSVFileProcessException("Exception occurs while reading CSV file", e);
+        }
+    }
+
+    /**
+     * Reads a local CSV file containing currency statistics and creates {@link CurrencyStatsEntity} records in DB.
+     * The file is always memory-mapped and parsed in chunks by {@link ParallelCsvParser}, whatever its size
+     * and the "currency.create-stats.parallel" settings, the gzip compressed files and the upserts replacing
+     * the existing prices are parsed sequentially.
+     * Otherwise the file is processed as by {@link #createStats(Resource)}.
+     *
+     * @param file the CSV file to process
+     * @return the {@link CurrencyStatsIngestDomain} with the number of stored rows and the ingest throughput
+     * @throws CSVFileProcessException if an error occurs while reading or processing the CSV file
+     * @throws EntityNotFoundException if the currency entity is not found in the repository
+     */
+    public CurrencyStatsIngestDomain createStatsFromFile(Path file) {
+        long startNanos = System.nanoTime();
+        var resource = new FileSystemResource(file);
+        try {
+            if (CsvDecompressor.isCompressed(resource) || !isParallelParsingAllowed()) {
+                return createStatsSequentially(resource, IngestProgressListener.NONE, startNanos);
+            }
+            return createStatsInParallel(resource, IngestProgressListener.NONE, startNanos);
+        } catch (IOException e) {
+            throw new CSVFileProcessException("Exception occurs while reading CSV file", e);
+        }
+    }
+
+    /**
+     * Reads a CSV file containing the interleaved statistics of multiple currencies in a single pass
+     * and creates {@link CurrencyStatsEntity} records in DB.
+     * All the currencies are resolved once before the parsing, the rows are collected into the batches per currency,
+     * every batch is written independently as soon as it is full. At most one batch per currency is kept in memory.
+     * In the incremental mode the rows at or before the watermark of their currency are skipped.
+     * The batches are written according to the configured {@link IngestMode} in the current transaction.
+     * The currencies of the file are not known before the parsing, so all the currencies are locked
+     * by {@link CurrencyIngestLock}.
+     * The gzip compressed files are decompressed on the fly by {@link CsvDecompressor}.
+     *
+     * @param resource the resource containing the CSV file to process
+     * @return the {@link CurrencyStatsIngestDomain} of every currency found in the file, in the order of appearance
+     * @throws CSVFileProcessException if an error occurs while reading or processing the CSV file
+     * @throws EntityNotFoundException if any currency of the file is not found in the repository
+     * @see #validateCsvHeader for extra cases when exception thrown
+     */
+    public List<CurrencyStatsIngestDomain> createMixedStats(Resource resource) {
+        long startNanos = System.nanoTime();
+        var timeConverter = new EpochMillisConverter(ZoneId.systemDefault());
+        Map<String, CurrencyEntity> currencies = currencyRepository.findAll().stream()
+                .collect(Collectors.toMap(currency -> normalizeSymbol(currency.getSymbol()), Function.identity()));
+        currencyIngestLock.lock(currencies.keySet());
+        Map<String, Long> watermarks = findWatermarks(timeConverter);
+
+        try (CurrencyStatsCsvReader reader = openReader(CsvDecompressor.decompress(resource.getInputStream()))) {
             //skip first as header
-            reader.readNext();
-            //read currency from second row and keep it to ensure that file contains only one(this) currency
-            line = reader.readNext();
-            validateCsvHeader(line);
-            CurrencyEntity currencyEntity = currencyRepository.findById(line[1])
-                    .orElseThrow(() -> new EntityNotFoundException("Currency not found, need to enable the currency first"));
-            batch.add(parseAndCreateEntity(line, currencyEntity));
+            reader.next();
+
+            Map<String, List<CurrencyStatsRow>> batches = new LinkedHashMap<>();
+            Map<String, Long> rowsBySymbol = new LinkedHashMap<>();
+            try (CurrencyStatsWriter writer = openWriter(symbol -> currencies.get(normalizeSymbol(symbol)))) {
+                while (reader.next()) {
+                    validateCsvHeader(reader);
+                    CurrencyEntity currencyEntity = resolveCurrency(currencies, reader.symbol());
+                    String symbol = currencyEntity.getSymbol();
+                    List<CurrencyStatsRow> batch = batches.computeIfAbsent(symbol, key -> new ArrayList<>(batchSize()));
+                    rowsBySymbol.putIfAbsent(symbol, 0L);
+                    if (reader.epochMillis() <= watermarks.getOrDefault(symbol, Long.MIN_VALUE)) {
+                        continue;
+                    }
+                    batch.add(parseRow(reader, currencyEntity, timeConverter));
 
-            while ((line = reader.readNext()) != null) {
-                validateCsvHeader(line);
-                validateCurrencyMatch(currencyEntity.getSymbol(), line[1]);
-                batch.add(parseAndCreateEntity(line, currencyEntity));
+                    if (batch.size() >= batchSize()) {
+                        writer.write(batch);
+                        rowsBySymbol.merge(symbol, (long) batch.size(), Long::sum);
+                        batches.put(symbol, new ArrayList<>(batchSize()));
+                    }
+                }
 
-                if (batch.size() == batchSize) {
-                    currencyStatsRepository.saveAll(batch);
-                    batch = new ArrayList<>(batchSize);
+                for (Map.Entry<String, List<CurrencyStatsRow>> batch : batches.entrySet()) {
+                    if (!batch.getValue().isEmpty()) {
+                        writer.write(batch.getValue());
+                        rowsBySymbol.merge(batch.getKey(), (long) batch.getValue().size(), Long::sum);
+                    }
                 }
+                writer.finish();
             }
 
-            if (!batch.isEmpty()) {
-                currencyStatsRepository.saveAll(batch);
+            if (rowsBySymbol.isEmpty()) {
+                throw new CSVFileProcessException("CSV file does not contain any statistics");
+            }
+            return rowsBySymbol.entrySet().stream()
+                    .map(rows -> createIngestDomain(rows.getKey(), rows.getValue(), startNanos))
+                    .toList();
+        } catch (IOException e) {
+            throw new CSVFileProcessException("Exception occurs while reading CSV file", e);
+        }
+    }
+
+    /**
+     * Reads a part of the CSV file uploaded in chunks and creates {@link CurrencyStatsEntity} records in DB
+     * in the current transaction. The part must consist of complete lines. The first part starts with the header
+     * and determines the currency of the upload, the next parts must contain the statistics of the same currency.
+     * The lines are validated and written in batches as by {@link #createStats(Resource)}.
+     * The part which may have been stored before, e.g. the part stored right before a crash, but not recorded
+     * as stored by the caller, is written ignoring the rows which already exist, so storing it again is idempotent.
+     *
+     * @param inputStream      the stream of the part of the CSV file, closed by the method
+     * @param symbol           the currency of the upload determined by the previous parts, or null for the first part
+     * @param ignoreDuplicates whether the part may have been stored before, so the existing rows are skipped
+     * @return the {@link CurrencyStatsIngestDomain} with the currency and the number of rows stored from the part,
+     * the symbol is null if the first part contains no statistics yet
+     * @throws CSVFileProcessException if an error occurs while reading or processing the CSV file
+     * @throws EntityNotFoundException if the currency entity is not found in the repository
+     */
+    public CurrencyStatsIngestDomain createStatsPart(InputStream inputStream, String symbol, boolean ignoreDuplicates) {
+        long startNanos = System.nanoTime();
+        var timeConverter = new EpochMillisConverter(ZoneId.systemDefault());
+        try (CurrencyStatsCsvReader reader = openReader(inputStream)) {
+            if (symbol == null) {
+                //skip first as header
+                reader.next();
+            }
+            if (!reader.next()) {
+                return createIngestDomain(symbol, 0, startNanos);
+            }
+            validateCsvHeader(reader);
+            if (symbol != null) {
+                validateCurrencyMatch(symbol, reader.symbol());
             }
-        } catch (CsvValidationException | IOException e) {
+            CurrencyEntity currencyEntity = currencyRepository.findById(symbol != null ? symbol : reader.symbol())
+                    .orElseThrow(() -> new EntityNotFoundException("Currency not found, need to enable the currency first"));
+            long rows = writeRows(reader, currencyEntity, timeConverter, IngestProgressListener.NONE, () -> 0,
+                    ignoreDuplicates);
+            return createIngestDomain(currencyEntity.getSymbol(), rows, startNanos);
+        } catch (IOException e) {
             throw new CSVFileProcessException("Exception occurs while reading CSV file", e);
         }
     }
 
+    /**
+     * Creates {@link CurrencyStatsEntity} records of the ticks received from the live stream in the current transaction.
+     * The ticks may belong to multiple currencies, all of them must be pre-created.
+     * The rows are written according to the configured {@link IngestMode}.
+     * The currencies are not locked by {@link CurrencyIngestLock}, so the live ticks are not held back by the uploads,
+     * unless the rollups are enabled: the rollups of the written currencies are recalculated under their locks,
+     * so all the currencies of the ticks are locked at once before the first row is written.
+     *
+     * @param ticks the ticks to be stored
+     * @return the number of stored rows
+     * @throws EntityNotFoundException if any currency of the ticks is not found in the repository
+     */
+    public long createTicks(List<CurrencyStatsTick> ticks) {
+        var timeConverter = new EpochMillisConverter(ZoneId.systemDefault());
+        Map<String, CurrencyEntity> currencies = currencyRepository.findAll().stream()
+                .collect(Collectors.toMap(currency -> normalizeSymbol(currency.getSymbol()), Function.identity()));
+
+        List<CurrencyStatsRow> rows = new ArrayList<>(ticks.size());
+        for (CurrencyStatsTick tick : ticks) {
+            CurrencyEntity currencyEntity = resolveCurrency(currencies, tick.symbol());
+            rows.add(new CurrencyStatsRow(
+                    currencyEntity.getSymbol(),
+                    timeConverter.toLocalDateTime(tick.timestamp()),
+                    tick.price()));
+        }
+        if (currencyStatsRollups.isEnabled()) {
+            currencyIngestLock.lock(rows.stream().map(CurrencyStatsRow::symbol).collect(Collectors.toSet()));
+        }
+
+        try (CurrencyStatsWriter writer = openWriter(symbol -> currencies.get(normalizeSymbol(symbol)))) {
+            writer.write(rows);
+            return writer.finish();
+        }
+    }
+
+    /**
+     * Validates that all the currencies of the ticks are pre-created, so the ticks which are acknowledged
+     * before they are stored, e.g. by the tick journal, are not dropped later.
+     *
+     * @param ticks the ticks to be validated
+     * @throws EntityNotFoundException if any currency of the ticks is not found in the repository
+     */
+    public void validateTicks(List<CurrencyStatsTick> ticks) {
+        Map<String, CurrencyEntity> currencies = currencyRepository.findAll().stream()
+                .collect(Collectors.toMap(currency -> normalizeSymbol(currency.getSymbol()), Function.identity()));
+        for (CurrencyStatsTick tick : ticks) {
+            resolveCurrency(currencies, tick.symbol());
+        }
+    }
+
     /**
      * Retrieves the statistics (min/max price, oldest/newest date) for a specific currency within the specified time period.
      *
@@ -102,11 +369,33 @@ public class CurrencyStatsService {
      * @throws WrongTimePeriodException if the start date is after the end date
      */
     public CurrencyStatsMinMaxDomain getCurrencyStats(String symbol, LocalDateTime startDateTime, LocalDateTime endDateTime) {
-        LocalDateTime startDateTimeOrDefault = dateTimeOrDefaultPeriodBefore(startDateTime);
-        LocalDateTime endDateTimeOrDefault = dateTimeOrNow(endDateTime);
+        LocalDateTime now = timeWindowSnapper.now();
+        LocalDateTime startDateTimeOrDefault = dateTimeOrDefaultPeriodBefore(startDateTime, now);
+        LocalDateTime endDateTimeOrDefault = dateTimeOrNow(endDateTime, now);
         validateLocalDateTimes(startDateTimeOrDefault, endDateTimeOrDefault);
 
-        return currencyStatsRepository.findStatsBySymbol(symbol, startDateTimeOrDefault, endDateTimeOrDefault)
+        return currencyStatsCache.getStats(symbol, startDateTimeOrDefault, endDateTimeOrDefault,
+                () -> findCurrencyStats(symbol, startDateTimeOrDefault, endDateTimeOrDefault));
+    }
+
+    /**
+     * Finds the statistics of the currency for the period in the configured backend.
+     *
+     * @param symbol        the symbol of the currency
+     * @param startDateTime the start of the period (inclusive)
+     * @param endDateTime   the end of the period (exclusive)
+     * @return the {@link CurrencyStatsMinMaxDomain} of the period
+     * @throws EntityNotFoundException if no statistics are found for the specified currency and time period
+     */
+    private CurrencyStatsMinMaxDomain findCurrencyStats(String symbol, LocalDateTime startDateTime, LocalDateTime endDateTime) {
+        if (priceSeriesStore.isReady()) {
+            return priceSeriesStore.findStats(symbol, startDateTime, endDateTime)
+                    .orElseThrow(() -> new EntityNotFoundException("Currency '%s' not found".formatted(symbol)));
+        }
+        Optional<CurrencyStatsMinMaxProjection> stats = currencyStatsRollups.isEnabled()
+                ? currencyStatsRollups.findStats(symbol, startDateTime, endDateTime)
+                : currencyStatsRepository.findStatsBySymbol(symbol, startDateTime, endDateTime);
+        return stats
                 .map(this::convertToDomain)
                 .orElseThrow(() -> new EntityNotFoundException("Currency '%s' not found".formatted(symbol)));
     }
@@ -121,11 +410,30 @@ public class CurrencyStatsService {
      * @throws WrongTimePeriodException if the start date is after the end date
      */
     public List<CurrencyNormalizedPriceDomain> getAllCurrenciesNormalized(LocalDateTime startDateTime, LocalDateTime endDateTime) {
-        LocalDateTime startDateTimeOrDefault = dateTimeOrDefaultPeriodBefore(startDateTime);
-        LocalDateTime endDateTimeOrDefault = dateTimeOrNow(endDateTime);
+        LocalDateTime now = timeWindowSnapper.now();
+        LocalDateTime startDateTimeOrDefault = dateTimeOrDefaultPeriodBefore(startDateTime, now);
+        LocalDateTime endDateTimeOrDefault = dateTimeOrNow(endDateTime, now);
         validateLocalDateTimes(startDateTimeOrDefault, endDateTimeOrDefault);
 
-        return currencyStatsRepository.getNormalizedPricesForAllCurrenciesDesc(startDateTimeOrDefault, endDateTimeOrDefault).stream()
+        return currencyStatsCache.getNormalizedPrices(startDateTimeOrDefault, endDateTimeOrDefault,
+                () -> findNormalizedPrices(startDateTimeOrDefault, endDateTimeOrDefault));
+    }
+
+    /**
+     * Finds the normalized prices of all the currencies for the period in the configured backend.
+     *
+     * @param startDateTime the start of the period (inclusive)
+     * @param endDateTime   the end of the period (exclusive)
+     * @return a list of {@link CurrencyNormalizedPriceDomain} sorted by the normalized price descending
+     */
+    private List<CurrencyNormalizedPriceDomain> findNormalizedPrices(LocalDateTime startDateTime, LocalDateTime endDateTime) {
+        if (priceSeriesStore.isReady()) {
+            return priceSeriesStore.findNormalizedPricesDesc(startDateTime, endDateTime);
+        }
+        List<CurrencyNormalizedPriceProjection> normalizedPrices = currencyStatsRollups.isEnabled()
+                ? currencyStatsRollups.findNormalizedPricesDesc(startDateTime, endDateTime)
+                : currencyStatsRepository.getNormalizedPricesForAllCurrenciesDesc(startDateTime, endDateTime);
+        return normalizedPrices.stream()
                 .map(this::convertNormalizedPriceToDomain)
                 .toList();
     }
@@ -142,6 +450,32 @@ public class CurrencyStatsService {
         LocalDateTime startOfThisDayOrDefault = dateTimeOrNow(day);
         LocalDateTime startOfNextDayOrDefault = dateTimeOrNow(day).plusDays(1);
 
+        return currencyStatsCache.getHighestNormalizedPrice(startOfThisDayOrDefault, startOfNextDayOrDefault,
+                () -> findHighestNormalizedPrice(day, startOfThisDayOrDefault, startOfNextDayOrDefault));
+    }
+
+    /**
+     * Finds the currency with the highest normalized price for the day in the configured backend.
+     *
+     * @param day                     the requested day, only for the error message
+     * @param startOfThisDayOrDefault the start of the day (inclusive)
+     * @param startOfNextDayOrDefault the start of the next day (exclusive)
+     * @return the {@link CurrencyNormalizedPriceDomain} for the currency with the highest normalized price on that day
+     * @throws EntityNotFoundException if no price data is found for the specified day
+     */
+    private CurrencyNormalizedPriceDomain findHighestNormalizedPrice(LocalDate day,
+                                                                     LocalDateTime startOfThisDayOrDefault,
+                                                                     LocalDateTime startOfNextDayOrDefault) {
+        if (priceSeriesStore.isReady()) {
+            return priceSeriesStore.findNormalizedPricesDesc(startOfThisDayOrDefault, startOfNextDayOrDefault).stream()
+                    .findFirst()
+                    .orElseThrow(() -> new EntityNotFoundException("Prices not found for the day '%s'".formatted(day)));
+        }
+        if (currencyStatsRollups.isEnabled()) {
+            return currencyStatsRollups.findHighestNormalizedPrice(startOfThisDayOrDefault.toLocalDate())
+                    .map(this::convertNormalizedPriceToDomain)
+                    .orElseThrow(() -> new EntityNotFoundException("Prices not found for the day '%s'".formatted(day)));
+        }
         List<CurrencyNormalizedPriceProjection> highestNormalizedRangeForDay =
                 currencyStatsRepository.findHighestNormalizedRangeForDay(startOfThisDayOrDefault, startOfNextDayOrDefault);
         if (highestNormalizedRangeForDay.isEmpty()) {
@@ -151,19 +485,369 @@ public class CurrencyStatsService {
     }
 
     /**
-     * Parses a line from a CSV file and creates {@link CurrencyStatsEntity} object.
+     * Parses the CSV file line by line on the calling thread and writes the rows in batches.
+     *
+     * @param resource         the resource containing the CSV file to process
+     * @param progressListener the listener of the upload progress
+     * @param startNanos       the {@link System#nanoTime()} value when the upload was started
+     * @return the {@link CurrencyStatsIngestDomain} with the number of stored rows and the ingest throughput
+     * @throws IOException if the file could not be read
+     */
+    private CurrencyStatsIngestDomain createStatsSequentially(Resource resource,
+                                                              IngestProgressListener progressListener,
+                                                              long startNanos) throws IOException {
+        var timeConverter = new EpochMillisConverter(ZoneId.systemDefault());
+        var inputStream = new CountingInputStream(resource.getInputStream());
+        try (CurrencyStatsCsvReader reader = openReader(CsvDecompressor.decompress(inputStream))) {
+            CurrencyEntity currencyEntity = readCurrency(reader);
+            long rows = writeRows(reader, currencyEntity, timeConverter, progressListener, inputStream::count, false);
+            return createIngestDomain(currencyEntity.getSymbol(), rows, startNanos);
+        }
+    }
+
+    /**
+     * Writes the rows of the reader in batches, starting from its current line, until the end of the file.
+     * In the incremental mode the rows at or before the watermark of the currency are skipped.
+     * If the pipeline is enabled, the lines are parsed and written concurrently by {@link IngestPipeline}.
+     * The currency is locked by {@link CurrencyIngestLock} before its watermark is read.
+     *
+     * @param reader           the reader positioned on the first line of statistics to be written
+     * @param currencyEntity   the {@link CurrencyEntity} of the file
+     * @param timeConverter    the converter of the timestamp to the local date and time
+     * @param progressListener the listener of the upload progress
+     * @param parsedBytes      supplies the number of bytes of the file parsed so far
+     * @param ignoreDuplicates whether the rows which already exist are skipped, see {@link #openWriter(Function, boolean)}
+     * @return the number of stored rows
+     * @throws IOException if the file could not be read
+     */
+    private long writeRows(CurrencyStatsCsvReader reader,
+                           CurrencyEntity currencyEntity,
+                           EpochMillisConverter timeConverter,
+                           IngestProgressListener progressListener,
+                           LongSupplier parsedBytes,
+                           boolean ignoreDuplicates) throws IOException {
+        currencyIngestLock.lock(List.of(currencyEntity.getSymbol()));
+        long watermark = findWatermark(currencyEntity.getSymbol(), timeConverter);
+        if (pipelineEnabled) {
+            return writeRowsPipelined(reader, currencyEntity, timeConverter, watermark, progressListener, parsedBytes,
+                    ignoreDuplicates);
+        }
+        long writtenRows = 0;
+        try (CurrencyStatsWriter writer = openWriter(rowSymbol -> currencyEntity, ignoreDuplicates)) {
+            List<CurrencyStatsRow> batch = new ArrayList<>(batchSize());
+            if (reader.epochMillis() > watermark) {
+                batch.add(parseRow(reader, currencyEntity, timeConverter));
+            }
+
+            while (reader.next()) {
+                validateCsvHeader(reader);
+                validateCurrencyMatch(currencyEntity.getSymbol(), reader.symbol());
+                if (reader.epochMillis() <= watermark) {
+                    continue;
+                }
+                batch.add(parseRow(reader, currencyEntity, timeConverter));
+
+                if (batch.size() >= batchSize()) {
+                    writer.write(batch);
+                    writtenRows += batch.size();
+                    progressListener.onProgress(writtenRows, parsedBytes.getAsLong());
+                    batch = new ArrayList<>(batchSize());
+                }
+            }
+
+            if (!batch.isEmpty()) {
+                writer.write(batch);
+                writtenRows += batch.size();
+                progressListener.onProgress(writtenRows, parsedBytes.getAsLong());
+            }
+            return writer.finish();
+        }
+    }
+
+    /**
+     * Parses the lines on the reading thread of {@link IngestPipeline} and writes the batches on the calling thread.
+     *
+     * @param reader           the reader positioned on the first line of statistics to be written
+     * @param currencyEntity   the {@link CurrencyEntity} of the file
+     * @param timeConverter    the converter of the timestamp to the local date and time
+     * @param watermark        the rows at or before the watermark are skipped
+     * @param progressListener the listener of the upload progress
+     * @param parsedBytes      supplies the number of bytes of the file parsed so far, called on the reading thread
+     * @param ignoreDuplicates whether the rows which already exist are skipped, see {@link #openWriter(Function, boolean)}
+     * @return the number of stored rows
+     * @throws IOException if the file could not be read
+     */
+    private long writeRowsPipelined(CurrencyStatsCsvReader reader,
+                                    CurrencyEntity currencyEntity,
+                                    EpochMillisConverter timeConverter,
+                                    long watermark,
+                                    IngestProgressListener progressListener,
+                                    LongSupplier parsedBytes,
+                                    boolean ignoreDuplicates) throws IOException {
+        String symbol = currencyEntity.getSymbol();
+        List<CurrencyStatsRow> firstRows = new ArrayList<>(1);
+        if (reader.epochMillis() > watermark) {
+            firstRows.add(parseRow(reader, currencyEntity, timeConverter));
+        }
+        var endOfFile = new AtomicBoolean();
+        IngestPipeline.BatchSource source = () -> {
+            if (endOfFile.get()) {
+                return null;
+            }
+            List<CurrencyStatsRow> batch = new ArrayList<>(batchSize());
+            batch.addAll(firstRows);
+            firstRows.clear();
+            while (batch.size() < batchSize()) {
+                if (!reader.next()) {
+                    endOfFile.set(true);
+                    break;
+                }
+                validateCsvHeader(reader);
+                validateCurrencyMatch(symbol, reader.symbol());
+                if (reader.epochMillis() > watermark) {
+                    batch.add(parseRow(reader, currencyEntity, timeConverter));
+                }
+            }
+            return batch.isEmpty() ? null : new IngestPipeline.Batch(batch, parsedBytes.getAsLong());
+        };
+
+        var writtenRows = new AtomicLong();
+        try (CurrencyStatsWriter writer = openWriter(rowSymbol -> currencyEntity, ignoreDuplicates)) {
+            ingestPipeline.run(source, batch -> {
+                writer.write(batch.rows());
+                progressListener.onProgress(writtenRows.addAndGet(batch.rows().size()), batch.parsedBytes());
+            });
+            return writer.finish();
+        }
+    }
+
+    /**
+     * Parses the CSV file in chunks on {@link ParallelCsvParser} and writes the rows in batches on the calling thread.
+     * The file is spooled to a temporary file first, if the resource is not a file.
+     *
+     * @param resource         the resource containing the CSV file to process
+     * @param progressListener the listener of the upload progress
+     * @param startNanos       the {@link System#nanoTime()} value when the upload was started
+     * @return the {@link CurrencyStatsIngestDomain} with the number of stored rows and the ingest throughput
+     * @throws IOException if the file could not be read
+     */
+    private CurrencyStatsIngestDomain createStatsInParallel(Resource resource,
+                                                            IngestProgressListener progressListener,
+                                                            long startNanos) throws IOException {
+        boolean spooled = !resource.isFile();
+        Path file = spooled ? ResourceSpooler.spoolToTempFile(resource) : resource.getFile().toPath();
+        try {
+            CurrencyEntity currencyEntity;
+            try (CurrencyStatsCsvReader reader = openReader(Files.newInputStream(file))) {
+                currencyEntity = readCurrency(reader);
+            }
+            String symbol = currencyEntity.getSymbol();
+            var timeConverter = new EpochMillisConverter(ZoneId.systemDefault());
+            currencyIngestLock.lock(List.of(symbol));
+            long watermark = findWatermark(symbol, timeConverter);
+
+            long rows;
+            var writtenRows = new AtomicLong();
+            var parsedBytes = new AtomicLong();
+            try (CurrencyStatsWriter writer = openWriter(rowSymbol -> currencyEntity)) {
+                parallelCsvParser.parse(file, this::openReader, reader -> {
+                    validateCsvHeader(reader);
+                    validateCurrencyMatch(symbol, reader.symbol());
+                    return reader.epochMillis() > watermark ? parseRow(reader, currencyEntity, timeConverter) : null;
+                }, batchSize(), batch -> {
+                    writer.write(batch);
+                    writtenRows.addAndGet(batch.size());
+                }, bytes -> progressListener.onProgress(writtenRows.get(), parsedBytes.addAndGet(bytes)));
+                rows = writer.finish();
+            }
+            return createIngestDomain(symbol, rows, startNanos);
+        } finally {
+            if (spooled) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    /**
+     * Skips the header, reads the currency from the first line of statistics and finds its {@link CurrencyEntity}.
+     * The reader stays positioned on the first line of statistics.
+     *
+     * @param reader the reader positioned before the header
+     * @return the {@link CurrencyEntity} of the file
+     * @throws IOException             if the file could not be read
+     * @throws CSVFileProcessException if the file does not contain statistics
+     * @throws EntityNotFoundException if the currency entity is not found in the repository
+     */
+    private CurrencyEntity readCurrency(CurrencyStatsCsvReader reader) throws IOException {
+        //skip first as header
+        reader.next();
+        //read currency from second row and keep it to ensure that file contains only one(this) currency
+        if (!reader.next()) {
+            throw new CSVFileProcessException("CSV file does not contain any statistics");
+        }
+        validateCsvHeader(reader);
+        return currencyRepository.findById(reader.symbol())
+                .orElseThrow(() -> new EntityNotFoundException("Currency not found, need to enable the currency first"));
+    }
+
+    /**
+     * Finds the watermark of the currency in the incremental mode, the newest stored date and time.
+     *
+     * @param symbol        the symbol of the currency
+     * @param timeConverter the converter of the date and time to milliseconds since epoch
+     * @return the watermark in milliseconds since epoch, or {@link Long#MIN_VALUE} if no rows must be skipped
+     */
+    private long findWatermark(String symbol, EpochMillisConverter timeConverter) {
+        if (!incremental) {
+            return Long.MIN_VALUE;
+        }
+        return currencyStatsRepository.findNewestDateTimeBySymbol(symbol)
+                .map(timeConverter::toEpochMillis)
+                .orElse(Long.MIN_VALUE);
+    }
+
+    /**
+     * Finds the watermarks of all the currencies in the incremental mode with one query.
+     *
+     * @param timeConverter the converter of the date and time to milliseconds since epoch
+     * @return the watermarks in milliseconds since epoch by the currency symbol, empty if no rows must be skipped
+     */
+    private Map<String, Long> findWatermarks(EpochMillisConverter timeConverter) {
+        if (!incremental) {
+            return Map.of();
+        }
+        return currencyStatsRepository.findNewestDateTimes().stream()
+                .collect(Collectors.toMap(CurrencyStatsWatermarkProjection::getSymbol,
+                        watermark -> timeConverter.toEpochMillis(watermark.getNewestDate())));
+    }
+
+    /**
+     * Finds the currency of the row among the currencies resolved before the parsing.
+     *
+     * @param currencies the currencies by the normalized symbol
+     * @param symbol     the currency symbol found in the file
+     * @return the {@link CurrencyEntity} of the row
+     * @throws EntityNotFoundException if the currency is not found
+     */
+    private CurrencyEntity resolveCurrency(Map<String, CurrencyEntity> currencies, String symbol) {
+        CurrencyEntity currencyEntity = currencies.get(normalizeSymbol(symbol));
+        if (currencyEntity == null) {
+            throw new EntityNotFoundException(
+                    "Currency '%s' not found, need to enable the currency first".formatted(symbol));
+        }
+        return currencyEntity;
+    }
+
+    /**
+     * Normalizes the currency symbol, so the symbols are matched ignoring case as in {@link #validateCurrencyMatch}.
+     *
+     * @param symbol the currency symbol
+     * @return the upper case symbol
+     */
+    private String normalizeSymbol(String symbol) {
+        return symbol.toUpperCase(Locale.ROOT);
+    }
+
+    /**
+     * Opens the {@link CurrencyStatsWriter} for the configured {@link IngestMode}.
+     * The written batches are timed by {@link AdaptiveBatchSizer} and the written rows are tracked
+     * by {@link PriceSeriesStore} and {@link CurrencyStatsRollups}, if they are enabled.
+     * The number of the open stateless writers is limited by {@link StatelessSessionLimiter}.
+     *
+     * @param currencyResolver resolves the {@link CurrencyEntity} the written statistics belong to by the row symbol
+     * @return the writer to be closed by the caller
+     */
+    private CurrencyStatsWriter openWriter(Function<String, CurrencyEntity> currencyResolver) {
+        return openWriter(currencyResolver, false);
+    }
+
+    /**
+     * Opens the {@link CurrencyStatsWriter} as by {@link #openWriter(Function)}. If the rows which already exist
+     * must be skipped and the mode is not {@link IngestMode#UPSERT}, the upsert writer with
+     * {@link ConflictAction#NOTHING} is opened instead of the configured one.
+     *
+     * @param currencyResolver resolves the {@link CurrencyEntity} the written statistics belong to by the row symbol
+     * @param ignoreDuplicates whether the rows which already exist are skipped
+     * @return the writer to be closed by the caller
+     */
+    private CurrencyStatsWriter openWriter(Function<String, CurrencyEntity> currencyResolver, boolean ignoreDuplicates) {
+        IngestMode writerMode = ignoreDuplicates ? IngestMode.UPSERT : ingestMode;
+        ConflictAction writerConflictAction = ingestMode == IngestMode.UPSERT ? conflictAction : ConflictAction.NOTHING;
+        CurrencyStatsWriter writer = switch (writerMode) {
+            case JPA -> new JpaCurrencyStatsWriter(currencyStatsRepository, entityManager, currencyResolver);
+            case BULK -> currencyStatsBulkRepository.openWriter();
+            case STATELESS -> statelessSessionLimiter.open(
+                    () -> currencyStatsStatelessRepository.openWriter(currencyResolver, batchSize(), commitInterval));
+            case UPSERT -> currencyStatsBulkRepository.openUpsertWriter(writerConflictAction);
+        };
+        boolean replaceExisting = writerMode == IngestMode.UPSERT && writerConflictAction == ConflictAction.UPDATE;
+        return currencyStatsCache.track(currencyStatsRollups.track(
+                priceSeriesStore.track(adaptiveBatchSizer.measure(writer), replaceExisting)));
+    }
+
+    /**
+     * Checks whether the file may be parsed by {@link ParallelCsvParser}, which passes the batches to the writer
+     * in the order they are parsed, not in the order of the file. The upserts replacing the existing prices
+     * keep the last of the repeated rows only if the rows are written in the order of the file.
+     *
+     * @return false if the mode is {@link IngestMode#UPSERT} with {@link ConflictAction#UPDATE}
+     */
+    private boolean isParallelParsingAllowed() {
+        return ingestMode != IngestMode.UPSERT || conflictAction != ConflictAction.UPDATE;
+    }
+
+    /**
+     * Gets the number of rows to be written at once, chosen by {@link AdaptiveBatchSizer} if it is enabled.
+     *
+     * @return the batch size
+     */
+    private int batchSize() {
+        return adaptiveBatchSizer.isEnabled() ? adaptiveBatchSizer.getBatchSize() : batchSize;
+    }
+
+    /**
+     * Opens the {@link CurrencyStatsCsvReader} for the configured {@link CsvParserType}.
+     *
+     * @param inputStream the stream of the CSV file
+     * @return the reader to be closed by the caller
+     */
+    private CurrencyStatsCsvReader openReader(InputStream inputStream) {
+        return switch (parserType) {
+            case OPENCSV -> new OpenCsvCurrencyStatsReader(inputStream);
+            case TICK -> new TickCsvReader(inputStream);
+        };
+    }
+
+    /**
+     * Parses the current line of the CSV file and creates {@link CurrencyStatsRow} object.
      * The method assumes the CSV line contains the timestamp in milliseconds, the currency symbol, the price.
      *
-     * @param line           the CSV line containing data in the format [timestamp, currencySymbol, price]
+     * @param reader         the reader positioned on the line in the format [timestamp, currencySymbol, price]
      * @param currencyEntity the {@link CurrencyEntity} associated with the parsed data
-     * @return a new {@link CurrencyStatsEntity} populated with the parsed data
+     * @param timeConverter  the converter of the timestamp to the local date and time
+     * @return a new {@link CurrencyStatsRow} populated with the parsed data
+     */
+    private CurrencyStatsRow parseRow(CurrencyStatsCsvReader reader,
+                                      CurrencyEntity currencyEntity,
+                                      EpochMillisConverter timeConverter) {
+        return new CurrencyStatsRow(
+                currencyEntity.getSymbol(),
+                timeConverter.toLocalDateTime(reader.epochMillis()),
+                reader.price());
+    }
+
+    /**
+     * Creates {@link CurrencyStatsIngestDomain} calculating the throughput of the upload.
+     *
+     * @param symbol     the symbol of the uploaded currency
+     * @param rows       the number of stored rows
+     * @param startNanos the {@link System#nanoTime()} value when the upload was started
+     * @return the corresponding {@link CurrencyStatsIngestDomain}
      */
-    private CurrencyStatsEntity parseAndCreateEntity(String[] line, CurrencyEntity currencyEntity) {
-        var entity = new CurrencyStatsEntity();
-        entity.setDateTime(parseMillisToDateTime(line[0]));
-        entity.setCurrency(currencyEntity);
-        entity.setPrice(new BigDecimal(line[2]));
-        return entity;
+    private CurrencyStatsIngestDomain createIngestDomain(String symbol, long rows, long startNanos) {
+        long elapsedNanos = Math.max(System.nanoTime() - startNanos, 1);
+        double rowsPerSecond = rows * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+        return new CurrencyStatsIngestDomain(symbol, rows, TimeUnit.NANOSECONDS.toMillis(elapsedNanos), rowsPerSecond);
     }
 
     /**
@@ -197,18 +881,6 @@ public class CurrencyStatsService {
         }
     }
 
-    /**
-     * Parses a string representing milliseconds since epoch to a {@link LocalDateTime}.
-     *
-     * @param millisString the string representing milliseconds since epoch
-     * @return the corresponding {@link LocalDateTime}
-     */
-    private LocalDateTime parseMillisToDateTime(String millisString) {
-        return Instant.ofEpochMilli(Long.parseLong(millisString))
-                .atZone(ZoneId.systemDefault())
-                .toLocalDateTime();
-    }
-
     /**
      * Converts DB entity {@link CurrencyNormalizedPriceProjection}
      * to business entity {@link CurrencyNormalizedPriceDomain}.
@@ -240,20 +912,22 @@ public class CurrencyStatsService {
      * Returns the given date time or, if null, a default period before the current time.
      *
      * @param dateTime the {@link LocalDateTime} to be returned if non-null
+     * @param now      the current date and time snapped by {@link TimeWindowSnapper}
      * @return the provided {@link LocalDateTime}, or the default period before the current time
      */
-    private LocalDateTime dateTimeOrDefaultPeriodBefore(LocalDateTime dateTime) {
-        return dateTime != null ? dateTime : LocalDateTime.now().minus(defaultPeriodBefore);
+    private LocalDateTime dateTimeOrDefaultPeriodBefore(LocalDateTime dateTime, LocalDateTime now) {
+        return dateTime != null ? dateTime : now.minus(defaultPeriodBefore);
     }
 
     /**
      * Returns the given date time or if null, the current date and time.
      *
      * @param dateTime the {@link LocalDateTime} to be returned if non-null
+     * @param now      the current date and time snapped by {@link TimeWindowSnapper}
      * @return the provided {@link LocalDateTime}, or the current date and time
      */
-    private LocalDateTime dateTimeOrNow(LocalDateTime dateTime) {
-        return dateTime != null ? dateTime : LocalDateTime.now();
+    private LocalDateTime dateTimeOrNow(LocalDateTime dateTime, LocalDateTime now) {
+        return dateTime != null ? dateTime : now;
     }
 
     /**
@@ -269,13 +943,13 @@ public class CurrencyStatsService {
     }
 
     /**
-     * Validates that the array contains exactly 3 elements.
+     * Validates that the current line of the CSV file contains exactly 3 columns.
      *
-     * @param line the line of the CSV file
+     * @param reader the reader positioned on the line of the CSV file
      * @throws CSVFileProcessException if the CSV file does not contain exactly 3 columns
      */
-    private void validateCsvHeader(String[] line) {
-        if (line.length != 3) {
+    private void validateCsvHeader(CurrencyStatsCsvReader reader) {
+        if (reader.columnCount() != 3) {
             throw new CSVFileProcessException("CSV file must contain exactly 3 columns per line");
         }
     }
@@ -0,0 +1,214 @@
+package org.cryptos.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.cryptos.service.domain.CurrencyStatsIngestDomain;
+import org.cryptos.service.ingest.CsvFileParts;
+import org.cryptos.service.ingest.WatchedFileOffsets;
+import org.cryptos.service.ingest.WatchedFileOffsets.FileOffset;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Service ingesting the CSV files dropped into "currency.watch.directory" and the lines appended to them.
+ * If "currency.watch.enabled" is true, the watcher thread scans the directory whenever {@link WatchService} reports
+ * a created or modified file, and at least every "currency.watch.rescan-interval", as the events are not delivered
+ * on every file system (e.g. shared network volumes). Only the complete lines appended after the stored offset
+ * of the file are stored by {@link CurrencyStatsService#createStatsPart}, in the parts of about
+ * "currency.watch.part-size" bytes, every part in its own transaction. The offset after the last stored line
+ * of every file is saved to "currency.watch.offsets-file", so the files are never stored from the start again,
+ * also after a restart, and the part possibly committed right before a crash is stored again ignoring the existing
+ * rows. The file shorter than its offset is considered replaced and stored from the start.
+ */
+@Slf4j
+@Service
+public class CurrencyStatsWatchService {
+
+    private final CurrencyStatsService currencyStatsService;
+    private final Path directory;
+    private final Duration rescanInterval;
+    private final long partSize;
+    private final WatchedFileOffsets offsets;
+    private final WatchService watchService;
+    private final ExecutorService watcher;
+
+    /**
+     * Creates the service, if the watching is enabled the offsets are loaded and the watcher is started.
+     *
+     * @param currencyStatsService the service storing the statistics
+     * @param enabled              whether the directory is watched
+     * @param directory            the watched directory
+     * @param offsetsFile          the file of the stored offsets of the watched files
+     * @param rescanInterval       the maximum delay between the scans of the directory
+     * @param partSize             the maximum size of the part of a file stored in one transaction,
+     *                             unless a single line is longer
+     * @throws UncheckedIOException if the offsets could not be loaded or the directory could not be watched
+     */
+    public CurrencyStatsWatchService(CurrencyStatsService currencyStatsService,
+                                     @Value("${currency.watch.enabled:false}") boolean enabled,
+                                     @Value("${currency.watch.directory:./drops}") Path directory,
+                                     @Value("${currency.watch.offsets-file:./watch-offsets.properties}") Path offsetsFile,
+                                     @Value("${currency.watch.rescan-interval:PT1M}") Duration rescanInterval,
+                                     @Value("${currency.watch.part-size:16MB}") DataSize partSize) {
+        this.currencyStatsService = currencyStatsService;
+        this.directory = directory;
+        this.rescanInterval = rescanInterval;
+        this.partSize = Math.max(partSize.toBytes(), 1);
+        if (!enabled) {
+            this.offsets = null;
+            this.watchService = null;
+            this.watcher = null;
+            return;
+        }
+        try {
+            this.offsets = WatchedFileOffsets.load(offsetsFile);
+            Files.createDirectories(directory);
+            this.watchService = directory.getFileSystem().newWatchService();
+            directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Directory %s could not be watched".formatted(directory), e);
+        }
+        this.watcher = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "csv-watcher"));
+        watcher.execute(this::watch);
+        log.info("Watching {} for CSV files, offsets in {}", directory, offsetsFile);
+    }
+
+    /**
+     * Stops the watcher after the current scan. The remaining lines are stored after the next start.
+     *
+     * @throws InterruptedException if interrupted while waiting for the watcher
+     * @throws IOException          if the watch service could not be closed
+     */
+    @PreDestroy
+    public void shutdown() throws InterruptedException, IOException {
+        if (watcher == null) {
+            return;
+        }
+        watchService.close();
+        watcher.shutdown();
+        watcher.awaitTermination(1, TimeUnit.MINUTES);
+    }
+
+    /**
+     * Stores the lines appended to all the CSV files of the directory since the last scan.
+     * The failure of one file is logged and the file is retried on the next scan, the other files are not affected.
+     */
+    private void scan() {
+        List<Path> files;
+        try (Stream<Path> entries = Files.list(directory)) {
+            files = entries.filter(Files::isRegularFile)
+                    .filter(file -> file.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".csv"))
+                    .sorted()
+                    .toList();
+        } catch (IOException e) {
+            log.warn("Directory {} could not be listed, retrying later: {}", directory, e.getMessage());
+            return;
+        }
+
+        for (Path file : files) {
+            try {
+                ingestAppended(file);
+            } catch (IOException | RuntimeException e) {
+                log.warn("File {} could not be stored, retrying later: {}", file.getFileName(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Scans the directory until the watcher is stopped, waiting for the next event or the rescan interval.
+     * The events are only the trigger of the scan, every scan compares all the files with their offsets.
+     */
+    private void watch() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                scan();
+                WatchKey key = watchService.poll(rescanInterval.toMillis(), TimeUnit.MILLISECONDS);
+                if (key != null) {
+                    key.pollEvents();
+                    key.reset();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            log.info("Watching of {} stopped", directory);
+        }
+    }
+
+    /**
+     * Stores the complete lines of the file after its offset part by part, saving the offset after every part.
+     * The end of the part is saved as pending before it is stored, so the part which may have been stored before
+     * the crash is stored again ignoring the existing rows instead of failing on them.
+     * The first part of the file starts with the header and contains at least the first line of statistics,
+     * as it determines the currency of the file. The last line without the line break waits for the next scan.
+     *
+     * @param file the watched CSV file
+     * @return the number of the stored rows
+     * @throws IOException if the file could not be read or the offset could not be saved
+     */
+    private long ingestAppended(Path file) throws IOException {
+        String fileName = file.getFileName().toString();
+        FileOffset offset = offsets.get(fileName);
+        long rows = 0;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < offset.offset()) {
+                log.warn("File {} is shorter than its stored offset {}, storing it from the start", fileName,
+                        offset.offset());
+                offset = FileOffset.START;
+                offsets.put(fileName, offset);
+            }
+
+            while (offset.offset() < size) {
+                long minEnd = CsvFileParts.findNextLineEnd(channel, offset.offset(), size);
+                if (minEnd >= 0 && offset.symbol() == null) {
+                    //the header alone does not determine the currency
+                    minEnd = CsvFileParts.findNextLineEnd(channel, minEnd, size);
+                }
+                if (minEnd < 0) {
+                    break;
+                }
+                long end = Math.max(minEnd,
+                        CsvFileParts.findLastLineEnd(channel, offset.offset(), Math.min(size, offset.offset() + partSize)));
+
+                boolean partPending = offset.isPartPending();
+                offset = new FileOffset(offset.offset(), offset.symbol(), Math.max(offset.pendingEnd(), end));
+                offsets.put(fileName, offset);
+                CurrencyStatsIngestDomain result;
+                try (InputStream part = CsvFileParts.openPart(file, offset.offset(), end)) {
+                    result = currencyStatsService.createStatsPart(part, offset.symbol(), partPending);
+                }
+                if (result.symbol() == null) {
+                    break;
+                }
+                offset = new FileOffset(end, result.symbol(), offset.pendingEnd());
+                offsets.put(fileName, offset);
+                rows += result.rows();
+            }
+        }
+        if (rows > 0) {
+            log.info("File {} of {}: {} appended rows stored", fileName, offset.symbol(), rows);
+        }
+        return rows;
+    }
+}
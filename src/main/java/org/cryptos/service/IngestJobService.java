@@ -0,0 +1,221 @@
+package org.cryptos.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.cryptos.service.domain.CurrencyStatsIngestDomain;
+import org.cryptos.service.domain.IngestJobDomain;
+import org.cryptos.service.exception.CSVFileProcessException;
+import org.cryptos.service.exception.CurrencyServiceBaseException;
+import org.cryptos.service.exception.EntityNotFoundException;
+import org.cryptos.service.exception.IngestJobRejectedException;
+import org.cryptos.service.ingest.IngestJob;
+import org.cryptos.service.ingest.IngestJobStatus;
+import org.cryptos.service.ingest.ResourceSpooler;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Service for the asynchronous currency statistics uploads.
+ * The uploaded file is spooled to a temporary file and processed by {@link CurrencyStatsService} on a bounded pool
+ * of "currency.create-stats.async.threads" workers. Up to "currency.create-stats.async.queue-capacity" jobs wait
+ * for a free worker, further jobs are rejected. The finished jobs are kept for "currency.create-stats.async.retention".
+ */
+@Slf4j
+@Service
+public class IngestJobService {
+
+    private final CurrencyStatsService currencyStatsService;
+    private final ThreadPoolExecutor executor;
+    private final Duration retention;
+    private final Map<UUID, IngestJob> jobs = new ConcurrentHashMap<>();
+
+    /**
+     * Creates the service with its own bounded pool of workers.
+     *
+     * @param currencyStatsService the service storing the statistics
+     * @param threads              the number of workers processing the jobs
+     * @param queueCapacity        the number of jobs waiting for a free worker
+     * @param retention            the time the finished jobs are available for the status requests
+     */
+    public IngestJobService(CurrencyStatsService currencyStatsService,
+                            @Value("${currency.create-stats.async.threads:2}") int threads,
+                            @Value("${currency.create-stats.async.queue-capacity:8}") int queueCapacity,
+                            @Value("${currency.create-stats.async.retention:PT1H}") Duration retention) {
+        this.currencyStatsService = currencyStatsService;
+        this.retention = retention;
+        var threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(queueCapacity, 1)),
+                runnable -> new Thread(runnable, "ingest-job-" + threadNumber.incrementAndGet()),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Stops the workers when the application is shut down, the running jobs are interrupted.
+     */
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Accepts the CSV file with currency statistics for the asynchronous upload.
+     * The file is copied before the method returns, so the resource may be released by the caller.
+     *
+     * @param resource the resource containing the CSV file to process
+     * @return the {@link IngestJobDomain} of the queued job
+     * @throws IngestJobRejectedException if all the workers are busy and the queue is full
+     * @throws CSVFileProcessException    if the file could not be copied
+     */
+    public IngestJobDomain submit(Resource resource) {
+        purgeFinishedJobs();
+        if (executor.getQueue().remainingCapacity() == 0) {
+            throw createRejectedException(null);
+        }
+
+        Path file;
+        IngestJob job;
+        try {
+            file = ResourceSpooler.spoolToTempFile(resource);
+            job = new IngestJob(UUID.randomUUID(), Files.size(file));
+        } catch (IOException e) {
+            throw new CSVFileProcessException("Exception occurs while reading CSV file", e);
+        }
+
+        jobs.put(job.getId(), job);
+        try {
+            executor.execute(() -> run(job, file));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.getId());
+            deleteQuietly(file);
+            throw createRejectedException(e);
+        }
+        return convertToDomain(job);
+    }
+
+    /**
+     * Retrieves the state of the upload job.
+     *
+     * @param id the identifier of the job
+     * @return the {@link IngestJobDomain} with the progress, the throughput and the estimated remaining time
+     * @throws EntityNotFoundException if the job is unknown or was finished longer than the retention ago
+     */
+    public IngestJobDomain getJob(UUID id) {
+        IngestJob job = jobs.get(id);
+        if (job == null) {
+            throw new EntityNotFoundException("Job '%s' not found".formatted(id));
+        }
+        return convertToDomain(job);
+    }
+
+    /**
+     * Processes the job on the worker thread and deletes the spooled file.
+     *
+     * @param job  the job to be processed
+     * @param file the spooled CSV file
+     */
+    private void run(IngestJob job, Path file) {
+        job.start();
+        try {
+            CurrencyStatsIngestDomain result = currencyStatsService.createStats(new FileSystemResource(file), job);
+            job.complete(result);
+        } catch (CurrencyServiceBaseException e) {
+            log.error("Ingest job {} failed", job.getId(), e);
+            job.fail(e.getMessage());
+        } catch (RuntimeException e) {
+            log.error("Ingest job {} failed", job.getId(), e);
+            job.fail("An unexpected error occurred.");
+        } finally {
+            deleteQuietly(file);
+        }
+    }
+
+    /**
+     * Removes the jobs finished longer than the retention ago.
+     */
+    private void purgeFinishedJobs() {
+        LocalDateTime expiredBefore = LocalDateTime.now().minus(retention);
+        jobs.values().removeIf(job -> job.isFinished() && job.getFinishedAt().isBefore(expiredBefore));
+    }
+
+    /**
+     * Deletes the file logging the failure instead of throwing it.
+     *
+     * @param file the file to be deleted
+     */
+    private void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Could not delete temporary file {}", file, e);
+        }
+    }
+
+    /**
+     * Creates the exception for the job rejected because of the saturated workers.
+     *
+     * @param cause the cause of the rejection, or null
+     * @return the {@link IngestJobRejectedException}
+     */
+    private IngestJobRejectedException createRejectedException(Throwable cause) {
+        String message = "Too many upload jobs in progress, retry later";
+        return cause == null ? new IngestJobRejectedException(message) : new IngestJobRejectedException(message, cause);
+    }
+
+    /**
+     * Converts {@link IngestJob} to business entity {@link IngestJobDomain}, calculating the throughput
+     * and estimating the remaining time from the share of the file parsed so far.
+     *
+     * @param job the {@link IngestJob} to be converted
+     * @return the corresponding {@link IngestJobDomain}
+     */
+    private IngestJobDomain convertToDomain(IngestJob job) {
+        IngestJobStatus status = job.getStatus();
+        long rows = job.getRows();
+        long bytes = job.getBytes();
+        long elapsedNanos = switch (status) {
+            case QUEUED -> 0;
+            case RUNNING -> System.nanoTime() - job.getStartNanos();
+            case COMPLETED, FAILED -> job.getFinishNanos() - job.getStartNanos();
+        };
+        double rowsPerSecond = elapsedNanos > 0 ? rows * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos : 0;
+        Long etaMillis = switch (status) {
+            case RUNNING -> bytes > 0 && job.getTotalBytes() > bytes
+                    ? TimeUnit.NANOSECONDS.toMillis((long) (elapsedNanos * ((double) (job.getTotalBytes() - bytes) / bytes)))
+                    : null;
+            case COMPLETED -> 0L;
+            case QUEUED, FAILED -> null;
+        };
+        CurrencyStatsIngestDomain result = job.getResult();
+        return new IngestJobDomain(
+                job.getId(),
+                status,
+                result != null ? result.symbol() : null,
+                rows,
+                bytes,
+                job.getTotalBytes(),
+                TimeUnit.NANOSECONDS.toMillis(elapsedNanos),
+                rowsPerSecond,
+                etaMillis,
+                job.getError(),
+                job.getCreatedAt(),
+                job.getFinishedAt()
+        );
+    }
+}
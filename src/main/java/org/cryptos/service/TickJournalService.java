@@ -0,0 +1,166 @@
+package org.cryptos.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.cryptos.service.exception.CSVFileProcessException;
+import org.cryptos.service.exception.CurrencyServiceBaseException;
+import org.cryptos.service.exception.EntityNotFoundException;
+import org.cryptos.service.ingest.CurrencyStatsTick;
+import org.cryptos.service.ingest.TickJournal;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Service writing the micro-batches of the live ticks, see {@link TickStreamService} and {@link TickTcpListener}.
+ * If "currency.journal.enabled" is true, the ticks are appended to the local {@link TickJournal} in
+ * "currency.journal.directory" and acknowledged as soon as they are forced to the disk, so the client-visible latency
+ * does not depend on the database writes. The currencies of the ticks are checked before, so the ticks of an unknown
+ * currency are rejected to the sender instead of being dropped by the drain. The drainer thread bulk-writes
+ * the journaled ticks into the database every "currency.journal.drain-interval" and checkpoints the drained position,
+ * the drained segments are deleted.
+ * The ticks not drained before the shutdown or a crash are written after the start.
+ * Otherwise the ticks are written into the database directly by {@link CurrencyStatsService}.
+ */
+@Slf4j
+@Service
+public class TickJournalService {
+
+    private final CurrencyStatsService currencyStatsService;
+    private final int drainBatchSize;
+    private final TickJournal journal;
+    private final ScheduledExecutorService drainer;
+    private TickJournal.Position drainedPosition;
+
+    /**
+     * Creates the service, if the journal is enabled it is opened and the drainer is started.
+     *
+     * @param currencyStatsService the service storing the statistics
+     * @param enabled              whether the ticks are written through the journal
+     * @param directory            the directory of the journal segment files
+     * @param segmentSize          the size of a journal segment file
+     * @param drainInterval        the delay between the drains of the journal
+     * @param drainBatchSize       the maximum number of ticks written into the database in one transaction
+     * @throws UncheckedIOException if the journal could not be opened
+     */
+    public TickJournalService(CurrencyStatsService currencyStatsService,
+                              @Value("${currency.journal.enabled:false}") boolean enabled,
+                              @Value("${currency.journal.directory:./journal}") Path directory,
+                              @Value("${currency.journal.segment-size:64MB}") DataSize segmentSize,
+                              @Value("${currency.journal.drain-interval:PT1S}") Duration drainInterval,
+                              @Value("${currency.journal.drain-batch-size:5000}") int drainBatchSize) {
+        this.currencyStatsService = currencyStatsService;
+        this.drainBatchSize = drainBatchSize;
+        if (!enabled) {
+            this.journal = null;
+            this.drainer = null;
+            return;
+        }
+        try {
+            this.journal = new TickJournal(directory, Math.toIntExact(segmentSize.toBytes()));
+            this.drainedPosition = journal.getCheckpoint();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Tick journal could not be opened in %s".formatted(directory), e);
+        }
+        this.drainer = Executors.newSingleThreadScheduledExecutor(runnable -> new Thread(runnable, "tick-journal-drainer"));
+        drainer.scheduleWithFixedDelay(this::drain, 0, drainInterval.toMillis(), TimeUnit.MILLISECONDS);
+        log.info("Tick journal opened in {}, draining from {}", directory, drainedPosition);
+    }
+
+    /**
+     * Stops the drainer after the current drain and forces the journal to the disk.
+     * The ticks not drained yet are written after the next start.
+     *
+     * @throws InterruptedException if interrupted while waiting for the drainer
+     */
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        if (journal == null) {
+            return;
+        }
+        drainer.shutdown();
+        drainer.awaitTermination(1, TimeUnit.MINUTES);
+        journal.close();
+    }
+
+    /**
+     * Writes the micro-batch of ticks into the journal, or into the database if the journal is disabled.
+     * The ticks are validated before they are journaled, so the ticks acknowledged by the journal are not rejected
+     * by the database later.
+     *
+     * @param ticks the ticks to be written
+     * @return the number of written ticks
+     * @throws EntityNotFoundException if any currency of the ticks is not found
+     * @throws CSVFileProcessException if a tick is too long for the journal
+     * @throws UncheckedIOException    if the ticks could not be appended to the journal
+     */
+    public long write(List<CurrencyStatsTick> ticks) {
+        if (journal == null) {
+            return currencyStatsService.createTicks(ticks);
+        }
+        currencyStatsService.validateTicks(ticks);
+        try {
+            return journal.append(ticks);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Ticks could not be appended to the journal", e);
+        }
+    }
+
+    /**
+     * Writes the journaled ticks into the database until the journal is drained, checkpointing after every batch.
+     * The records which could not be decoded are logged and skipped by the checkpoint.
+     * If the database is not available, the drain is stopped and retried after the drain interval.
+     */
+    private void drain() {
+        try {
+            while (true) {
+                TickJournal.Batch batch = journal.read(drainedPosition, drainBatchSize);
+                if (batch.next().equals(drainedPosition)) {
+                    return;
+                }
+                if (batch.corrupted() > 0) {
+                    log.error("{} corrupted tick journal records skipped before {}", batch.corrupted(), batch.next());
+                }
+                writeDrained(batch.ticks());
+                journal.checkpoint(batch.next());
+                drainedPosition = batch.next();
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("Tick journal drain failed at {}, retrying later: {}", drainedPosition, e.getMessage());
+        }
+    }
+
+    /**
+     * Writes the drained ticks in one transaction. If the batch is rejected because of its content, e.g. a currency
+     * which is not enabled, the ticks are written one by one and the rejected ones are logged and skipped,
+     * so one bad tick does not block the journal.
+     *
+     * @param ticks the ticks to be written
+     */
+    private void writeDrained(List<CurrencyStatsTick> ticks) {
+        if (ticks.isEmpty()) {
+            return;
+        }
+        try {
+            currencyStatsService.createTicks(ticks);
+        } catch (CurrencyServiceBaseException | DataIntegrityViolationException e) {
+            for (CurrencyStatsTick tick : ticks) {
+                try {
+                    currencyStatsService.createTicks(List.of(tick));
+                } catch (CurrencyServiceBaseException | DataIntegrityViolationException tickException) {
+                    log.warn("Journaled tick {} is skipped: {}", tick, tickException.getMessage());
+                }
+            }
+        }
+    }
+}
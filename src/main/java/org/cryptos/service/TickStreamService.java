@@ -0,0 +1,103 @@
+package org.cryptos.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import jakarta.annotation.PreDestroy;
+import org.cryptos.service.exception.IngestJobRejectedException;
+import org.cryptos.service.ingest.CurrencyStatsTick;
+import org.cryptos.service.ingest.TickStream;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Service for the streaming upload of the live price ticks.
+ * Every stream has its own writer on a bounded pool of "currency.stream.max-streams" threads, further streams
+ * are rejected. The writer stores the ticks by {@link TickJournalService} in micro-batches of up to
+ * "currency.stream.batch-size" ticks, flushed at least every "currency.stream.flush-interval",
+ * every micro-batch in its own transaction or journal commit.
+ * The HTTP request of the stream times out after "currency.stream.request-timeout", zero means no timeout.
+ */
+@Service
+public class TickStreamService {
+
+    private final TickJournalService tickJournalService;
+    private final ObjectReader tickReader;
+    private final ThreadPoolExecutor executor;
+    private final int batchSize;
+    private final Duration flushInterval;
+    private final int queueCapacity;
+    private final Duration requestTimeout;
+
+    /**
+     * Creates the service with its own bounded pool of writers.
+     *
+     * @param tickJournalService   the service writing the micro-batches
+     * @param objectMapper         the mapper the ticks are parsed with
+     * @param maxStreams           the maximum number of concurrent streams
+     * @param batchSize            the maximum number of ticks in one micro-batch
+     * @param flushInterval        the maximum time the first tick of the micro-batch waits for the flush
+     * @param queueCapacity        the number of parsed ticks of one stream waiting for the writer
+     * @param requestTimeout       the timeout of the streaming request, zero means no timeout
+     */
+    public TickStreamService(TickJournalService tickJournalService,
+                             ObjectMapper objectMapper,
+                             @Value("${currency.stream.max-streams:4}") int maxStreams,
+                             @Value("${currency.stream.batch-size:5000}") int batchSize,
+                             @Value("${currency.stream.flush-interval:PT1S}") Duration flushInterval,
+                             @Value("${currency.stream.queue-capacity:50000}") int queueCapacity,
+                             @Value("${currency.stream.request-timeout:PT0S}") Duration requestTimeout) {
+        this.tickJournalService = tickJournalService;
+        this.tickReader = objectMapper.readerFor(CurrencyStatsTick.class);
+        this.batchSize = batchSize;
+        this.flushInterval = flushInterval;
+        this.queueCapacity = queueCapacity;
+        this.requestTimeout = requestTimeout;
+        var threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(maxStreams, maxStreams, 0, TimeUnit.MILLISECONDS,
+                new SynchronousQueue<>(),
+                runnable -> new Thread(runnable, "tick-stream-" + threadNumber.incrementAndGet()),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Stops the writers when the application is shut down, the open streams are interrupted.
+     */
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Returns the timeout of the streaming request.
+     *
+     * @return the timeout, zero means no timeout
+     */
+    public Duration getRequestTimeout() {
+        return requestTimeout;
+    }
+
+    /**
+     * Opens the stream of ticks and starts its writer.
+     * The caller must feed the stream by {@link TickStream#ingest} and close it afterwards.
+     *
+     * @return the opened {@link TickStream}
+     * @throws IngestJobRejectedException if the maximum number of streams is already open
+     */
+    public TickStream openStream() {
+        var stream = new TickStream(tickReader, tickJournalService::write, batchSize, flushInterval,
+                queueCapacity);
+        try {
+            executor.execute(stream);
+        } catch (RejectedExecutionException e) {
+            throw new IngestJobRejectedException("Too many tick streams in progress, retry later", e);
+        }
+        return stream;
+    }
+}
@@ -0,0 +1,360 @@
+package org.cryptos.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.cryptos.service.domain.TickStreamAckDomain;
+import org.cryptos.service.exception.CurrencyServiceBaseException;
+import org.cryptos.service.ingest.CurrencyStatsTick;
+import org.cryptos.service.ingest.TickLineDecoder;
+import org.cryptos.service.ingest.TickStream;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Non-blocking TCP listener of the newline-delimited "timestamp,symbol,price" ticks, the same format as the CSV files.
+ * All the connections are served by one event loop thread on a {@link Selector}, every connection reads into its own
+ * direct buffer of "currency.tcp.buffer-size" bytes, which is decoded in place by {@link TickLineDecoder}.
+ * The ticks of all the connections are stored by one {@link TickStream} writer through {@link TickJournalService}
+ * in micro-batches configured by "currency.stream.*". If the writer falls behind, the connections stop being read until the queue has room,
+ * so the collectors are slowed down by the TCP flow control instead of the ticks being dropped.
+ * The listener is disabled by default and started on "currency.tcp.port" if "currency.tcp.enabled" is true,
+ * it is bound when the application context is started and closed before the context is shut down.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "currency.tcp.enabled", havingValue = "true")
+public class TickTcpListener implements SmartLifecycle {
+
+    private static final long PAUSE_RETRY_MILLIS = 10;
+
+    private final TickJournalService tickJournalService;
+    private final int configuredPort;
+    private final int bufferSize;
+    private final int batchSize;
+    private final Duration flushInterval;
+    private final int queueCapacity;
+    private final Duration retryInterval;
+    private final List<SelectionKey> pausedKeys = new ArrayList<>();
+    private Selector selector;
+    private ServerSocketChannel serverChannel;
+    private TickStream tickStream;
+    private Thread eventLoop;
+    private volatile int port;
+    private volatile boolean running;
+
+    /**
+     * Creates the listener, the port is bound by {@link #start()}.
+     *
+     * @param tickJournalService   the service writing the micro-batches
+     * @param port                 the port to listen on, 0 for any free port
+     * @param bufferSize           the size of the read buffer of a connection, the maximum length of a line
+     * @param retryInterval        the pause before the micro-batch is stored again if the storage is not available
+     * @param batchSize            the maximum number of ticks in one micro-batch
+     * @param flushInterval        the maximum time the first tick of the micro-batch waits for the flush
+     * @param queueCapacity        the number of decoded ticks waiting for the writer
+     */
+    public TickTcpListener(TickJournalService tickJournalService,
+                           @Value("${currency.tcp.port:9090}") int port,
+                           @Value("${currency.tcp.buffer-size:64KB}") DataSize bufferSize,
+                           @Value("${currency.tcp.retry-interval:PT1S}") Duration retryInterval,
+                           @Value("${currency.stream.batch-size:5000}") int batchSize,
+                           @Value("${currency.stream.flush-interval:PT1S}") Duration flushInterval,
+                           @Value("${currency.stream.queue-capacity:50000}") int queueCapacity) {
+        this.tickJournalService = tickJournalService;
+        this.configuredPort = port;
+        this.bufferSize = Math.toIntExact(bufferSize.toBytes());
+        this.retryInterval = retryInterval;
+        this.batchSize = batchSize;
+        this.flushInterval = flushInterval;
+        this.queueCapacity = queueCapacity;
+    }
+
+    /**
+     * Binds the listener to the port and starts the event loop and the writer.
+     *
+     * @throws UncheckedIOException if the port could not be bound
+     */
+    @Override
+    public void start() {
+        try {
+            selector = Selector.open();
+            serverChannel = ServerSocketChannel.open();
+            serverChannel.bind(new InetSocketAddress(configuredPort));
+            port = serverChannel.socket().getLocalPort();
+            serverChannel.configureBlocking(false);
+            serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Tick listener could not be started on port %d".formatted(configuredPort),
+                    e);
+        }
+        running = true;
+        tickStream = new TickStream(this::writeTicks, batchSize, flushInterval, queueCapacity);
+        eventLoop = new Thread(this::runEventLoop, "tick-tcp-listener");
+        new Thread(tickStream, "tick-tcp-writer").start();
+        eventLoop.start();
+        log.info("Tick listener started on port {}", port);
+    }
+
+    /**
+     * Stops the event loop, closes the connections and waits until the received ticks are stored.
+     */
+    @Override
+    public void stop() {
+        running = false;
+        selector.wakeup();
+        try {
+            eventLoop.join();
+            TickStreamAckDomain ack = tickStream.finish();
+            if (ack.error() != null) {
+                log.error("Tick listener writer failed, {} of {} ticks stored: {}", ack.rows(), ack.received(),
+                        ack.error());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        log.info("Tick listener on port {} stopped", port);
+    }
+
+    /**
+     * Checks whether the listener is started and not stopped yet.
+     *
+     * @return true if the listener is running
+     */
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Gets the port the listener is bound to.
+     *
+     * @return the local port, available after the listener is started
+     */
+    public int getPort() {
+        return port;
+    }
+
+    /**
+     * Serves the connections until the listener is stopped.
+     */
+    private void runEventLoop() {
+        try (selector; serverChannel) {
+            while (running) {
+                selector.select(pausedKeys.isEmpty() ? 0 : PAUSE_RETRY_MILLIS);
+                Iterator<SelectionKey> selectedKeys = selector.selectedKeys().iterator();
+                while (selectedKeys.hasNext()) {
+                    SelectionKey key = selectedKeys.next();
+                    selectedKeys.remove();
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        accept();
+                    } else if (key.isReadable()) {
+                        read(key);
+                    }
+                }
+                resumePausedKeys();
+            }
+            for (SelectionKey key : selector.keys()) {
+                if (key.attachment() instanceof Connection connection) {
+                    close(key, connection);
+                }
+            }
+        } catch (IOException e) {
+            log.error("Tick listener failed", e);
+        }
+    }
+
+    /**
+     * Accepts the new connection and registers it for reading.
+     *
+     * @throws IOException if the connection could not be registered
+     */
+    private void accept() throws IOException {
+        SocketChannel channel = serverChannel.accept();
+        if (channel == null) {
+            return;
+        }
+        channel.configureBlocking(false);
+        channel.register(selector, SelectionKey.OP_READ, new Connection(channel, ByteBuffer.allocateDirect(bufferSize)));
+        log.debug("Tick connection accepted from {}", channel.getRemoteAddress());
+    }
+
+    /**
+     * Reads the available bytes of the connection and decodes the complete lines.
+     *
+     * @param key the key of the connection
+     */
+    private void read(SelectionKey key) {
+        Connection connection = (Connection) key.attachment();
+        try {
+            if (connection.channel.read(connection.buffer) < 0) {
+                connection.endOfStream = true;
+            }
+        } catch (IOException e) {
+            log.warn("Tick connection failed: {}", e.getMessage());
+            close(key, connection);
+            return;
+        }
+        decode(key, connection);
+    }
+
+    /**
+     * Retries the decoding of the connections paused because the writer queue was full.
+     */
+    private void resumePausedKeys() {
+        if (pausedKeys.isEmpty()) {
+            return;
+        }
+        List<SelectionKey> keys = List.copyOf(pausedKeys);
+        pausedKeys.clear();
+        for (SelectionKey key : keys) {
+            if (key.isValid()) {
+                decode(key, (Connection) key.attachment());
+            }
+        }
+    }
+
+    /**
+     * Decodes the complete lines of the buffer. If the writer queue is full, the connection is not read
+     * until the remaining lines are decoded. The connection is closed at the end of the stream,
+     * or if the buffer is full without a complete line.
+     *
+     * @param key        the key of the connection
+     * @param connection the connection
+     */
+    private void decode(SelectionKey key, Connection connection) {
+        ByteBuffer buffer = connection.buffer;
+        if (connection.endOfStream && buffer.position() > 0 && buffer.get(buffer.position() - 1) != '\n'
+                && buffer.hasRemaining()) {
+            //terminate the last line
+            buffer.put((byte) '\n');
+        }
+        buffer.flip();
+        boolean decoded = connection.decoder.decode(buffer, tickStream::offer);
+        buffer.compact();
+
+        if (!decoded) {
+            key.interestOps(0);
+            pausedKeys.add(key);
+        } else if (connection.endOfStream) {
+            close(key, connection);
+        } else if (!buffer.hasRemaining()) {
+            log.warn("Tick connection closed, line {} is longer than {} bytes",
+                    connection.decoder.lineNumber() + 1, bufferSize);
+            close(key, connection);
+        } else {
+            key.interestOps(SelectionKey.OP_READ);
+        }
+    }
+
+    /**
+     * Closes the connection and logs the number of the received and the rejected lines.
+     *
+     * @param key        the key of the connection
+     * @param connection the connection
+     */
+    private void close(SelectionKey key, Connection connection) {
+        key.cancel();
+        try {
+            connection.channel.close();
+        } catch (IOException e) {
+            log.debug("Tick connection could not be closed", e);
+        }
+        TickLineDecoder decoder = connection.decoder;
+        if (decoder.rejectedLines() > 0) {
+            log.warn("Tick connection closed, {} lines received, {} lines rejected, last error: {}",
+                    decoder.lineNumber(), decoder.rejectedLines(), decoder.lastError());
+        } else {
+            log.debug("Tick connection closed, {} lines received", decoder.lineNumber());
+        }
+    }
+
+    /**
+     * Stores the micro-batch of ticks. If the batch is rejected because of its content, e.g. when one collector
+     * sends the ticks of a currency which is not enabled, the ticks are stored one by one and the rejected ones
+     * are logged and skipped, so the listener keeps serving the other ticks.
+     *
+     * @param ticks the ticks to be stored
+     * @return the number of stored rows
+     */
+    private long writeTicks(List<CurrencyStatsTick> ticks) {
+        try {
+            return writeWithRetry(ticks);
+        } catch (CurrencyServiceBaseException | DataIntegrityViolationException e) {
+            long rows = 0;
+            for (CurrencyStatsTick tick : ticks) {
+                try {
+                    rows = rows + writeWithRetry(List.of(tick));
+                } catch (CurrencyServiceBaseException | DataIntegrityViolationException tickException) {
+                    log.warn("Tick {} is skipped: {}", tick, tickException.getMessage());
+                }
+            }
+            return rows;
+        }
+    }
+
+    /**
+     * Stores the ticks, retrying every "currency.tcp.retry-interval" while the storage is not available.
+     * The writer is blocked meanwhile, so the queue fills up and the connections stop being read.
+     * The rejected ticks are not retried, and neither are the ticks of the stopped listener.
+     *
+     * @param ticks the ticks to be stored
+     * @return the number of stored rows
+     * @throws CurrencyServiceBaseException    if the ticks are rejected, e.g. the currency is not enabled
+     * @throws DataIntegrityViolationException if the ticks violate a database constraint
+     */
+    private long writeWithRetry(List<CurrencyStatsTick> ticks) {
+        while (true) {
+            try {
+                return tickJournalService.write(ticks);
+            } catch (CurrencyServiceBaseException | DataIntegrityViolationException e) {
+                throw e;
+            } catch (RuntimeException e) {
+                if (!running) {
+                    throw e;
+                }
+                log.warn("Batch of {} ticks could not be stored, retrying in {}: {}", ticks.size(), retryInterval,
+                        e.getMessage());
+                try {
+                    Thread.sleep(retryInterval.toMillis());
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * State of the accepted connection, used by the event loop thread only.
+     */
+    private static final class Connection {
+        private final SocketChannel channel;
+        private final ByteBuffer buffer;
+        private final TickLineDecoder decoder = new TickLineDecoder();
+        private boolean endOfStream;
+
+        private Connection(SocketChannel channel, ByteBuffer buffer) {
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+    }
+}
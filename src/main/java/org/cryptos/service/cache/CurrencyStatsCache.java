@@ -0,0 +1,288 @@
+package org.cryptos.service.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.cryptos.persistence.entity.CurrencyStatsRow;
+import org.cryptos.persistence.repository.CurrencyStatsWriter;
+import org.cryptos.service.domain.CurrencyNormalizedPriceDomain;
+import org.cryptos.service.domain.CurrencyStatsMinMaxDomain;
+import org.cryptos.service.ingest.WrittenPeriods;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Bounded cache of the results of the statistics queries keyed by the query, the currency and the period.
+ * If "currency.get-stats.cache.enabled" is true, the results are kept by Caffeine, evicting by W-TinyLFU
+ * once the total weight reaches "currency.get-stats.cache.maximum-weight": a result weighs one
+ * plus the number of its currencies, so the long lists of all the currencies count more than the single statistics.
+ * The written rows of every upload are tracked per currency, and once its transaction is completed the cached results
+ * of the written currencies and of all the currencies whose period overlaps the period of the written rows
+ * are invalidated, the results of the other currencies and periods are kept. A result loaded while a write
+ * of its currencies was being completed is not cached, as it may be older than the write. The results are also
+ * expired "currency.get-stats.cache.expire-after-write" after they were loaded, so the prices stored by another
+ * instance of the application are seen eventually. The hits, the misses and the evictions are published
+ * as the "cache.*" metrics of the cache "currency.stats", the share of the hits as "currency.stats.cache.reuse.ratio",
+ * the invalidated results as "currency.stats.cache.invalidations". The default time windows are made reusable
+ * by {@link TimeWindowSnapper}.
+ */
+@Component
+public class CurrencyStatsCache {
+
+    private static final String CACHE_NAME = "currency.stats";
+
+    private final boolean enabled;
+    private final Cache<RangeKey, Object> cache;
+    private final Map<String, AtomicLong> symbolVersions = new ConcurrentHashMap<>();
+    private final AtomicLong allCurrenciesVersion = new AtomicLong();
+    private final Counter invalidations;
+
+    /**
+     * Cached query.
+     */
+    private enum Query {
+        STATS,
+        NORMALIZED_PRICES,
+        HIGHEST_NORMALIZED_PRICE
+    }
+
+    /**
+     * Key of the cached result.
+     *
+     * @param query         the cached query
+     * @param symbol        the symbol of the currency, or null if the result covers all the currencies
+     * @param startDateTime the start of the period (inclusive)
+     * @param endDateTime   the end of the period (exclusive)
+     */
+    private record RangeKey(Query query, String symbol, LocalDateTime startDateTime, LocalDateTime endDateTime) {
+
+        /**
+         * Checks whether the result may be changed by the written prices of the currency.
+         *
+         * @param writtenSymbol the symbol of the written currency
+         * @param oldest        the date and time of the oldest written price
+         * @param newest        the date and time of the newest written price
+         * @return true if the result covers the currency and its period overlaps the written period
+         */
+        private boolean isAffectedBy(String writtenSymbol, LocalDateTime oldest, LocalDateTime newest) {
+            return (symbol == null || symbol.equals(writtenSymbol))
+                    && !startDateTime.isAfter(newest)
+                    && endDateTime.isAfter(oldest);
+        }
+    }
+
+    /**
+     * Creates the cache and registers its metrics.
+     *
+     * @param enabled          whether the results are cached
+     * @param maximumWeight    the maximum total weight of the cached results
+     * @param expireAfterWrite the time the result is cached for
+     * @param meterRegistry    the registry of the metrics
+     */
+    public CurrencyStatsCache(@Value("${currency.get-stats.cache.enabled:false}") boolean enabled,
+                              @Value("${currency.get-stats.cache.maximum-weight:100000}") long maximumWeight,
+                              @Value("${currency.get-stats.cache.expire-after-write:PT10M}") Duration expireAfterWrite,
+                              MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maximumWeight)
+                .weigher((RangeKey key, Object value) -> value instanceof List<?> list ? list.size() + 1 : 2)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+        this.invalidations = Counter.builder("currency.stats.cache.invalidations")
+                .description("Number of cached statistics invalidated by the written prices")
+                .register(meterRegistry);
+        if (enabled) {
+            CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+            Gauge.builder("currency.stats.cache.reuse.ratio", cache, statsCache -> statsCache.stats().hitRate())
+                    .description("Share of the statistics queries answered by the cached results")
+                    .register(meterRegistry);
+        }
+    }
+
+    /**
+     * Gets the cached statistics of the currency for the period, or loads and caches them.
+     *
+     * @param symbol        the symbol of the currency
+     * @param startDateTime the start of the period (inclusive)
+     * @param endDateTime   the end of the period (exclusive)
+     * @param loader        loads the statistics, the exceptions are propagated and nothing is cached
+     * @return the {@link CurrencyStatsMinMaxDomain} of the period
+     */
+    public CurrencyStatsMinMaxDomain getStats(String symbol, LocalDateTime startDateTime, LocalDateTime endDateTime,
+                                              Supplier<CurrencyStatsMinMaxDomain> loader) {
+        return get(new RangeKey(Query.STATS, symbol, startDateTime, endDateTime), loader);
+    }
+
+    /**
+     * Gets the cached normalized prices of all the currencies for the period, or loads and caches them.
+     *
+     * @param startDateTime the start of the period (inclusive)
+     * @param endDateTime   the end of the period (exclusive)
+     * @param loader        loads the normalized prices, the exceptions are propagated and nothing is cached
+     * @return the list of {@link CurrencyNormalizedPriceDomain} of the period
+     */
+    public List<CurrencyNormalizedPriceDomain> getNormalizedPrices(LocalDateTime startDateTime,
+                                                                   LocalDateTime endDateTime,
+                                                                   Supplier<List<CurrencyNormalizedPriceDomain>> loader) {
+        return get(new RangeKey(Query.NORMALIZED_PRICES, null, startDateTime, endDateTime),
+                () -> List.copyOf(loader.get()));
+    }
+
+    /**
+     * Gets the cached currency with the highest normalized price for the period, or loads and caches it.
+     *
+     * @param startDateTime the start of the period (inclusive)
+     * @param endDateTime   the end of the period (exclusive)
+     * @param loader        loads the currency, the exceptions are propagated and nothing is cached
+     * @return the {@link CurrencyNormalizedPriceDomain} with the highest normalized price of the period
+     */
+    public CurrencyNormalizedPriceDomain getHighestNormalizedPrice(LocalDateTime startDateTime,
+                                                                   LocalDateTime endDateTime,
+                                                                   Supplier<CurrencyNormalizedPriceDomain> loader) {
+        return get(new RangeKey(Query.HIGHEST_NORMALIZED_PRICE, null, startDateTime, endDateTime), loader);
+    }
+
+    /**
+     * Wraps the writer, so the cached results affected by the written rows are invalidated once the transaction
+     * of the writer is completed, or immediately if there is no transaction. The results are invalidated also
+     * if the upload fails, as some of its rows may have been committed already.
+     *
+     * @param writer the writer of the rows
+     * @return the tracking writer, or the writer itself if the cache is not enabled
+     */
+    public CurrencyStatsWriter track(CurrencyStatsWriter writer) {
+        return enabled ? new InvalidatingWriter(writer) : writer;
+    }
+
+    /**
+     * Gets the cached result, or loads it and caches it unless a write of its currencies was completed
+     * while it was being loaded. The concurrent requests of the same result wait for the single load.
+     * The version is checked once more after the result is cached, as the write may have been invalidating
+     * the results just before the result was cached.
+     *
+     * @param key    the key of the result
+     * @param loader loads the result
+     * @param <T>    the type of the result
+     * @return the cached or the loaded result
+     */
+    @SuppressWarnings("unchecked")
+    private <T> T get(RangeKey key, Supplier<T> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+        AtomicLong version = version(key.symbol());
+        long[] loadedVersion = new long[1];
+        Object[] loaded = new Object[1];
+        Object cached = cache.get(key, missingKey -> {
+            loadedVersion[0] = version.get();
+            loaded[0] = loader.get();
+            return version.get() == loadedVersion[0] ? loaded[0] : null;
+        });
+        if (loaded[0] == null) {
+            return (T) cached;
+        }
+        if (version.get() != loadedVersion[0]) {
+            cache.invalidate(key);
+        }
+        return (T) loaded[0];
+    }
+
+    /**
+     * Gets the version of the currency, advanced by every completed write of the currency.
+     *
+     * @param symbol the symbol of the currency, or null for all the currencies
+     * @return the version of the currency, or of all the currencies advanced by every completed write
+     */
+    private AtomicLong version(String symbol) {
+        return symbol == null
+                ? allCurrenciesVersion
+                : symbolVersions.computeIfAbsent(symbol, key -> new AtomicLong());
+    }
+
+    /**
+     * Advances the versions of the written currencies, so the results being loaded are not cached,
+     * and invalidates the cached results affected by the written periods.
+     *
+     * @param periods the period of the written rows of every currency
+     */
+    private void invalidate(WrittenPeriods periods) {
+        periods.symbols().forEach(symbol -> version(symbol).incrementAndGet());
+        allCurrenciesVersion.incrementAndGet();
+        cache.asMap().keySet().removeIf(key -> {
+            for (String symbol : periods.symbols()) {
+                if (key.isAffectedBy(symbol, periods.oldest(symbol), periods.newest(symbol))) {
+                    invalidations.increment();
+                    return true;
+                }
+            }
+            return false;
+        });
+    }
+
+    /**
+     * {@link CurrencyStatsWriter} tracking the period of the written rows of every currency, whose cached results
+     * are invalidated once the transaction of the writer is completed.
+     */
+    private final class InvalidatingWriter implements CurrencyStatsWriter {
+
+        private final CurrencyStatsWriter writer;
+        private final WrittenPeriods periods = new WrittenPeriods();
+
+        private InvalidatingWriter(CurrencyStatsWriter writer) {
+            this.writer = writer;
+        }
+
+        @Override
+        public void write(List<CurrencyStatsRow> rows) {
+            periods.add(rows);
+            writer.write(rows);
+        }
+
+        @Override
+        public long finish() {
+            return writer.finish();
+        }
+
+        @Override
+        public void close() {
+            try {
+                writer.close();
+            } finally {
+                if (!periods.isEmpty()) {
+                    invalidateOnCompletion();
+                }
+            }
+        }
+
+        /**
+         * Invalidates the cached results once the transaction is completed, or immediately if there is none.
+         */
+        private void invalidateOnCompletion() {
+            if (TransactionSynchronizationManager.isSynchronizationActive()) {
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCompletion(int status) {
+                        invalidate(periods);
+                    }
+                });
+            } else {
+                invalidate(periods);
+            }
+        }
+    }
+}
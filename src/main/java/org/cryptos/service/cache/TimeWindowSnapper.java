@@ -0,0 +1,68 @@
+package org.cryptos.service.cache;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+/**
+ * Snaps the current date and time used by the default time windows of the statistics queries up to the next multiple
+ * of "currency.get-stats.default-window-snap" since the start of the day, so the default windows requested within
+ * the same interval are identical and share the result cached by {@link CurrencyStatsCache}. The window end is
+ * snapped up, not down, so the prices received since the start of the interval are not left out. The zero interval
+ * (default) keeps the exact current date and time, the intervals longer than a day are shortened to a day.
+ * The interval is published as the metric "currency.stats.default-window.snap".
+ */
+@Component
+public class TimeWindowSnapper {
+
+    private static final long NANOS_PER_DAY = Duration.ofDays(1).toNanos();
+
+    private final long snapNanos;
+
+    /**
+     * Creates the snapper and registers its metric.
+     *
+     * @param snap          the interval the current date and time is snapped to
+     * @param meterRegistry the registry of the metrics
+     */
+    public TimeWindowSnapper(@Value("${currency.get-stats.default-window-snap:PT0S}") Duration snap,
+                             MeterRegistry meterRegistry) {
+        this.snapNanos = Math.min(Math.max(snap.toNanos(), 0), NANOS_PER_DAY);
+        Gauge.builder("currency.stats.default-window.snap", this, snapper -> snapper.snapNanos / 1e9)
+                .description("Interval the default time windows of the statistics queries are snapped to")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Gets the current date and time snapped up to the interval.
+     *
+     * @return the current date and time, or the start of the next interval if it is not at the start of one
+     */
+    public LocalDateTime now() {
+        return snap(LocalDateTime.now());
+    }
+
+    /**
+     * Snaps the date and time up to the next multiple of the interval since the start of its day.
+     *
+     * @param dateTime the date and time
+     * @return the date and time itself if it is at the start of the interval or nothing is snapped,
+     * otherwise the start of the next interval
+     */
+    LocalDateTime snap(LocalDateTime dateTime) {
+        if (snapNanos == 0) {
+            return dateTime;
+        }
+        long nanoOfDay = dateTime.toLocalTime().toNanoOfDay();
+        long snappedNanoOfDay = (nanoOfDay + snapNanos - 1) / snapNanos * snapNanos;
+        return snappedNanoOfDay >= NANOS_PER_DAY
+                ? dateTime.toLocalDate().plusDays(1).atStartOfDay()
+                : dateTime.toLocalDate().atTime(LocalTime.ofNanoOfDay(snappedNanoOfDay));
+    }
+}
@@ -0,0 +1,28 @@
+package org.cryptos.service.domain;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Represents the state of the CSV file uploaded in chunks in the business layer (service) of the application.
+ * The client resumes the interrupted upload by sending the next chunk from the received bytes.
+ * This record is used to transfer upload data between layers of the application,
+ * typically from the service layer to the API layer (controllers).
+ *
+ * @param id             the identifier of the upload
+ * @param symbol         the symbol of the uploaded currency, known when the first line of statistics is stored
+ * @param receivedBytes  the number of bytes of the file received so far, the offset of the next chunk
+ * @param committedBytes the number of bytes of the complete lines stored in the database
+ * @param rows           the number of statistics rows stored so far
+ * @param createdAt      the time when the upload was created
+ * @param updatedAt      the time when the last chunk was received or stored
+ */
+public record ChunkedUploadDomain(
+        UUID id,
+        String symbol,
+        long receivedBytes,
+        long committedBytes,
+        long rows,
+        LocalDateTime createdAt,
+        LocalDateTime updatedAt) {
+}
@@ -0,0 +1,23 @@
+package org.cryptos.service.domain;
+
+/**
+ * Represents the result of the upload of one file of the multi-file upload in the business layer (service).
+ * This class holds the name of the file and either the upload result or the reason of the failure.
+ * This record is used to transfer currency data between layers of the application,
+ * typically from the service layer to the API layer (controllers).
+ *
+ * @param fileName      the name of the uploaded file, "archive.zip!/entry.csv" for the entries of ZIP archives
+ * @param symbol        the symbol of the currency ("BTC", "ETH"), null if the upload failed
+ * @param rows          the number of statistics rows stored
+ * @param elapsedMillis the time spent on the upload in milliseconds
+ * @param rowsPerSecond the ingest throughput in rows per second
+ * @param error         the reason of the failure, null if the file is stored
+ */
+public record CurrencyStatsFileResultDomain(
+        String fileName,
+        String symbol,
+        long rows,
+        long elapsedMillis,
+        double rowsPerSecond,
+        String error) {
+}
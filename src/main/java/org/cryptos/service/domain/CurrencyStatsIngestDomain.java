@@ -0,0 +1,19 @@
+package org.cryptos.service.domain;
+
+/**
+ * Represents the result of the currency statistics upload in the business layer (service) of the application.
+ * This class holds the symbol of the uploaded currency, the number of stored rows and the ingest throughput.
+ * This record is used to transfer currency data between layers of the application,
+ * typically from the service layer to the API layer (controllers).
+ *
+ * @param symbol        the symbol of the currency ("BTC", "ETH")
+ * @param rows          the number of statistics rows stored
+ * @param elapsedMillis the time spent on the upload in milliseconds
+ * @param rowsPerSecond the ingest throughput in rows per second
+ */
+public record CurrencyStatsIngestDomain(
+        String symbol,
+        long rows,
+        long elapsedMillis,
+        double rowsPerSecond) {
+}
@@ -0,0 +1,40 @@
+package org.cryptos.service.domain;
+
+import org.cryptos.service.ingest.IngestJobStatus;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Represents the state of the asynchronous currency statistics upload in the business layer (service) of the application.
+ * This class holds the progress of the upload, its throughput, the estimated remaining time and the final result.
+ * This record is used to transfer job data between layers of the application,
+ * typically from the service layer to the API layer (controllers).
+ *
+ * @param id            the identifier of the job
+ * @param status        the status of the job
+ * @param symbol        the symbol of the uploaded currency, known when the job is completed
+ * @param rows          the number of statistics rows written so far
+ * @param bytes         the number of bytes of the file parsed so far
+ * @param totalBytes    the size of the uploaded file
+ * @param elapsedMillis the time spent on the upload in milliseconds
+ * @param rowsPerSecond the ingest throughput in rows per second
+ * @param etaMillis     the estimated remaining time in milliseconds, null if unknown
+ * @param error         the reason of the failure, null unless the job failed
+ * @param createdAt     the time when the job was accepted
+ * @param finishedAt    the time when the job was completed or failed, null while it is not finished
+ */
+public record IngestJobDomain(
+        UUID id,
+        IngestJobStatus status,
+        String symbol,
+        long rows,
+        long bytes,
+        long totalBytes,
+        long elapsedMillis,
+        double rowsPerSecond,
+        Long etaMillis,
+        String error,
+        LocalDateTime createdAt,
+        LocalDateTime finishedAt) {
+}
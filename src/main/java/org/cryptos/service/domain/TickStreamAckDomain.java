@@ -0,0 +1,22 @@
+package org.cryptos.service.domain;
+
+/**
+ * Represents the acknowledgement of the streaming tick upload in the business layer (service) of the application.
+ * The acknowledgement is sent after every written micro-batch and once more when the stream is finished.
+ * This record is used to transfer the progress of the stream from the service layer to the API layer (controllers).
+ *
+ * @param received      the number of ticks received and parsed so far
+ * @param rows          the number of statistics rows stored so far
+ * @param elapsedMillis the time since the stream was opened in milliseconds
+ * @param rowsPerSecond the ingest throughput in rows per second
+ * @param finished      whether the stream is finished and no more acknowledgements follow
+ * @param error         the reason the stream was stopped, or null
+ */
+public record TickStreamAckDomain(
+        long received,
+        long rows,
+        long elapsedMillis,
+        double rowsPerSecond,
+        boolean finished,
+        String error) {
+}
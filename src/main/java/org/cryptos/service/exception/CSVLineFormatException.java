@@ -0,0 +1,43 @@
+package org.cryptos.service.exception;
+
+/**
+ * Exception thrown when a value of a line of the CSV file is malformed. This class extends
+ * {@link CSVFileProcessException}, keeps the reason and the line number separately, so the line number
+ * relative to a part of the file can be replaced by the line number in the whole file.
+ */
+public class CSVLineFormatException extends CSVFileProcessException {
+
+    private final String reason;
+    private final long lineNumber;
+
+    /**
+     * Constructs a new {@link CSVLineFormatException} with the reason and the line number.
+     *
+     * @param reason     the reason of the failure without the line number
+     * @param lineNumber the number of the malformed line
+     * @param cause      the cause of the exception
+     */
+    public CSVLineFormatException(String reason, long lineNumber, Throwable cause) {
+        super("%s at line %d".formatted(reason, lineNumber), cause);
+        this.reason = reason;
+        this.lineNumber = lineNumber;
+    }
+
+    /**
+     * Gets the reason of the failure.
+     *
+     * @return the reason without the line number
+     */
+    public String getReason() {
+        return reason;
+    }
+
+    /**
+     * Gets the number of the malformed line.
+     *
+     * @return the line number
+     */
+    public long getLineNumber() {
+        return lineNumber;
+    }
+}
@@ -0,0 +1,27 @@
+package org.cryptos.service.exception;
+
+/**
+ * Exception thrown when the asynchronous upload job could not be accepted, because all the workers are busy
+ * and the queue of the waiting jobs is full. This class extends {@link CurrencyServiceBaseException},
+ * includes constructors for passing an error message and an optional cause.
+ */
+public class IngestJobRejectedException extends CurrencyServiceBaseException {
+    /**
+     * Constructs a new {@link IngestJobRejectedException} with the specified error message.
+     *
+     * @param message the error message
+     */
+    public IngestJobRejectedException(String message) {
+        super(message);
+    }
+
+    /**
+     * Constructs a new {@link IngestJobRejectedException} with the specified error message and cause.
+     *
+     * @param message the error message
+     * @param cause   the cause of the exception
+     */
+    public IngestJobRejectedException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,27 @@
+package org.cryptos.service.exception;
+
+/**
+ * Exception thrown when the upload could not lock its currency in time, because another upload of the same currency
+ * is still in progress. This class extends {@link CurrencyServiceBaseException},
+ * includes constructors for passing an error message and an optional cause.
+ */
+public class IngestLockTimeoutException extends CurrencyServiceBaseException {
+    /**
+     * Constructs a new {@link IngestLockTimeoutException} with the specified error message.
+     *
+     * @param message the error message
+     */
+    public IngestLockTimeoutException(String message) {
+        super(message);
+    }
+
+    /**
+     * Constructs a new {@link IngestLockTimeoutException} with the specified error message and cause.
+     *
+     * @param message the error message
+     * @param cause   the cause of the exception
+     */
+    public IngestLockTimeoutException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,27 @@
+package org.cryptos.service.exception;
+
+/**
+ * Exception thrown when the chunk of the chunked upload does not continue the received bytes,
+ * or its range is malformed. This class extends {@link CurrencyServiceBaseException},
+ * includes constructors for passing an error message and an optional cause.
+ */
+public class UploadRangeException extends CurrencyServiceBaseException {
+    /**
+     * Constructs a new {@link UploadRangeException} with the specified error message.
+     *
+     * @param message the error message
+     */
+    public UploadRangeException(String message) {
+        super(message);
+    }
+
+    /**
+     * Constructs a new {@link UploadRangeException} with the specified error message and cause.
+     *
+     * @param message the error message
+     * @param cause   the cause of the exception
+     */
+    public UploadRangeException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
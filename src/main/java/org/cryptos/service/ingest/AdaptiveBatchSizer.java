@@ -0,0 +1,168 @@
+package org.cryptos.service.ingest;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.cryptos.persistence.entity.CurrencyStatsRow;
+import org.cryptos.persistence.repository.CurrencyStatsWriter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Chooses the number of rows written to the database at once from the measured write latency (AIMD).
+ * If "currency.create-stats.adaptive.enabled" is true, every written batch is timed: while the batches are written
+ * within "currency.create-stats.adaptive.target-latency", the batch size grows by "increase-step" rows after every
+ * full batch, a slower batch halves it, always within "min-batch-size" and "max-batch-size". So the batch size
+ * settles just below the latency target of the current database, whatever its speed. The batch size is shared
+ * by all the uploads, as they share the database. The current batch size, the write latency and the smoothed
+ * throughput are published as the metrics "currency.ingest.batch.size", "currency.ingest.batch.latency"
+ * and "currency.ingest.throughput". Otherwise "currency.create-stats.batch-size" is used.
+ */
+@Slf4j
+@Component
+public class AdaptiveBatchSizer {
+
+    private static final double THROUGHPUT_SMOOTHING = 0.2;
+
+    private final boolean enabled;
+    private final int minBatchSize;
+    private final int maxBatchSize;
+    private final int increaseStep;
+    private final long targetLatencyNanos;
+    private final Timer latencyTimer;
+    private int batchSize;
+    private double rowsPerSecond;
+
+    /**
+     * Creates the batch sizer starting with the configured batch size and registers its metrics.
+     *
+     * @param enabled        whether the batch size is adapted
+     * @param batchSize      the initial batch size
+     * @param minBatchSize   the lowest batch size
+     * @param maxBatchSize   the highest batch size
+     * @param increaseStep   the number of rows the batch size grows by after a fast full batch
+     * @param targetLatency  the maximum time of writing one batch
+     * @param meterRegistry  the registry of the metrics
+     */
+    public AdaptiveBatchSizer(@Value("${currency.create-stats.adaptive.enabled:false}") boolean enabled,
+                              @Value("${currency.create-stats.batch-size:30}") int batchSize,
+                              @Value("${currency.create-stats.adaptive.min-batch-size:30}") int minBatchSize,
+                              @Value("${currency.create-stats.adaptive.max-batch-size:10000}") int maxBatchSize,
+                              @Value("${currency.create-stats.adaptive.increase-step:100}") int increaseStep,
+                              @Value("${currency.create-stats.adaptive.target-latency:PT0.25S}") Duration targetLatency,
+                              MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.minBatchSize = Math.max(minBatchSize, 1);
+        this.maxBatchSize = Math.max(maxBatchSize, this.minBatchSize);
+        this.increaseStep = Math.max(increaseStep, 1);
+        this.targetLatencyNanos = targetLatency.toNanos();
+        this.batchSize = Math.min(Math.max(batchSize, this.minBatchSize), this.maxBatchSize);
+        this.latencyTimer = Timer.builder("currency.ingest.batch.latency")
+                .description("Time of writing one batch of statistics")
+                .register(meterRegistry);
+        Gauge.builder("currency.ingest.batch.size", this, AdaptiveBatchSizer::getBatchSize)
+                .description("Number of rows written to the database at once")
+                .register(meterRegistry);
+        Gauge.builder("currency.ingest.throughput", this, AdaptiveBatchSizer::getRowsPerSecond)
+                .description("Smoothed number of rows written per second")
+                .baseUnit("rows")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Checks whether the batch size is adapted.
+     *
+     * @return true if the batch size is adapted to the write latency
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Gets the current batch size.
+     *
+     * @return the number of rows to be written at once
+     */
+    public synchronized int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Gets the throughput of the writes smoothed over the last batches.
+     *
+     * @return the written rows per second
+     */
+    public synchronized double getRowsPerSecond() {
+        return rowsPerSecond;
+    }
+
+    /**
+     * Wraps the writer, so every written batch is timed and adapts the batch size.
+     *
+     * @param writer the writer of the batches
+     * @return the timed writer, or the writer itself if the batch size is not adapted
+     */
+    public CurrencyStatsWriter measure(CurrencyStatsWriter writer) {
+        return enabled ? new MeasuredWriter(writer) : writer;
+    }
+
+    /**
+     * Adapts the batch size to the time of the written batch: grows it additively after a fast full batch,
+     * halves it after a slow one.
+     *
+     * @param rows         the number of rows of the batch
+     * @param elapsedNanos the time of writing the batch
+     */
+    synchronized void onBatchWritten(int rows, long elapsedNanos) {
+        latencyTimer.record(elapsedNanos, TimeUnit.NANOSECONDS);
+        double batchRowsPerSecond = rows * (double) TimeUnit.SECONDS.toNanos(1) / Math.max(elapsedNanos, 1);
+        rowsPerSecond = rowsPerSecond == 0
+                ? batchRowsPerSecond
+                : rowsPerSecond + THROUGHPUT_SMOOTHING * (batchRowsPerSecond - rowsPerSecond);
+
+        int previousBatchSize = batchSize;
+        if (elapsedNanos > targetLatencyNanos) {
+            batchSize = Math.max(batchSize / 2, minBatchSize);
+        } else if (rows >= batchSize) {
+            batchSize = Math.min(batchSize + increaseStep, maxBatchSize);
+        }
+        if (batchSize != previousBatchSize) {
+            log.debug("Batch of {} rows written in {} ms, batch size {} -> {}", rows,
+                    TimeUnit.NANOSECONDS.toMillis(elapsedNanos), previousBatchSize, batchSize);
+        }
+    }
+
+    /**
+     * {@link CurrencyStatsWriter} reporting the time of every written batch to the batch sizer.
+     */
+    private final class MeasuredWriter implements CurrencyStatsWriter {
+
+        private final CurrencyStatsWriter writer;
+
+        private MeasuredWriter(CurrencyStatsWriter writer) {
+            this.writer = writer;
+        }
+
+        @Override
+        public void write(List<CurrencyStatsRow> rows) {
+            long startNanos = System.nanoTime();
+            writer.write(rows);
+            onBatchWritten(rows.size(), System.nanoTime() - startNanos);
+        }
+
+        @Override
+        public long finish() {
+            return writer.finish();
+        }
+
+        @Override
+        public void close() {
+            writer.close();
+        }
+    }
+}
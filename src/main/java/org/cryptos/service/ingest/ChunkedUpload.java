@@ -0,0 +1,294 @@
+package org.cryptos.service.ingest;
+
+import lombok.Getter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * State of the CSV file uploaded in chunks.
+ * The received bytes are appended to the data file "{id}.csv" and forced to the disk, then the state is saved
+ * atomically to the checkpoint file "{id}.checkpoint", so the upload is continued after a restart from the last
+ * acknowledged chunk. The committed bytes are the complete lines already stored in the database,
+ * the bytes after them wait until their line is complete. The end of the part being stored is saved as the pending
+ * bytes before its transaction starts, so after a crash between the database commit and the checkpoint the part
+ * is known to be possibly stored and is stored again ignoring the existing rows.
+ * The upload is not thread-safe, the caller must synchronize on it.
+ */
+@Getter
+public class ChunkedUpload {
+
+    private static final String DATA_SUFFIX = ".csv";
+    private static final String CHECKPOINT_SUFFIX = ".checkpoint";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final UUID id;
+    private final Path dataFile;
+    private final Path checkpointFile;
+    private final LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+    private String symbol;
+    private long receivedBytes;
+    private long committedBytes;
+    private long pendingBytes;
+    private long rows;
+
+    /**
+     * Creates the upload state, the files are not touched.
+     *
+     * @param directory the directory of the upload files
+     * @param id        the identifier of the upload
+     * @param createdAt the time when the upload was created
+     */
+    private ChunkedUpload(Path directory, UUID id, LocalDateTime createdAt) {
+        this.id = id;
+        this.dataFile = directory.resolve(id + DATA_SUFFIX);
+        this.checkpointFile = directory.resolve(id + CHECKPOINT_SUFFIX);
+        this.createdAt = createdAt;
+        this.updatedAt = createdAt;
+    }
+
+    /**
+     * Creates the empty upload and saves its first checkpoint.
+     *
+     * @param directory the directory of the upload files
+     * @param id        the identifier of the upload
+     * @return the created upload
+     * @throws IOException if the files could not be created
+     */
+    public static ChunkedUpload create(Path directory, UUID id) throws IOException {
+        var upload = new ChunkedUpload(directory, id, LocalDateTime.now());
+        Files.createFile(upload.dataFile);
+        upload.saveCheckpoint();
+        return upload;
+    }
+
+    /**
+     * Loads the uploads saved in the directory. The bytes of the data files received after the last checkpoint,
+     * e.g. the chunk torn by a crash, are truncated, so every upload continues from its last acknowledged chunk.
+     *
+     * @param directory the directory of the upload files
+     * @return the loaded uploads
+     * @throws IOException if the directory or the upload files could not be read
+     */
+    public static List<ChunkedUpload> recover(Path directory) throws IOException {
+        List<Path> checkpointFiles;
+        try (Stream<Path> files = Files.list(directory)) {
+            checkpointFiles = files.filter(file -> file.getFileName().toString().endsWith(CHECKPOINT_SUFFIX)).toList();
+        }
+        List<ChunkedUpload> uploads = new ArrayList<>(checkpointFiles.size());
+        for (Path checkpointFile : checkpointFiles) {
+            uploads.add(load(directory, checkpointFile));
+        }
+        return uploads;
+    }
+
+    /**
+     * Appends the chunk starting at the offset to the received bytes. The bytes of the chunk before the received bytes
+     * were received before, e.g. the retried chunk, so they are skipped. The appended bytes are forced to the disk
+     * and saved in the checkpoint even if the chunk is interrupted, so the client can continue after them.
+     *
+     * @param offset the offset of the first byte of the chunk in the file, at most the number of the received bytes
+     * @param chunk  the bytes of the chunk
+     * @return the number of the appended bytes
+     * @throws IOException if the chunk could not be read or appended
+     */
+    public long append(long offset, InputStream chunk) throws IOException {
+        if (offset > receivedBytes) {
+            throw new IllegalArgumentException("Offset %d is after the received bytes %d".formatted(offset, receivedBytes));
+        }
+        long duplicateBytes = receivedBytes - offset;
+        while (duplicateBytes > 0) {
+            long skipped = chunk.skip(duplicateBytes);
+            if (skipped <= 0) {
+                if (chunk.read() < 0) {
+                    return 0;
+                }
+                skipped = 1;
+            }
+            duplicateBytes -= skipped;
+        }
+
+        long appendedBytes = 0;
+        try (FileChannel channel = FileChannel.open(dataFile, StandardOpenOption.WRITE)) {
+            channel.position(receivedBytes);
+            byte[] buffer = new byte[BUFFER_SIZE];
+            try {
+                int read;
+                while ((read = chunk.read(buffer)) >= 0) {
+                    ByteBuffer bytes = ByteBuffer.wrap(buffer, 0, read);
+                    while (bytes.hasRemaining()) {
+                        appendedBytes += channel.write(bytes);
+                    }
+                }
+            } finally {
+                if (appendedBytes > 0) {
+                    channel.force(false);
+                    receivedBytes += appendedBytes;
+                    saveCheckpoint();
+                }
+            }
+        }
+        return appendedBytes;
+    }
+
+    /**
+     * Finds the end of the last complete line among the received bytes which are not committed yet.
+     *
+     * @return the offset after the last line break, or the committed bytes if there is no complete line
+     * @throws IOException if the data file could not be read
+     */
+    public long findLastLineEnd() throws IOException {
+        try (FileChannel channel = FileChannel.open(dataFile, StandardOpenOption.READ)) {
+            return CsvFileParts.findLastLineEnd(channel, committedBytes, receivedBytes);
+        }
+    }
+
+    /**
+     * Opens the stream of the received bytes between the committed bytes and the given end.
+     *
+     * @param end the offset after the last byte of the part
+     * @return the stream to be closed by the caller
+     * @throws IOException if the data file could not be opened
+     */
+    public InputStream openPart(long end) throws IOException {
+        return CsvFileParts.openPart(dataFile, committedBytes, end);
+    }
+
+    /**
+     * Checks whether the received bytes after the committed bytes may have been stored in the database already,
+     * e.g. the commit of the last part succeeded, but its checkpoint was not saved because of a crash.
+     *
+     * @return true if the pending bytes are after the committed bytes
+     */
+    public boolean isPartPending() {
+        return pendingBytes > committedBytes;
+    }
+
+    /**
+     * Saves the end of the part before it is stored in the database. The pending bytes are never moved back,
+     * so the part shorter than the pending one keeps the rest of the pending part to be stored ignoring
+     * the existing rows.
+     *
+     * @param end the offset after the last line of the part
+     * @throws IOException if the checkpoint could not be saved
+     */
+    public void prepare(long end) throws IOException {
+        this.pendingBytes = Math.max(pendingBytes, end);
+        saveCheckpoint();
+    }
+
+    /**
+     * Saves the part stored in the database.
+     *
+     * @param symbol         the currency of the upload
+     * @param committedBytes the offset after the last stored line
+     * @param rows           the total number of the stored rows
+     * @throws IOException if the checkpoint could not be saved
+     */
+    public void commit(String symbol, long committedBytes, long rows) throws IOException {
+        this.symbol = symbol;
+        this.committedBytes = committedBytes;
+        this.pendingBytes = Math.max(pendingBytes, committedBytes);
+        this.rows = rows;
+        saveCheckpoint();
+    }
+
+    /**
+     * Discards the received bytes which are not committed, so the client resends them from the committed bytes.
+     * The pending bytes are kept, as the failed part could have been committed anyway, e.g. if the connection was lost
+     * during the commit.
+     *
+     * @throws IOException if the data file could not be truncated
+     */
+    public void rollback() throws IOException {
+        try (FileChannel channel = FileChannel.open(dataFile, StandardOpenOption.WRITE)) {
+            channel.truncate(committedBytes);
+        }
+        receivedBytes = committedBytes;
+        saveCheckpoint();
+    }
+
+    /**
+     * Deletes the files of the upload.
+     *
+     * @throws IOException if the files could not be deleted
+     */
+    public void delete() throws IOException {
+        Files.deleteIfExists(checkpointFile);
+        Files.deleteIfExists(dataFile);
+    }
+
+    /**
+     * Loads the upload from its checkpoint and truncates its data file to the checkpoint.
+     *
+     * @param directory      the directory of the upload files
+     * @param checkpointFile the checkpoint file of the upload
+     * @return the loaded upload
+     * @throws IOException if the upload files could not be read or are not consistent
+     */
+    private static ChunkedUpload load(Path directory, Path checkpointFile) throws IOException {
+        var properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(checkpointFile, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        }
+        var upload = new ChunkedUpload(directory, UUID.fromString(properties.getProperty("id")),
+                LocalDateTime.parse(properties.getProperty("createdAt")));
+        upload.updatedAt = LocalDateTime.parse(properties.getProperty("updatedAt"));
+        upload.symbol = properties.getProperty("symbol");
+        upload.receivedBytes = Long.parseLong(properties.getProperty("receivedBytes"));
+        upload.committedBytes = Long.parseLong(properties.getProperty("committedBytes"));
+        upload.pendingBytes = Long.parseLong(properties.getProperty("pendingBytes",
+                Long.toString(upload.committedBytes)));
+        upload.rows = Long.parseLong(properties.getProperty("rows"));
+
+        try (FileChannel channel = FileChannel.open(upload.dataFile, StandardOpenOption.WRITE)) {
+            if (channel.size() < upload.receivedBytes) {
+                throw new IOException("Upload data file %s is shorter than its checkpoint".formatted(upload.dataFile));
+            }
+            channel.truncate(upload.receivedBytes);
+        }
+        return upload;
+    }
+
+    /**
+     * Saves the state of the upload atomically.
+     *
+     * @throws IOException if the checkpoint could not be saved
+     */
+    private void saveCheckpoint() throws IOException {
+        updatedAt = LocalDateTime.now();
+        var properties = new Properties();
+        properties.setProperty("id", id.toString());
+        properties.setProperty("createdAt", createdAt.toString());
+        properties.setProperty("updatedAt", updatedAt.toString());
+        if (symbol != null) {
+            properties.setProperty("symbol", symbol);
+        }
+        properties.setProperty("receivedBytes", Long.toString(receivedBytes));
+        properties.setProperty("committedBytes", Long.toString(committedBytes));
+        properties.setProperty("pendingBytes", Long.toString(pendingBytes));
+        properties.setProperty("rows", Long.toString(rows));
+
+        Path temp = checkpointFile.resolveSibling(checkpointFile.getFileName() + ".tmp");
+        try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            properties.store(writer, null);
+        }
+        Files.move(temp, checkpointFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
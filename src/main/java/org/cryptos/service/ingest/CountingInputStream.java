@@ -0,0 +1,57 @@
+package org.cryptos.service.ingest;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * {@link InputStream} counting the bytes read from the underlying stream.
+ * The counter is not thread-safe and should be read on the reading thread.
+ */
+public class CountingInputStream extends FilterInputStream {
+
+    private long count;
+
+    /**
+     * Creates the counting stream.
+     *
+     * @param inputStream the underlying stream
+     */
+    public CountingInputStream(InputStream inputStream) {
+        super(inputStream);
+    }
+
+    /**
+     * Returns the number of bytes read or skipped so far.
+     *
+     * @return the number of bytes
+     */
+    public long count() {
+        return count;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int read = super.read();
+        if (read >= 0) {
+            count++;
+        }
+        return read;
+    }
+
+    @Override
+    public int read(byte[] bytes, int offset, int length) throws IOException {
+        int read = super.read(bytes, offset, length);
+        if (read > 0) {
+            count += read;
+        }
+        return read;
+    }
+
+    @Override
+    public long skip(long length) throws IOException {
+        long skipped = super.skip(length);
+        count += skipped;
+        return skipped;
+    }
+}
@@ -0,0 +1,51 @@
+package org.cryptos.service.ingest;
+
+import org.springframework.core.io.Resource;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Detects the gzip compressed CSV files by their magic bytes and decompresses them on the fly,
+ * so the parser reads the decompressed bytes without the decompressed file being stored anywhere.
+ * The uncompressed files are passed through unchanged.
+ */
+public final class CsvDecompressor {
+
+    private static final byte[] GZIP_MAGIC = {0x1f, (byte) 0x8b};
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private CsvDecompressor() {
+    }
+
+    /**
+     * Wraps the stream into the decompressing stream if the content is gzip compressed.
+     *
+     * @param inputStream the stream of the possibly compressed CSV file, closed together with the returned stream
+     * @return the stream of the decompressed CSV file
+     * @throws IOException if the stream could not be read
+     */
+    public static InputStream decompress(InputStream inputStream) throws IOException {
+        InputStream markableStream = inputStream.markSupported() ? inputStream : new BufferedInputStream(inputStream);
+        markableStream.mark(GZIP_MAGIC.length);
+        byte[] magic = markableStream.readNBytes(GZIP_MAGIC.length);
+        markableStream.reset();
+        return Arrays.equals(magic, GZIP_MAGIC) ? new GZIPInputStream(markableStream, BUFFER_SIZE) : markableStream;
+    }
+
+    /**
+     * Checks whether the resource content is gzip compressed.
+     *
+     * @param resource the resource of the CSV file
+     * @return true if the content starts with the gzip magic bytes
+     * @throws IOException if the resource could not be read
+     */
+    public static boolean isCompressed(Resource resource) throws IOException {
+        try (InputStream inputStream = resource.getInputStream()) {
+            return Arrays.equals(inputStream.readNBytes(GZIP_MAGIC.length), GZIP_MAGIC);
+        }
+    }
+}
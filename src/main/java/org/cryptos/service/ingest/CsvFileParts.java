@@ -0,0 +1,142 @@
+package org.cryptos.service.ingest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Splits the CSV files growing at their end into the parts of complete lines, so every part can be stored
+ * on its own, while the last line may still be incomplete. The file is read by blocks through the channel,
+ * the parts are streamed from the file without being copied.
+ */
+public final class CsvFileParts {
+
+    private static final int LINE_PROBE_SIZE = 8 * 1024;
+
+    private CsvFileParts() {
+    }
+
+    /**
+     * Finds the end of the last complete line in the range of the file, probing the range backwards.
+     *
+     * @param channel the channel of the file
+     * @param start   the offset of the first byte of the range
+     * @param end     the offset after the last byte of the range
+     * @return the offset after the last line break of the range, or the start if there is no line break
+     * @throws IOException if the file could not be read or is shorter than the range
+     */
+    public static long findLastLineEnd(FileChannel channel, long start, long end) throws IOException {
+        ByteBuffer probe = ByteBuffer.allocate(LINE_PROBE_SIZE);
+        long probeEnd = end;
+        while (probeEnd > start) {
+            long probeStart = Math.max(probeEnd - LINE_PROBE_SIZE, start);
+            read(channel, probe, probeStart, probeEnd);
+            for (int i = probe.position() - 1; i >= 0; i--) {
+                if (probe.get(i) == '\n') {
+                    return probeStart + i + 1;
+                }
+            }
+            probeEnd = probeStart;
+        }
+        return start;
+    }
+
+    /**
+     * Finds the end of the first complete line in the range of the file, probing the range forwards.
+     *
+     * @param channel the channel of the file
+     * @param start   the offset of the first byte of the range
+     * @param end     the offset after the last byte of the range
+     * @return the offset after the first line break of the range, or -1 if there is no line break
+     * @throws IOException if the file could not be read or is shorter than the range
+     */
+    public static long findNextLineEnd(FileChannel channel, long start, long end) throws IOException {
+        ByteBuffer probe = ByteBuffer.allocate(LINE_PROBE_SIZE);
+        long probeStart = start;
+        while (probeStart < end) {
+            long probeEnd = Math.min(probeStart + LINE_PROBE_SIZE, end);
+            read(channel, probe, probeStart, probeEnd);
+            for (int i = 0; i < probe.position(); i++) {
+                if (probe.get(i) == '\n') {
+                    return probeStart + i + 1;
+                }
+            }
+            probeStart = probeEnd;
+        }
+        return -1;
+    }
+
+    /**
+     * Opens the stream of the range of the file.
+     *
+     * @param file  the file
+     * @param start the offset of the first byte of the part
+     * @param end   the offset after the last byte of the part
+     * @return the stream to be closed by the caller
+     * @throws IOException if the file could not be opened
+     */
+    public static InputStream openPart(Path file, long start, long end) throws IOException {
+        return new PartInputStream(FileChannel.open(file, StandardOpenOption.READ), start, end);
+    }
+
+    /**
+     * Reads the range of the file into the cleared probe.
+     *
+     * @param channel the channel of the file
+     * @param probe   the buffer of at least the size of the range
+     * @param start   the offset of the first byte of the range
+     * @param end     the offset after the last byte of the range
+     * @throws IOException if the file could not be read or is shorter than the range
+     */
+    private static void read(FileChannel channel, ByteBuffer probe, long start, long end) throws IOException {
+        probe.clear().limit((int) (end - start));
+        while (probe.hasRemaining()) {
+            if (channel.read(probe, start + probe.position()) < 0) {
+                throw new IOException("File ended at %d before the expected end %d".formatted(
+                        start + probe.position(), end));
+            }
+        }
+    }
+
+    /**
+     * {@link InputStream} reading the range of the file channel.
+     */
+    private static final class PartInputStream extends InputStream {
+
+        private final FileChannel channel;
+        private final long end;
+        private long position;
+
+        private PartInputStream(FileChannel channel, long start, long end) {
+            this.channel = channel;
+            this.position = start;
+            this.end = end;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            return read(single, 0, 1) < 0 ? -1 : single[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            if (position >= end) {
+                return -1;
+            }
+            int read = channel.read(ByteBuffer.wrap(bytes, offset, (int) Math.min(length, end - position)), position);
+            if (read > 0) {
+                position += read;
+            }
+            return read;
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
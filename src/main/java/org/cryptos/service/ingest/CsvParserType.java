@@ -0,0 +1,16 @@
+package org.cryptos.service.ingest;
+
+/**
+ * Defines which {@link CurrencyStatsCsvReader} parses the uploaded CSV files.
+ * The parser is selected by the "currency.create-stats.parser" property.
+ */
+public enum CsvParserType {
+    /**
+     * General purpose opencsv parser, supports quoted values and irregular files, see {@link OpenCsvCurrencyStatsReader}.
+     */
+    OPENCSV,
+    /**
+     * Allocation-light parser of the fixed "timestamp,symbol,price" format, see {@link TickCsvReader}.
+     */
+    TICK
+}
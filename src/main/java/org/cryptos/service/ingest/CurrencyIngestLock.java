@@ -0,0 +1,171 @@
+package org.cryptos.service.ingest;
+
+import org.cryptos.persistence.repository.CurrencyAdvisoryLockRepository;
+import org.cryptos.service.exception.CSVFileProcessException;
+import org.cryptos.service.exception.IngestLockTimeoutException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Per-currency coordination of the uploads. The upload locks its currencies before it reads their watermarks
+ * and holds the locks until its transaction is completed, so the uploads of the same currency are serialized
+ * and every upload sees the rows committed by the previous one, while the uploads of different currencies
+ * proceed in parallel. The implementation is selected by "currency.create-stats.lock.mode", see {@link IngestLockMode}.
+ * The local locks are striped: the currency is mapped to one of "currency.create-stats.lock.stripes" locks
+ * by the hash of its symbol, so the memory does not grow with the number of currencies.
+ * The locks are always taken in the order of their stripes or keys, so the uploads of multiple currencies
+ * do not deadlock. The upload waiting longer than "currency.create-stats.lock.timeout" is rejected.
+ */
+@Component
+public class CurrencyIngestLock {
+
+    private static final long ADVISORY_POLL_MILLIS = 100;
+
+    private final IngestLockMode mode;
+    private final ReentrantLock[] stripes;
+    private final Duration timeout;
+    private final CurrencyAdvisoryLockRepository advisoryLockRepository;
+
+    /**
+     * Creates the coordination of the uploads.
+     *
+     * @param mode                   the implementation of the locks
+     * @param stripes                the number of the local locks shared by the currencies
+     * @param timeout                the maximum time the upload waits for its currencies
+     * @param advisoryLockRepository the repository of the PostgreSQL advisory locks
+     */
+    public CurrencyIngestLock(@Value("${currency.create-stats.lock.mode:local}") IngestLockMode mode,
+                              @Value("${currency.create-stats.lock.stripes:64}") int stripes,
+                              @Value("${currency.create-stats.lock.timeout:PT10M}") Duration timeout,
+                              CurrencyAdvisoryLockRepository advisoryLockRepository) {
+        this.mode = mode;
+        this.stripes = new ReentrantLock[Math.max(stripes, 1)];
+        for (int i = 0; i < this.stripes.length; i++) {
+            this.stripes[i] = new ReentrantLock();
+        }
+        this.timeout = timeout;
+        this.advisoryLockRepository = advisoryLockRepository;
+    }
+
+    /**
+     * Locks the currencies until the current transaction is completed, waiting for the uploads holding them.
+     *
+     * @param symbols the symbols of the currencies, matched ignoring case
+     * @throws IngestLockTimeoutException if any currency could not be locked in time
+     * @throws CSVFileProcessException    if the upload was interrupted while waiting
+     * @throws IllegalStateException      if there is no active transaction
+     */
+    public void lock(Collection<String> symbols) {
+        if (mode == IngestLockMode.NONE || symbols.isEmpty()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("Currencies must be locked in a transaction");
+        }
+        long deadline = System.nanoTime() + timeout.toNanos();
+        try {
+            if (mode == IngestLockMode.ADVISORY) {
+                lockAdvisory(symbols, deadline);
+            } else {
+                lockLocal(symbols, deadline);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CSVFileProcessException("Upload was interrupted while waiting for the currency lock", e);
+        }
+    }
+
+    /**
+     * Locks the stripes of the currencies in the order of the stripes and registers their release
+     * after the completion of the current transaction. If any stripe could not be locked, the locked ones are released.
+     *
+     * @param symbols  the symbols of the currencies
+     * @param deadline the {@link System#nanoTime()} value when the waiting ends
+     * @throws InterruptedException if interrupted while waiting
+     */
+    private void lockLocal(Collection<String> symbols, long deadline) throws InterruptedException {
+        TreeMap<Integer, String> symbolsByStripe = new TreeMap<>();
+        for (String symbol : symbols) {
+            String normalized = normalizeSymbol(symbol);
+            symbolsByStripe.putIfAbsent(Math.floorMod(normalized.hashCode(), stripes.length), normalized);
+        }
+
+        List<ReentrantLock> locked = new ArrayList<>(symbolsByStripe.size());
+        try {
+            for (var stripe : symbolsByStripe.entrySet()) {
+                ReentrantLock lock = stripes[stripe.getKey()];
+                if (!lock.tryLock(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                    throw lockTimeout(stripe.getValue());
+                }
+                locked.add(lock);
+            }
+        } catch (InterruptedException | RuntimeException e) {
+            locked.forEach(ReentrantLock::unlock);
+            throw e;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                locked.forEach(ReentrantLock::unlock);
+            }
+        });
+    }
+
+    /**
+     * Locks the advisory locks of the currencies in the order of their keys, polling every lock until it is free.
+     * The locks taken before a failure are released by PostgreSQL with the rollback of the transaction.
+     *
+     * @param symbols  the symbols of the currencies
+     * @param deadline the {@link System#nanoTime()} value when the waiting ends
+     * @throws InterruptedException if interrupted while waiting
+     */
+    private void lockAdvisory(Collection<String> symbols, long deadline) throws InterruptedException {
+        TreeMap<Long, String> symbolsByKey = new TreeMap<>();
+        for (String symbol : symbols) {
+            String normalized = normalizeSymbol(symbol);
+            symbolsByKey.putIfAbsent(advisoryLockRepository.lockKey(normalized), normalized);
+        }
+
+        for (var key : symbolsByKey.entrySet()) {
+            while (!advisoryLockRepository.tryLock(key.getKey())) {
+                if (System.nanoTime() - deadline >= 0) {
+                    throw lockTimeout(key.getValue());
+                }
+                TimeUnit.MILLISECONDS.sleep(ADVISORY_POLL_MILLIS);
+            }
+        }
+    }
+
+    /**
+     * Creates the exception of the currency which could not be locked in time.
+     *
+     * @param symbol the symbol of the currency
+     * @return the exception to be thrown
+     */
+    private IngestLockTimeoutException lockTimeout(String symbol) {
+        return new IngestLockTimeoutException("Upload of currency '%s' is still in progress after %s, try again later"
+                .formatted(symbol, timeout));
+    }
+
+    /**
+     * Normalizes the currency symbol, so the symbols differing in case share the lock.
+     *
+     * @param symbol the currency symbol
+     * @return the upper case symbol
+     */
+    private String normalizeSymbol(String symbol) {
+        return symbol.toUpperCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,47 @@
+package org.cryptos.service.ingest;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.math.BigDecimal;
+
+/**
+ * Cursor over the lines of the currency statistics CSV file in the "timestamp,symbol,price" format.
+ * The reader is positioned on a line by {@link #next()}, then the values of the current line are available
+ * through the accessors. The values are parsed on access, so the header line can be skipped without parsing.
+ * Implementations are not thread-safe.
+ */
+public interface CurrencyStatsCsvReader extends Closeable {
+
+    /**
+     * Moves the reader to the next line of the file.
+     *
+     * @return true if the reader is positioned on a line, false if the end of the file is reached
+     * @throws IOException if the file could not be read
+     */
+    boolean next() throws IOException;
+
+    /**
+     * Gets the number of the current line in the file, starting from 1.
+     */
+    long lineNumber();
+
+    /**
+     * Gets the number of columns in the current line.
+     */
+    int columnCount();
+
+    /**
+     * Gets the currency symbol from the second column of the current line.
+     */
+    String symbol();
+
+    /**
+     * Gets the timestamp in milliseconds since epoch from the first column of the current line.
+     */
+    long epochMillis();
+
+    /**
+     * Gets the price from the third column of the current line.
+     */
+    BigDecimal price();
+}
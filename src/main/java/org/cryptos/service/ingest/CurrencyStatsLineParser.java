@@ -0,0 +1,19 @@
+package org.cryptos.service.ingest;
+
+import org.cryptos.persistence.entity.CurrencyStatsRow;
+
+/**
+ * Validates the current line of {@link CurrencyStatsCsvReader} and converts it to {@link CurrencyStatsRow}.
+ * Implementations must be thread-safe, as the lines of different chunks are parsed concurrently.
+ */
+@FunctionalInterface
+public interface CurrencyStatsLineParser {
+
+    /**
+     * Validates and converts the current line of the reader.
+     *
+     * @param reader the reader positioned on the line
+     * @return the row created from the line, or null if the line is valid, but must be skipped
+     */
+    CurrencyStatsRow parse(CurrencyStatsCsvReader reader);
+}
@@ -0,0 +1,17 @@
+package org.cryptos.service.ingest;
+
+import java.math.BigDecimal;
+
+/**
+ * Single price tick received from the live feed, one JSON object per line of the NDJSON stream,
+ * e.g. {"timestamp":1641308400000,"symbol":"BTC","price":47111.11}.
+ *
+ * @param timestamp the milliseconds since epoch when the price was actual
+ * @param symbol    the symbol of the currency ("BTC", "ETH")
+ * @param price     the price of the currency at the specified time
+ */
+public record CurrencyStatsTick(
+        Long timestamp,
+        String symbol,
+        BigDecimal price) {
+}
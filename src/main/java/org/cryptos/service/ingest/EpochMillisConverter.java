@@ -0,0 +1,59 @@
+package org.cryptos.service.ingest;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.zone.ZoneRules;
+
+/**
+ * Converts milliseconds since epoch to {@link LocalDateTime} in the given time zone and back.
+ * For zones with a fixed offset the offset is resolved once, so the conversion creates only the result object.
+ */
+public class EpochMillisConverter {
+
+    private static final int MILLIS_PER_SECOND = 1000;
+    private static final int NANOS_PER_MILLI = 1_000_000;
+
+    private final ZoneId zoneId;
+    private final ZoneRules zoneRules;
+    private final ZoneOffset fixedOffset;
+
+    /**
+     * Creates a converter for the given time zone.
+     *
+     * @param zoneId the time zone of the resulting date and time
+     */
+    public EpochMillisConverter(ZoneId zoneId) {
+        this.zoneId = zoneId;
+        this.zoneRules = zoneId.getRules();
+        this.fixedOffset = zoneRules.isFixedOffset() ? zoneRules.getOffset(Instant.EPOCH) : null;
+    }
+
+    /**
+     * Converts milliseconds since epoch to {@link LocalDateTime}.
+     *
+     * @param epochMillis the milliseconds since epoch
+     * @return the corresponding {@link LocalDateTime} in the time zone of the converter
+     */
+    public LocalDateTime toLocalDateTime(long epochMillis) {
+        ZoneOffset offset = fixedOffset != null ? fixedOffset : zoneRules.getOffset(Instant.ofEpochMilli(epochMillis));
+        return LocalDateTime.ofEpochSecond(
+                Math.floorDiv(epochMillis, MILLIS_PER_SECOND),
+                Math.floorMod(epochMillis, MILLIS_PER_SECOND) * NANOS_PER_MILLI,
+                offset);
+    }
+
+    /**
+     * Converts {@link LocalDateTime} to milliseconds since epoch.
+     * The local date time repeated by the clock change maps to the later instant,
+     * so every instant converted to the same local date time is not after the result.
+     *
+     * @param localDateTime the date and time in the time zone of the converter
+     * @return the corresponding milliseconds since epoch
+     */
+    public long toEpochMillis(LocalDateTime localDateTime) {
+        return ZonedDateTime.ofLocal(localDateTime, zoneId, null).withLaterOffsetAtOverlap().toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,89 @@
+package org.cryptos.service.ingest;
+
+import lombok.Getter;
+import org.cryptos.service.domain.CurrencyStatsIngestDomain;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * State of the asynchronous currency statistics upload job.
+ * The state is written by the worker thread and read by the request threads, so every field is volatile.
+ */
+@Getter
+public class IngestJob implements IngestProgressListener {
+
+    private final UUID id;
+    private final long totalBytes;
+    private final LocalDateTime createdAt = LocalDateTime.now();
+    private volatile IngestJobStatus status = IngestJobStatus.QUEUED;
+    private volatile long startNanos;
+    private volatile long finishNanos;
+    private volatile long rows;
+    private volatile long bytes;
+    private volatile LocalDateTime finishedAt;
+    private volatile CurrencyStatsIngestDomain result;
+    private volatile String error;
+
+    /**
+     * Creates the queued job.
+     *
+     * @param id         the identifier of the job
+     * @param totalBytes the size of the uploaded file
+     */
+    public IngestJob(UUID id, long totalBytes) {
+        this.id = id;
+        this.totalBytes = totalBytes;
+    }
+
+    /**
+     * Marks the job as running.
+     */
+    public void start() {
+        startNanos = System.nanoTime();
+        status = IngestJobStatus.RUNNING;
+    }
+
+    @Override
+    public void onProgress(long rows, long bytes) {
+        this.rows = rows;
+        this.bytes = bytes;
+    }
+
+    /**
+     * Marks the job as completed.
+     *
+     * @param result the result of the upload
+     */
+    public void complete(CurrencyStatsIngestDomain result) {
+        this.result = result;
+        this.rows = result.rows();
+        this.bytes = totalBytes;
+        finish(IngestJobStatus.COMPLETED);
+    }
+
+    /**
+     * Marks the job as failed.
+     *
+     * @param error the reason of the failure shown to the client
+     */
+    public void fail(String error) {
+        this.error = error;
+        finish(IngestJobStatus.FAILED);
+    }
+
+    /**
+     * Checks whether the job is completed or failed.
+     *
+     * @return true if the job is finished
+     */
+    public boolean isFinished() {
+        return status == IngestJobStatus.COMPLETED || status == IngestJobStatus.FAILED;
+    }
+
+    private void finish(IngestJobStatus finalStatus) {
+        finishNanos = System.nanoTime();
+        finishedAt = LocalDateTime.now();
+        status = finalStatus;
+    }
+}
@@ -0,0 +1,23 @@
+package org.cryptos.service.ingest;
+
+/**
+ * Status of the asynchronous currency statistics upload job.
+ */
+public enum IngestJobStatus {
+    /**
+     * The job is accepted and waits for a free worker.
+     */
+    QUEUED,
+    /**
+     * The file is being parsed and written.
+     */
+    RUNNING,
+    /**
+     * All the rows of the file are stored.
+     */
+    COMPLETED,
+    /**
+     * The upload is rejected or failed, no rows of the file are stored unless the stateless mode committed them.
+     */
+    FAILED
+}
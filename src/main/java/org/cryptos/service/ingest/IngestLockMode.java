@@ -0,0 +1,22 @@
+package org.cryptos.service.ingest;
+
+/**
+ * Defines how the concurrent uploads of the same currency are coordinated.
+ * The mode is selected by the "currency.create-stats.lock.mode" property.
+ */
+public enum IngestLockMode {
+    /**
+     * Uploads are not coordinated, the concurrent uploads of the same currency interleave.
+     */
+    NONE,
+    /**
+     * Uploads of the same currency are serialized by the striped in-process locks,
+     * suitable for a single instance of the application.
+     */
+    LOCAL,
+    /**
+     * Uploads of the same currency are serialized by the PostgreSQL transaction level advisory locks,
+     * so they are coordinated across all the instances sharing the database.
+     */
+    ADVISORY
+}
@@ -0,0 +1,28 @@
+package org.cryptos.service.ingest;
+
+/**
+ * Defines how the parsed currency statistics are written into the database.
+ * The mode is selected by the "currency.create-stats.mode" property.
+ */
+public enum IngestMode {
+    /**
+     * Every row is persisted as a JPA entity, batches are saved through the repository.
+     */
+    JPA,
+    /**
+     * Rows are streamed straight into the table bypassing the persistence context,
+     * using COPY protocol for PostgreSQL and multi-row JDBC batches for other databases.
+     */
+    BULK,
+    /**
+     * Entities are inserted through Hibernate stateless session which keeps nothing in memory,
+     * the transaction is committed every "currency.create-stats.commit-interval" rows.
+     */
+    STATELESS,
+    /**
+     * Rows are upserted by the unique currency and date time in multi-row JDBC batches,
+     * the existing rows are kept or updated according to "currency.create-stats.on-conflict".
+     * Repeated and overlapping uploads do not create duplicates.
+     */
+    UPSERT
+}
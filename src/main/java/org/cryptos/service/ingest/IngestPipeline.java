@@ -0,0 +1,402 @@
+package org.cryptos.service.ingest;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.cryptos.persistence.entity.CurrencyStatsRow;
+import org.cryptos.service.exception.CSVFileProcessException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Two-stage pipeline of the sequential ingest. The reading stage reads, validates and converts the lines into batches
+ * on its own thread, the writing stage writes the batches on the calling thread, so the writer may use the resources
+ * bound to the calling thread (transaction) and the next batch is parsed while the previous one is being written.
+ * Up to "currency.create-stats.pipeline.queue-capacity" parsed batches wait for the writer, then the reading stage
+ * blocks (backpressure). The reading stages run on a shared pool of "currency.create-stats.pipeline.threads" threads,
+ * if all of them are busy, the ingest is not pipelined and both stages run on the calling thread.
+ * The throughput of every stage, the time it was blocked by the other one and the depth of the queue are published
+ * as the "currency.ingest.pipeline.*" metrics and logged after every ingest as {@link Stats}.
+ */
+@Slf4j
+@Component
+public class IngestPipeline {
+
+    private static final long POLL_TIMEOUT_MILLIS = 50;
+    private static final Batch END = new Batch(List.of(), -1);
+
+    private final ThreadPoolExecutor executor;
+    private final int queueCapacity;
+    private final DistributionSummary parseThroughput;
+    private final DistributionSummary writeThroughput;
+    private final Timer parseBlockedTimer;
+    private final Timer writeIdleTimer;
+    private final DistributionSummary queueDepth;
+    private final Counter sequentialIngests;
+
+    /**
+     * Batch of rows parsed by the reading stage.
+     *
+     * @param rows        the parsed rows
+     * @param parsedBytes the number of bytes of the file parsed up to the end of the batch
+     */
+    public record Batch(List<CurrencyStatsRow> rows, long parsedBytes) {
+    }
+
+    /**
+     * Source of the batches called by the reading stage.
+     */
+    @FunctionalInterface
+    public interface BatchSource {
+
+        /**
+         * Reads, validates and converts the next batch of lines.
+         *
+         * @return the next batch, or null at the end of the file
+         * @throws IOException if the file could not be read
+         */
+        Batch next() throws IOException;
+    }
+
+    /**
+     * Metrics of one pipelined ingest.
+     *
+     * @param batches            the number of written batches
+     * @param rows               the number of written rows
+     * @param parseMillis        the time the reading stage spent on reading and converting the lines
+     * @param parseBlockedMillis the time the reading stage waited for the room in the queue
+     * @param writeMillis        the time the writing stage spent on writing the batches
+     * @param writeIdleMillis    the time the writing stage waited for the parsed batches
+     * @param maxQueueDepth      the maximum number of batches waiting for the writer
+     * @param avgQueueDepth      the average number of batches waiting for the writer, sampled before every write
+     */
+    public record Stats(long batches,
+                        long rows,
+                        long parseMillis,
+                        long parseBlockedMillis,
+                        long writeMillis,
+                        long writeIdleMillis,
+                        int maxQueueDepth,
+                        double avgQueueDepth) {
+
+        /**
+         * Gets the throughput of the reading stage without the time it was blocked.
+         *
+         * @return the parsed rows per second
+         */
+        public double parseRowsPerSecond() {
+            return rows * 1000.0 / Math.max(parseMillis, 1);
+        }
+
+        /**
+         * Gets the throughput of the writing stage without the time it was idle.
+         *
+         * @return the written rows per second
+         */
+        public double writeRowsPerSecond() {
+            return rows * 1000.0 / Math.max(writeMillis, 1);
+        }
+    }
+
+    /**
+     * Creates the pipeline with its own bounded pool of the reading threads and registers its metrics.
+     *
+     * @param queueCapacity the number of parsed batches waiting for the writer, before the reading stage blocks
+     * @param threads       the maximum number of the reading stages running at the same time
+     * @param meterRegistry the registry of the metrics
+     */
+    public IngestPipeline(@Value("${currency.create-stats.pipeline.queue-capacity:4}") int queueCapacity,
+                          @Value("${currency.create-stats.pipeline.threads:4}") int threads,
+                          MeterRegistry meterRegistry) {
+        this.queueCapacity = Math.max(queueCapacity, 1);
+        int maxThreads = Math.max(threads, 1);
+        var threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(maxThreads, maxThreads, 60, TimeUnit.SECONDS,
+                new SynchronousQueue<>(),
+                runnable -> new Thread(runnable, "ingest-pipeline-" + threadNumber.incrementAndGet()),
+                new ThreadPoolExecutor.AbortPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        this.parseThroughput = DistributionSummary.builder("currency.ingest.pipeline.throughput")
+                .description("Rows per second of the stage without the time it waited for the other one")
+                .baseUnit("rows")
+                .tag("stage", "parse")
+                .register(meterRegistry);
+        this.writeThroughput = DistributionSummary.builder("currency.ingest.pipeline.throughput")
+                .description("Rows per second of the stage without the time it waited for the other one")
+                .baseUnit("rows")
+                .tag("stage", "write")
+                .register(meterRegistry);
+        this.parseBlockedTimer = Timer.builder("currency.ingest.pipeline.wait")
+                .description("Time the stage waited for the other one during one ingest")
+                .tag("stage", "parse")
+                .register(meterRegistry);
+        this.writeIdleTimer = Timer.builder("currency.ingest.pipeline.wait")
+                .description("Time the stage waited for the other one during one ingest")
+                .tag("stage", "write")
+                .register(meterRegistry);
+        this.queueDepth = DistributionSummary.builder("currency.ingest.pipeline.queue.depth")
+                .description("Number of parsed batches waiting for the writer, sampled before every write")
+                .register(meterRegistry);
+        this.sequentialIngests = Counter.builder("currency.ingest.pipeline.sequential")
+                .description("Ingests run on the calling thread because all the reading threads were busy")
+                .register(meterRegistry);
+        Gauge.builder("currency.ingest.pipeline.readers", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Number of the running reading stages")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Stops the reading threads when the application is shut down.
+     */
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Reads the batches from the source on the reading thread and passes them to the writer on the calling thread.
+     * If either stage fails, the other one is stopped and the failure is thrown, the batches parsed before
+     * the failure of the reading stage are not written. The method returns
+     * after the reading stage is finished, so the caller may close the source afterwards.
+     * If all the reading threads are busy, the batches are read and written on the calling thread.
+     *
+     * @param source the source of the batches, called on the reading thread
+     * @param writer the writer of the batches, called on the calling thread
+     * @return the {@link Stats} of the stages
+     * @throws IOException             if the file could not be read
+     * @throws CSVFileProcessException if a line is rejected or the ingest was interrupted
+     */
+    public Stats run(BatchSource source, Consumer<Batch> writer) throws IOException {
+        BlockingQueue<Batch> queue = new ArrayBlockingQueue<>(queueCapacity);
+        var stopped = new AtomicBoolean();
+        var reader = new ReadingStage(source, queue, stopped);
+        Future<?> readerFuture;
+        try {
+            readerFuture = executor.submit(reader);
+        } catch (RejectedExecutionException e) {
+            sequentialIngests.increment();
+            return runSequentially(source, writer);
+        }
+
+        long batches = 0;
+        long rows = 0;
+        long writeNanos = 0;
+        long idleNanos = 0;
+        int maxQueueDepth = 0;
+        long queueDepthSum = 0;
+        try {
+            while (!stopped.get()) {
+                long idleStart = System.nanoTime();
+                Batch batch = queue.poll(POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+                idleNanos += System.nanoTime() - idleStart;
+                if (batch == END) {
+                    break;
+                }
+                if (batch == null) {
+                    if (readerFuture.isDone() && queue.isEmpty()) {
+                        //the reading stage ended without the end marker
+                        break;
+                    }
+                    continue;
+                }
+                int depth = queue.size() + 1;
+                maxQueueDepth = Math.max(maxQueueDepth, depth);
+                queueDepthSum += depth;
+                queueDepth.record(depth);
+
+                long writeStart = System.nanoTime();
+                writer.accept(batch);
+                writeNanos += System.nanoTime() - writeStart;
+                batches++;
+                rows += batch.rows().size();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CSVFileProcessException("Ingest of CSV file was interrupted", e);
+        } finally {
+            stopped.set(true);
+            queue.clear();
+            awaitQuietly(readerFuture);
+        }
+        reader.rethrowFailure();
+
+        var stats = new Stats(batches, rows,
+                TimeUnit.NANOSECONDS.toMillis(reader.parseNanos),
+                TimeUnit.NANOSECONDS.toMillis(reader.blockedNanos),
+                TimeUnit.NANOSECONDS.toMillis(writeNanos),
+                TimeUnit.NANOSECONDS.toMillis(idleNanos),
+                maxQueueDepth,
+                batches > 0 ? (double) queueDepthSum / batches : 0);
+        publish(stats);
+        return stats;
+    }
+
+    /**
+     * Reads and writes the batches one after another on the calling thread, used when all the reading threads
+     * are busy. Neither stage waits for the other one, so the queue depth is zero.
+     *
+     * @param source the source of the batches
+     * @param writer the writer of the batches
+     * @return the {@link Stats} of the stages
+     * @throws IOException if the file could not be read
+     */
+    private Stats runSequentially(BatchSource source, Consumer<Batch> writer) throws IOException {
+        long batches = 0;
+        long rows = 0;
+        long parseNanos = 0;
+        long writeNanos = 0;
+        while (true) {
+            long parseStart = System.nanoTime();
+            Batch batch = source.next();
+            parseNanos += System.nanoTime() - parseStart;
+            if (batch == null) {
+                break;
+            }
+            long writeStart = System.nanoTime();
+            writer.accept(batch);
+            writeNanos += System.nanoTime() - writeStart;
+            batches++;
+            rows += batch.rows().size();
+        }
+        var stats = new Stats(batches, rows, TimeUnit.NANOSECONDS.toMillis(parseNanos), 0,
+                TimeUnit.NANOSECONDS.toMillis(writeNanos), 0, 0, 0);
+        publish(stats);
+        return stats;
+    }
+
+    /**
+     * Records the stats of the finished ingest into the metrics and logs them.
+     *
+     * @param stats the stats of the ingest
+     */
+    private void publish(Stats stats) {
+        parseThroughput.record(stats.parseRowsPerSecond());
+        writeThroughput.record(stats.writeRowsPerSecond());
+        parseBlockedTimer.record(stats.parseBlockedMillis(), TimeUnit.MILLISECONDS);
+        writeIdleTimer.record(stats.writeIdleMillis(), TimeUnit.MILLISECONDS);
+        log.info("Pipelined ingest of {} rows: parse {} rows/s, blocked {} ms; write {} rows/s, idle {} ms; "
+                        + "queue depth avg {} max {}", stats.rows(), Math.round(stats.parseRowsPerSecond()),
+                stats.parseBlockedMillis(), Math.round(stats.writeRowsPerSecond()), stats.writeIdleMillis(),
+                String.format("%.1f", stats.avgQueueDepth()), stats.maxQueueDepth());
+    }
+
+    /**
+     * Waits until the reading stage is finished, its failure is kept by the stage itself.
+     *
+     * @param readerFuture the future of the reading stage
+     */
+    private void awaitQuietly(Future<?> readerFuture) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                readerFuture.get();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            } catch (ExecutionException e) {
+                break;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Reading stage of one ingest, the counters are read by the calling thread after the stage is finished.
+     */
+    private static final class ReadingStage implements Runnable {
+
+        private final BatchSource source;
+        private final BlockingQueue<Batch> queue;
+        private final AtomicBoolean stopped;
+        private long parseNanos;
+        private long blockedNanos;
+        private Exception failure;
+
+        private ReadingStage(BatchSource source, BlockingQueue<Batch> queue, AtomicBoolean stopped) {
+            this.source = source;
+            this.queue = queue;
+            this.stopped = stopped;
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (!stopped.get()) {
+                    long parseStart = System.nanoTime();
+                    Batch batch = source.next();
+                    parseNanos += System.nanoTime() - parseStart;
+                    if (batch == null) {
+                        put(END);
+                        return;
+                    }
+                    put(batch);
+                }
+            } catch (IOException | RuntimeException e) {
+                stop(e);
+            } catch (InterruptedException e) {
+                stop(new CSVFileProcessException("Ingest of CSV file was interrupted", e));
+            }
+        }
+
+        /**
+         * Puts the batch into the queue, waiting for the room until the pipeline is stopped.
+         *
+         * @param batch the batch to be written
+         * @throws InterruptedException if interrupted while waiting
+         */
+        private void put(Batch batch) throws InterruptedException {
+            long blockedStart = System.nanoTime();
+            boolean queued = false;
+            while (!queued && !stopped.get()) {
+                queued = queue.offer(batch, POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+            }
+            blockedNanos += System.nanoTime() - blockedStart;
+        }
+
+        /**
+         * Stops the pipeline after the failure, the parsed batches are dropped and the writer is woken up.
+         *
+         * @param e the failure of the stage
+         */
+        private void stop(Exception e) {
+            failure = e;
+            stopped.set(true);
+            queue.clear();
+            queue.offer(END);
+        }
+
+        /**
+         * Throws the failure of the reading stage, if any.
+         *
+         * @throws IOException if the file could not be read
+         */
+        private void rethrowFailure() throws IOException {
+            if (failure instanceof IOException e) {
+                throw e;
+            }
+            if (failure instanceof RuntimeException e) {
+                throw e;
+            }
+        }
+    }
+}
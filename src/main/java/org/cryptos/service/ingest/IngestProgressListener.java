@@ -0,0 +1,23 @@
+package org.cryptos.service.ingest;
+
+/**
+ * Receives the progress of the currency statistics upload.
+ * The listener is called on the thread writing the rows after every written batch.
+ */
+@FunctionalInterface
+public interface IngestProgressListener {
+
+    /**
+     * The listener ignoring the progress.
+     */
+    IngestProgressListener NONE = (rows, bytes) -> {
+    };
+
+    /**
+     * Reports the progress of the upload.
+     *
+     * @param rows  the number of rows written so far
+     * @param bytes the number of bytes of the file parsed so far
+     */
+    void onProgress(long rows, long bytes);
+}
@@ -0,0 +1,89 @@
+package org.cryptos.service.ingest;
+
+import com.opencsv.CSVReader;
+import com.opencsv.exceptions.CsvValidationException;
+import org.cryptos.service.exception.CSVFileProcessException;
+import org.cryptos.service.exception.CSVLineFormatException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+
+/**
+ * {@link CurrencyStatsCsvReader} based on opencsv {@link CSVReader}.
+ * Supports quoted values and any CSV dialect opencsv does, at the cost of a {@link String} per value.
+ */
+public class OpenCsvCurrencyStatsReader implements CurrencyStatsCsvReader {
+
+    private final CSVReader reader;
+    private String[] line;
+
+    /**
+     * Creates a reader of the given stream.
+     *
+     * @param inputStream the stream of the CSV file, closed together with the reader
+     */
+    public OpenCsvCurrencyStatsReader(InputStream inputStream) {
+        this.reader = new CSVReader(new InputStreamReader(inputStream));
+    }
+
+    @Override
+    public boolean next() throws IOException {
+        try {
+            line = reader.readNext();
+            return line != null;
+        } catch (CsvValidationException e) {
+            throw new CSVFileProcessException("Exception occurs while reading CSV file", e);
+        }
+    }
+
+    @Override
+    public long lineNumber() {
+        return reader.getLinesRead();
+    }
+
+    @Override
+    public int columnCount() {
+        return line.length;
+    }
+
+    @Override
+    public String symbol() {
+        return line[1];
+    }
+
+    @Override
+    public long epochMillis() {
+        try {
+            return Long.parseLong(line[0]);
+        } catch (NumberFormatException e) {
+            throw wrongNumber(line[0], e);
+        }
+    }
+
+    @Override
+    public BigDecimal price() {
+        try {
+            return new BigDecimal(line[2]);
+        } catch (NumberFormatException e) {
+            throw wrongNumber(line[2], e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    /**
+     * Creates the exception for the value which is not a number, with the same message as {@link TickCsvReader}.
+     *
+     * @param value the value of the current line
+     * @param cause the parsing failure
+     * @return the exception to be thrown
+     */
+    private CSVLineFormatException wrongNumber(String value, NumberFormatException cause) {
+        return new CSVLineFormatException("Wrong number '%s'".formatted(value), lineNumber(), cause);
+    }
+}
@@ -0,0 +1,404 @@
+package org.cryptos.service.ingest;
+
+import jakarta.annotation.PreDestroy;
+import org.cryptos.persistence.entity.CurrencyStatsRow;
+import org.cryptos.service.exception.CSVFileProcessException;
+import org.cryptos.service.exception.CSVLineFormatException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.LongConsumer;
+
+/**
+ * Parses a single large CSV file in parallel.
+ * The file is split on line boundaries into chunks of about "currency.create-stats.parallel.chunk-size" bytes,
+ * every chunk is memory-mapped and parsed on the fork-join pool by its own {@link CurrencyStatsCsvReader}.
+ * The parsed batches are passed through a bounded queue to the calling thread, which hands them to the consumer
+ * in the order they are ready, so the consumer may use the resources bound to the calling thread (transaction).
+ * The batches of different chunks are interleaved, so the consumer must not depend on the order of the lines.
+ * The file must contain one record per line, the first line is skipped as header.
+ */
+@Component
+public class ParallelCsvParser {
+
+    private static final long MAX_CHUNK_SIZE = Integer.MAX_VALUE / 2;
+    private static final int LINE_PROBE_SIZE = 8 * 1024;
+    private static final long POLL_TIMEOUT_MILLIS = 50;
+
+    private final ForkJoinPool pool;
+    private final long chunkSize;
+    private final int queueCapacity;
+
+    /**
+     * Creates the parser with its own fork-join pool.
+     *
+     * @param threads       the number of parsing threads, 0 or less to use the number of available processors
+     * @param chunkSize     the approximate size of a chunk parsed by one task
+     * @param queueCapacity the number of parsed batches waiting for the consumer, before the parsing tasks block
+     */
+    public ParallelCsvParser(@Value("${currency.create-stats.parallel.threads:0}") int threads,
+                             @Value("${currency.create-stats.parallel.chunk-size:16MB}") DataSize chunkSize,
+                             @Value("${currency.create-stats.parallel.queue-capacity:16}") int queueCapacity) {
+        this.pool = new ForkJoinPool(threads > 0 ? threads : Runtime.getRuntime().availableProcessors());
+        this.chunkSize = Math.min(Math.max(chunkSize.toBytes(), 1), MAX_CHUNK_SIZE);
+        this.queueCapacity = queueCapacity;
+    }
+
+    /**
+     * Stops the parsing threads when the application is shut down.
+     */
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    /**
+     * Parses the file in parallel and passes the rows in batches to the consumer on the calling thread.
+     * If any line is rejected, the parsing is stopped and the error of the first rejected line in the file is thrown.
+     *
+     * @param file          the CSV file to be parsed
+     * @param readerFactory creates the reader of a chunk
+     * @param lineParser    validates and converts the lines, called concurrently
+     * @param batchSize     the number of rows in a batch
+     * @param batchConsumer consumes the batches on the calling thread
+     * @throws IOException             if the file could not be read
+     * @throws CSVFileProcessException if a line is rejected, the message contains the line number
+     */
+    public void parse(Path file,
+                      Function<InputStream, CurrencyStatsCsvReader> readerFactory,
+                      CurrencyStatsLineParser lineParser,
+                      int batchSize,
+                      Consumer<List<CurrencyStatsRow>> batchConsumer) throws IOException {
+        parse(file, readerFactory, lineParser, batchSize, batchConsumer, bytes -> {
+        });
+    }
+
+    /**
+     * Parses the file in parallel and passes the rows in batches to the consumer on the calling thread.
+     * After every consumed batch the number of bytes of the file the batch was parsed from is reported,
+     * so the caller may track the progress of the parsing.
+     * If any line is rejected, the parsing is stopped and the error of the first rejected line in the file is thrown.
+     *
+     * @param file          the CSV file to be parsed
+     * @param readerFactory creates the reader of a chunk
+     * @param lineParser    validates and converts the lines, called concurrently, the null rows are skipped
+     * @param batchSize     the number of rows in a batch
+     * @param batchConsumer consumes the batches on the calling thread
+     * @param bytesConsumer consumes the number of bytes parsed for every consumed batch on the calling thread
+     * @throws IOException             if the file could not be read
+     * @throws CSVFileProcessException if a line is rejected, the message contains the line number
+     */
+    public void parse(Path file,
+                      Function<InputStream, CurrencyStatsCsvReader> readerFactory,
+                      CurrencyStatsLineParser lineParser,
+                      int batchSize,
+                      Consumer<List<CurrencyStatsRow>> batchConsumer,
+                      LongConsumer bytesConsumer) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            List<MappedByteBuffer> chunks = splitOnLines(channel);
+            BlockingQueue<ParsedBatch> queue = new ArrayBlockingQueue<>(queueCapacity);
+            Queue<ChunkFailure> failures = new ConcurrentLinkedQueue<>();
+            var stopped = new AtomicBoolean();
+            var remainingChunks = new CountDownLatch(chunks.size());
+
+            for (int i = 0; i < chunks.size(); i++) {
+                var task = new ChunkTask(i, chunks.get(i), readerFactory, lineParser, batchSize, queue, stopped);
+                pool.execute(() -> {
+                    try {
+                        task.run();
+                    } catch (ChunkFailure failure) {
+                        failures.add(failure);
+                        stopped.set(true);
+                    } finally {
+                        remainingChunks.countDown();
+                    }
+                });
+            }
+
+            RuntimeException consumerFailure = drain(queue, remainingChunks, stopped, batchConsumer, bytesConsumer);
+            if (!failures.isEmpty()) {
+                throw createLineException(failures, chunks);
+            }
+            if (consumerFailure != null) {
+                throw consumerFailure;
+            }
+        }
+    }
+
+    /**
+     * Passes the parsed batches to the consumer until all the chunks are parsed.
+     * After a failure the batches are still drained, but dropped, so the parsing tasks are never blocked forever.
+     *
+     * @param queue           the queue of the parsed batches
+     * @param remainingChunks the number of chunks still being parsed
+     * @param stopped         the flag signalling the parsing tasks to stop
+     * @param batchConsumer   the consumer of the batches
+     * @param bytesConsumer   the consumer of the number of bytes parsed for every batch
+     * @return the exception thrown by the consumer, or null
+     */
+    private RuntimeException drain(BlockingQueue<ParsedBatch> queue,
+                                   CountDownLatch remainingChunks,
+                                   AtomicBoolean stopped,
+                                   Consumer<List<CurrencyStatsRow>> batchConsumer,
+                                   LongConsumer bytesConsumer) {
+        RuntimeException consumerFailure = null;
+        while (remainingChunks.getCount() > 0 || !queue.isEmpty()) {
+            ParsedBatch batch;
+            try {
+                batch = queue.poll(POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                stopped.set(true);
+                return new CSVFileProcessException("Parsing of CSV file was interrupted", e);
+            }
+            if (batch == null || stopped.get()) {
+                continue;
+            }
+            try {
+                batchConsumer.accept(batch.rows());
+                bytesConsumer.accept(batch.bytes());
+            } catch (RuntimeException e) {
+                consumerFailure = e;
+                stopped.set(true);
+            }
+        }
+        return consumerFailure;
+    }
+
+    /**
+     * Splits the file into chunks, each chunk ends right after a line break or at the end of the file.
+     *
+     * @param channel the channel of the file
+     * @return the memory-mapped chunks in the file order
+     * @throws IOException if the file could not be read
+     */
+    private List<MappedByteBuffer> splitOnLines(FileChannel channel) throws IOException {
+        long size = channel.size();
+        List<MappedByteBuffer> chunks = new ArrayList<>();
+        long start = 0;
+        while (start < size) {
+            long end = nextLineStart(channel, Math.min(start + chunkSize, size), size);
+            chunks.add(channel.map(FileChannel.MapMode.READ_ONLY, start, end - start));
+            start = end;
+        }
+        return chunks;
+    }
+
+    /**
+     * Finds the start of the line following the given position.
+     *
+     * @param channel  the channel of the file
+     * @param position the position to search from
+     * @param size     the size of the file
+     * @return the position after the next line break, or the size of the file
+     * @throws IOException if the file could not be read
+     */
+    private long nextLineStart(FileChannel channel, long position, long size) throws IOException {
+        ByteBuffer probe = ByteBuffer.allocate(LINE_PROBE_SIZE);
+        while (position < size) {
+            probe.clear();
+            int read = channel.read(probe, position);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (probe.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+        return size;
+    }
+
+    /**
+     * Creates the exception for the first rejected line in the file.
+     * The line number in the file is the number of lines in the preceding chunks plus the line number in the chunk.
+     * The {@link CSVLineFormatException} of the reader keeps only its reason, the line number in the chunk is replaced.
+     *
+     * @param failures the failures of the chunks
+     * @param chunks   the chunks of the file
+     * @return the exception to be thrown
+     */
+    private CSVFileProcessException createLineException(Queue<ChunkFailure> failures, List<MappedByteBuffer> chunks) {
+        ChunkFailure first = failures.stream()
+                .min(Comparator.comparingInt(ChunkFailure::chunkIndex).thenComparingLong(ChunkFailure::lineNumber))
+                .orElseThrow();
+        long lineNumber = first.lineNumber();
+        for (int i = 0; i < first.chunkIndex(); i++) {
+            lineNumber += countLines(chunks.get(i));
+        }
+        Throwable cause = first.getCause();
+        String reason = cause instanceof CSVLineFormatException lineException ? lineException.getReason() : cause.getMessage();
+        return new CSVLineFormatException(reason, lineNumber, cause);
+    }
+
+    /**
+     * Counts the line breaks in the chunk.
+     *
+     * @param chunk the chunk of the file
+     * @return the number of line breaks
+     */
+    private long countLines(ByteBuffer chunk) {
+        ByteBuffer buffer = chunk.duplicate();
+        long lines = 0;
+        while (buffer.hasRemaining()) {
+            if (buffer.get() == '\n') {
+                lines++;
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * Task parsing one chunk of the file.
+     */
+    private static final class ChunkTask {
+
+        private final int chunkIndex;
+        private final ByteBuffer chunk;
+        private final Function<InputStream, CurrencyStatsCsvReader> readerFactory;
+        private final CurrencyStatsLineParser lineParser;
+        private final int batchSize;
+        private final BlockingQueue<ParsedBatch> queue;
+        private final AtomicBoolean stopped;
+
+        private ChunkTask(int chunkIndex,
+                          ByteBuffer chunk,
+                          Function<InputStream, CurrencyStatsCsvReader> readerFactory,
+                          CurrencyStatsLineParser lineParser,
+                          int batchSize,
+                          BlockingQueue<ParsedBatch> queue,
+                          AtomicBoolean stopped) {
+            this.chunkIndex = chunkIndex;
+            this.chunk = chunk;
+            this.readerFactory = readerFactory;
+            this.lineParser = lineParser;
+            this.batchSize = batchSize;
+            this.queue = queue;
+            this.stopped = stopped;
+        }
+
+        /**
+         * Parses the lines of the chunk and puts the batches into the queue until the chunk ends or parsing is stopped.
+         *
+         * @throws ChunkFailure if a line is rejected or could not be read
+         */
+        private void run() {
+            ByteBuffer source = chunk.duplicate();
+            try (CurrencyStatsCsvReader reader = readerFactory.apply(new ByteBufferInputStream(source))) {
+                if (chunkIndex == 0) {
+                    //skip first as header
+                    reader.next();
+                }
+                int reportedPosition = 0;
+                List<CurrencyStatsRow> batch = new ArrayList<>(batchSize);
+                while (!stopped.get() && reader.next()) {
+                    try {
+                        CurrencyStatsRow row = lineParser.parse(reader);
+                        if (row != null) {
+                            batch.add(row);
+                        }
+                    } catch (RuntimeException e) {
+                        throw new ChunkFailure(chunkIndex, reader.lineNumber(), e);
+                    }
+                    if (batch.size() == batchSize) {
+                        //the reader reads ahead, so the position is the approximate end of the batch
+                        int position = source.position();
+                        queue.put(new ParsedBatch(batch, position - reportedPosition));
+                        reportedPosition = position;
+                        batch = new ArrayList<>(batchSize);
+                    }
+                }
+                if (!batch.isEmpty() && !stopped.get()) {
+                    queue.put(new ParsedBatch(batch, source.limit() - reportedPosition));
+                }
+            } catch (IOException e) {
+                throw new ChunkFailure(chunkIndex, 0, e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ChunkFailure(chunkIndex, 0, e);
+            }
+        }
+    }
+
+    /**
+     * Batch of the parsed rows with the number of bytes of the chunk it was parsed from.
+     *
+     * @param rows  the parsed rows
+     * @param bytes the number of bytes of the chunk consumed by the batch
+     */
+    private record ParsedBatch(List<CurrencyStatsRow> rows, long bytes) {
+    }
+
+    /**
+     * Failure of a chunk task holding the line number in the chunk where the failure occurred.
+     */
+    private static final class ChunkFailure extends RuntimeException {
+
+        private final int chunkIndex;
+        private final long lineNumber;
+
+        private ChunkFailure(int chunkIndex, long lineNumber, Throwable cause) {
+            super(cause);
+            this.chunkIndex = chunkIndex;
+            this.lineNumber = lineNumber;
+        }
+
+        private int chunkIndex() {
+            return chunkIndex;
+        }
+
+        private long lineNumber() {
+            return lineNumber;
+        }
+    }
+
+    /**
+     * {@link InputStream} reading the remaining bytes of {@link ByteBuffer}.
+     */
+    private static final class ByteBufferInputStream extends InputStream {
+
+        private final ByteBuffer buffer;
+
+        private ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int read = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, read);
+            return read;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package org.cryptos.service.ingest;
+
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Copies uploaded resources to temporary files, so they can be mapped or processed after the request is completed.
+ */
+public final class ResourceSpooler {
+
+    private ResourceSpooler() {
+    }
+
+    /**
+     * Copies the resource content to a new temporary file.
+     *
+     * @param resource the resource to be copied
+     * @return the path of the temporary file, to be deleted by the caller
+     * @throws IOException if the resource could not be copied
+     */
+    public static Path spoolToTempFile(Resource resource) throws IOException {
+        return spoolToTempFile(resource, ".csv");
+    }
+
+    /**
+     * Copies the resource content to a new temporary file with the given suffix.
+     *
+     * @param resource the resource to be copied
+     * @param suffix   the suffix of the temporary file name (".zip")
+     * @return the path of the temporary file, to be deleted by the caller
+     * @throws IOException if the resource could not be copied
+     */
+    public static Path spoolToTempFile(Resource resource, String suffix) throws IOException {
+        Path file = Files.createTempFile("currency-stats-", suffix);
+        try (InputStream inputStream = resource.getInputStream()) {
+            Files.copy(inputStream, file, StandardCopyOption.REPLACE_EXISTING);
+            return file;
+        } catch (IOException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package org.cryptos.service.ingest;
+
+import org.cryptos.persistence.entity.CurrencyStatsRow;
+import org.cryptos.persistence.repository.CurrencyStatsWriter;
+import org.cryptos.service.exception.CSVFileProcessException;
+import org.cryptos.service.exception.IngestLockTimeoutException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Limits the number of the stateless writers open at the same time. Every stateless writer works on its own
+ * connection, while the upload keeps the connection of its transaction, so every stateless upload holds two pooled
+ * connections. Up to "currency.create-stats.stateless.max-sessions" writers are open at once, fewer than
+ * the connections of the pool, so the uploads waiting for their second connection can not exhaust the pool.
+ * The upload waiting for a writer longer than "currency.create-stats.lock.timeout" is rejected.
+ */
+@Component
+public class StatelessSessionLimiter {
+
+    private final Semaphore sessions;
+    private final Duration timeout;
+
+    /**
+     * Creates the limiter.
+     *
+     * @param maxSessions the maximum number of the stateless writers open at the same time
+     * @param poolSize    the maximum number of the pooled connections
+     * @param timeout     the maximum time the upload waits for a writer
+     * @throws IllegalStateException if the writers could take all the pooled connections
+     */
+    public StatelessSessionLimiter(@Value("${currency.create-stats.stateless.max-sessions:2}") int maxSessions,
+                                   @Value("${spring.datasource.hikari.maximumPoolSize:10}") int poolSize,
+                                   @Value("${currency.create-stats.lock.timeout:PT10M}") Duration timeout) {
+        if (maxSessions < 1 || maxSessions >= poolSize) {
+            throw new IllegalStateException("currency.create-stats.stateless.max-sessions must be between 1 and %d, "
+                    .formatted(poolSize - 1) + "fewer than the pooled connections");
+        }
+        this.sessions = new Semaphore(maxSessions, true);
+        this.timeout = timeout;
+    }
+
+    /**
+     * Opens the stateless writer once fewer than the maximum number of writers are open.
+     * The permit is returned when the writer is closed.
+     *
+     * @param opener opens the stateless writer
+     * @return the writer to be closed by the caller
+     * @throws IngestLockTimeoutException if no writer was available in time
+     * @throws CSVFileProcessException    if the upload was interrupted while waiting
+     */
+    public CurrencyStatsWriter open(Supplier<CurrencyStatsWriter> opener) {
+        try {
+            if (!sessions.tryAcquire(timeout.toNanos(), TimeUnit.NANOSECONDS)) {
+                throw new IngestLockTimeoutException(
+                        "Too many stateless uploads in progress for %s, retry later".formatted(timeout));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CSVFileProcessException("Upload was interrupted while waiting for the stateless session", e);
+        }
+        try {
+            return new LimitedWriter(opener.get());
+        } catch (RuntimeException e) {
+            sessions.release();
+            throw e;
+        }
+    }
+
+    /**
+     * {@link CurrencyStatsWriter} returning its permit when it is closed.
+     */
+    private final class LimitedWriter implements CurrencyStatsWriter {
+
+        private final CurrencyStatsWriter writer;
+        private boolean closed;
+
+        private LimitedWriter(CurrencyStatsWriter writer) {
+            this.writer = writer;
+        }
+
+        @Override
+        public void write(List<CurrencyStatsRow> rows) {
+            writer.write(rows);
+        }
+
+        @Override
+        public long finish() {
+            return writer.finish();
+        }
+
+        @Override
+        public void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                writer.close();
+            } finally {
+                sessions.release();
+            }
+        }
+    }
+}
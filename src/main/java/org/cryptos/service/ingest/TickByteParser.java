@@ -0,0 +1,133 @@
+package org.cryptos.service.ingest;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Parser of the "timestamp,symbol,price" tick values directly from the bytes, shared by {@link TickCsvReader}
+ * and {@link TickLineDecoder}. The timestamp and the price are parsed without intermediate strings, and the symbols
+ * are interned and cached, so a tick costs its {@link BigDecimal} price only. Not thread-safe, every reader
+ * has its own parser.
+ */
+public class TickByteParser {
+
+    private static final int MAX_CACHED_SYMBOLS = 16;
+    private static final int MAX_LONG_DIGITS = 18;
+
+    private final byte[][] cachedSymbolBytes = new byte[MAX_CACHED_SYMBOLS][];
+    private final String[] cachedSymbols = new String[MAX_CACHED_SYMBOLS];
+    private int cachedSymbolCount;
+
+    /**
+     * Gets the symbol from the cache, or creates and caches it if there is still room in the cache.
+     *
+     * @param buffer the buffer containing the symbol
+     * @param start  the index of the first byte of the symbol
+     * @param end    the index after the last byte of the symbol
+     * @return the interned symbol
+     */
+    public String symbol(ByteBuffer buffer, int start, int end) {
+        for (int i = 0; i < cachedSymbolCount; i++) {
+            if (equalsBytes(cachedSymbolBytes[i], buffer, start, end)) {
+                return cachedSymbols[i];
+            }
+        }
+        byte[] symbolBytes = new byte[end - start];
+        buffer.get(start, symbolBytes);
+        String symbol = new String(symbolBytes, StandardCharsets.UTF_8).intern();
+        if (cachedSymbolCount < MAX_CACHED_SYMBOLS) {
+            cachedSymbolBytes[cachedSymbolCount] = symbolBytes;
+            cachedSymbols[cachedSymbolCount++] = symbol;
+        }
+        return symbol;
+    }
+
+    /**
+     * Parses the whole number of up to 18 digits directly from the bytes.
+     *
+     * @param buffer the buffer containing the number
+     * @param start  the index of the first byte of the number
+     * @param end    the index after the last byte of the number
+     * @return the parsed number
+     * @throws NumberFormatException if the value is not a number
+     */
+    public long epochMillis(ByteBuffer buffer, int start, int end) {
+        boolean negative = start < end && buffer.get(start) == '-';
+        int position = negative ? start + 1 : start;
+        if (position == end || end - position > MAX_LONG_DIGITS) {
+            throw new NumberFormatException();
+        }
+        long value = 0;
+        for (; position < end; position++) {
+            int digit = buffer.get(position) - '0';
+            if (digit < 0 || digit > 9) {
+                throw new NumberFormatException();
+            }
+            value = value * 10 + digit;
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * Parses the decimal number directly from the bytes, the exponent and the long values are parsed
+     * by {@link BigDecimal} itself.
+     *
+     * @param buffer the buffer containing the number
+     * @param start  the index of the first byte of the number
+     * @param end    the index after the last byte of the number
+     * @return the parsed number
+     * @throws NumberFormatException if the value is not a number
+     */
+    public BigDecimal price(ByteBuffer buffer, int start, int end) {
+        boolean negative = start < end && buffer.get(start) == '-';
+        int position = negative || start < end && buffer.get(start) == '+' ? start + 1 : start;
+        long unscaled = 0;
+        int digits = 0;
+        int scale = -1;
+        for (; position < end; position++) {
+            byte b = buffer.get(position);
+            if (b == '.' && scale < 0) {
+                scale = 0;
+                continue;
+            }
+            int digit = b - '0';
+            if (digit < 0 || digit > 9 || digits == MAX_LONG_DIGITS) {
+                //exponent or too many digits, let BigDecimal deal with it
+                byte[] value = new byte[end - start];
+                buffer.get(start, value);
+                return new BigDecimal(new String(value, StandardCharsets.US_ASCII));
+            }
+            unscaled = unscaled * 10 + digit;
+            digits++;
+            if (scale >= 0) {
+                scale++;
+            }
+        }
+        if (digits == 0) {
+            throw new NumberFormatException();
+        }
+        return BigDecimal.valueOf(negative ? -unscaled : unscaled, Math.max(scale, 0));
+    }
+
+    /**
+     * Compares the cached symbol with the bytes of the buffer.
+     *
+     * @param symbolBytes the bytes of the cached symbol
+     * @param buffer      the buffer containing the symbol
+     * @param start       the index of the first byte of the symbol
+     * @param end         the index after the last byte of the symbol
+     * @return true if the bytes are equal
+     */
+    private boolean equalsBytes(byte[] symbolBytes, ByteBuffer buffer, int start, int end) {
+        if (symbolBytes.length != end - start) {
+            return false;
+        }
+        for (int i = 0; i < symbolBytes.length; i++) {
+            if (symbolBytes[i] != buffer.get(start + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,201 @@
+package org.cryptos.service.ingest;
+
+import org.cryptos.service.exception.CSVLineFormatException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Allocation-light {@link CurrencyStatsCsvReader} for the fixed "timestamp,symbol,price" format of the tick files.
+ * The stream is read in large blocks into a reused byte buffer, the timestamp and the price are parsed directly
+ * from the bytes without intermediate strings by {@link TickByteParser}, and the symbols are interned, so a line
+ * of a single-currency file costs one {@link BigDecimal} only. Values may be wrapped into double quotes, but quoted values containing commas,
+ * quotes or line breaks are not supported, use {@link OpenCsvCurrencyStatsReader} for such files.
+ */
+public class TickCsvReader implements CurrencyStatsCsvReader {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int INITIAL_LINE_SIZE = 128;
+    private static final int MAX_COLUMNS = 3;
+
+    private final InputStream inputStream;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int bufferPosition;
+    private int bufferLimit;
+
+    private byte[] line = new byte[INITIAL_LINE_SIZE];
+    private ByteBuffer lineBuffer = ByteBuffer.wrap(line);
+    private int lineLength;
+    private long lineNumber;
+    private int columnCount;
+    private final int[] columnStarts = new int[MAX_COLUMNS];
+    private final int[] columnEnds = new int[MAX_COLUMNS];
+
+    private final TickByteParser parser = new TickByteParser();
+
+    /**
+     * Creates a reader of the given stream.
+     *
+     * @param inputStream the stream of the CSV file, closed together with the reader
+     */
+    public TickCsvReader(InputStream inputStream) {
+        this.inputStream = inputStream;
+    }
+
+    @Override
+    public boolean next() throws IOException {
+        lineLength = 0;
+        columnCount = 1;
+        columnStarts[0] = 0;
+        boolean hasData = false;
+        while (true) {
+            if (bufferPosition == bufferLimit && !fillBuffer()) {
+                break;
+            }
+            hasData = true;
+            byte b = buffer[bufferPosition++];
+            if (b == '\n') {
+                break;
+            }
+            if (b == ',') {
+                if (columnCount <= MAX_COLUMNS) {
+                    columnEnds[columnCount - 1] = lineLength;
+                }
+                if (columnCount < MAX_COLUMNS) {
+                    columnStarts[columnCount] = lineLength + 1;
+                }
+                columnCount++;
+            }
+            appendToLine(b);
+        }
+        if (!hasData) {
+            return false;
+        }
+        if (lineLength > 0 && line[lineLength - 1] == '\r') {
+            lineLength--;
+        }
+        if (columnCount <= MAX_COLUMNS) {
+            columnEnds[columnCount - 1] = lineLength;
+        }
+        lineNumber++;
+        return true;
+    }
+
+    @Override
+    public long lineNumber() {
+        return lineNumber;
+    }
+
+    @Override
+    public int columnCount() {
+        return columnCount;
+    }
+
+    @Override
+    public String symbol() {
+        return parser.symbol(lineBuffer, valueStart(1), valueEnd(1));
+    }
+
+    @Override
+    public long epochMillis() {
+        int start = valueStart(0);
+        int end = valueEnd(0);
+        try {
+            return parser.epochMillis(lineBuffer, start, end);
+        } catch (NumberFormatException e) {
+            throw wrongNumber(start, end);
+        }
+    }
+
+    @Override
+    public BigDecimal price() {
+        int start = valueStart(2);
+        int end = valueEnd(2);
+        try {
+            return parser.price(lineBuffer, start, end);
+        } catch (NumberFormatException e) {
+            throw wrongNumber(start, end);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        inputStream.close();
+    }
+
+    /**
+     * Reads the next block of the stream into the buffer.
+     *
+     * @return false if the end of the stream is reached
+     * @throws IOException if the stream could not be read
+     */
+    private boolean fillBuffer() throws IOException {
+        int read = inputStream.read(buffer, 0, buffer.length);
+        bufferPosition = 0;
+        bufferLimit = Math.max(read, 0);
+        return read > 0;
+    }
+
+    /**
+     * Appends the byte to the current line growing the line buffer if needed.
+     *
+     * @param b the byte to be appended
+     */
+    private void appendToLine(byte b) {
+        if (lineLength == line.length) {
+            line = Arrays.copyOf(line, line.length * 2);
+            lineBuffer = ByteBuffer.wrap(line);
+        }
+        line[lineLength++] = b;
+    }
+
+    /**
+     * Gets the start of the column value skipping the opening quote.
+     *
+     * @param column the index of the column
+     * @return the index of the first value byte in the line buffer
+     */
+    private int valueStart(int column) {
+        int start = columnStarts[column];
+        return isQuoted(column) ? start + 1 : start;
+    }
+
+    /**
+     * Gets the end of the column value skipping the closing quote.
+     *
+     * @param column the index of the column
+     * @return the index after the last value byte in the line buffer
+     */
+    private int valueEnd(int column) {
+        int end = columnEnds[column];
+        return isQuoted(column) ? end - 1 : end;
+    }
+
+    /**
+     * Checks whether the column value is wrapped into double quotes.
+     *
+     * @param column the index of the column
+     * @return true if the value is quoted
+     */
+    private boolean isQuoted(int column) {
+        int start = columnStarts[column];
+        int end = columnEnds[column];
+        return end - start >= 2 && line[start] == '"' && line[end - 1] == '"';
+    }
+
+    /**
+     * Creates the exception for the value which is not a number.
+     *
+     * @param start the index of the first value byte
+     * @param end   the index after the last value byte
+     * @return the exception to be thrown
+     */
+    private CSVLineFormatException wrongNumber(int start, int end) {
+        return new CSVLineFormatException("Wrong number '%s'"
+                .formatted(new String(line, start, end - start, StandardCharsets.UTF_8)), lineNumber, null);
+    }
+}
@@ -0,0 +1,422 @@
+package org.cryptos.service.ingest;
+
+import org.cryptos.service.exception.CSVFileProcessException;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only journal of the ticks in memory-mapped segment files of a fixed size.
+ * Every {@link #append} writes the whole batch and forces it to the disk once, so one fsync commits a group of ticks.
+ * Every record is "length, CRC32, payload", the zero length marks the end of the written records, so the records torn
+ * by a crash are detected by the checksum and the journal is continued after the last complete record.
+ * The payload keeps the lengths of the price and the symbol as unsigned shorts, the longer values are rejected.
+ * The journal is drained by one reader thread, which reads the committed records by {@link #read} and saves the drained
+ * position by {@link #checkpoint}, the segments before the checkpoint are deleted.
+ */
+public class TickJournal implements AutoCloseable {
+
+    private static final String SEGMENT_PREFIX = "ticks-";
+    private static final String SEGMENT_SUFFIX = ".journal";
+    private static final String CHECKPOINT_FILE = "checkpoint";
+    private static final int HEADER_SIZE = 2 * Integer.BYTES;
+    private static final int MAX_VALUE_SIZE = 0xFFFF;
+
+    private final Path directory;
+    private final int segmentSize;
+
+    private long appendSegment;
+    private MappedByteBuffer appendBuffer;
+    private volatile Position committed;
+
+    private long readSegment = -1;
+    private MappedByteBuffer readBuffer;
+
+    /**
+     * Position in the journal.
+     *
+     * @param segment the number of the segment file
+     * @param offset  the offset of the record in the segment
+     */
+    public record Position(long segment, int offset) {
+    }
+
+    /**
+     * Records read from the journal.
+     *
+     * @param ticks     the ticks of the records
+     * @param corrupted the number of the skipped records which could not be decoded
+     * @param next      the position after the last read record
+     */
+    public record Batch(List<CurrencyStatsTick> ticks, int corrupted, Position next) {
+    }
+
+    /**
+     * Opens the journal in the directory, the appending is continued after the last complete record.
+     *
+     * @param directory   the directory of the segment files, created if missing
+     * @param segmentSize the size of a segment file in bytes
+     * @throws IOException if the journal could not be opened
+     */
+    public TickJournal(Path directory, int segmentSize) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.segmentSize = segmentSize;
+        List<Long> segments = listSegments();
+        this.appendSegment = segments.isEmpty() ? readCheckpoint().map(Position::segment).orElse(0L) : segments.getLast();
+        this.appendBuffer = map(appendSegment, FileChannel.MapMode.READ_WRITE);
+        appendBuffer.position(findEnd(appendBuffer));
+        this.committed = new Position(appendSegment, appendBuffer.position());
+    }
+
+    /**
+     * Appends the ticks and forces them to the disk, the ticks are durable when the method returns.
+     * A new segment is started when the current one is full. All the ticks are validated before anything is written,
+     * and if the batch could not be written completely, the journal is reset to the end of the previous batch,
+     * so the failed batch is neither drained nor continued by the next one.
+     *
+     * @param ticks the ticks to be appended
+     * @return the number of appended ticks
+     * @throws CSVFileProcessException if the symbol or the price of a tick is too long for the journal record
+     * @throws IOException             if the ticks could not be written
+     */
+    public synchronized long append(List<CurrencyStatsTick> ticks) throws IOException {
+        byte[][] symbols = new byte[ticks.size()][];
+        byte[][] unscaledValues = new byte[ticks.size()][];
+        for (int i = 0; i < ticks.size(); i++) {
+            CurrencyStatsTick tick = ticks.get(i);
+            symbols[i] = tick.symbol().getBytes(StandardCharsets.UTF_8);
+            unscaledValues[i] = tick.price().unscaledValue().toByteArray();
+            if (symbols[i].length > MAX_VALUE_SIZE || unscaledValues[i].length > MAX_VALUE_SIZE
+                    || HEADER_SIZE + payloadSize(symbols[i], unscaledValues[i]) > segmentSize - Integer.BYTES) {
+                throw new CSVFileProcessException("Tick %d of the batch is too long for the journal".formatted(i + 1));
+            }
+        }
+        long startSegment = appendSegment;
+        int startOffset = appendBuffer.position();
+        try {
+            for (int i = 0; i < ticks.size(); i++) {
+                write(ticks.get(i), symbols[i], unscaledValues[i]);
+            }
+            appendBuffer.putInt(appendBuffer.position(), 0);
+            appendBuffer.force();
+        } catch (IOException | RuntimeException e) {
+            rollback(startSegment, startOffset, e);
+            throw e;
+        }
+        committed = new Position(appendSegment, appendBuffer.position());
+        return ticks.size();
+    }
+
+    /**
+     * Reads the committed records after the position, moving to the next segment at the end of the segment.
+     * The complete records which could not be decoded are counted and skipped, so they do not stop the drain.
+     * Must be called by the single reader thread.
+     *
+     * @param from     the position to read from
+     * @param maxTicks the maximum number of ticks to read
+     * @return the read ticks and the position after them, nothing read if everything committed is read
+     * @throws IOException if the segment could not be read
+     */
+    public Batch read(Position from, int maxTicks) throws IOException {
+        List<CurrencyStatsTick> ticks = new ArrayList<>();
+        int corrupted = 0;
+        Position position = from;
+        while (ticks.size() + corrupted < maxTicks) {
+            Position end = committed;
+            if (position.segment() > end.segment()
+                    || position.segment() == end.segment() && position.offset() >= end.offset()) {
+                break;
+            }
+            ByteBuffer buffer = mapForRead(position.segment());
+            int payloadSize = position.offset() + HEADER_SIZE <= segmentSize ? buffer.getInt(position.offset()) : 0;
+            if (!isValidRecord(buffer, position.offset(), payloadSize)) {
+                if (position.segment() == end.segment()) {
+                    break;
+                }
+                position = new Position(position.segment() + 1, 0);
+                continue;
+            }
+            try {
+                ticks.add(decode(buffer, position.offset() + HEADER_SIZE, payloadSize));
+            } catch (RuntimeException e) {
+                corrupted++;
+            }
+            position = new Position(position.segment(), position.offset() + HEADER_SIZE + payloadSize);
+        }
+        return new Batch(ticks, corrupted, position);
+    }
+
+    /**
+     * Saves the drained position atomically and deletes the segments before it.
+     *
+     * @param position the position up to which the records are drained
+     * @throws IOException if the checkpoint could not be saved
+     */
+    public void checkpoint(Position position) throws IOException {
+        Path temp = directory.resolve(CHECKPOINT_FILE + ".tmp");
+        Files.writeString(temp, position.segment() + ":" + position.offset());
+        Files.move(temp, directory.resolve(CHECKPOINT_FILE),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        for (long segment : listSegments()) {
+            if (segment < position.segment()) {
+                if (segment == readSegment) {
+                    readSegment = -1;
+                    readBuffer = null;
+                }
+                Files.deleteIfExists(segmentPath(segment));
+            }
+        }
+    }
+
+    /**
+     * Gets the position up to which the records were drained before, the start of the journal if never drained.
+     *
+     * @return the saved position
+     * @throws IOException if the checkpoint could not be read
+     */
+    public Position getCheckpoint() throws IOException {
+        Optional<Position> checkpoint = readCheckpoint();
+        return checkpoint.isPresent() ? checkpoint.get() : new Position(firstSegment(), 0);
+    }
+
+    /**
+     * Forces the last appended records to the disk.
+     */
+    @Override
+    public synchronized void close() {
+        appendBuffer.force();
+    }
+
+    /**
+     * Writes the record of the tick, starting the next segment if the current one is full.
+     *
+     * @param tick     the tick to be written
+     * @param symbol   the encoded symbol of the tick
+     * @param unscaled the encoded unscaled price of the tick
+     * @throws IOException if the next segment could not be created
+     */
+    private void write(CurrencyStatsTick tick, byte[] symbol, byte[] unscaled) throws IOException {
+        int payloadSize = payloadSize(symbol, unscaled);
+        if (appendBuffer.remaining() < HEADER_SIZE + payloadSize + Integer.BYTES) {
+            roll();
+        }
+        int start = appendBuffer.position();
+        appendBuffer.position(start + HEADER_SIZE);
+        appendBuffer.putLong(tick.timestamp())
+                .putInt(tick.price().scale())
+                .putShort((short) unscaled.length)
+                .put(unscaled)
+                .putShort((short) symbol.length)
+                .put(symbol);
+        appendBuffer.putInt(start, payloadSize);
+        appendBuffer.putInt(start + Integer.BYTES, checksum(appendBuffer, start + HEADER_SIZE, payloadSize));
+    }
+
+    /**
+     * Calculates the size of the record payload.
+     *
+     * @param symbol   the encoded symbol of the tick
+     * @param unscaled the encoded unscaled price of the tick
+     * @return the size of the payload in bytes
+     */
+    private int payloadSize(byte[] symbol, byte[] unscaled) {
+        return Long.BYTES + Integer.BYTES + 2 * Short.BYTES + unscaled.length + symbol.length;
+    }
+
+    /**
+     * Resets the journal to the end of the previous batch after the failed append, the segments started
+     * by the failed batch are deleted. If the journal could not be reset, the error is added to the append failure.
+     *
+     * @param segment the segment of the end of the previous batch
+     * @param offset  the offset of the end of the previous batch
+     * @param failure the failure of the append
+     */
+    private void rollback(long segment, int offset, Exception failure) {
+        try {
+            if (appendSegment != segment) {
+                appendBuffer = map(segment, FileChannel.MapMode.READ_WRITE);
+                for (long rolled = segment + 1; rolled <= appendSegment; rolled++) {
+                    Files.deleteIfExists(segmentPath(rolled));
+                }
+                appendSegment = segment;
+            }
+            appendBuffer.position(offset);
+            appendBuffer.putInt(offset, 0);
+            appendBuffer.force();
+        } catch (IOException | RuntimeException e) {
+            failure.addSuppressed(e);
+        }
+    }
+
+    /**
+     * Starts the next segment, the current one is forced to the disk.
+     *
+     * @throws IOException if the segment could not be created
+     */
+    private void roll() throws IOException {
+        appendBuffer.putInt(appendBuffer.position(), 0);
+        appendBuffer.force();
+        appendSegment++;
+        appendBuffer = map(appendSegment, FileChannel.MapMode.READ_WRITE);
+    }
+
+    /**
+     * Maps the segment for the reader, the mapping of the current segment is reused.
+     *
+     * @param segment the number of the segment
+     * @return the read-only buffer of the segment
+     * @throws IOException if the segment could not be mapped
+     */
+    private ByteBuffer mapForRead(long segment) throws IOException {
+        if (segment != readSegment) {
+            readBuffer = map(segment, FileChannel.MapMode.READ_ONLY);
+            readSegment = segment;
+        }
+        return readBuffer;
+    }
+
+    /**
+     * Maps the whole segment file, the file is created with the segment size if missing.
+     *
+     * @param segment the number of the segment
+     * @param mode    the mapping mode
+     * @return the mapped buffer
+     * @throws IOException if the segment could not be mapped
+     */
+    private MappedByteBuffer map(long segment, FileChannel.MapMode mode) throws IOException {
+        try (FileChannel channel = FileChannel.open(segmentPath(segment),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return channel.map(mode, 0, segmentSize);
+        }
+    }
+
+    /**
+     * Finds the end of the complete records of the segment.
+     *
+     * @param buffer the buffer of the segment
+     * @return the offset after the last complete record
+     */
+    private int findEnd(ByteBuffer buffer) {
+        int offset = 0;
+        while (offset + HEADER_SIZE <= segmentSize && isValidRecord(buffer, offset, buffer.getInt(offset))) {
+            offset += HEADER_SIZE + buffer.getInt(offset);
+        }
+        return offset;
+    }
+
+    /**
+     * Checks that the record is complete, the torn records fail the checksum.
+     *
+     * @param buffer      the buffer of the segment
+     * @param offset      the offset of the record
+     * @param payloadSize the size of the payload read from the record header
+     * @return true if the record is complete
+     */
+    private boolean isValidRecord(ByteBuffer buffer, int offset, int payloadSize) {
+        return payloadSize > 0
+                && payloadSize <= segmentSize - offset - HEADER_SIZE
+                && buffer.getInt(offset + Integer.BYTES) == checksum(buffer, offset + HEADER_SIZE, payloadSize);
+    }
+
+    /**
+     * Calculates the checksum of the payload.
+     *
+     * @param buffer the buffer of the segment
+     * @param offset the offset of the payload
+     * @param size   the size of the payload
+     * @return the CRC32 of the payload
+     */
+    private int checksum(ByteBuffer buffer, int offset, int size) {
+        var crc = new CRC32();
+        crc.update(buffer.slice(offset, size));
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Decodes the tick from the record payload.
+     *
+     * @param buffer the buffer of the segment
+     * @param offset the offset of the payload
+     * @param size   the size of the payload
+     * @return the decoded tick
+     * @throws RuntimeException if the payload is not a valid tick
+     */
+    private CurrencyStatsTick decode(ByteBuffer buffer, int offset, int size) {
+        ByteBuffer payload = buffer.slice(offset, size);
+        long timestamp = payload.getLong();
+        int scale = payload.getInt();
+        byte[] unscaled = new byte[Short.toUnsignedInt(payload.getShort())];
+        payload.get(unscaled);
+        byte[] symbol = new byte[Short.toUnsignedInt(payload.getShort())];
+        payload.get(symbol);
+        return new CurrencyStatsTick(timestamp, new String(symbol, StandardCharsets.UTF_8),
+                new BigDecimal(new BigInteger(unscaled), scale));
+    }
+
+    /**
+     * Reads the saved drained position.
+     *
+     * @return the saved position, or empty if the journal was never drained
+     * @throws IOException if the checkpoint could not be read
+     */
+    private Optional<Position> readCheckpoint() throws IOException {
+        Path checkpoint = directory.resolve(CHECKPOINT_FILE);
+        if (!Files.exists(checkpoint)) {
+            return Optional.empty();
+        }
+        String[] position = Files.readString(checkpoint).trim().split(":");
+        return Optional.of(new Position(Long.parseLong(position[0]), Integer.parseInt(position[1])));
+    }
+
+    /**
+     * Gets the number of the oldest segment.
+     *
+     * @return the number of the oldest segment file, or the current one if there are no files
+     * @throws IOException if the directory could not be listed
+     */
+    private long firstSegment() throws IOException {
+        List<Long> segments = listSegments();
+        return segments.isEmpty() ? appendSegment : segments.getFirst();
+    }
+
+    /**
+     * Lists the numbers of the segment files in the ascending order.
+     *
+     * @return the numbers of the segments
+     * @throws IOException if the directory could not be listed
+     */
+    private List<Long> listSegments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(file -> file.getFileName().toString())
+                    .filter(name -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX))
+                    .map(name -> Long.parseLong(name.substring(SEGMENT_PREFIX.length(),
+                            name.length() - SEGMENT_SUFFIX.length())))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    /**
+     * Gets the path of the segment file, the number is zero-padded so the files are listed in order.
+     *
+     * @param segment the number of the segment
+     * @return the path of the segment file
+     */
+    private Path segmentPath(long segment) {
+        return directory.resolve("%s%020d%s".formatted(SEGMENT_PREFIX, segment, SEGMENT_SUFFIX));
+    }
+}
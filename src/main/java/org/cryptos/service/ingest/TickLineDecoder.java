@@ -0,0 +1,141 @@
+package org.cryptos.service.ingest;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.util.function.Predicate;
+
+/**
+ * Decoder of the newline-delimited "timestamp,symbol,price" ticks received over TCP, the same format as the tick files
+ * read by {@link TickCsvReader}. The values are parsed directly from the bytes of the buffer, which may be the direct
+ * buffer filled by the socket channel, without copying the line, by {@link TickByteParser}. The symbols are cached, so a tick costs
+ * the {@link CurrencyStatsTick} and its {@link BigDecimal} price only.
+ * The first line is skipped if it is the CSV header, the empty lines are skipped, the malformed lines are counted
+ * and skipped, so one broken tick does not drop the connection. Quoted values are not supported.
+ */
+public class TickLineDecoder {
+
+    private final TickByteParser parser = new TickByteParser();
+
+    private long lineNumber;
+    private long rejectedLines;
+    private String lastError;
+
+    /**
+     * Decodes the complete lines between the position and the limit of the buffer and passes the ticks to the sink.
+     * The position is moved after the last consumed line, so the incomplete line stays in the buffer.
+     * If the sink does not accept the tick, the decoding stops before its line, the line is decoded again next time.
+     *
+     * @param buffer the buffer in the read mode
+     * @param sink   accepts the tick, or returns false if it can not take more ticks at the moment
+     * @return true if all the complete lines are consumed, false if the sink stopped the decoding
+     */
+    public boolean decode(ByteBuffer buffer, Predicate<CurrencyStatsTick> sink) {
+        int limit = buffer.limit();
+        int lineStart = buffer.position();
+        for (int position = lineStart; position < limit; position++) {
+            if (buffer.get(position) != '\n') {
+                continue;
+            }
+            int lineEnd = position > lineStart && buffer.get(position - 1) == '\r' ? position - 1 : position;
+            CurrencyStatsTick tick = decodeLine(buffer, lineStart, lineEnd);
+            if (tick != null && !sink.test(tick)) {
+                buffer.position(lineStart);
+                return false;
+            }
+            lineNumber++;
+            lineStart = position + 1;
+        }
+        buffer.position(lineStart);
+        return true;
+    }
+
+    /**
+     * Gets the number of the consumed lines.
+     *
+     * @return the number of lines, including the skipped ones
+     */
+    public long lineNumber() {
+        return lineNumber;
+    }
+
+    /**
+     * Gets the number of the malformed lines skipped so far.
+     *
+     * @return the number of the rejected lines
+     */
+    public long rejectedLines() {
+        return rejectedLines;
+    }
+
+    /**
+     * Gets the reason the last malformed line was rejected.
+     *
+     * @return the error message, or null if no line was rejected
+     */
+    public String lastError() {
+        return lastError;
+    }
+
+    /**
+     * Decodes one line without the line break.
+     *
+     * @param buffer the buffer containing the line
+     * @param start  the index of the first byte of the line
+     * @param end    the index after the last byte of the line
+     * @return the decoded tick, or null if the line is skipped
+     */
+    private CurrencyStatsTick decodeLine(ByteBuffer buffer, int start, int end) {
+        if (start == end) {
+            return null;
+        }
+        int firstComma = indexOfComma(buffer, start, end);
+        int secondComma = firstComma < 0 ? -1 : indexOfComma(buffer, firstComma + 1, end);
+        if (secondComma < 0 || indexOfComma(buffer, secondComma + 1, end) >= 0) {
+            return reject("Line %d must contain exactly 3 columns".formatted(lineNumber + 1));
+        }
+        if (lineNumber == 0 && Character.isLetter(buffer.get(start))) {
+            //skip first as header
+            return null;
+        }
+        if (secondComma == firstComma + 1) {
+            return reject("Line %d must contain the symbol".formatted(lineNumber + 1));
+        }
+        try {
+            return new CurrencyStatsTick(
+                    parser.epochMillis(buffer, start, firstComma),
+                    parser.symbol(buffer, firstComma + 1, secondComma),
+                    parser.price(buffer, secondComma + 1, end));
+        } catch (NumberFormatException e) {
+            return reject("Wrong number at line %d".formatted(lineNumber + 1));
+        }
+    }
+
+    /**
+     * Finds the next comma of the line.
+     *
+     * @param buffer the buffer containing the line
+     * @param start  the index to start from
+     * @param end    the index after the last byte of the line
+     * @return the index of the comma, or -1 if not found
+     */
+    private int indexOfComma(ByteBuffer buffer, int start, int end) {
+        for (int position = start; position < end; position++) {
+            if (buffer.get(position) == ',') {
+                return position;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Counts the malformed line and keeps the reason.
+     *
+     * @param error the reason the line is rejected
+     * @return always null, the line is skipped
+     */
+    private CurrencyStatsTick reject(String error) {
+        rejectedLines++;
+        lastError = error;
+        return null;
+    }
+}
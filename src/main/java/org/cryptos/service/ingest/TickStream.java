@@ -0,0 +1,259 @@
+package org.cryptos.service.ingest;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.cryptos.service.domain.TickStreamAckDomain;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
+
+/**
+ * Live stream of price ticks stored in micro-batches.
+ * The ticks are parsed on the thread calling {@link #ingest} as the bytes arrive and passed through a bounded queue
+ * to the writer running {@link #run()} on its own thread, so the parsing continues while a batch is written.
+ * The writer flushes the batch when it reaches "batchSize" ticks or when its oldest tick waited "flushInterval",
+ * so the ticks of a slow feed are not held back. A full queue blocks the parsing and so slows down the sender.
+ */
+public class TickStream implements Runnable, AutoCloseable {
+
+    private static final CurrencyStatsTick END = new CurrencyStatsTick(null, null, null);
+    private static final long OFFER_TIMEOUT_MILLIS = 100;
+
+    private final ObjectReader tickReader;
+    private final ToLongFunction<List<CurrencyStatsTick>> batchWriter;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final BlockingQueue<CurrencyStatsTick> queue;
+    private final CountDownLatch writerDone = new CountDownLatch(1);
+    private final AtomicBoolean ended = new AtomicBoolean();
+    private final long startNanos = System.nanoTime();
+
+    private volatile Consumer<TickStreamAckDomain> ackListener = ack -> {
+    };
+    private volatile long received;
+    private volatile long rows;
+    private volatile String writerError;
+
+    /**
+     * Creates the stream fed by {@link #offer} only, {@link #run()} must be started on the writer thread.
+     *
+     * @param batchWriter   stores the batch of ticks and returns the number of stored rows
+     * @param batchSize     the maximum number of ticks in one batch
+     * @param flushInterval the maximum time the first tick of the batch waits for the flush
+     * @param queueCapacity the number of parsed ticks waiting for the writer
+     */
+    public TickStream(ToLongFunction<List<CurrencyStatsTick>> batchWriter,
+                      int batchSize,
+                      Duration flushInterval,
+                      int queueCapacity) {
+        this(null, batchWriter, batchSize, flushInterval, queueCapacity);
+    }
+
+    /**
+     * Creates the stream, {@link #run()} must be started on the writer thread before the ticks are ingested.
+     *
+     * @param tickReader    the reader of {@link CurrencyStatsTick} values fed by {@link #ingest}
+     * @param batchWriter   stores the batch of ticks and returns the number of stored rows
+     * @param batchSize     the maximum number of ticks in one batch
+     * @param flushInterval the maximum time the first tick of the batch waits for the flush
+     * @param queueCapacity the number of parsed ticks waiting for the writer
+     */
+    public TickStream(ObjectReader tickReader,
+                      ToLongFunction<List<CurrencyStatsTick>> batchWriter,
+                      int batchSize,
+                      Duration flushInterval,
+                      int queueCapacity) {
+        this.tickReader = tickReader;
+        this.batchWriter = batchWriter;
+        this.batchSize = batchSize;
+        this.flushIntervalNanos = flushInterval.toNanos();
+        this.queue = new ArrayBlockingQueue<>(Math.max(queueCapacity, 1));
+    }
+
+    /**
+     * Parses the NDJSON ticks until the end of the input and waits until all of them are stored.
+     * The parsing stops at the first invalid tick or when the writer fails, the ticks parsed before are still stored.
+     *
+     * @param input       the NDJSON stream of {@link CurrencyStatsTick} values
+     * @param ackListener receives the acknowledgement after every written batch, called on the writer thread
+     * @return the final acknowledgement with the reason the stream was stopped, if any
+     */
+    public TickStreamAckDomain ingest(InputStream input, Consumer<TickStreamAckDomain> ackListener) {
+        this.ackListener = ackListener;
+        String error;
+        try {
+            error = parse(input);
+            endOfStream();
+            writerDone.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            error = "Tick stream is interrupted";
+            close();
+        }
+        return createAck(true, writerError != null ? writerError : error);
+    }
+
+    /**
+     * Puts the parsed tick into the queue without waiting, for the callers which must not block, e.g. the event loop
+     * of {@link TickLineDecoder} connections. The ticks must be offered by one thread at a time.
+     *
+     * @param tick the tick to be written
+     * @return false if the queue is full or the writer is stopped, the tick may be offered again later
+     */
+    public boolean offer(CurrencyStatsTick tick) {
+        if (writerDone.getCount() == 0 || !queue.offer(tick)) {
+            return false;
+        }
+        received = received + 1;
+        return true;
+    }
+
+    /**
+     * Signals the end of the stream fed by {@link #offer} and waits until all the offered ticks are stored.
+     *
+     * @return the final acknowledgement with the reason the writer was stopped, if any
+     * @throws InterruptedException if interrupted while waiting for the writer
+     */
+    public TickStreamAckDomain finish() throws InterruptedException {
+        endOfStream();
+        writerDone.await();
+        return createAck(true, writerError);
+    }
+
+    /**
+     * Writes the batches of the queued ticks until the end of the stream or the first failed batch.
+     */
+    @Override
+    public void run() {
+        List<CurrencyStatsTick> batch = new ArrayList<>(batchSize);
+        long flushDeadline = 0;
+        try {
+            while (true) {
+                CurrencyStatsTick tick = batch.isEmpty()
+                        ? queue.take()
+                        : queue.poll(flushDeadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                if (tick == END) {
+                    flush(batch);
+                    break;
+                }
+                if (tick != null) {
+                    if (batch.isEmpty()) {
+                        flushDeadline = System.nanoTime() + flushIntervalNanos;
+                    }
+                    batch.add(tick);
+                }
+                if (tick == null || batch.size() == batchSize) {
+                    flush(batch);
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            writerError = "Tick stream is interrupted";
+        } catch (RuntimeException e) {
+            writerError = e.getMessage();
+        } finally {
+            writerDone.countDown();
+        }
+    }
+
+    /**
+     * Signals the end of the stream to the writer, the batch in progress is still written.
+     * Does nothing if the end was already signalled.
+     */
+    @Override
+    public void close() {
+        if (ended.compareAndSet(false, true)) {
+            while (!queue.offer(END)) {
+                queue.poll();
+            }
+        }
+    }
+
+    /**
+     * Parses the ticks and puts them into the queue until the end of the input, the first invalid tick
+     * or the failure of the writer.
+     *
+     * @param input the NDJSON stream of {@link CurrencyStatsTick} values
+     * @return the reason the parsing was stopped before the end of the input, or null
+     * @throws InterruptedException if interrupted while waiting for the writer
+     */
+    private String parse(InputStream input) throws InterruptedException {
+        try (MappingIterator<CurrencyStatsTick> ticks = tickReader.readValues(input)) {
+            while (writerDone.getCount() > 0 && ticks.hasNextValue()) {
+                CurrencyStatsTick tick = ticks.nextValue();
+                if (tick.timestamp() == null || tick.symbol() == null || tick.price() == null) {
+                    return "Tick %d must contain timestamp, symbol and price".formatted(received + 1);
+                }
+                enqueue(tick);
+                received = received + 1;
+            }
+            return null;
+        } catch (IOException e) {
+            return "Exception occurs while reading tick %d: %s".formatted(received + 1, e.getMessage());
+        }
+    }
+
+    /**
+     * Stores the batch and sends the acknowledgement, does nothing if the batch is empty.
+     *
+     * @param batch the ticks to be stored
+     */
+    private void flush(List<CurrencyStatsTick> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        rows = rows + batchWriter.applyAsLong(batch);
+        ackListener.accept(createAck(false, null));
+    }
+
+    /**
+     * Puts the tick into the queue, waiting while the queue is full and the writer is running.
+     *
+     * @param tick the tick to be written
+     * @throws InterruptedException if interrupted while waiting
+     */
+    private void enqueue(CurrencyStatsTick tick) throws InterruptedException {
+        while (!queue.offer(tick, OFFER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+            if (writerDone.getCount() == 0) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Puts the end marker into the queue once, after all the parsed ticks.
+     *
+     * @throws InterruptedException if interrupted while waiting
+     */
+    private void endOfStream() throws InterruptedException {
+        if (ended.compareAndSet(false, true)) {
+            enqueue(END);
+        }
+    }
+
+    /**
+     * Creates the acknowledgement calculating the throughput since the stream was opened.
+     *
+     * @param finished whether the stream is finished
+     * @param error    the reason the stream was stopped, or null
+     * @return the corresponding {@link TickStreamAckDomain}
+     */
+    private TickStreamAckDomain createAck(boolean finished, String error) {
+        long storedRows = rows;
+        long elapsedNanos = Math.max(System.nanoTime() - startNanos, 1);
+        double rowsPerSecond = storedRows * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+        return new TickStreamAckDomain(received, storedRows, TimeUnit.NANOSECONDS.toMillis(elapsedNanos),
+                rowsPerSecond, finished, error);
+    }
+}
@@ -0,0 +1,119 @@
+package org.cryptos.service.ingest;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Properties;
+
+/**
+ * Persistent offsets of the watched CSV files, the bytes of every file already stored in the database
+ * and the currency of the file. The offsets are kept in the properties file, which is replaced atomically
+ * after every change, so the watching continues after a restart from the last stored line of every file.
+ * The end of the part being stored is saved as pending before its transaction starts, so the part which may have been
+ * committed right before a crash is known to be stored again ignoring the existing rows.
+ * The offsets are not thread-safe, the caller must synchronize on them.
+ */
+public class WatchedFileOffsets {
+
+    private static final String OFFSET_PREFIX = "offset.";
+    private static final String SYMBOL_PREFIX = "symbol.";
+    private static final String PENDING_PREFIX = "pending.";
+
+    private final Path file;
+    private final Properties properties;
+
+    /**
+     * Offset of one watched file.
+     *
+     * @param offset     the offset after the last stored line
+     * @param symbol     the currency of the file, null until the first line of statistics is stored
+     * @param pendingEnd the end of the part which may have been stored, at most the offset if there is no such part
+     */
+    public record FileOffset(long offset, String symbol, long pendingEnd) {
+
+        /**
+         * Offset of the file not stored yet.
+         */
+        public static final FileOffset START = new FileOffset(0, null, 0);
+
+        /**
+         * Checks whether the bytes after the offset may have been stored in the database already,
+         * e.g. the commit of the last part succeeded, but its offset was not saved because of a crash.
+         *
+         * @return true if the pending end is after the offset
+         */
+        public boolean isPartPending() {
+            return pendingEnd > offset;
+        }
+    }
+
+    /**
+     * Creates the offsets.
+     *
+     * @param file       the properties file of the offsets
+     * @param properties the loaded offsets
+     */
+    private WatchedFileOffsets(Path file, Properties properties) {
+        this.file = file;
+        this.properties = properties;
+    }
+
+    /**
+     * Loads the offsets saved in the file, no offsets if the file does not exist yet.
+     *
+     * @param file the properties file of the offsets
+     * @return the loaded offsets
+     * @throws IOException if the file could not be read
+     */
+    public static WatchedFileOffsets load(Path file) throws IOException {
+        var properties = new Properties();
+        if (Files.exists(file)) {
+            try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                properties.load(reader);
+            }
+        }
+        return new WatchedFileOffsets(file, properties);
+    }
+
+    /**
+     * Gets the offset of the watched file.
+     *
+     * @param fileName the name of the watched file
+     * @return the saved offset, or {@link FileOffset#START} if the file was not stored yet
+     */
+    public FileOffset get(String fileName) {
+        String offset = properties.getProperty(OFFSET_PREFIX + fileName);
+        if (offset == null) {
+            return FileOffset.START;
+        }
+        return new FileOffset(Long.parseLong(offset), properties.getProperty(SYMBOL_PREFIX + fileName),
+                Long.parseLong(properties.getProperty(PENDING_PREFIX + fileName, offset)));
+    }
+
+    /**
+     * Saves the offset of the watched file.
+     *
+     * @param fileName the name of the watched file
+     * @param offset   the new offset
+     * @throws IOException if the offsets could not be saved
+     */
+    public void put(String fileName, FileOffset offset) throws IOException {
+        properties.setProperty(OFFSET_PREFIX + fileName, Long.toString(offset.offset()));
+        properties.setProperty(PENDING_PREFIX + fileName, Long.toString(offset.pendingEnd()));
+        if (offset.symbol() != null) {
+            properties.setProperty(SYMBOL_PREFIX + fileName, offset.symbol());
+        } else {
+            properties.remove(SYMBOL_PREFIX + fileName);
+        }
+
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            properties.store(writer, null);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
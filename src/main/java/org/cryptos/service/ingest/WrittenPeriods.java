@@ -0,0 +1,75 @@
+package org.cryptos.service.ingest;
+
+import org.cryptos.persistence.entity.CurrencyStatsRow;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Period of the rows written by a {@link org.cryptos.persistence.repository.CurrencyStatsWriter} of every currency,
+ * the oldest and the newest date and time, collected by the writer wrappers reacting to the written rows,
+ * e.g. recalculating the rollups or invalidating the cached results. Not thread-safe, every writer has its own.
+ */
+public class WrittenPeriods {
+
+    private final Map<String, LocalDateTime[]> periods = new HashMap<>();
+
+    /**
+     * Extends the periods of the currencies of the rows.
+     *
+     * @param rows the written rows
+     */
+    public void add(List<CurrencyStatsRow> rows) {
+        for (CurrencyStatsRow row : rows) {
+            LocalDateTime[] period = periods.computeIfAbsent(row.symbol(),
+                    symbol -> new LocalDateTime[]{row.dateTime(), row.dateTime()});
+            if (row.dateTime().isBefore(period[0])) {
+                period[0] = row.dateTime();
+            } else if (row.dateTime().isAfter(period[1])) {
+                period[1] = row.dateTime();
+            }
+        }
+    }
+
+    /**
+     * Checks whether any rows were written.
+     *
+     * @return true if no rows were added
+     */
+    public boolean isEmpty() {
+        return periods.isEmpty();
+    }
+
+    /**
+     * Gets the currencies of the written rows.
+     *
+     * @return the unmodifiable symbols of the currencies
+     */
+    public Set<String> symbols() {
+        return Collections.unmodifiableSet(periods.keySet());
+    }
+
+    /**
+     * Gets the date and time of the oldest written row of the currency.
+     *
+     * @param symbol the symbol of one of the {@link #symbols()}
+     * @return the oldest date and time
+     */
+    public LocalDateTime oldest(String symbol) {
+        return periods.get(symbol)[0];
+    }
+
+    /**
+     * Gets the date and time of the newest written row of the currency.
+     *
+     * @param symbol the symbol of one of the {@link #symbols()}
+     * @return the newest date and time
+     */
+    public LocalDateTime newest(String symbol) {
+        return periods.get(symbol)[1];
+    }
+}
@@ -0,0 +1,52 @@
+package org.cryptos.service.ingest;
+
+import org.springframework.core.io.AbstractResource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Resource streaming an entry of the ZIP archive without extracting it.
+ * Every call of {@link #getInputStream()} opens a new stream, the streams of different entries may be read concurrently.
+ */
+public class ZipEntryResource extends AbstractResource {
+
+    private final ZipFile zipFile;
+    private final ZipEntry entry;
+    private final String archiveName;
+
+    /**
+     * Creates the resource of the archive entry.
+     *
+     * @param zipFile     the opened archive, to be closed by the caller after the entry is read
+     * @param entry       the entry of the archive
+     * @param archiveName the name of the archive used in the description
+     */
+    public ZipEntryResource(ZipFile zipFile, ZipEntry entry, String archiveName) {
+        this.zipFile = zipFile;
+        this.entry = entry;
+        this.archiveName = archiveName;
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        return zipFile.getInputStream(entry);
+    }
+
+    @Override
+    public long contentLength() {
+        return entry.getSize();
+    }
+
+    @Override
+    public String getFilename() {
+        return archiveName + "!/" + entry.getName();
+    }
+
+    @Override
+    public String getDescription() {
+        return "ZIP entry [" + getFilename() + "]";
+    }
+}
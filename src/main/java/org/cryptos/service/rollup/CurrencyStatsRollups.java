@@ -0,0 +1,187 @@
+package org.cryptos.service.rollup;
+
+import lombok.extern.slf4j.Slf4j;
+import org.cryptos.persistence.entity.CurrencyNormalizedPriceProjection;
+import org.cryptos.persistence.entity.CurrencyStatsMinMaxProjection;
+import org.cryptos.persistence.entity.CurrencyStatsRow;
+import org.cryptos.persistence.repository.CurrencyStatsRollupRepository;
+import org.cryptos.persistence.repository.CurrencyStatsWriter;
+import org.cryptos.persistence.repository.RollupGranularity;
+import org.cryptos.service.ingest.CurrencyIngestLock;
+import org.cryptos.service.ingest.IngestMode;
+import org.cryptos.service.ingest.WrittenPeriods;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Pre-aggregated statistics of every currency per minute, hour and day kept in the "currency_stats_rollup" table.
+ * If "currency.get-stats.rollups.enabled" is true, the buckets of the period written by every upload are recalculated
+ * before its transaction is committed, and the statistics of a period are aggregated from the coarsest buckets
+ * covering it fully and the prices at the ragged edges, as planned by {@link RollupPlanner}. The normalized price
+ * of every currency of every written day is recalculated with the daily buckets, so the currency with the highest
+ * one of a day is found by a single lookup. The currencies are locked
+ * by {@link CurrencyIngestLock} while their buckets are recalculated, so the concurrent writes of the same currency
+ * do not overwrite each other's buckets. The writers must lock all their currencies before the first row is written,
+ * so no writer waits for a lock while holding the rows it has written. The rollups of the prices stored before
+ * they were enabled are created by {@link #rebuild(String, LocalDate)}. The rollups can not be combined
+ * with {@link IngestMode#STATELESS}, which commits the rows in its own transactions, so the rows committed before
+ * a failed upload would never be rolled up.
+ */
+@Slf4j
+@Component
+public class CurrencyStatsRollups {
+
+    private static final RollupGranularity[] FINEST_FIRST = RollupGranularity.values();
+
+    private final boolean enabled;
+    private final CurrencyStatsRollupRepository currencyStatsRollupRepository;
+    private final CurrencyIngestLock currencyIngestLock;
+
+    /**
+     * Creates the rollups.
+     *
+     * @param enabled                       whether the rollups are maintained and queried
+     * @param ingestMode                    the configured mode of writing the uploaded rows
+     * @param currencyStatsRollupRepository the repository of the rollups
+     * @param currencyIngestLock            the lock of the currencies
+     * @throws IllegalStateException if the rollups are enabled with {@link IngestMode#STATELESS}
+     */
+    public CurrencyStatsRollups(@Value("${currency.get-stats.rollups.enabled:false}") boolean enabled,
+                                @Value("${currency.create-stats.mode:jpa}") IngestMode ingestMode,
+                                CurrencyStatsRollupRepository currencyStatsRollupRepository,
+                                CurrencyIngestLock currencyIngestLock) {
+        if (enabled && ingestMode == IngestMode.STATELESS) {
+            throw new IllegalStateException(
+                    "The rollups are not supported with the stateless mode, choose another create-stats.mode");
+        }
+        this.enabled = enabled;
+        this.currencyStatsRollupRepository = currencyStatsRollupRepository;
+        this.currencyIngestLock = currencyIngestLock;
+    }
+
+    /**
+     * Checks whether the statistics are aggregated from the rollups.
+     *
+     * @return true if the rollups are maintained and queried
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Wraps the writer, so the buckets of the period of the written rows are recalculated once the writer
+     * is finished, in the transaction of the writer.
+     *
+     * @param writer the writer of the rows
+     * @return the tracking writer, or the writer itself if the rollups are not enabled
+     */
+    public CurrencyStatsWriter track(CurrencyStatsWriter writer) {
+        return enabled ? new RollupWriter(writer) : writer;
+    }
+
+    /**
+     * Finds the statistics of the currency for the period from the rollups.
+     *
+     * @param symbol        the symbol of the currency
+     * @param startDateTime the start of the period (inclusive)
+     * @param endDateTime   the end of the period (exclusive)
+     * @return an {@link Optional} containing the {@link CurrencyStatsMinMaxProjection}, if found
+     */
+    public Optional<CurrencyStatsMinMaxProjection> findStats(String symbol, LocalDateTime startDateTime,
+                                                             LocalDateTime endDateTime) {
+        return currencyStatsRollupRepository.findStatsBySymbol(symbol, RollupPlanner.plan(startDateTime, endDateTime));
+    }
+
+    /**
+     * Finds the normalized price of all the currencies for the period from the rollups.
+     *
+     * @param startDateTime the start of the period (inclusive)
+     * @param endDateTime   the end of the period (exclusive)
+     * @return a list of {@link CurrencyNormalizedPriceProjection} ordered by the normalized price descending
+     */
+    public List<CurrencyNormalizedPriceProjection> findNormalizedPricesDesc(LocalDateTime startDateTime,
+                                                                            LocalDateTime endDateTime) {
+        return currencyStatsRollupRepository.getNormalizedPricesDesc(RollupPlanner.plan(startDateTime, endDateTime));
+    }
+
+    /**
+     * Finds the currency with the highest normalized price of the day by the day.
+     *
+     * @param day the day
+     * @return an {@link Optional} containing the {@link CurrencyNormalizedPriceProjection}, if any prices are stored
+     */
+    public Optional<CurrencyNormalizedPriceProjection> findHighestNormalizedPrice(LocalDate day) {
+        return currencyStatsRollupRepository.findHighestDailyRange(day);
+    }
+
+    /**
+     * Recalculates all the buckets of the currency of the day in a separate transaction.
+     *
+     * @param symbol the symbol of the currency
+     * @param day    the recalculated day
+     */
+    @Transactional
+    public void rebuild(String symbol, LocalDate day) {
+        currencyIngestLock.lock(List.of(symbol));
+        rollUp(symbol, day.atStartOfDay(), day.atTime(LocalTime.MAX));
+    }
+
+    /**
+     * Recalculates the buckets of the currency of every granularity, from the finest to the coarsest,
+     * containing the period, then the normalized prices of the days of the period.
+     * The currency must be locked by the caller.
+     *
+     * @param symbol the symbol of the currency
+     * @param oldest the date and time of the oldest changed price
+     * @param newest the date and time of the newest changed price
+     */
+    private void rollUp(String symbol, LocalDateTime oldest, LocalDateTime newest) {
+        for (RollupGranularity granularity : FINEST_FIRST) {
+            LocalDateTime from = granularity.truncate(oldest);
+            LocalDateTime to = granularity.next(granularity.truncate(newest));
+            currencyStatsRollupRepository.rollUp(symbol, granularity, from, to);
+        }
+        currencyStatsRollupRepository.refreshDailyRanges(symbol, oldest.toLocalDate(), newest.toLocalDate().plusDays(1));
+    }
+
+    /**
+     * {@link CurrencyStatsWriter} tracking the period of the written rows of every currency, whose buckets
+     * are recalculated once the writer is finished. The currencies are expected to be locked by the caller
+     * before the first write, locking them again on finish only holds the locks already taken.
+     */
+    private final class RollupWriter implements CurrencyStatsWriter {
+
+        private final CurrencyStatsWriter writer;
+        private final WrittenPeriods periods = new WrittenPeriods();
+
+        private RollupWriter(CurrencyStatsWriter writer) {
+            this.writer = writer;
+        }
+
+        @Override
+        public void write(List<CurrencyStatsRow> rows) {
+            writer.write(rows);
+            periods.add(rows);
+        }
+
+        @Override
+        public long finish() {
+            long written = writer.finish();
+            currencyIngestLock.lock(periods.symbols());
+            periods.symbols().forEach(symbol -> rollUp(symbol, periods.oldest(symbol), periods.newest(symbol)));
+            return written;
+        }
+
+        @Override
+        public void close() {
+            writer.close();
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package org.cryptos.service.rollup;
+
+import org.cryptos.persistence.repository.CurrencyStatsRollupRepository.RollupRange;
+import org.cryptos.persistence.repository.RollupGranularity;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits a period into the ranges read from the coarsest buckets covering them fully and the ranges read
+ * from the prices. The middle of the period is read from the days, the ragged edges before and after the days
+ * from the hours, then the minutes, and only the parts of the minutes at the very edges from the prices.
+ * So a period of any length is aggregated from at most 2 * 60 + 2 * 24 + days buckets and two partial minutes.
+ */
+public final class RollupPlanner {
+
+    private static final RollupGranularity[] COARSEST_FIRST = {
+            RollupGranularity.DAY, RollupGranularity.HOUR, RollupGranularity.MINUTE};
+
+    private RollupPlanner() {
+    }
+
+    /**
+     * Splits the period into the adjacent ranges ordered by the start.
+     *
+     * @param from the start of the period (inclusive)
+     * @param to   the end of the period (exclusive)
+     * @return the ranges covering the period, empty if the period is empty
+     */
+    public static List<RollupRange> plan(LocalDateTime from, LocalDateTime to) {
+        List<RollupRange> ranges = new ArrayList<>();
+        plan(from, to, 0, ranges);
+        return ranges;
+    }
+
+    /**
+     * Adds the ranges of the period read from the whole buckets of the granularity, if any, then splits
+     * the edges by the finer granularities, the edges shorter than a minute are read from the prices.
+     *
+     * @param from   the start of the period (inclusive)
+     * @param to     the end of the period (exclusive)
+     * @param level  the index of the granularity in {@link #COARSEST_FIRST}
+     * @param ranges the ranges to add to, in the order of the start
+     */
+    private static void plan(LocalDateTime from, LocalDateTime to, int level, List<RollupRange> ranges) {
+        if (!from.isBefore(to)) {
+            return;
+        }
+        if (level == COARSEST_FIRST.length) {
+            ranges.add(new RollupRange(null, from, to));
+            return;
+        }
+        RollupGranularity granularity = COARSEST_FIRST[level];
+        LocalDateTime bucketsFrom = granularity.ceil(from);
+        LocalDateTime bucketsTo = granularity.truncate(to);
+        if (!bucketsFrom.isBefore(bucketsTo)) {
+            plan(from, to, level + 1, ranges);
+            return;
+        }
+        plan(from, bucketsFrom, level + 1, ranges);
+        ranges.add(new RollupRange(granularity, bucketsFrom, bucketsTo));
+        plan(bucketsTo, to, level + 1, ranges);
+    }
+}
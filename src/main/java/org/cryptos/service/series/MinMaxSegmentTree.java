@@ -0,0 +1,83 @@
+package org.cryptos.service.series;
+
+import java.util.Arrays;
+
+/**
+ * Mutable {@link RangeMinMax} of a fixed capacity, every value is included in logarithmic time
+ * and any range is answered in logarithmic time. The values not included yet are neutral.
+ */
+final class MinMaxSegmentTree implements RangeMinMax {
+
+    private final int capacity;
+    private final long[] mins;
+    private final long[] maxs;
+
+    /**
+     * Creates the tree without values.
+     *
+     * @param capacity the number of the indexed values
+     */
+    MinMaxSegmentTree(int capacity) {
+        this.capacity = capacity;
+        this.mins = new long[2 * capacity];
+        this.maxs = new long[2 * capacity];
+        Arrays.fill(mins, Long.MAX_VALUE);
+        Arrays.fill(maxs, Long.MIN_VALUE);
+    }
+
+    /**
+     * Includes the value into the range of the index, the lowest and the highest value of the index are updated.
+     *
+     * @param index the index of the value
+     * @param value the included value
+     */
+    void include(int index, long value) {
+        int node = index + capacity;
+        mins[node] = Math.min(mins[node], value);
+        maxs[node] = Math.max(maxs[node], value);
+        for (node >>>= 1; node > 0; node >>>= 1) {
+            mins[node] = Math.min(mins[2 * node], mins[2 * node + 1]);
+            maxs[node] = Math.max(maxs[2 * node], maxs[2 * node + 1]);
+        }
+    }
+
+    /**
+     * Converts the tree to the {@link SparseMinMaxTable} of its values, once they do not change anymore.
+     *
+     * @return the table of the included values
+     */
+    SparseMinMaxTable seal() {
+        return new SparseMinMaxTable(
+                Arrays.copyOfRange(mins, capacity, 2 * capacity),
+                Arrays.copyOfRange(maxs, capacity, 2 * capacity),
+                capacity);
+    }
+
+    @Override
+    public long min(int from, int to) {
+        long min = Long.MAX_VALUE;
+        for (int left = from + capacity, right = to + capacity; left < right; left >>>= 1, right >>>= 1) {
+            if ((left & 1) == 1) {
+                min = Math.min(min, mins[left++]);
+            }
+            if ((right & 1) == 1) {
+                min = Math.min(min, mins[--right]);
+            }
+        }
+        return min;
+    }
+
+    @Override
+    public long max(int from, int to) {
+        long max = Long.MIN_VALUE;
+        for (int left = from + capacity, right = to + capacity; left < right; left >>>= 1, right >>>= 1) {
+            if ((left & 1) == 1) {
+                max = Math.max(max, maxs[left++]);
+            }
+            if ((right & 1) == 1) {
+                max = Math.max(max, maxs[--right]);
+            }
+        }
+        return max;
+    }
+}
@@ -0,0 +1,318 @@
+package org.cryptos.service.series;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Price series of one currency kept in memory in columns: the timestamps and the prices as primitive longs,
+ * sorted by the timestamp, at most one price per timestamp. The columns are split into segments of a fixed size,
+ * so the series grows by adding segments instead of copying the whole columns. The ranges are found by binary search
+ * over the timestamps. The lowest and the highest price of a range are answered by the indexes of the price blocks
+ * of {@value #BLOCK_SIZE} prices, so at most two partial blocks at the edges of the range are scanned whatever
+ * the length of the range: the full segments are sealed with the {@link SparseMinMaxTable} of their blocks and all
+ * the full segments are indexed by one more table, the last segment being appended to is indexed
+ * by the {@link MinMaxSegmentTree} of its blocks. The series is safe for concurrent reads and writes.
+ */
+public class PriceSeries {
+
+    private static final int SEGMENT_BITS = 16;
+    private static final int SEGMENT_SIZE = 1 << SEGMENT_BITS;
+    private static final int SEGMENT_MASK = SEGMENT_SIZE - 1;
+    private static final int BLOCK_BITS = 6;
+    private static final int BLOCK_SIZE = 1 << BLOCK_BITS;
+    private static final int BLOCKS_PER_SEGMENT = SEGMENT_SIZE >>> BLOCK_BITS;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private List<long[]> timeSegments;
+    private List<long[]> priceSegments;
+    private List<RangeMinMax> blockIndexes;
+    private long[] segmentMins;
+    private long[] segmentMaxs;
+    private RangeMinMax segmentIndex;
+    private int size;
+
+    /**
+     * Aggregate of the prices of a time range.
+     *
+     * @param oldestTime the oldest timestamp of the range
+     * @param newestTime the newest timestamp of the range
+     * @param minPrice   the lowest price of the range
+     * @param maxPrice   the highest price of the range
+     */
+    public record PriceRange(long oldestTime, long newestTime, long minPrice, long maxPrice) {
+    }
+
+    /**
+     * Creates the empty series.
+     */
+    public PriceSeries() {
+        clear();
+    }
+
+    /**
+     * Gets the number of the prices.
+     *
+     * @return the number of the timestamps of the series
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Merges the prices sorted by the timestamp into the series. The prices newer than the series are appended,
+     * otherwise the columns and their indexes are rebuilt from the segment of the oldest merged price onward,
+     * the older segments are kept with their sealed indexes.
+     *
+     * @param times           the sorted timestamps, at most one price per timestamp
+     * @param prices          the prices of the timestamps
+     * @param count           the number of the prices to be merged
+     * @param replaceExisting whether the price of an existing timestamp is replaced or kept
+     */
+    public void merge(long[] times, long[] prices, int count, boolean replaceExisting) {
+        if (count == 0) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (size == 0 || times[0] > time(size - 1)) {
+                for (int i = 0; i < count; i++) {
+                    append(times[i], prices[i]);
+                }
+                return;
+            }
+
+            int firstSegment = lowerBound(times[0]) >>> SEGMENT_BITS;
+            List<long[]> oldTimeSegments = new ArrayList<>(timeSegments.subList(firstSegment, timeSegments.size()));
+            List<long[]> oldPriceSegments = new ArrayList<>(priceSegments.subList(firstSegment, priceSegments.size()));
+            int oldSize = size - (firstSegment << SEGMENT_BITS);
+            truncate(firstSegment);
+            int i = 0;
+            int j = 0;
+            while (i < oldSize || j < count) {
+                long oldTime = i < oldSize ? oldTimeSegments.get(i >>> SEGMENT_BITS)[i & SEGMENT_MASK] : Long.MAX_VALUE;
+                if (j >= count || (i < oldSize && oldTime < times[j])) {
+                    append(oldTime, oldPriceSegments.get(i >>> SEGMENT_BITS)[i & SEGMENT_MASK]);
+                    i++;
+                } else if (i < oldSize && oldTime == times[j]) {
+                    append(oldTime, replaceExisting ? prices[j] : oldPriceSegments.get(i >>> SEGMENT_BITS)[i & SEGMENT_MASK]);
+                    i++;
+                    j++;
+                } else {
+                    append(times[j], prices[j]);
+                    j++;
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Aggregates the prices of the time range.
+     *
+     * @param fromTime the start of the range (inclusive)
+     * @param toTime   the end of the range (exclusive)
+     * @return the {@link PriceRange} of the range, or empty if there are no prices in the range
+     */
+    public Optional<PriceRange> findRange(long fromTime, long toTime) {
+        lock.readLock().lock();
+        try {
+            int from = lowerBound(fromTime);
+            int to = lowerBound(toTime);
+            if (from >= to) {
+                return Optional.empty();
+            }
+            return Optional.of(new PriceRange(time(from), time(to - 1), aggregate(from, to, false), aggregate(from, to, true)));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the lowest or the highest price of the range of indexes: the partial segments at the edges
+     * and the full segments between them by the segment index.
+     *
+     * @param from the index of the first price (inclusive)
+     * @param to   the index after the last price (exclusive), greater than from
+     * @param max  whether the highest price is found instead of the lowest one
+     * @return the lowest or the highest price
+     */
+    private long aggregate(int from, int to, boolean max) {
+        int firstSegment = from >>> SEGMENT_BITS;
+        int lastSegment = (to - 1) >>> SEGMENT_BITS;
+        if (firstSegment == lastSegment) {
+            return aggregateSegment(firstSegment, from & SEGMENT_MASK, ((to - 1) & SEGMENT_MASK) + 1, max);
+        }
+        long result = combine(aggregateSegment(firstSegment, from & SEGMENT_MASK, SEGMENT_SIZE, max),
+                aggregateSegment(lastSegment, 0, ((to - 1) & SEGMENT_MASK) + 1, max), max);
+        if (firstSegment + 1 < lastSegment) {
+            result = combine(result, max
+                    ? segmentIndex.max(firstSegment + 1, lastSegment)
+                    : segmentIndex.min(firstSegment + 1, lastSegment), max);
+        }
+        return result;
+    }
+
+    /**
+     * Finds the lowest or the highest price of the range of one segment: the partial blocks at the edges are scanned,
+     * the full blocks between them are answered by the block index of the segment.
+     *
+     * @param segment the index of the segment
+     * @param from    the index of the first price in the segment (inclusive)
+     * @param to      the index after the last price in the segment (exclusive), greater than from
+     * @param max     whether the highest price is found instead of the lowest one
+     * @return the lowest or the highest price
+     */
+    private long aggregateSegment(int segment, int from, int to, boolean max) {
+        long[] prices = priceSegments.get(segment);
+        int firstBlock = from >>> BLOCK_BITS;
+        int lastBlock = (to - 1) >>> BLOCK_BITS;
+        if (firstBlock == lastBlock) {
+            return scan(prices, from, to, max);
+        }
+        long result = combine(scan(prices, from, (firstBlock + 1) << BLOCK_BITS, max),
+                scan(prices, lastBlock << BLOCK_BITS, to, max), max);
+        if (firstBlock + 1 < lastBlock) {
+            RangeMinMax blockIndex = blockIndexes.get(segment);
+            result = combine(result, max
+                    ? blockIndex.max(firstBlock + 1, lastBlock)
+                    : blockIndex.min(firstBlock + 1, lastBlock), max);
+        }
+        return result;
+    }
+
+    /**
+     * Scans the prices of the range.
+     *
+     * @param prices the prices of the segment
+     * @param from   the index of the first price (inclusive)
+     * @param to     the index after the last price (exclusive)
+     * @param max    whether the highest price is found instead of the lowest one
+     * @return the lowest or the highest price
+     */
+    private static long scan(long[] prices, int from, int to, boolean max) {
+        long result = max ? Long.MIN_VALUE : Long.MAX_VALUE;
+        for (int i = from; i < to; i++) {
+            result = combine(result, prices[i], max);
+        }
+        return result;
+    }
+
+    /**
+     * Combines two aggregated prices.
+     *
+     * @param first  the first price
+     * @param second the second price
+     * @param max    whether the higher price is kept instead of the lower one
+     * @return the lower or the higher price
+     */
+    private static long combine(long first, long second, boolean max) {
+        return max ? Math.max(first, second) : Math.min(first, second);
+    }
+
+    /**
+     * Finds the index of the first timestamp at or after the given one.
+     *
+     * @param time the timestamp
+     * @return the index of the first timestamp not before the given one, or the size if there is none
+     */
+    private int lowerBound(long time) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (time(middle) < time) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Gets the timestamp at the index.
+     *
+     * @param index the index of the price
+     * @return the timestamp
+     */
+    private long time(int index) {
+        return timeSegments.get(index >>> SEGMENT_BITS)[index & SEGMENT_MASK];
+    }
+
+    /**
+     * Removes all the prices and their indexes.
+     */
+    private void clear() {
+        timeSegments = new ArrayList<>();
+        priceSegments = new ArrayList<>();
+        blockIndexes = new ArrayList<>();
+        segmentMins = new long[16];
+        segmentMaxs = new long[16];
+        segmentIndex = new SparseMinMaxTable(segmentMins, segmentMaxs, 0);
+        size = 0;
+    }
+
+    /**
+     * Removes the segments from the given one onward with their indexes, the kept segments are full and sealed.
+     *
+     * @param segments the number of the segments to be kept
+     */
+    private void truncate(int segments) {
+        timeSegments.subList(segments, timeSegments.size()).clear();
+        priceSegments.subList(segments, priceSegments.size()).clear();
+        blockIndexes.subList(segments, blockIndexes.size()).clear();
+        segmentIndex = new SparseMinMaxTable(segmentMins, segmentMaxs, segments);
+        size = segments << SEGMENT_BITS;
+    }
+
+    /**
+     * Appends the price after the last one, adding a new segment if the last one is full,
+     * and includes the price into the block index of the segment. The full segment is sealed.
+     *
+     * @param time  the timestamp, newer than the last one
+     * @param price the price
+     */
+    private void append(long time, long price) {
+        int segment = size >>> SEGMENT_BITS;
+        int offset = size & SEGMENT_MASK;
+        if (offset == 0) {
+            timeSegments.add(new long[SEGMENT_SIZE]);
+            priceSegments.add(new long[SEGMENT_SIZE]);
+            blockIndexes.add(new MinMaxSegmentTree(BLOCKS_PER_SEGMENT));
+        }
+        timeSegments.get(segment)[offset] = time;
+        priceSegments.get(segment)[offset] = price;
+        ((MinMaxSegmentTree) blockIndexes.get(segment)).include(offset >>> BLOCK_BITS, price);
+        size++;
+        if (offset == SEGMENT_MASK) {
+            seal(segment);
+        }
+    }
+
+    /**
+     * Replaces the block index of the full segment by the immutable one, and adds the segment to the segment index.
+     *
+     * @param segment the index of the full segment
+     */
+    private void seal(int segment) {
+        SparseMinMaxTable blockIndex = ((MinMaxSegmentTree) blockIndexes.get(segment)).seal();
+        blockIndexes.set(segment, blockIndex);
+        if (segment == segmentMins.length) {
+            segmentMins = Arrays.copyOf(segmentMins, segment * 2);
+            segmentMaxs = Arrays.copyOf(segmentMaxs, segment * 2);
+        }
+        segmentMins[segment] = blockIndex.min(0, BLOCKS_PER_SEGMENT);
+        segmentMaxs[segment] = blockIndex.max(0, BLOCKS_PER_SEGMENT);
+        segmentIndex = new SparseMinMaxTable(segmentMins, segmentMaxs, segment + 1);
+    }
+}
@@ -0,0 +1,355 @@
+package org.cryptos.service.series;
+
+import lombok.extern.slf4j.Slf4j;
+import org.cryptos.persistence.entity.CurrencyStatsRow;
+import org.cryptos.persistence.repository.CurrencyStatsSeriesRepository;
+import org.cryptos.persistence.repository.CurrencyStatsWriter;
+import org.cryptos.service.domain.CurrencyNormalizedPriceDomain;
+import org.cryptos.service.domain.CurrencyStatsMinMaxDomain;
+import org.cryptos.service.ingest.IngestMode;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory store of the {@link PriceSeries} of all the currencies answering the statistics queries
+ * without the database. If "currency.get-stats.backend" is {@link StatsBackend#MEMORY}, all the prices are loaded
+ * from the database once the application is ready, and the rows of every upload are merged into the series after
+ * the commit of its transaction. Until the load is finished the store is not ready and the queries go to the database,
+ * the uploads committed meanwhile are merged after the loaded prices. The timestamps are kept as the microseconds
+ * of the local date and time, the prices as the unscaled values of scale {@value #PRICE_SCALE} of the price column.
+ * The memory backend can not be combined with {@link IngestMode#STATELESS}, which commits the rows in its own
+ * transactions, so the rows committed before a failed upload would never be merged.
+ */
+@Slf4j
+@Component
+public class PriceSeriesStore {
+
+    private static final int PRICE_SCALE = 7;
+    private static final MathContext NORMALIZED_PRICE_CONTEXT = MathContext.DECIMAL64;
+
+    private final StatsBackend backend;
+    private final CurrencyStatsSeriesRepository currencyStatsSeriesRepository;
+    private final Map<String, PriceSeries> series = new ConcurrentHashMap<>();
+    private List<Runnable> mergesDuringLoad = new ArrayList<>();
+    private volatile boolean ready;
+
+    /**
+     * Creates the store.
+     *
+     * @param backend                       the configured backend of the statistics queries
+     * @param ingestMode                    the configured mode of writing the uploaded rows
+     * @param currencyStatsSeriesRepository the repository streaming the stored prices
+     * @throws IllegalStateException if the memory backend is configured with {@link IngestMode#STATELESS}
+     */
+    public PriceSeriesStore(@Value("${currency.get-stats.backend:db}") StatsBackend backend,
+                            @Value("${currency.create-stats.mode:jpa}") IngestMode ingestMode,
+                            CurrencyStatsSeriesRepository currencyStatsSeriesRepository) {
+        if (backend == StatsBackend.MEMORY && ingestMode == IngestMode.STATELESS) {
+            throw new IllegalStateException(
+                    "The memory backend is not supported with the stateless mode, choose another create-stats.mode");
+        }
+        this.backend = backend;
+        this.currencyStatsSeriesRepository = currencyStatsSeriesRepository;
+    }
+
+    /**
+     * Checks whether the queries can be answered by the store.
+     *
+     * @return true if the memory backend is configured and all the stored prices are loaded
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Loads all the stored prices into the series, then merges the uploads committed during the load.
+     * Nothing is loaded if the memory backend is not configured.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        if (backend != StatsBackend.MEMORY) {
+            return;
+        }
+        long startNanos = System.nanoTime();
+        var loaded = new PendingPrices[1];
+        var loadedSymbol = new String[1];
+        currencyStatsSeriesRepository.streamAll((symbol, dateTime, price) -> {
+            if (!symbol.equals(loadedSymbol[0])) {
+                if (loaded[0] != null) {
+                    merge(loadedSymbol[0], loaded[0], false);
+                }
+                loaded[0] = new PendingPrices();
+                loadedSymbol[0] = symbol;
+            }
+            loaded[0].add(toTime(dateTime), toPrice(price));
+        });
+        if (loaded[0] != null) {
+            merge(loadedSymbol[0], loaded[0], false);
+        }
+
+        List<Runnable> merges;
+        synchronized (this) {
+            merges = mergesDuringLoad;
+            mergesDuringLoad = null;
+        }
+        merges.forEach(Runnable::run);
+        ready = true;
+        log.info("Prices of {} currencies loaded into memory in {} ms", series.size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+    }
+
+    /**
+     * Wraps the writer, so the finished rows are merged into the series after the commit of the current transaction,
+     * or immediately if there is no transaction.
+     *
+     * @param writer          the writer of the rows
+     * @param replaceExisting whether the written price replaces the stored price of the same date and time
+     * @return the tracking writer, or the writer itself if the memory backend is not configured
+     */
+    public CurrencyStatsWriter track(CurrencyStatsWriter writer, boolean replaceExisting) {
+        return backend == StatsBackend.MEMORY ? new TrackingWriter(writer, replaceExisting) : writer;
+    }
+
+    /**
+     * Aggregates the prices of the currency in the time range.
+     *
+     * @param symbol        the symbol of the currency
+     * @param startDateTime the start of the range (inclusive)
+     * @param endDateTime   the end of the range (exclusive)
+     * @return the {@link CurrencyStatsMinMaxDomain} of the range, or empty if there are no prices in the range
+     */
+    public Optional<CurrencyStatsMinMaxDomain> findStats(String symbol, LocalDateTime startDateTime,
+                                                         LocalDateTime endDateTime) {
+        PriceSeries priceSeries = series.get(symbol);
+        if (priceSeries == null) {
+            return Optional.empty();
+        }
+        return priceSeries.findRange(toTime(startDateTime), toTime(endDateTime))
+                .map(range -> new CurrencyStatsMinMaxDomain(symbol,
+                        toDateTime(range.oldestTime()),
+                        toDateTime(range.newestTime()),
+                        toBigDecimal(range.minPrice()),
+                        toBigDecimal(range.maxPrice())));
+    }
+
+    /**
+     * Calculates the normalized price, (max price - min price) / min price, of every currency in the time range.
+     * The currencies without prices in the range or with the zero min price are skipped.
+     *
+     * @param startDateTime the start of the range (inclusive)
+     * @param endDateTime   the end of the range (exclusive)
+     * @return the list of {@link CurrencyNormalizedPriceDomain} sorted by the normalized price descending
+     */
+    public List<CurrencyNormalizedPriceDomain> findNormalizedPricesDesc(LocalDateTime startDateTime,
+                                                                        LocalDateTime endDateTime) {
+        long fromTime = toTime(startDateTime);
+        long toTime = toTime(endDateTime);
+        List<CurrencyNormalizedPriceDomain> normalizedPrices = new ArrayList<>();
+        series.forEach((symbol, priceSeries) -> priceSeries.findRange(fromTime, toTime)
+                .filter(range -> range.minPrice() != 0)
+                .ifPresent(range -> normalizedPrices.add(new CurrencyNormalizedPriceDomain(symbol,
+                        BigDecimal.valueOf(range.maxPrice() - range.minPrice())
+                                .divide(BigDecimal.valueOf(range.minPrice()), NORMALIZED_PRICE_CONTEXT)))));
+        normalizedPrices.sort(Comparator.comparing(CurrencyNormalizedPriceDomain::normalizedPrice).reversed());
+        return normalizedPrices;
+    }
+
+    /**
+     * Merges the committed rows into the series, or defers the merge after the load if the load is running.
+     *
+     * @param rows            the committed rows by the currency
+     * @param replaceExisting whether the committed price replaces the stored price of the same date and time
+     */
+    private void mergeCommitted(Map<String, PendingPrices> rows, boolean replaceExisting) {
+        Runnable merge = () -> rows.forEach((symbol, prices) -> merge(symbol, prices, replaceExisting));
+        synchronized (this) {
+            if (mergesDuringLoad != null) {
+                mergesDuringLoad.add(merge);
+                return;
+            }
+        }
+        merge.run();
+    }
+
+    /**
+     * Sorts the prices and merges them into the series of the currency.
+     *
+     * @param symbol          the symbol of the currency
+     * @param prices          the prices of the currency in any order
+     * @param replaceExisting whether the price replaces the stored price of the same date and time
+     */
+    private void merge(String symbol, PendingPrices prices, boolean replaceExisting) {
+        prices.sort(replaceExisting);
+        series.computeIfAbsent(symbol, key -> new PriceSeries())
+                .merge(prices.times, prices.prices, prices.size, replaceExisting);
+    }
+
+    /**
+     * Converts the date and time to the timestamp of the series.
+     *
+     * @param dateTime the local date and time
+     * @return the microseconds since the epoch of the local date and time
+     */
+    private static long toTime(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC) * 1_000_000 + dateTime.getNano() / 1_000;
+    }
+
+    /**
+     * Converts the timestamp of the series to the date and time.
+     *
+     * @param time the microseconds since the epoch of the local date and time
+     * @return the local date and time
+     */
+    private static LocalDateTime toDateTime(long time) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(time, 1_000_000),
+                (int) Math.floorMod(time, 1_000_000) * 1_000, ZoneOffset.UTC);
+    }
+
+    /**
+     * Converts the price to the price of the series.
+     *
+     * @param price the price
+     * @return the unscaled value of the price rounded to the scale of the price column
+     */
+    private static long toPrice(BigDecimal price) {
+        return price.setScale(PRICE_SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    /**
+     * Converts the price of the series to the price.
+     *
+     * @param price the unscaled value of the price
+     * @return the price of the scale of the price column
+     */
+    private static BigDecimal toBigDecimal(long price) {
+        return BigDecimal.valueOf(price, PRICE_SCALE);
+    }
+
+    /**
+     * Growable columns of the prices not merged into the series yet.
+     */
+    private static final class PendingPrices {
+
+        private long[] times = new long[64];
+        private long[] prices = new long[64];
+        private int size;
+
+        /**
+         * Adds the price.
+         *
+         * @param time  the timestamp
+         * @param price the price
+         */
+        private void add(long time, long price) {
+            if (size == times.length) {
+                times = Arrays.copyOf(times, size * 2);
+                prices = Arrays.copyOf(prices, size * 2);
+            }
+            times[size] = time;
+            prices[size] = price;
+            size++;
+        }
+
+        /**
+         * Sorts the prices by the timestamp, if they are not sorted yet, and leaves one price per timestamp,
+         * the first or the last one added like the database does.
+         *
+         * @param keepLast whether the last price of the same timestamp is kept instead of the first one
+         */
+        private void sort(boolean keepLast) {
+            boolean sorted = true;
+            for (int i = 1; i < size && sorted; i++) {
+                sorted = times[i - 1] < times[i];
+            }
+            if (sorted) {
+                return;
+            }
+
+            Integer[] order = new Integer[size];
+            Arrays.setAll(order, i -> i);
+            Arrays.sort(order, Comparator.comparingLong(i -> times[i]));
+            long[] sortedTimes = new long[size];
+            long[] sortedPrices = new long[size];
+            int count = 0;
+            for (int index : order) {
+                if (count > 0 && sortedTimes[count - 1] == times[index]) {
+                    if (keepLast) {
+                        sortedPrices[count - 1] = prices[index];
+                    }
+                    continue;
+                }
+                sortedTimes[count] = times[index];
+                sortedPrices[count] = prices[index];
+                count++;
+            }
+            times = sortedTimes;
+            prices = sortedPrices;
+            size = count;
+        }
+    }
+
+    /**
+     * {@link CurrencyStatsWriter} collecting the written rows, which are merged into the series
+     * once the writer is finished and the transaction is committed.
+     */
+    private final class TrackingWriter implements CurrencyStatsWriter {
+
+        private final CurrencyStatsWriter writer;
+        private final boolean replaceExisting;
+        private final Map<String, PendingPrices> rows = new HashMap<>();
+
+        private TrackingWriter(CurrencyStatsWriter writer, boolean replaceExisting) {
+            this.writer = writer;
+            this.replaceExisting = replaceExisting;
+        }
+
+        @Override
+        public void write(List<CurrencyStatsRow> rows) {
+            writer.write(rows);
+            for (CurrencyStatsRow row : rows) {
+                this.rows.computeIfAbsent(row.symbol(), symbol -> new PendingPrices())
+                        .add(toTime(row.dateTime()), toPrice(row.price()));
+            }
+        }
+
+        @Override
+        public long finish() {
+            long written = writer.finish();
+            if (TransactionSynchronizationManager.isSynchronizationActive()) {
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        mergeCommitted(rows, replaceExisting);
+                    }
+                });
+            } else {
+                mergeCommitted(rows, replaceExisting);
+            }
+            return written;
+        }
+
+        @Override
+        public void close() {
+            writer.close();
+        }
+    }
+}
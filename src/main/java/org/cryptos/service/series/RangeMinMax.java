@@ -0,0 +1,25 @@
+package org.cryptos.service.series;
+
+/**
+ * Index answering the lowest and the highest value of a range of the indexed values without scanning them.
+ */
+interface RangeMinMax {
+
+    /**
+     * Finds the lowest value of the range.
+     *
+     * @param from the index of the first value (inclusive)
+     * @param to   the index after the last value (exclusive), greater than from
+     * @return the lowest value of the range
+     */
+    long min(int from, int to);
+
+    /**
+     * Finds the highest value of the range.
+     *
+     * @param from the index of the first value (inclusive)
+     * @param to   the index after the last value (exclusive), greater than from
+     * @return the highest value of the range
+     */
+    long max(int from, int to);
+}
@@ -0,0 +1,55 @@
+package org.cryptos.service.series;
+
+import java.util.Arrays;
+
+/**
+ * Immutable {@link RangeMinMax} answering any range in constant time by two lookups of overlapping power of two
+ * ranges. Level k holds the lowest and the highest value of every range of 2^k values, so the table takes
+ * n * log2(n) values and is built once for the values which never change.
+ */
+final class SparseMinMaxTable implements RangeMinMax {
+
+    private final long[][] mins;
+    private final long[][] maxs;
+
+    /**
+     * Builds the table of the values.
+     *
+     * @param mins  the lowest values to be indexed
+     * @param maxs  the highest values to be indexed
+     * @param count the number of the values
+     */
+    SparseMinMaxTable(long[] mins, long[] maxs, int count) {
+        int levels = count == 0 ? 1 : 32 - Integer.numberOfLeadingZeros(count);
+        this.mins = new long[levels][];
+        this.maxs = new long[levels][];
+        this.mins[0] = Arrays.copyOf(mins, count);
+        this.maxs[0] = Arrays.copyOf(maxs, count);
+        for (int level = 1; level < levels; level++) {
+            int half = 1 << (level - 1);
+            int length = count - (1 << level) + 1;
+            long[] previousMins = this.mins[level - 1];
+            long[] previousMaxs = this.maxs[level - 1];
+            long[] levelMins = new long[length];
+            long[] levelMaxs = new long[length];
+            for (int i = 0; i < length; i++) {
+                levelMins[i] = Math.min(previousMins[i], previousMins[i + half]);
+                levelMaxs[i] = Math.max(previousMaxs[i], previousMaxs[i + half]);
+            }
+            this.mins[level] = levelMins;
+            this.maxs[level] = levelMaxs;
+        }
+    }
+
+    @Override
+    public long min(int from, int to) {
+        int level = 31 - Integer.numberOfLeadingZeros(to - from);
+        return Math.min(mins[level][from], mins[level][to - (1 << level)]);
+    }
+
+    @Override
+    public long max(int from, int to) {
+        int level = 31 - Integer.numberOfLeadingZeros(to - from);
+        return Math.max(maxs[level][from], maxs[level][to - (1 << level)]);
+    }
+}
@@ -0,0 +1,17 @@
+package org.cryptos.service.series;
+
+/**
+ * Defines where the statistics queries are answered.
+ * The backend is selected by the "currency.get-stats.backend" property.
+ */
+public enum StatsBackend {
+    /**
+     * Every query is aggregated by the database.
+     */
+    DB,
+    /**
+     * The queries are answered from the price series kept in memory by {@link PriceSeriesStore},
+     * loaded from the database at the start and updated after every committed upload.
+     */
+    MEMORY
+}
@@ -0,0 +1,16 @@
+-- Adds the non-unique index on (currency_id, date_time) to the existing "currency_stats" table, so the duplicates
+-- of every row are found by an index lookup while the application started with "currency.dedup.enabled=true"
+-- removes them. Run it before the deduplication, the index is replaced by the unique one
+-- of "currency_stats_unique_date_time.sql" afterwards.
+-- The index is built concurrently, so the table stays available for reads and writes. Safe to run more than once
+-- by psql: the INVALID index left by a failed concurrent build is dropped by the next run before it is built again.
+\set ON_ERROR_STOP on
+SELECT 'DROP INDEX CONCURRENTLY public.idx_currency_stats_currency_date_time'
+FROM pg_index i
+JOIN pg_class c ON c.oid = i.indexrelid
+WHERE c.relname = 'idx_currency_stats_currency_date_time'
+  AND c.relnamespace = 'public'::regnamespace
+  AND NOT i.indisvalid
+\gexec
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_currency_stats_currency_date_time
+    ON public.currency_stats USING btree (currency_id, date_time);
@@ -0,0 +1,14 @@
+-- Migrates the existing "currency_stats" table created with the identity "id" column
+-- to the pooled "currency_stats_seq" sequence used by the application. Safe to run more than once.
+BEGIN;
+    LOCK TABLE public.currency_stats IN SHARE ROW EXCLUSIVE MODE;
+    ALTER TABLE public.currency_stats ALTER COLUMN id DROP IDENTITY IF EXISTS;
+    CREATE SEQUENCE IF NOT EXISTS public.currency_stats_seq INCREMENT BY 50 MINVALUE 1 START 1 NO CYCLE;
+    ALTER SEQUENCE public.currency_stats_seq INCREMENT BY 50;
+    SELECT setval('public.currency_stats_seq',
+                  GREATEST((SELECT COALESCE(MAX(id), 0) FROM public.currency_stats) + 1,
+                           (SELECT last_value + 50 FROM public.currency_stats_seq)),
+                  false);
+    ALTER TABLE public.currency_stats ALTER COLUMN id SET DEFAULT nextval('public.currency_stats_seq');
+    ALTER SEQUENCE public.currency_stats_seq OWNED BY public.currency_stats.id;
+COMMIT;
@@ -0,0 +1,27 @@
+-- Creates the "currency_stats_rollup" table of the statistics pre-aggregated per minute, hour and day
+-- and the "currency_stats_daily_range" table of the normalized prices per day.
+-- The rollups of the existing prices are created by the application started with "currency.get-stats.rollups.rebuild=true".
+-- Safe to run more than once.
+CREATE TABLE IF NOT EXISTS public.currency_stats_rollup (
+    currency_id varchar(255) NOT NULL,
+    granularity varchar(8) NOT NULL,
+    bucket_start timestamp(6) NOT NULL,
+    first_time timestamp(6) NOT NULL,
+    last_time timestamp(6) NOT NULL,
+    min_price numeric(25, 7) NOT NULL,
+    max_price numeric(25, 7) NOT NULL,
+    row_count int8 NOT NULL,
+    CONSTRAINT currency_stats_rollup_pkey PRIMARY KEY (currency_id, granularity, bucket_start)
+);
+CREATE INDEX IF NOT EXISTS idx_currency_stats_rollup_granularity_bucket
+    ON public.currency_stats_rollup USING btree (granularity, bucket_start);
+CREATE TABLE IF NOT EXISTS public.currency_stats_daily_range (
+    price_date date NOT NULL,
+    currency_id varchar(255) NOT NULL,
+    min_price numeric(25, 7) NOT NULL,
+    max_price numeric(25, 7) NOT NULL,
+    normalized_price numeric(38, 20) NULL,
+    CONSTRAINT currency_stats_daily_range_pkey PRIMARY KEY (price_date, currency_id)
+);
+CREATE INDEX IF NOT EXISTS idx_currency_stats_daily_range_date_normalized_price
+    ON public.currency_stats_daily_range USING btree (price_date, normalized_price DESC);
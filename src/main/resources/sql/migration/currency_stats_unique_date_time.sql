@@ -0,0 +1,24 @@
+-- Adds the unique constraint on (currency_id, date_time) to the existing "currency_stats" table.
+-- The duplicates must be removed first by the application started with "currency.dedup.enabled=true",
+-- after "currency_stats_dedup_index.sql", whose index is dropped at the end.
+-- The index is built concurrently, so the table stays available for reads and writes. Safe to run more than once
+-- by psql: a failed concurrent build, e.g. because of the duplicates inserted meanwhile, leaves an INVALID index,
+-- which is dropped by the next run before the index is built again. The script stops at the first error.
+\set ON_ERROR_STOP on
+SELECT 'DROP INDEX CONCURRENTLY public.uk_currency_stats_currency_date_time'
+FROM pg_index i
+JOIN pg_class c ON c.oid = i.indexrelid
+WHERE c.relname = 'uk_currency_stats_currency_date_time'
+  AND c.relnamespace = 'public'::regnamespace
+  AND NOT i.indisvalid
+\gexec
+CREATE UNIQUE INDEX CONCURRENTLY IF NOT EXISTS uk_currency_stats_currency_date_time
+    ON public.currency_stats USING btree (currency_id, date_time);
+DO $$
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM pg_constraint WHERE conname = 'uk_currency_stats_currency_date_time') THEN
+        ALTER TABLE public.currency_stats
+            ADD CONSTRAINT uk_currency_stats_currency_date_time UNIQUE USING INDEX uk_currency_stats_currency_date_time;
+    END IF;
+END $$;
+DROP INDEX CONCURRENTLY IF EXISTS public.idx_currency_stats_currency_date_time;
@@ -2,14 +2,40 @@
       symbol varchar(255) NOT NULL,
       CONSTRAINT currency_pkey PRIMARY KEY (symbol)
     );
+    CREATE SEQUENCE IF NOT EXISTS public.currency_stats_seq INCREMENT BY 50 MINVALUE 1 START 1 NO CYCLE;
     CREATE TABLE IF NOT EXISTS public.currency_stats (
     	price numeric(25, 7) NOT NULL,
     	date_time timestamp(6) NOT NULL,
-    	id int8 GENERATED BY DEFAULT AS IDENTITY( INCREMENT BY 1 MINVALUE 1 MAXVALUE 9223372036854775807 START 1 CACHE 1 NO CYCLE) NOT NULL,
+    	id int8 DEFAULT nextval('public.currency_stats_seq') NOT NULL,
     	currency_id varchar(255) NOT NULL,
     	CONSTRAINT currency_stats_pkey PRIMARY KEY (id),
+    	CONSTRAINT uk_currency_stats_currency_date_time UNIQUE (currency_id, date_time),
     	CONSTRAINT fk_currency_id FOREIGN KEY (currency_id) REFERENCES public.currency(symbol)
     );
+    ALTER SEQUENCE public.currency_stats_seq OWNED BY public.currency_stats.id;
     CREATE INDEX IF NOT EXISTS idx_currency_id ON public.currency_stats USING btree (currency_id);
     CREATE INDEX IF NOT EXISTS idx_date_time ON public.currency_stats USING btree (date_time);
-    CREATE INDEX IF NOT EXISTS idx_price ON public.currency_stats USING btree (price);
\ No newline at end of file
+    CREATE INDEX IF NOT EXISTS idx_price ON public.currency_stats USING btree (price);
+    CREATE TABLE IF NOT EXISTS public.currency_stats_rollup (
+    	currency_id varchar(255) NOT NULL,
+    	granularity varchar(8) NOT NULL,
+    	bucket_start timestamp(6) NOT NULL,
+    	first_time timestamp(6) NOT NULL,
+    	last_time timestamp(6) NOT NULL,
+    	min_price numeric(25, 7) NOT NULL,
+    	max_price numeric(25, 7) NOT NULL,
+    	row_count int8 NOT NULL,
+    	CONSTRAINT currency_stats_rollup_pkey PRIMARY KEY (currency_id, granularity, bucket_start)
+    );
+    CREATE INDEX IF NOT EXISTS idx_currency_stats_rollup_granularity_bucket
+        ON public.currency_stats_rollup USING btree (granularity, bucket_start);
+    CREATE TABLE IF NOT EXISTS public.currency_stats_daily_range (
+    	price_date date NOT NULL,
+    	currency_id varchar(255) NOT NULL,
+    	min_price numeric(25, 7) NOT NULL,
+    	max_price numeric(25, 7) NOT NULL,
+    	normalized_price numeric(38, 20) NULL,
+    	CONSTRAINT currency_stats_daily_range_pkey PRIMARY KEY (price_date, currency_id)
+    );
+    CREATE INDEX IF NOT EXISTS idx_currency_stats_daily_range_date_normalized_price
+        ON public.currency_stats_daily_range USING btree (price_date, normalized_price DESC);
@@ -0,0 +1,53 @@
+package integration.spring;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.cryptos.CryptosApplication;
+import org.cryptos.persistence.entity.CurrencyEntity;
+import org.cryptos.persistence.repository.CurrencyRepository;
+import org.cryptos.service.CurrencyStatsService;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ActiveProfiles("h2")
+@SpringBootTest
+@ContextConfiguration(classes = CryptosApplication.class)
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class CurrencyStatsBatchingTest {
+
+    @Autowired
+    private CurrencyStatsService currencyStatsService;
+    @Autowired
+    private CurrencyRepository currencyRepository;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    /**
+     * Test uploads the file in the JPA mode and verifies that the inserts are batched:
+     * the identifiers are reserved with one sequence call and fewer statements than rows are prepared.
+     */
+    @Test
+    void createStatsPreparesFewerStatementsThanRows() {
+        currencyRepository.save(new CurrencyEntity("BTC"));
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        long rows = currencyStatsService.createStats(new ClassPathResource("csv/btc_valid.csv")).rows();
+
+        assertEquals(5, rows);
+        assertEquals(5, statistics.getEntityInsertCount());
+        assertTrue(statistics.getPrepareStatementCount() < rows,
+                "Expected batched inserts, but %d statements prepared".formatted(statistics.getPrepareStatementCount()));
+    }
+}
@@ -0,0 +1,100 @@
+package integration.spring;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.cryptos.CryptosApplication;
+import org.cryptos.api.dto.CurrencyDTO;
+import org.cryptos.api.dto.CurrencyStatsIngestDTO;
+import org.cryptos.api.dto.CurrencyStatsMinMaxDTO;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.util.LinkedMultiValueMap;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+@ActiveProfiles("h2")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ContextConfiguration(classes = CryptosApplication.class)
+@TestPropertySource(properties = "currency.create-stats.mode=bulk")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class CurrencyStatsBulkTest {
+
+    private static final String BASE_CURRENCY_URL = "/currencies";
+    private static final String BASE_STATS_URL = BASE_CURRENCY_URL + "/stats";
+
+    @Autowired
+    private TestRestTemplate testRestTemplate;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * Test creates stats for a currency in the bulk mode (multi-row JDBC batches on H2)
+     * and verifies the stored statistics.
+     */
+    @Test
+    void createStatsInBulkModeSuccessfully() throws JsonProcessingException {
+        String currencySymbol = "BTC";
+        postValidOneCurrencyEntityAndVerify(currencySymbol);
+        postValidStatsAndVerify("csv/btc_valid.csv", currencySymbol, 5);
+        getOneCurrencyStatsAndVerify(currencySymbol);
+    }
+
+    private void postValidOneCurrencyEntityAndVerify(String currencySymbol) throws JsonProcessingException {
+        //given
+        var headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        HttpEntity<String> requestEntity = new HttpEntity<>(objectMapper.writeValueAsString(new CurrencyDTO(currencySymbol)), headers);
+        //when
+        ResponseEntity<Void> response = testRestTemplate.postForEntity(BASE_CURRENCY_URL, requestEntity, Void.class);
+        //then
+        assertEquals(HttpStatus.CREATED, response.getStatusCode());
+    }
+
+    private void postValidStatsAndVerify(String fileName, String currencySymbol, long expectedRows) {
+        //given
+        LinkedMultiValueMap<String, Object> parameters = new LinkedMultiValueMap<>();
+        parameters.add("file", new ClassPathResource(fileName));
+        var headers = new HttpHeaders();
+        headers.setContentType(MediaType.MULTIPART_FORM_DATA);
+        HttpEntity<LinkedMultiValueMap<String, Object>> entity = new HttpEntity<>(parameters, headers);
+        //when
+        ResponseEntity<CurrencyStatsIngestDTO> response =
+                testRestTemplate.exchange(BASE_STATS_URL, HttpMethod.POST, entity, CurrencyStatsIngestDTO.class);
+        //then
+        assertEquals(HttpStatus.CREATED, response.getStatusCode());
+        assertNotNull(response.getBody());
+        assertEquals(currencySymbol, response.getBody().symbol());
+        assertEquals(expectedRows, response.getBody().rows());
+    }
+
+    private void getOneCurrencyStatsAndVerify(String currencySymbol) {
+        var startDateTime = LocalDateTime.of(2000, 1, 1, 0, 0);
+        var endDateTime = LocalDateTime.of(2030, 1, 1, 0, 0);
+        String url = BASE_STATS_URL + "/" + currencySymbol + "?startDateTime=" + startDateTime + "&endDateTime=" + endDateTime;
+        //when
+        ResponseEntity<CurrencyStatsMinMaxDTO> responseEntity = testRestTemplate.getForEntity(url, CurrencyStatsMinMaxDTO.class);
+        //then
+        assertEquals(HttpStatus.OK, responseEntity.getStatusCode());
+        CurrencyStatsMinMaxDTO body = responseEntity.getBody();
+        assertNotNull(body);
+        assertEquals(0, new BigDecimal("20").compareTo(body.minPrice()));
+        assertEquals(0, new BigDecimal("50").compareTo(body.maxPrice()));
+    }
+}
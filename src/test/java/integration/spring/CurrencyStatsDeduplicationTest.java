@@ -0,0 +1,63 @@
+package integration.spring;
+
+import org.cryptos.CryptosApplication;
+import org.cryptos.persistence.entity.CurrencyEntity;
+import org.cryptos.persistence.repository.CurrencyRepository;
+import org.cryptos.service.CurrencyStatsDeduplicationJob;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@ActiveProfiles("h2")
+@SpringBootTest
+@ContextConfiguration(classes = CryptosApplication.class)
+@TestPropertySource(properties = {"currency.dedup.enabled=true", "currency.dedup.chunk-size=2"})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class CurrencyStatsDeduplicationTest {
+
+    @Autowired
+    private CurrencyStatsDeduplicationJob deduplicationJob;
+    @Autowired
+    private CurrencyRepository currencyRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Test fills the table created before the unique constraint with duplicates and verifies that the job
+     * processing the table in small chunks keeps exactly the first row of every currency and date time.
+     */
+    @Test
+    void deduplicateKeepsFirstRowOfEveryCurrencyAndDateTime() {
+        currencyRepository.save(new CurrencyEntity("BTC"));
+        currencyRepository.save(new CurrencyEntity("ETH"));
+        jdbcTemplate.execute("ALTER TABLE currency_stats DROP CONSTRAINT uk_currency_stats_currency_date_time");
+        LocalDateTime dateTime = LocalDateTime.of(2024, 1, 1, 0, 0);
+        insert(1, "BTC", dateTime, "40.00");
+        insert(2, "ETH", dateTime, "2.00");
+        insert(3, "BTC", dateTime, "41.00");
+        insert(4, "BTC", dateTime.plusHours(1), "42.00");
+        insert(5, "BTC", dateTime, "43.00");
+        insert(6, "ETH", dateTime, "3.00");
+
+        long deleted = deduplicationJob.deduplicate();
+
+        assertEquals(3, deleted);
+        assertEquals(3, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM currency_stats", Long.class));
+        assertEquals(7, jdbcTemplate.queryForObject("SELECT SUM(id) FROM currency_stats", Long.class));
+    }
+
+    private void insert(long id, String symbol, LocalDateTime dateTime, String price) {
+        jdbcTemplate.update("INSERT INTO currency_stats (id, currency_id, date_time, price) VALUES (?, ?, ?, ?)",
+                id, symbol, dateTime, new BigDecimal(price));
+    }
+}
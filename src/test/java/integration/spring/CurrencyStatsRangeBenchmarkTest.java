@@ -0,0 +1,132 @@
+package integration.spring;
+
+import org.cryptos.CryptosApplication;
+import org.cryptos.persistence.entity.CurrencyEntity;
+import org.cryptos.persistence.repository.CurrencyRepository;
+import org.cryptos.persistence.repository.CurrencyStatsRepository;
+import org.cryptos.service.CurrencyStatsService;
+import org.cryptos.service.domain.CurrencyStatsMinMaxDomain;
+import org.cryptos.service.ingest.CurrencyStatsTick;
+import org.cryptos.service.series.PriceSeriesStore;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Benchmark of the min/max statistics of the ranges of growing length: the SQL aggregation of the database
+ * against the indexed {@link PriceSeriesStore}. Run by "./gradlew benchmark", the results are printed.
+ */
+@Tag("benchmark")
+@ActiveProfiles("h2")
+@SpringBootTest
+@ContextConfiguration(classes = CryptosApplication.class)
+@TestPropertySource(properties = {
+        "currency.create-stats.mode=bulk",
+        "currency.create-stats.batch-size=5000",
+        "currency.get-stats.backend=memory",
+        "spring.jpa.show-sql=false"})
+class CurrencyStatsRangeBenchmarkTest {
+
+    private static final String SYMBOL = "BTC";
+    private static final int ROWS = 1 << 20;
+    private static final int INSERT_BATCH = 50_000;
+    private static final int QUERIES = 50;
+    private static final LocalDateTime START = LocalDateTime.of(2022, 1, 1, 0, 0);
+
+    @Autowired
+    private CurrencyStatsService currencyStatsService;
+    @Autowired
+    private CurrencyRepository currencyRepository;
+    @Autowired
+    private CurrencyStatsRepository currencyStatsRepository;
+    @Autowired
+    private PriceSeriesStore priceSeriesStore;
+
+    /**
+     * Stores a price per minute and prints the mean latency of the SQL and the in-memory statistics of the ranges
+     * from 10 minutes to the whole series, verifying both return the same statistics.
+     */
+    @Test
+    void compareRangeLatency() {
+        currencyRepository.save(new CurrencyEntity(SYMBOL));
+        storePrices();
+
+        System.out.printf("%12s %16s %16s%n", "range rows", "sql us/query", "memory us/query");
+        var random = new Random(7);
+        for (int rangeRows = 10; rangeRows <= ROWS; rangeRows *= 10) {
+            List<LocalDateTime> starts = new ArrayList<>();
+            for (int i = 0; i < QUERIES; i++) {
+                starts.add(START.plusMinutes(random.nextInt(ROWS - rangeRows + 1)));
+            }
+            int minutes = rangeRows;
+            Function<LocalDateTime, CurrencyStatsMinMaxDomain> sqlQuery = start -> currencyStatsRepository
+                    .findStatsBySymbol(SYMBOL, start, start.plusMinutes(minutes))
+                    .map(projection -> new CurrencyStatsMinMaxDomain(projection.getSymbol(), projection.getOldestDate(),
+                            projection.getNewestDate(), projection.getMinPrice(), projection.getMaxPrice()))
+                    .orElseThrow();
+            Function<LocalDateTime, CurrencyStatsMinMaxDomain> memoryQuery = start -> priceSeriesStore
+                    .findStats(SYMBOL, start, start.plusMinutes(minutes))
+                    .orElseThrow();
+            for (LocalDateTime start : starts) {
+                CurrencyStatsMinMaxDomain expected = sqlQuery.apply(start);
+                CurrencyStatsMinMaxDomain actual = memoryQuery.apply(start);
+                assertEquals(expected.newestDate(), actual.newestDate());
+                assertEquals(0, expected.minPrice().compareTo(actual.minPrice()));
+                assertEquals(0, expected.maxPrice().compareTo(actual.maxPrice()));
+            }
+            long sqlMicros = measure(starts, sqlQuery);
+            long memoryMicros = measure(starts, memoryQuery);
+            System.out.printf("%12d %16d %16d%n", rangeRows, sqlMicros, memoryMicros);
+        }
+    }
+
+    /**
+     * Stores one price per minute from {@link #START} in the batches of ticks.
+     */
+    private void storePrices() {
+        var random = new Random(42);
+        long startMillis = START.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        List<CurrencyStatsTick> ticks = new ArrayList<>(INSERT_BATCH);
+        for (int i = 0; i < ROWS; i++) {
+            ticks.add(new CurrencyStatsTick(startMillis + TimeUnit.MINUTES.toMillis(i), SYMBOL,
+                    BigDecimal.valueOf(40_000_0000L + random.nextInt(10_000_0000), 4)));
+            if (ticks.size() == INSERT_BATCH) {
+                currencyStatsService.createTicks(ticks);
+                ticks.clear();
+            }
+        }
+        if (!ticks.isEmpty()) {
+            currencyStatsService.createTicks(ticks);
+        }
+    }
+
+    /**
+     * Measures the mean latency of the queries of the ranges, after the verification run warmed them up.
+     *
+     * @param starts the starts of the ranges
+     * @param query  the query of the range of the start
+     * @return the mean latency of the query in microseconds
+     */
+    private long measure(List<LocalDateTime> starts, Function<LocalDateTime, CurrencyStatsMinMaxDomain> query) {
+        long startNanos = System.nanoTime();
+        for (LocalDateTime start : starts) {
+            query.apply(start);
+        }
+        return TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos) / starts.size();
+    }
+}
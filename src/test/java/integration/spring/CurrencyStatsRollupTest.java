@@ -0,0 +1,136 @@
+package integration.spring;
+
+import org.cryptos.CryptosApplication;
+import org.cryptos.persistence.entity.CurrencyEntity;
+import org.cryptos.persistence.entity.CurrencyNormalizedPriceProjection;
+import org.cryptos.persistence.entity.CurrencyStatsMinMaxProjection;
+import org.cryptos.persistence.repository.CurrencyRepository;
+import org.cryptos.persistence.repository.CurrencyStatsRepository;
+import org.cryptos.service.CurrencyStatsService;
+import org.cryptos.service.ingest.CurrencyStatsTick;
+import org.cryptos.service.rollup.CurrencyStatsRollups;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@ActiveProfiles("h2")
+@SpringBootTest
+@ContextConfiguration(classes = CryptosApplication.class)
+@TestPropertySource(properties = {
+        "currency.create-stats.mode=upsert",
+        "currency.create-stats.on-conflict=update",
+        "currency.get-stats.rollups.enabled=true",
+        "spring.jpa.show-sql=false"})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class CurrencyStatsRollupTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2022, 1, 1, 0, 0);
+    private static final long PERIOD_SECONDS = TimeUnit.DAYS.toSeconds(4);
+
+    @Autowired
+    private CurrencyStatsService currencyStatsService;
+    @Autowired
+    private CurrencyRepository currencyRepository;
+    @Autowired
+    private CurrencyStatsRepository currencyStatsRepository;
+    @Autowired
+    private CurrencyStatsRollups currencyStatsRollups;
+
+    /**
+     * Test stores the prices of two currencies in several uploads, also the older and the replaced prices,
+     * and verifies that the statistics of random periods aggregated from the rollups are identical
+     * to the statistics aggregated from the prices.
+     */
+    @Test
+    void rollupStatsIdenticalToRawStats() {
+        currencyRepository.save(new CurrencyEntity("BTC"));
+        currencyRepository.save(new CurrencyEntity("ETH"));
+        var random = new Random(42);
+        for (int upload = 0; upload < 6; upload++) {
+            List<CurrencyStatsTick> ticks = new ArrayList<>();
+            for (int i = 0; i < 500; i++) {
+                ticks.add(new CurrencyStatsTick(toMillis(START.plusSeconds(random.nextLong(PERIOD_SECONDS))),
+                        random.nextBoolean() ? "BTC" : "ETH",
+                        BigDecimal.valueOf(1_000_000 + random.nextInt(9_000_000), 2)));
+            }
+            currencyStatsService.createTicks(ticks);
+        }
+
+        for (int i = 0; i < 200; i++) {
+            LocalDateTime from = START.minusHours(1).plusSeconds(random.nextLong(PERIOD_SECONDS));
+            LocalDateTime to = from.plusSeconds(random.nextLong(PERIOD_SECONDS));
+            assertSameStats(currencyStatsRepository.findStatsBySymbol("BTC", from, to).orElse(null),
+                    currencyStatsRollups.findStats("BTC", from, to).orElse(null));
+            assertSameNormalizedPrices(currencyStatsRepository.getNormalizedPricesForAllCurrenciesDesc(from, to),
+                    currencyStatsRollups.findNormalizedPricesDesc(from, to));
+        }
+    }
+
+    /**
+     * Test stores the prices of two currencies, then the older prices of one of them, and verifies that
+     * the currency with the highest normalized price of every day found by the day is identical
+     * to the one aggregated from the prices.
+     */
+    @Test
+    void highestDailyRangeIdenticalToRawStats() {
+        currencyRepository.save(new CurrencyEntity("BTC"));
+        currencyRepository.save(new CurrencyEntity("ETH"));
+        var random = new Random(7);
+        for (String symbol : List.of("BTC", "ETH", "BTC")) {
+            List<CurrencyStatsTick> ticks = new ArrayList<>();
+            for (int i = 0; i < 300; i++) {
+                ticks.add(new CurrencyStatsTick(toMillis(START.plusSeconds(random.nextLong(PERIOD_SECONDS))),
+                        symbol, BigDecimal.valueOf(1_000_000 + random.nextInt(9_000_000), 2)));
+            }
+            currencyStatsService.createTicks(ticks);
+        }
+
+        for (LocalDate day = START.toLocalDate().minusDays(1); day.isBefore(START.toLocalDate().plusDays(5));
+             day = day.plusDays(1)) {
+            List<CurrencyNormalizedPriceProjection> expected = currencyStatsRepository.findHighestNormalizedRangeForDay(
+                    day.atStartOfDay(), day.plusDays(1).atStartOfDay());
+            assertSameNormalizedPrices(expected.isEmpty() ? List.of() : List.of(expected.getFirst()),
+                    currencyStatsRollups.findHighestNormalizedPrice(day).stream().toList());
+        }
+    }
+
+    private static long toMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static void assertSameStats(CurrencyStatsMinMaxProjection expected, CurrencyStatsMinMaxProjection actual) {
+        if (expected == null || actual == null) {
+            assertEquals(expected, actual);
+            return;
+        }
+        assertEquals(expected.getSymbol(), actual.getSymbol());
+        assertEquals(expected.getOldestDate(), actual.getOldestDate());
+        assertEquals(expected.getNewestDate(), actual.getNewestDate());
+        assertEquals(expected.getMinPrice(), actual.getMinPrice());
+        assertEquals(expected.getMaxPrice(), actual.getMaxPrice());
+    }
+
+    private static void assertSameNormalizedPrices(List<CurrencyNormalizedPriceProjection> expected,
+                                                   List<CurrencyNormalizedPriceProjection> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getSymbol(), actual.get(i).getSymbol());
+            assertEquals(0, expected.get(i).getNormalizedPrice().compareTo(actual.get(i).getNormalizedPrice()));
+        }
+    }
+}
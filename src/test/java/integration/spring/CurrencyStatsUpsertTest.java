@@ -0,0 +1,66 @@
+package integration.spring;
+
+import org.cryptos.CryptosApplication;
+import org.cryptos.persistence.entity.CurrencyEntity;
+import org.cryptos.persistence.repository.CurrencyRepository;
+import org.cryptos.service.CurrencyStatsService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@ActiveProfiles("h2")
+@SpringBootTest
+@ContextConfiguration(classes = CryptosApplication.class)
+@TestPropertySource(properties = {"currency.create-stats.mode=upsert", "currency.create-stats.on-conflict=update"})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class CurrencyStatsUpsertTest {
+
+    @Autowired
+    private CurrencyStatsService currencyStatsService;
+    @Autowired
+    private CurrencyRepository currencyRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Test uploads the same file twice and an overlapping file in the upsert mode and verifies that no duplicates
+     * are created and the price of the existing row is updated, keeping its id.
+     */
+    @Test
+    void createStatsTwiceWithoutDuplicates() {
+        currencyRepository.save(new CurrencyEntity("BTC"));
+
+        currencyStatsService.createStats(new ClassPathResource("csv/btc_valid.csv"));
+        currencyStatsService.createStats(new ClassPathResource("csv/btc_valid.csv"));
+        LocalDateTime updatedDateTime = LocalDateTime.ofInstant(Instant.ofEpochMilli(1704067200000L), ZoneId.systemDefault());
+        Long updatedId = jdbcTemplate.queryForObject(
+                "SELECT id FROM currency_stats WHERE date_time = ?", Long.class, updatedDateTime);
+        currencyStatsService.createStats(new ByteArrayResource("""
+                timestamp,symbol,price
+                1704067200000,BTC,41.00
+                1704067200000,BTC,42.00
+                """.getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(5, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM currency_stats", Long.class));
+        BigDecimal updatedPrice = jdbcTemplate.queryForObject(
+                "SELECT price FROM currency_stats WHERE date_time = ?", BigDecimal.class, updatedDateTime);
+        assertEquals(0, new BigDecimal("42.00").compareTo(updatedPrice));
+        assertEquals(updatedId, jdbcTemplate.queryForObject(
+                "SELECT id FROM currency_stats WHERE date_time = ?", Long.class, updatedDateTime));
+    }
+}
@@ -0,0 +1,91 @@
+package integration.spring;
+
+import org.cryptos.CryptosApplication;
+import org.cryptos.persistence.entity.CurrencyEntity;
+import org.cryptos.persistence.repository.CurrencyRepository;
+import org.cryptos.service.TickTcpListener;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@ActiveProfiles("h2")
+@SpringBootTest
+@ContextConfiguration(classes = CryptosApplication.class)
+@TestPropertySource(properties = {"currency.tcp.enabled=true", "currency.tcp.port=0",
+        "currency.stream.batch-size=2", "currency.stream.flush-interval=PT0.05S"})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class TickTcpListenerTest {
+
+    @Autowired
+    private TickTcpListener tickTcpListener;
+    @Autowired
+    private CurrencyRepository currencyRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Test sends the ticks of two currencies over a plain socket, the last line without the line break,
+     * and verifies that all of them are stored.
+     */
+    @Test
+    void storeTicksReceivedOverSocket() throws IOException, InterruptedException {
+        currencyRepository.save(new CurrencyEntity("BTC"));
+        currencyRepository.save(new CurrencyEntity("ETH"));
+
+        try (Socket socket = new Socket("localhost", tickTcpListener.getPort());
+             OutputStream outputStream = socket.getOutputStream()) {
+            outputStream.write("""
+                    timestamp,symbol,price
+                    1641308400000,BTC,47111.11
+                    1641308400000,ETH,3715.32
+                    1641492000000,BTC,43112.12""".getBytes(StandardCharsets.UTF_8));
+        }
+
+        assertEquals(3, awaitRowCount(3));
+    }
+
+    /**
+     * Test sends a tick of a currency which is not enabled between the ticks of the enabled currencies
+     * and verifies that only the rejected tick is skipped, not its whole micro-batch.
+     */
+    @Test
+    void skipOnlyTicksOfCurrencyNotEnabled() throws IOException, InterruptedException {
+        currencyRepository.save(new CurrencyEntity("BTC"));
+        currencyRepository.save(new CurrencyEntity("ETH"));
+
+        try (Socket socket = new Socket("localhost", tickTcpListener.getPort());
+             OutputStream outputStream = socket.getOutputStream()) {
+            outputStream.write("""
+                    1641308400000,BTC,47111.11
+                    1641308400000,XRP,0.83
+                    1641308400000,ETH,3715.32
+                    1641492000000,BTC,43112.12
+                    """.getBytes(StandardCharsets.UTF_8));
+        }
+
+        assertEquals(3, awaitRowCount(3));
+    }
+
+    private long awaitRowCount(long expectedRows) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        long rows;
+        do {
+            Thread.sleep(20);
+            rows = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM currency_stats", Long.class);
+        } while (rows < expectedRows && System.nanoTime() < deadline);
+        return rows;
+    }
+}
@@ -1,31 +1,57 @@
 package org.cryptos.api.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.cryptos.service.ChunkedUploadService;
+import org.cryptos.service.CurrencyStatsBatchService;
 import org.cryptos.service.CurrencyStatsService;
+import org.cryptos.service.IngestJobService;
+import org.cryptos.service.TickStreamService;
+import org.cryptos.service.domain.ChunkedUploadDomain;
 import org.cryptos.service.domain.CurrencyNormalizedPriceDomain;
+import org.cryptos.service.domain.CurrencyStatsFileResultDomain;
+import org.cryptos.service.domain.CurrencyStatsIngestDomain;
 import org.cryptos.service.domain.CurrencyStatsMinMaxDomain;
+import org.cryptos.service.domain.IngestJobDomain;
+import org.cryptos.service.domain.TickStreamAckDomain;
 import org.cryptos.service.exception.EntityNotFoundException;
+import org.cryptos.service.exception.IngestJobRejectedException;
+import org.cryptos.service.ingest.IngestJobStatus;
+import org.cryptos.service.ingest.TickStream;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import java.io.InputStream;
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
+import java.util.UUID;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 
@@ -35,25 +61,239 @@ class CurrencyStatsControllerTest {
 
     @MockitoBean
     private CurrencyStatsService currencyStatsService;
+    @MockitoBean
+    private IngestJobService ingestJobService;
+    @MockitoBean
+    private CurrencyStatsBatchService currencyStatsBatchService;
+    @MockitoBean
+    private TickStreamService tickStreamService;
+    @MockitoBean
+    private ChunkedUploadService chunkedUploadService;
 
     @Autowired
     private MockMvc mockMvc;
 
     /**
-     * Sends multipart POST request with a CSV file and verifies the response status (201).
+     * Sends multipart POST request with a CSV file and verifies the response status (201) with the ingest result.
      * Also verifies that the service's createStats method is called.
      */
     @Test
     void createStatsSuccessfully() throws Exception {
         //given
         MockMultipartFile file = new MockMultipartFile("file", "test.csv", MediaType.MULTIPART_FORM_DATA_VALUE, "content".getBytes());
+        when(currencyStatsService.createStats(any(Resource.class)))
+                .thenReturn(new CurrencyStatsIngestDomain("BTC", 100, 50, 2000.0));
         //when & then
         mockMvc.perform(multipart("/currencies/stats")
                         .file(file))
-                .andExpect(status().isCreated());
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.symbol").value("BTC"))
+                .andExpect(jsonPath("$.rows").value(100))
+                .andExpect(jsonPath("$.elapsedMillis").value(50))
+                .andExpect(jsonPath("$.rowsPerSecond").value(2000.0));
         verify(currencyStatsService).createStats(any(Resource.class));
     }
 
+    /**
+     * Sends multipart POST request with a mixed-currency CSV file and verifies the response status (201)
+     * with the ingest result of every currency.
+     */
+    @Test
+    void createMixedStatsSuccessfully() throws Exception {
+        //given
+        MockMultipartFile file = new MockMultipartFile("file", "mixed.csv", MediaType.MULTIPART_FORM_DATA_VALUE, "content".getBytes());
+        when(currencyStatsService.createMixedStats(any(Resource.class))).thenReturn(List.of(
+                new CurrencyStatsIngestDomain("BTC", 100, 50, 2000.0),
+                new CurrencyStatsIngestDomain("ETH", 50, 50, 1000.0)));
+        //when & then
+        mockMvc.perform(multipart("/currencies/stats/mixed")
+                        .file(file))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$[0].symbol").value("BTC"))
+                .andExpect(jsonPath("$[0].rows").value(100))
+                .andExpect(jsonPath("$[1].symbol").value("ETH"))
+                .andExpect(jsonPath("$[1].rows").value(50));
+    }
+
+    /**
+     * Sends multipart POST request with several files and verifies the response status (200) with the result of every file.
+     */
+    @Test
+    void createStatsBatchSuccessfully() throws Exception {
+        //given
+        MockMultipartFile btcFile = new MockMultipartFile("files", "btc.csv", MediaType.MULTIPART_FORM_DATA_VALUE, "content".getBytes());
+        MockMultipartFile ethFile = new MockMultipartFile("files", "eth.csv", MediaType.MULTIPART_FORM_DATA_VALUE, "content".getBytes());
+        when(currencyStatsBatchService.createStats(anyList())).thenReturn(List.of(
+                new CurrencyStatsFileResultDomain("btc.csv", "BTC", 100, 50, 2000.0, null),
+                new CurrencyStatsFileResultDomain("eth.csv", null, 0, 0, 0.0, "Currency not found, need to enable the currency first")));
+        //when & then
+        mockMvc.perform(multipart("/currencies/stats/batch")
+                        .file(btcFile)
+                        .file(ethFile))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].fileName").value("btc.csv"))
+                .andExpect(jsonPath("$[0].rows").value(100))
+                .andExpect(jsonPath("$[1].fileName").value("eth.csv"))
+                .andExpect(jsonPath("$[1].error").value("Currency not found, need to enable the currency first"));
+    }
+
+    /**
+     * Sends multipart POST request with a CSV file for the asynchronous upload and verifies the response status (202)
+     * with the queued job.
+     */
+    @Test
+    void createStatsAsyncSuccessfully() throws Exception {
+        //given
+        MockMultipartFile file = new MockMultipartFile("file", "test.csv", MediaType.MULTIPART_FORM_DATA_VALUE, "content".getBytes());
+        UUID id = UUID.randomUUID();
+        when(ingestJobService.submit(any(Resource.class))).thenReturn(new IngestJobDomain(id, IngestJobStatus.QUEUED,
+                null, 0, 0, 7, 0, 0.0, null, null, LocalDateTime.of(2024, 1, 1, 10, 0), null));
+        //when & then
+        mockMvc.perform(multipart("/currencies/stats/jobs")
+                        .file(file))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.id").value(id.toString()))
+                .andExpect(jsonPath("$.status").value("QUEUED"))
+                .andExpect(jsonPath("$.totalBytes").value(7));
+    }
+
+    /**
+     * Sends multipart POST request for the asynchronous upload when the workers are saturated
+     * and verifies the response status (429).
+     */
+    @Test
+    void createStatsAsyncTooManyRequests() throws Exception {
+        //given
+        MockMultipartFile file = new MockMultipartFile("file", "test.csv", MediaType.MULTIPART_FORM_DATA_VALUE, "content".getBytes());
+        when(ingestJobService.submit(any(Resource.class)))
+                .thenThrow(new IngestJobRejectedException("Too many upload jobs in progress, retry later"));
+        //when & then
+        mockMvc.perform(multipart("/currencies/stats/jobs")
+                        .file(file))
+                .andExpect(status().isTooManyRequests());
+    }
+
+    /**
+     * Sends POST request with NDJSON ticks and verifies the response status (200) with the final acknowledgement
+     * written as NDJSON line after the stream is ingested.
+     */
+    @Test
+    void createStatsStreamSuccessfully() throws Exception {
+        //given
+        TickStream stream = mock(TickStream.class);
+        when(tickStreamService.getRequestTimeout()).thenReturn(Duration.ZERO);
+        when(tickStreamService.openStream()).thenReturn(stream);
+        when(stream.ingest(any(InputStream.class), any()))
+                .thenReturn(new TickStreamAckDomain(2, 2, 10, 200.0, true, null));
+        String ticks = """
+                {"timestamp":1641308400000,"symbol":"BTC","price":47111.11}
+                {"timestamp":1641492000000,"symbol":"BTC","price":43112.12}
+                """;
+        //when
+        MvcResult result = mockMvc.perform(post("/currencies/stats/stream")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content(ticks))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        //then
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string("{\"received\":2,\"rows\":2,\"elapsedMillis\":10,\"rowsPerSecond\":200.0,"
+                        + "\"finished\":true,\"error\":null}\n"));
+        verify(stream).close();
+    }
+
+    /**
+     * Sends POST request with NDJSON ticks when too many streams are open and verifies the response status (429).
+     */
+    @Test
+    void createStatsStreamTooManyRequests() throws Exception {
+        //given
+        when(tickStreamService.getRequestTimeout()).thenReturn(Duration.ZERO);
+        when(tickStreamService.openStream())
+                .thenThrow(new IngestJobRejectedException("Too many tick streams in progress, retry later"));
+        //when
+        MvcResult result = mockMvc.perform(post("/currencies/stats/stream")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content("{}"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        //then
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isTooManyRequests());
+    }
+
+    /**
+     * Sends PUT request with the chunk of the chunked upload and verifies that the start of the Content-Range
+     * is passed to the service and the response (200) contains the state of the upload.
+     */
+    @Test
+    void appendUploadChunkSuccessfully() throws Exception {
+        //given
+        UUID id = UUID.randomUUID();
+        byte[] chunk = "1641308400000,BTC,47111.11\n".getBytes();
+        when(chunkedUploadService.append(eq(id), eq(23L), any(InputStream.class))).thenReturn(new ChunkedUploadDomain(id,
+                "BTC", 50, 50, 1, LocalDateTime.of(2024, 1, 1, 10, 0), LocalDateTime.of(2024, 1, 1, 10, 1)));
+        //when & then
+        mockMvc.perform(put("/currencies/stats/uploads/{id}", id)
+                        .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                        .header(HttpHeaders.CONTENT_RANGE, "bytes 23-49/*")
+                        .content(chunk))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.symbol").value("BTC"))
+                .andExpect(jsonPath("$.receivedBytes").value(50))
+                .andExpect(jsonPath("$.committedBytes").value(50))
+                .andExpect(jsonPath("$.rows").value(1));
+    }
+
+    /**
+     * Sends PUT request with the malformed Content-Range and verifies the response status (416).
+     */
+    @Test
+    void appendUploadChunkWrongRange() throws Exception {
+        //given
+        UUID id = UUID.randomUUID();
+        //when & then
+        mockMvc.perform(put("/currencies/stats/uploads/{id}", id)
+                        .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                        .header(HttpHeaders.CONTENT_RANGE, "bytes 49-23/*")
+                        .content("content".getBytes()))
+                .andExpect(status().isRequestedRangeNotSatisfiable());
+        verifyNoInteractions(chunkedUploadService);
+    }
+
+    /**
+     * Sends GET request with the job id and verifies the response (200) with the progress of the job.
+     */
+    @Test
+    void getJobSuccessfully() throws Exception {
+        //given
+        UUID id = UUID.randomUUID();
+        when(ingestJobService.getJob(id)).thenReturn(new IngestJobDomain(id, IngestJobStatus.RUNNING,
+                null, 100, 50, 200, 1000, 100.0, 3000L, null, LocalDateTime.of(2024, 1, 1, 10, 0), null));
+        //when & then
+        mockMvc.perform(get("/currencies/stats/jobs/{id}", id))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("RUNNING"))
+                .andExpect(jsonPath("$.rows").value(100))
+                .andExpect(jsonPath("$.rowsPerSecond").value(100.0))
+                .andExpect(jsonPath("$.etaMillis").value(3000));
+    }
+
+    /**
+     * Sends GET request with the unknown job id and verifies the response status (404).
+     */
+    @Test
+    void getJobNotFound() throws Exception {
+        //given
+        UUID id = UUID.randomUUID();
+        when(ingestJobService.getJob(id)).thenThrow(new EntityNotFoundException("Job '%s' not found".formatted(id)));
+        //when & then
+        mockMvc.perform(get("/currencies/stats/jobs/{id}", id))
+                .andExpect(status().isNotFound());
+    }
+
     /**
      * Sends GET request with currency symbol and start/end dates and verifies the response (200) with correct json body.
      */
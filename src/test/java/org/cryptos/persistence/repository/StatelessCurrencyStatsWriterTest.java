@@ -0,0 +1,90 @@
+package org.cryptos.persistence.repository;
+
+import org.cryptos.persistence.entity.CurrencyEntity;
+import org.cryptos.persistence.entity.CurrencyStatsEntity;
+import org.cryptos.persistence.entity.CurrencyStatsRow;
+import org.hibernate.StatelessSession;
+import org.hibernate.Transaction;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class StatelessCurrencyStatsWriterTest {
+
+    private static final CurrencyEntity BTC = new CurrencyEntity("BTC");
+
+    @Mock
+    private StatelessSession session;
+    @Mock
+    private Transaction transaction;
+
+    @BeforeEach
+    void init() {
+        when(session.beginTransaction()).thenReturn(transaction);
+    }
+
+    /**
+     * Verifies that the transaction is committed every commit interval rows and once more on finish.
+     * The session is mocked, so no actual database query occurs.
+     */
+    @Test
+    void commitEveryCommitIntervalRows() {
+        // given
+        var writer = new StatelessCurrencyStatsWriter(session, 2, symbol -> BTC);
+
+        // when
+        writer.write(List.of(row("1"), row("2"), row("3")));
+        writer.write(List.of(row("4"), row("5")));
+        long writtenRows = writer.finish();
+        writer.close();
+
+        // then
+        assertEquals(5, writtenRows);
+        verify(session, times(5)).insert(any(CurrencyStatsEntity.class));
+        // 2 interval commits and the final one
+        verify(transaction, times(3)).commit();
+        verify(session, times(3)).beginTransaction();
+        verify(session).close();
+    }
+
+    /**
+     * Verifies that the pending transaction is rolled back and the session is closed when the write fails.
+     * The session is mocked, so no actual database query occurs.
+     */
+    @Test
+    void rollbackPendingTransactionOnFailure() {
+        // given
+        var writer = new StatelessCurrencyStatsWriter(session, 0, symbol -> BTC);
+        doThrow(new IllegalStateException("insert failed")).when(session).insert(any(CurrencyStatsEntity.class));
+        when(transaction.isActive()).thenReturn(true);
+
+        // when
+        assertThrows(IllegalStateException.class, () -> writer.write(List.of(row("1"))));
+        writer.close();
+
+        // then
+        verify(transaction, never()).commit();
+        verify(transaction).rollback();
+        verify(session).close();
+    }
+
+    private CurrencyStatsRow row(String price) {
+        return new CurrencyStatsRow("BTC", LocalDateTime.of(2024, 1, 1, 0, 0), new BigDecimal(price));
+    }
+}
@@ -0,0 +1,208 @@
+package org.cryptos.service;
+
+import org.cryptos.service.domain.ChunkedUploadDomain;
+import org.cryptos.service.domain.CurrencyStatsIngestDomain;
+import org.cryptos.service.exception.CSVFileProcessException;
+import org.cryptos.service.exception.EntityNotFoundException;
+import org.cryptos.service.exception.UploadRangeException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ChunkedUploadServiceTest {
+
+    private static final String HEADER = "Timestamp,Symbol,Price\n";
+    private static final String FIRST_LINE = "1641308400000,BTC,47111.11\n";
+    private static final String SECOND_LINE = "1641492000000,BTC,43112.12\n";
+
+    private final CurrencyStatsService currencyStatsService = mock(CurrencyStatsService.class);
+    private final List<String> storedParts = new ArrayList<>();
+
+    @TempDir
+    private Path tempDir;
+
+    private ChunkedUploadService chunkedUploadService;
+
+    @BeforeEach
+    void setUp() {
+        chunkedUploadService = createService(tempDir);
+        when(currencyStatsService.createStatsPart(any(InputStream.class), any(), anyBoolean())).thenAnswer(invocation -> {
+            String part = readPart(invocation.getArgument(0));
+            storedParts.add(part);
+            long rows = part.lines().filter(line -> line.contains("BTC")).count();
+            return new CurrencyStatsIngestDomain("BTC", rows, 1, 1000.0);
+        });
+    }
+
+    /**
+     * Verifies that only the complete lines of the chunk are stored and the incomplete line waits for the next chunk.
+     */
+    @Test
+    void appendStoresCompleteLines() {
+        // given
+        UUID id = chunkedUploadService.create().id();
+        String chunk = HEADER + FIRST_LINE + SECOND_LINE.substring(0, 10);
+
+        // when
+        ChunkedUploadDomain result = chunkedUploadService.append(id, 0, toStream(chunk));
+
+        // then
+        assertEquals(List.of(HEADER + FIRST_LINE), storedParts);
+        assertEquals("BTC", result.symbol());
+        assertEquals(chunk.length(), result.receivedBytes());
+        assertEquals(HEADER.length() + FIRST_LINE.length(), result.committedBytes());
+        assertEquals(1, result.rows());
+    }
+
+    /**
+     * Verifies that the upload is resumed after the restart and the bytes of the retried chunk received before
+     * are skipped, so every line is stored once.
+     */
+    @Test
+    void appendResumesAfterRestartSkippingReceivedBytes() {
+        // given
+        UUID id = chunkedUploadService.create().id();
+        chunkedUploadService.append(id, 0, toStream(HEADER + FIRST_LINE + SECOND_LINE.substring(0, 10)));
+        chunkedUploadService = createService(tempDir);
+        long offset = HEADER.length() + FIRST_LINE.length();
+
+        // when
+        ChunkedUploadDomain result = chunkedUploadService.append(id, offset, toStream(SECOND_LINE));
+
+        // then
+        assertEquals(List.of(HEADER + FIRST_LINE, SECOND_LINE), storedParts);
+        assertEquals(offset + SECOND_LINE.length(), result.receivedBytes());
+        assertEquals(offset + SECOND_LINE.length(), result.committedBytes());
+        assertEquals(2, result.rows());
+        verify(currencyStatsService, never()).createStatsPart(any(InputStream.class), any(), eq(true));
+    }
+
+    /**
+     * Verifies that the part stored right before a crash, but not saved as committed, is stored again
+     * after the restart ignoring the existing rows.
+     */
+    @Test
+    void appendStoresPendingPartIgnoringDuplicatesAfterCrash() throws IOException {
+        // given
+        UUID id = chunkedUploadService.create().id();
+        Path crashedDir = Files.createDirectory(tempDir.resolve("crashed"));
+        when(currencyStatsService.createStatsPart(any(InputStream.class), isNull(), eq(false))).thenAnswer(invocation -> {
+            storedParts.add(readPart(invocation.getArgument(0)));
+            copyFiles(tempDir, crashedDir);
+            return new CurrencyStatsIngestDomain("BTC", 1, 1, 1000.0);
+        });
+        chunkedUploadService.append(id, 0, toStream(HEADER + FIRST_LINE));
+        chunkedUploadService = createService(crashedDir);
+
+        // when
+        ChunkedUploadDomain result = chunkedUploadService.append(id, 0, toStream(HEADER + FIRST_LINE + SECOND_LINE));
+
+        // then
+        assertEquals(List.of(HEADER + FIRST_LINE, HEADER + FIRST_LINE + SECOND_LINE), storedParts);
+        verify(currencyStatsService).createStatsPart(any(InputStream.class), isNull(), eq(true));
+        assertEquals(HEADER.length() + FIRST_LINE.length() + SECOND_LINE.length(), result.committedBytes());
+    }
+
+    /**
+     * Verifies that the chunk starting after the received bytes is rejected.
+     */
+    @Test
+    void appendRejectsChunkAfterReceivedBytes() {
+        // given
+        UUID id = chunkedUploadService.create().id();
+
+        // when & then
+        assertThrows(UploadRangeException.class, () -> chunkedUploadService.append(id, 10, toStream(FIRST_LINE)));
+    }
+
+    /**
+     * Verifies that the received bytes are discarded after the last stored line, if the lines are rejected.
+     */
+    @Test
+    void appendDiscardsRejectedLines() {
+        // given
+        UUID id = chunkedUploadService.create().id();
+        doThrow(new CSVFileProcessException("CSV file must contain exactly 3 columns per line"))
+                .when(currencyStatsService).createStatsPart(any(InputStream.class), isNull(), anyBoolean());
+
+        // when
+        assertThrows(CSVFileProcessException.class,
+                () -> chunkedUploadService.append(id, 0, toStream(HEADER + "1641308400000,BTC\n")));
+
+        // then
+        ChunkedUploadDomain result = chunkedUploadService.getUpload(id);
+        assertEquals(0, result.receivedBytes());
+        assertEquals(0, result.committedBytes());
+        assertNull(result.symbol());
+    }
+
+    /**
+     * Verifies that the last line without the line break is stored on the completion and the upload is deleted.
+     */
+    @Test
+    void completeStoresLastLine() throws IOException {
+        // given
+        UUID id = chunkedUploadService.create().id();
+        chunkedUploadService.append(id, 0, toStream(HEADER + FIRST_LINE + SECOND_LINE.strip()));
+
+        // when
+        CurrencyStatsIngestDomain result = chunkedUploadService.complete(id);
+
+        // then
+        assertEquals(List.of(HEADER + FIRST_LINE, SECOND_LINE.strip()), storedParts);
+        assertEquals("BTC", result.symbol());
+        assertEquals(2, result.rows());
+        assertTrue(result.rowsPerSecond() > 0);
+        assertThrows(EntityNotFoundException.class, () -> chunkedUploadService.getUpload(id));
+        try (var files = Files.list(tempDir)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    private ChunkedUploadService createService(Path directory) {
+        return new ChunkedUploadService(currencyStatsService, directory, Duration.ofHours(1));
+    }
+
+    private static void copyFiles(Path source, Path target) throws IOException {
+        try (var files = Files.list(source)) {
+            for (Path file : files.filter(Files::isRegularFile).toList()) {
+                Files.copy(file, target.resolve(file.getFileName()));
+            }
+        }
+    }
+
+    private static InputStream toStream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String readPart(InputStream part) throws IOException {
+        try (part) {
+            return new String(part.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package org.cryptos.service;
+
+import org.cryptos.service.domain.CurrencyStatsFileResultDomain;
+import org.cryptos.service.domain.CurrencyStatsIngestDomain;
+import org.cryptos.service.exception.EntityNotFoundException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class CurrencyStatsBatchServiceTest {
+
+    @Mock
+    private CurrencyStatsService currencyStatsService;
+
+    private CurrencyStatsBatchService currencyStatsBatchService;
+
+    @BeforeEach
+    void init() {
+        currencyStatsBatchService = new CurrencyStatsBatchService(currencyStatsService, 2);
+    }
+
+    @AfterEach
+    void shutdown() {
+        currencyStatsBatchService.shutdown();
+    }
+
+    /**
+     * Verifies that every plain CSV file and every CSV entry of the ZIP archive is stored, the other entries
+     * are skipped, the failed file is reported without affecting the others and the results keep the upload order.
+     */
+    @Test
+    void createStatsOfFilesAndZipEntries() throws IOException {
+        // given
+        when(currencyStatsService.createStats(any(Resource.class))).thenAnswer(invocation -> {
+            Resource resource = invocation.getArgument(0);
+            String symbol = readSymbol(resource);
+            if (symbol.equals("XRP")) {
+                throw new EntityNotFoundException("Currency not found, need to enable the currency first");
+            }
+            return new CurrencyStatsIngestDomain(symbol, 1, 10, 100.0);
+        });
+        Resource btcFile = csvFile("btc.csv", "BTC");
+        Resource archive = zipFile("prices.zip",
+                csvFile("ETH_values.csv", "ETH"), csvFile("readme.txt", "TXT"), csvFile("XRP_values.csv", "XRP"));
+
+        // when
+        List<CurrencyStatsFileResultDomain> results = currencyStatsBatchService.createStats(List.of(btcFile, archive));
+
+        // then
+        assertEquals(3, results.size());
+        assertEquals("btc.csv", results.get(0).fileName());
+        assertEquals("BTC", results.get(0).symbol());
+        assertEquals("prices.zip!/ETH_values.csv", results.get(1).fileName());
+        assertEquals("ETH", results.get(1).symbol());
+        assertEquals(1, results.get(1).rows());
+        assertNull(results.get(1).error());
+        assertEquals("prices.zip!/XRP_values.csv", results.get(2).fileName());
+        assertNull(results.get(2).symbol());
+        assertEquals("Currency not found, need to enable the currency first", results.get(2).error());
+    }
+
+    private String readSymbol(Resource resource) throws IOException {
+        try (InputStream inputStream = resource.getInputStream()) {
+            String content = new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
+            return content.lines().skip(1).findFirst().orElseThrow().split(",")[1];
+        }
+    }
+
+    private Resource csvFile(String fileName, String symbol) {
+        byte[] content = """
+                timestamp,symbol,price
+                1641009600000,%s,46813.21
+                """.formatted(symbol).getBytes(StandardCharsets.UTF_8);
+        return namedResource(fileName, content);
+    }
+
+    private Resource zipFile(String fileName, Resource... entries) throws IOException {
+        var bytes = new ByteArrayOutputStream();
+        try (var zip = new ZipOutputStream(bytes)) {
+            for (Resource entry : entries) {
+                zip.putNextEntry(new ZipEntry(entry.getFilename()));
+                zip.write(entry.getContentAsByteArray());
+                zip.closeEntry();
+            }
+        }
+        return namedResource(fileName, bytes.toByteArray());
+    }
+
+    private Resource namedResource(String fileName, byte[] content) {
+        return new ByteArrayResource(content) {
+            @Override
+            public String getFilename() {
+                return fileName;
+            }
+        };
+    }
+}
@@ -0,0 +1,99 @@
+package org.cryptos.service;
+
+import org.cryptos.service.domain.CurrencyStatsFileResultDomain;
+import org.cryptos.service.domain.CurrencyStatsIngestDomain;
+import org.cryptos.service.exception.EntityNotFoundException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CurrencyStatsBootstrapJobTest {
+
+    private final CurrencyService currencyService = mock(CurrencyService.class);
+    private final CurrencyStatsService currencyStatsService = mock(CurrencyStatsService.class);
+
+    @TempDir
+    private Path tempDir;
+
+    /**
+     * Verifies that the missing currencies are created and all the CSV files are loaded, the largest first,
+     * while the other files of the directory are skipped.
+     */
+    @Test
+    void bootstrapCreatesCurrenciesAndLoadsAllFiles() throws IOException {
+        // given
+        Path btcFile = Files.writeString(tempDir.resolve("BTC_values.csv"), """
+                timestamp,symbol,price
+                1641009600000,BTC,46813.21
+                1641020400000,BTC,46979.61
+                """);
+        Path ethFile = Files.writeString(tempDir.resolve("ETH_values.csv"), """
+                timestamp,symbol,price
+                1641009600000,ETH,3715.32
+                """);
+        Files.writeString(tempDir.resolve("README.txt"), "not a CSV file");
+        when(currencyService.createIfAbsent("ETH")).thenReturn(true);
+        when(currencyStatsService.createStatsFromFile(btcFile)).thenReturn(new CurrencyStatsIngestDomain("BTC", 2, 10, 200.0));
+        when(currencyStatsService.createStatsFromFile(ethFile)).thenReturn(new CurrencyStatsIngestDomain("ETH", 1, 10, 100.0));
+
+        // when
+        List<CurrencyStatsFileResultDomain> results = createJob().bootstrap();
+
+        // then
+        verify(currencyService).createIfAbsent("BTC");
+        verify(currencyService).createIfAbsent("ETH");
+        assertEquals(2, results.size());
+        assertEquals("BTC_values.csv", results.get(0).fileName());
+        assertEquals(2, results.get(0).rows());
+        assertEquals("ETH_values.csv", results.get(1).fileName());
+        assertEquals(1, results.get(1).rows());
+        assertNull(results.get(1).error());
+    }
+
+    /**
+     * Verifies that the failed files are reported in the results and do not stop the other files.
+     */
+    @Test
+    void bootstrapReportsFailedFiles() throws IOException {
+        // given
+        Path btcFile = Files.writeString(tempDir.resolve("BTC_values.csv"), """
+                timestamp,symbol,price
+                1641009600000,BTC,46813.21
+                """);
+        Path emptyFile = Files.writeString(tempDir.resolve("empty.csv"), "timestamp,symbol,price\n");
+        Path ethFile = Files.writeString(tempDir.resolve("ETH_values.csv"), """
+                timestamp,symbol,price
+                1641009600000,ETH,3715.32
+                1641020400000,ETH,3697.38
+                """);
+        when(currencyStatsService.createStatsFromFile(btcFile)).thenReturn(new CurrencyStatsIngestDomain("BTC", 1, 10, 100.0));
+        when(currencyStatsService.createStatsFromFile(ethFile))
+                .thenThrow(new EntityNotFoundException("Currency not found, need to enable the currency first"));
+
+        // when
+        List<CurrencyStatsFileResultDomain> results = createJob().bootstrap();
+
+        // then
+        verify(currencyStatsService, never()).createStatsFromFile(emptyFile);
+        assertEquals(List.of("ETH_values.csv", "BTC_values.csv", "empty.csv"),
+                results.stream().map(CurrencyStatsFileResultDomain::fileName).toList());
+        assertEquals("Currency not found, need to enable the currency first", results.get(0).error());
+        assertEquals(1, results.get(1).rows());
+        assertEquals("CSV file does not contain any statistics", results.get(2).error());
+    }
+
+    private CurrencyStatsBootstrapJob createJob() {
+        return new CurrencyStatsBootstrapJob(currencyService, currencyStatsService, tempDir, 2);
+    }
+}
@@ -1,45 +1,79 @@
 package org.cryptos.service;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
 import org.cryptos.persistence.entity.CurrencyEntity;
 import org.cryptos.persistence.entity.CurrencyNormalizedPriceProjection;
 import org.cryptos.persistence.entity.CurrencyStatsEntity;
 import org.cryptos.persistence.entity.CurrencyStatsMinMaxProjection;
+import org.cryptos.persistence.entity.CurrencyStatsRow;
+import org.cryptos.persistence.repository.ConflictAction;
 import org.cryptos.persistence.repository.CurrencyRepository;
+import org.cryptos.persistence.repository.CurrencyStatsBulkRepository;
 import org.cryptos.persistence.repository.CurrencyStatsRepository;
+import org.cryptos.persistence.repository.CurrencyStatsStatelessRepository;
+import org.cryptos.persistence.repository.CurrencyStatsWriter;
+import org.cryptos.service.cache.CurrencyStatsCache;
+import org.cryptos.service.cache.TimeWindowSnapper;
 import org.cryptos.service.domain.CurrencyNormalizedPriceDomain;
+import org.cryptos.service.domain.CurrencyStatsIngestDomain;
 import org.cryptos.service.domain.CurrencyStatsMinMaxDomain;
 import org.cryptos.service.exception.CSVFileProcessException;
 import org.cryptos.service.exception.EntityNotFoundException;
 import org.cryptos.service.exception.WrongTimePeriodException;
+import org.cryptos.service.ingest.AdaptiveBatchSizer;
+import org.cryptos.service.ingest.CsvParserType;
+import org.cryptos.service.ingest.CurrencyIngestLock;
+import org.cryptos.service.ingest.CurrencyStatsTick;
+import org.cryptos.service.ingest.IngestMode;
+import org.cryptos.service.ingest.IngestPipeline;
+import org.cryptos.service.ingest.IngestProgressListener;
+import org.cryptos.service.ingest.StatelessSessionLimiter;
+import org.cryptos.service.rollup.CurrencyStatsRollups;
+import org.cryptos.service.series.PriceSeriesStore;
+import org.cryptos.service.series.StatsBackend;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.io.ByteArrayResource;
 import org.springframework.core.io.Resource;
 import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.math.BigDecimal;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.LocalDate;
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.Period;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.zip.GZIPOutputStream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -52,12 +86,38 @@ class CurrencyStatsServiceTest {
     @Mock
     private CurrencyStatsRepository currencyStatsRepository;
     @Mock
+    private CurrencyStatsBulkRepository currencyStatsBulkRepository;
+    @Mock
+    private CurrencyStatsStatelessRepository currencyStatsStatelessRepository;
+    @Mock
+    private EntityManager entityManager;
+    @Mock
+    private CurrencyStatsWriter currencyStatsWriter;
+    @Mock
     private Resource resource;
+    @Mock
+    private CurrencyIngestLock currencyIngestLock;
+    @Spy
+    private StatelessSessionLimiter statelessSessionLimiter = new StatelessSessionLimiter(2, 5, Duration.ofSeconds(1));
+    @Spy
+    private AdaptiveBatchSizer adaptiveBatchSizer = new AdaptiveBatchSizer(false, 30, 30, 10000, 100,
+            Duration.ofMillis(250), new SimpleMeterRegistry());
+    @Spy
+    private PriceSeriesStore priceSeriesStore = new PriceSeriesStore(StatsBackend.DB, IngestMode.JPA, null);
+    @Spy
+    private CurrencyStatsRollups currencyStatsRollups = new CurrencyStatsRollups(false, IngestMode.JPA, null, null);
+    @Spy
+    private CurrencyStatsCache currencyStatsCache = new CurrencyStatsCache(false, 1000, Duration.ofMinutes(10),
+            new SimpleMeterRegistry());
+    @Spy
+    private TimeWindowSnapper timeWindowSnapper = new TimeWindowSnapper(Duration.ofMinutes(1), new SimpleMeterRegistry());
     @InjectMocks
     private CurrencyStatsService currencyStatsService;
 
     @Captor
     private ArgumentCaptor<List<CurrencyStatsEntity>> currencyStatsRepoCaptor;
+    @Captor
+    private ArgumentCaptor<List<CurrencyStatsRow>> currencyStatsRowsCaptor;
 
     @BeforeEach
     void init() {
@@ -78,7 +138,7 @@ class CurrencyStatsServiceTest {
         when(currencyRepository.findById("BTC")).thenReturn(Optional.of(new CurrencyEntity("BTC")));
 
         // when
-        currencyStatsService.createStats(resource);
+        CurrencyStatsIngestDomain result = currencyStatsService.createStats(resource);
 
         // then
         verify(currencyRepository, times(1)).findById("BTC");
@@ -87,6 +147,439 @@ class CurrencyStatsServiceTest {
 
         validateFirstBatch(capturedValues.getFirst());
         validateLastBatch(capturedValues.getLast());
+        verify(entityManager, times(2)).clear();
+        assertEquals("BTC", result.symbol());
+        assertEquals(3, result.rows());
+        assertTrue(result.rowsPerSecond() > 0);
+    }
+
+    /**
+     * Verifies that in the bulk mode the rows are streamed into the bulk writer instead of JPA repository.
+     * The repositories are mocked, so no actual database query occurs.
+     */
+    @Test
+    void createStatsInBulkModeSuccessfully() throws IOException {
+        // given
+        ReflectionTestUtils.setField(currencyStatsService, "ingestMode", IngestMode.BULK);
+        String csvContent = """
+                Timestamp,Symbol,Price
+                1641308400000,BTC,47111.11
+                1641492000000,BTC,43112.12
+                1643626800000,BTC,37115.15
+                """;
+        when(resource.getInputStream()).thenReturn(new ByteArrayInputStream(csvContent.getBytes(StandardCharsets.UTF_8)));
+        when(currencyRepository.findById("BTC")).thenReturn(Optional.of(new CurrencyEntity("BTC")));
+        when(currencyStatsBulkRepository.openWriter()).thenReturn(currencyStatsWriter);
+        when(currencyStatsWriter.finish()).thenReturn(3L);
+
+        // when
+        CurrencyStatsIngestDomain result = currencyStatsService.createStats(resource);
+
+        // then
+        verify(currencyStatsWriter, times(2)).write(currencyStatsRowsCaptor.capture());
+        verify(currencyStatsWriter).close();
+        verify(currencyStatsRepository, never()).saveAll(any());
+        List<List<CurrencyStatsRow>> capturedValues = currencyStatsRowsCaptor.getAllValues();
+        assertEquals(2, capturedValues.getFirst().size());
+        assertEquals(1, capturedValues.getLast().size());
+        CurrencyStatsRow lastRow = capturedValues.getLast().getFirst();
+        assertEquals("BTC", lastRow.symbol());
+        assertEquals(1643626800000L, toMillis(lastRow.dateTime()));
+        assertEquals(new BigDecimal("37115.15"), lastRow.price());
+        assertEquals(3, result.rows());
+    }
+
+    /**
+     * Verifies that with the pipeline enabled the batches parsed on the reading thread are written
+     * on the calling thread in the order of the file.
+     */
+    @Test
+    void createStatsPipelined() throws IOException {
+        // given
+        ReflectionTestUtils.setField(currencyStatsService, "ingestMode", IngestMode.BULK);
+        ReflectionTestUtils.setField(currencyStatsService, "pipelineEnabled", true);
+        var ingestPipeline = new IngestPipeline(1, 1, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(currencyStatsService, "ingestPipeline", ingestPipeline);
+        String csvContent = """
+                Timestamp,Symbol,Price
+                1641308400000,BTC,47111.11
+                1641492000000,BTC,43112.12
+                1643626800000,BTC,37115.15
+                """;
+        when(resource.getInputStream()).thenReturn(new ByteArrayInputStream(csvContent.getBytes(StandardCharsets.UTF_8)));
+        when(currencyRepository.findById("BTC")).thenReturn(Optional.of(new CurrencyEntity("BTC")));
+        when(currencyStatsBulkRepository.openWriter()).thenReturn(currencyStatsWriter);
+        when(currencyStatsWriter.finish()).thenReturn(3L);
+
+        // when
+        CurrencyStatsIngestDomain result;
+        try {
+            result = currencyStatsService.createStats(resource);
+        } finally {
+            ingestPipeline.shutdown();
+        }
+
+        // then
+        verify(currencyStatsWriter, times(2)).write(currencyStatsRowsCaptor.capture());
+        List<List<CurrencyStatsRow>> capturedValues = currencyStatsRowsCaptor.getAllValues();
+        assertEquals(2, capturedValues.getFirst().size());
+        assertEquals(1641308400000L, toMillis(capturedValues.getFirst().getFirst().dateTime()));
+        assertEquals(1643626800000L, toMillis(capturedValues.getLast().getFirst().dateTime()));
+        assertEquals(3, result.rows());
+    }
+
+    /**
+     * Verifies that the gzip compressed file is detected by its magic bytes and decompressed while parsing.
+     */
+    @Test
+    void createStatsFromGzipCompressedFile() throws IOException {
+        // given
+        ReflectionTestUtils.setField(currencyStatsService, "ingestMode", IngestMode.BULK);
+        String csvContent = """
+                Timestamp,Symbol,Price
+                1641308400000,BTC,47111.11
+                1641492000000,BTC,43112.12
+                1643626800000,BTC,37115.15
+                """;
+        var compressed = new ByteArrayOutputStream();
+        try (var gzipOutputStream = new GZIPOutputStream(compressed)) {
+            gzipOutputStream.write(csvContent.getBytes(StandardCharsets.UTF_8));
+        }
+        when(resource.getInputStream()).thenReturn(new ByteArrayInputStream(compressed.toByteArray()));
+        when(currencyRepository.findById("BTC")).thenReturn(Optional.of(new CurrencyEntity("BTC")));
+        when(currencyStatsBulkRepository.openWriter()).thenReturn(currencyStatsWriter);
+        when(currencyStatsWriter.finish()).thenReturn(3L);
+
+        // when
+        CurrencyStatsIngestDomain result = currencyStatsService.createStats(resource);
+
+        // then
+        verify(currencyStatsWriter, times(2)).write(currencyStatsRowsCaptor.capture());
+        CurrencyStatsRow lastRow = currencyStatsRowsCaptor.getAllValues().getLast().getFirst();
+        assertEquals(1643626800000L, toMillis(lastRow.dateTime()));
+        assertEquals(new BigDecimal("37115.15"), lastRow.price());
+        assertEquals(3, result.rows());
+    }
+
+    /**
+     * Verifies that the next part of the chunked upload is stored without the header and validated against
+     * the currency of the upload.
+     */
+    @Test
+    void createStatsPartOfChunkedUpload() {
+        // given
+        ReflectionTestUtils.setField(currencyStatsService, "ingestMode", IngestMode.BULK);
+        String csvContent = """
+                1641492000000,BTC,43112.12
+                1643626800000,BTC,37115.15
+                """;
+        when(currencyRepository.findById("BTC")).thenReturn(Optional.of(new CurrencyEntity("BTC")));
+        when(currencyStatsBulkRepository.openWriter()).thenReturn(currencyStatsWriter);
+        when(currencyStatsWriter.finish()).thenReturn(2L);
+
+        // when
+        CurrencyStatsIngestDomain result = currencyStatsService.createStatsPart(
+                new ByteArrayInputStream(csvContent.getBytes(StandardCharsets.UTF_8)), "BTC", false);
+
+        // then
+        InOrder lockOrder = inOrder(currencyIngestLock, currencyStatsRepository);
+        lockOrder.verify(currencyIngestLock).lock(List.of("BTC"));
+        lockOrder.verify(currencyStatsRepository).findNewestDateTimeBySymbol("BTC");
+        verify(currencyStatsWriter, times(1)).write(currencyStatsRowsCaptor.capture());
+        List<CurrencyStatsRow> writtenRows = currencyStatsRowsCaptor.getValue();
+        assertEquals(2, writtenRows.size());
+        assertEquals(1641492000000L, toMillis(writtenRows.getFirst().dateTime()));
+        assertEquals("BTC", result.symbol());
+        assertEquals(2, result.rows());
+    }
+
+    /**
+     * Verifies that the part which may have been stored before is written by the upsert writer skipping
+     * the existing rows instead of the writer of the configured mode.
+     */
+    @Test
+    void createStatsPartIgnoringDuplicates() {
+        // given
+        ReflectionTestUtils.setField(currencyStatsService, "ingestMode", IngestMode.BULK);
+        String csvContent = """
+                1641492000000,BTC,43112.12
+                """;
+        when(currencyRepository.findById("BTC")).thenReturn(Optional.of(new CurrencyEntity("BTC")));
+        when(currencyStatsBulkRepository.openUpsertWriter(ConflictAction.NOTHING)).thenReturn(currencyStatsWriter);
+
+        // when
+        currencyStatsService.createStatsPart(
+                new ByteArrayInputStream(csvContent.getBytes(StandardCharsets.UTF_8)), "BTC", true);
+
+        // then
+        verify(currencyStatsWriter).write(any());
+        verify(currencyStatsBulkRepository, never()).openWriter();
+    }
+
+    /**
+     * Verifies that in the incremental mode the rows at or before the newest stored date and time are skipped
+     * and only the new tail of the file is written. The currency is locked before its watermark is read.
+     */
+    @Test
+    void createStatsIncrementallySkipsRowsBeforeWatermark() throws IOException {
+        // given
+        ReflectionTestUtils.setField(currencyStatsService, "ingestMode", IngestMode.BULK);
+        ReflectionTestUtils.setField(currencyStatsService, "incremental", true);
+        String csvContent = """
+                Timestamp,Symbol,Price
+                1641308400000,BTC,47111.11
+                1641492000000,BTC,43112.12
+                1643626800000,BTC,37115.15
+                """;
+        when(resource.getInputStream()).thenReturn(new ByteArrayInputStream(csvContent.getBytes(StandardCharsets.UTF_8)));
+        when(currencyRepository.findById("BTC")).thenReturn(Optional.of(new CurrencyEntity("BTC")));
+        when(currencyStatsRepository.findNewestDateTimeBySymbol("BTC"))
+                .thenReturn(Optional.of(LocalDateTime.ofInstant(Instant.ofEpochMilli(1641492000000L), ZoneId.systemDefault())));
+        when(currencyStatsBulkRepository.openWriter()).thenReturn(currencyStatsWriter);
+        when(currencyStatsWriter.finish()).thenReturn(1L);
+
+        // when
+        CurrencyStatsIngestDomain result = currencyStatsService.createStats(resource);
+
+        // then
+        verify(currencyStatsWriter, times(1)).write(currencyStatsRowsCaptor.capture());
+        List<CurrencyStatsRow> writtenRows = currencyStatsRowsCaptor.getValue();
+        assertEquals(1, writtenRows.size());
+        assertEquals(1643626800000L, toMillis(writtenRows.getFirst().dateTime()));
+        assertEquals(1, result.rows());
+    }
+
+    /**
+     * Verifies that the progress listener receives the number of written rows and parsed bytes after every batch.
+     */
+    @Test
+    void createStatsReportsProgressAfterEveryBatch() throws IOException {
+        // given
+        String csvContent = """
+                Timestamp,Symbol,Price
+                1641308400000,BTC,47111.11
+                1641492000000,BTC,43112.12
+                1643626800000,BTC,37115.15
+                """;
+        byte[] bytes = csvContent.getBytes(StandardCharsets.UTF_8);
+        when(resource.getInputStream()).thenReturn(new ByteArrayInputStream(bytes));
+        when(currencyRepository.findById("BTC")).thenReturn(Optional.of(new CurrencyEntity("BTC")));
+        IngestProgressListener progressListener = mock(IngestProgressListener.class);
+
+        // when
+        currencyStatsService.createStats(resource, progressListener);
+
+        // then
+        verify(progressListener).onProgress(eq(2L), anyLong());
+        verify(progressListener).onProgress(3L, bytes.length);
+    }
+
+    /**
+     * Verifies that the interleaved rows of multiple currencies are routed into the batches per currency,
+     * every batch is written independently and the currencies are resolved and locked once before the parsing.
+     */
+    @Test
+    void createMixedStatsSuccessfully() throws IOException {
+        // given
+        ReflectionTestUtils.setField(currencyStatsService, "ingestMode", IngestMode.BULK);
+        String csvContent = """
+                Timestamp,Symbol,Price
+                1641308400000,BTC,47111.11
+                1641308400000,ETH,3715.32
+                1641492000000,btc,43112.12
+                1643626800000,BTC,37115.15
+                """;
+        when(resource.getInputStream()).thenReturn(new ByteArrayInputStream(csvContent.getBytes(StandardCharsets.UTF_8)));
+        when(currencyRepository.findAll()).thenReturn(List.of(new CurrencyEntity("BTC"), new CurrencyEntity("ETH")));
+        when(currencyStatsBulkRepository.openWriter()).thenReturn(currencyStatsWriter);
+
+        // when
+        List<CurrencyStatsIngestDomain> result = currencyStatsService.createMixedStats(resource);
+
+        // then
+        verify(currencyRepository, never()).findById(any());
+        verify(currencyIngestLock).lock(Set.of("BTC", "ETH"));
+        verify(currencyStatsWriter, times(3)).write(currencyStatsRowsCaptor.capture());
+        List<List<CurrencyStatsRow>> capturedValues = currencyStatsRowsCaptor.getAllValues();
+        assertEquals(List.of("BTC", "BTC"), capturedValues.get(0).stream().map(CurrencyStatsRow::symbol).toList());
+        assertEquals(List.of("BTC"), capturedValues.get(1).stream().map(CurrencyStatsRow::symbol).toList());
+        assertEquals(List.of("ETH"), capturedValues.get(2).stream().map(CurrencyStatsRow::symbol).toList());
+        assertEquals(2, result.size());
+        assertEquals("BTC", result.get(0).symbol());
+        assertEquals(3, result.get(0).rows());
+        assertEquals("ETH", result.get(1).symbol());
+        assertEquals(1, result.get(1).rows());
+    }
+
+    /**
+     * Verifies that the ticks of multiple currencies from the live stream are written as one batch
+     * with the currencies resolved ignoring case.
+     */
+    @Test
+    void createTicksSuccessfully() {
+        // given
+        ReflectionTestUtils.setField(currencyStatsService, "ingestMode", IngestMode.BULK);
+        when(currencyRepository.findAll()).thenReturn(List.of(new CurrencyEntity("BTC"), new CurrencyEntity("ETH")));
+        when(currencyStatsBulkRepository.openWriter()).thenReturn(currencyStatsWriter);
+        when(currencyStatsWriter.finish()).thenReturn(2L);
+
+        // when
+        long rows = currencyStatsService.createTicks(List.of(
+                new CurrencyStatsTick(1641308400000L, "btc", new BigDecimal("47111.11")),
+                new CurrencyStatsTick(1641308400000L, "ETH", new BigDecimal("3715.32"))));
+
+        // then
+        verify(currencyStatsWriter).write(currencyStatsRowsCaptor.capture());
+        List<CurrencyStatsRow> writtenRows = currencyStatsRowsCaptor.getValue();
+        assertEquals(List.of("BTC", "ETH"), writtenRows.stream().map(CurrencyStatsRow::symbol).toList());
+        assertEquals(1641308400000L, toMillis(writtenRows.getFirst().dateTime()));
+        assertEquals(new BigDecimal("3715.32"), writtenRows.getLast().price());
+        assertEquals(2, rows);
+    }
+
+    /**
+     * Verifies that with the rollups enabled all the currencies of the ticks are locked at once
+     * before the first row is written.
+     */
+    @Test
+    void createTicksLocksCurrenciesBeforeWriteWithRollups() {
+        // given
+        ReflectionTestUtils.setField(currencyStatsService, "ingestMode", IngestMode.BULK);
+        doReturn(true).when(currencyStatsRollups).isEnabled();
+        when(currencyRepository.findAll()).thenReturn(List.of(new CurrencyEntity("BTC"), new CurrencyEntity("ETH")));
+        when(currencyStatsBulkRepository.openWriter()).thenReturn(currencyStatsWriter);
+
+        // when
+        currencyStatsService.createTicks(List.of(
+                new CurrencyStatsTick(1641308400000L, "btc", new BigDecimal("47111.11")),
+                new CurrencyStatsTick(1641308400000L, "ETH", new BigDecimal("3715.32"))));
+
+        // then
+        var inOrder = inOrder(currencyIngestLock, currencyStatsWriter);
+        inOrder.verify(currencyIngestLock).lock(Set.of("BTC", "ETH"));
+        inOrder.verify(currencyStatsWriter).write(any());
+    }
+
+    /**
+     * Verifies that the ticks are validated ignoring case, and the tick of an unknown currency is rejected.
+     */
+    @Test
+    void validateTicksRejectsUnknownCurrency() {
+        // given
+        when(currencyRepository.findAll()).thenReturn(List.of(new CurrencyEntity("BTC")));
+        var btcTick = new CurrencyStatsTick(1641308400000L, "btc", new BigDecimal("47111.11"));
+        var xrpTick = new CurrencyStatsTick(1641308400000L, "XRP", new BigDecimal("0.83"));
+
+        // when & then
+        currencyStatsService.validateTicks(List.of(btcTick));
+        assertThrows(EntityNotFoundException.class, () -> currencyStatsService.validateTicks(List.of(btcTick, xrpTick)));
+    }
+
+    /**
+     * Verifies that {@link EntityNotFoundException} is thrown when the mixed file references an unknown currency.
+     */
+    @Test
+    void throwEntityNotFoundExceptionWhenMixedCurrencyUnknown() throws IOException {
+        // given
+        String csvContent = """
+                Timestamp,Symbol,Price
+                1641308400000,BTC,47111.11
+                1641308400000,XRP,0.83
+                """;
+        when(resource.getInputStream()).thenReturn(new ByteArrayInputStream(csvContent.getBytes(StandardCharsets.UTF_8)));
+        when(currencyRepository.findAll()).thenReturn(List.of(new CurrencyEntity("BTC")));
+
+        // when & then
+        EntityNotFoundException exception = assertThrows(EntityNotFoundException.class,
+                () -> currencyStatsService.createMixedStats(resource));
+        assertEquals("Currency 'XRP' not found, need to enable the currency first", exception.getMessage());
+    }
+
+    /**
+     * Verifies that the upsert replacing the existing prices parses the file sequentially even with the parallel
+     * parsing enabled, so the last of the repeated rows is written last.
+     */
+    @Test
+    void createStatsSequentiallyWhenUpsertReplacesPrices() {
+        // given
+        ReflectionTestUtils.setField(currencyStatsService, "ingestMode", IngestMode.UPSERT);
+        ReflectionTestUtils.setField(currencyStatsService, "conflictAction", ConflictAction.UPDATE);
+        ReflectionTestUtils.setField(currencyStatsService, "parallelEnabled", true);
+        ReflectionTestUtils.setField(currencyStatsService, "parallelMinFileSize", DataSize.ofBytes(0));
+        String csvContent = """
+                Timestamp,Symbol,Price
+                1641308400000,BTC,47111.11
+                1641308400000,BTC,47222.22
+                """;
+        when(currencyRepository.findById("BTC")).thenReturn(Optional.of(new CurrencyEntity("BTC")));
+        when(currencyStatsBulkRepository.openUpsertWriter(ConflictAction.UPDATE)).thenReturn(currencyStatsWriter);
+        when(currencyStatsWriter.finish()).thenReturn(1L);
+
+        // when
+        CurrencyStatsIngestDomain result = currencyStatsService.createStats(
+                new ByteArrayResource(csvContent.getBytes(StandardCharsets.UTF_8)));
+
+        // then
+        verify(currencyStatsWriter).write(currencyStatsRowsCaptor.capture());
+        assertEquals(List.of(new BigDecimal("47111.11"), new BigDecimal("47222.22")),
+                currencyStatsRowsCaptor.getValue().stream().map(CurrencyStatsRow::price).toList());
+        assertEquals(1, result.rows());
+    }
+
+    /**
+     * Verifies that in the stateless mode the rows are written by the stateless writer opened with the configured
+     * batch size and commit interval. The repositories are mocked, so no actual database query occurs.
+     */
+    @Test
+    void createStatsInStatelessModeSuccessfully() throws IOException {
+        // given
+        ReflectionTestUtils.setField(currencyStatsService, "ingestMode", IngestMode.STATELESS);
+        ReflectionTestUtils.setField(currencyStatsService, "commitInterval", 100);
+        String csvContent = """
+                Timestamp,Symbol,Price
+                1641308400000,BTC,47111.11
+                """;
+        when(resource.getInputStream()).thenReturn(new ByteArrayInputStream(csvContent.getBytes(StandardCharsets.UTF_8)));
+        when(currencyRepository.findById("BTC")).thenReturn(Optional.of(new CurrencyEntity("BTC")));
+        when(currencyStatsStatelessRepository.openWriter(any(), eq(2), eq(100))).thenReturn(currencyStatsWriter);
+        when(currencyStatsWriter.finish()).thenReturn(1L);
+
+        // when
+        CurrencyStatsIngestDomain result = currencyStatsService.createStats(resource);
+
+        // then
+        verify(currencyStatsWriter).write(currencyStatsRowsCaptor.capture());
+        verify(currencyStatsWriter).close();
+        verify(currencyStatsRepository, never()).saveAll(any());
+        assertEquals(1, currencyStatsRowsCaptor.getValue().size());
+        assertEquals(1, result.rows());
+    }
+
+    /**
+     * Verifies that the stats are parsed by the tick parser the same way as by opencsv.
+     * The repositories are mocked, so no actual database query occurs.
+     */
+    @Test
+    void createStatsWithTickParserSuccessfully() throws IOException {
+        // given
+        ReflectionTestUtils.setField(currencyStatsService, "parserType", CsvParserType.TICK);
+        String csvContent = """
+                Timestamp,Symbol,Price
+                1641308400000,BTC,47111.11
+                1641492000000,BTC,43112.12
+                1643626800000,BTC,37115.15
+                """;
+        when(resource.getInputStream()).thenReturn(new ByteArrayInputStream(csvContent.getBytes(StandardCharsets.UTF_8)));
+        when(currencyRepository.findById("BTC")).thenReturn(Optional.of(new CurrencyEntity("BTC")));
+
+        // when
+        currencyStatsService.createStats(resource);
+
+        // then
+        verify(currencyStatsRepository, times(2)).saveAll(currencyStatsRepoCaptor.capture());
+        List<List<CurrencyStatsEntity>> capturedValues = currencyStatsRepoCaptor.getAllValues();
+        validateFirstBatch(capturedValues.getFirst());
+        validateLastBatch(capturedValues.getLast());
     }
 
     @Test
@@ -206,6 +699,28 @@ class CurrencyStatsServiceTest {
         verify(currencyStatsRepository).findStatsBySymbol(symbol, startDateTime, endDateTime);
     }
 
+    /**
+     * Verifies that the stats are fetched from {@link PriceSeriesStore} once it is ready, not from the database.
+     */
+    @Test
+    void getCurrencyStatsFromMemory() {
+        // given
+        String symbol = "BTC";
+        LocalDateTime startDateTime = LocalDateTime.now().minusDays(30);
+        LocalDateTime endDateTime = LocalDateTime.now();
+        var stats = new CurrencyStatsMinMaxDomain(symbol, startDateTime, endDateTime,
+                new BigDecimal("50000"), new BigDecimal("60000"));
+        doReturn(true).when(priceSeriesStore).isReady();
+        doReturn(Optional.of(stats)).when(priceSeriesStore).findStats(symbol, startDateTime, endDateTime);
+
+        // when
+        CurrencyStatsMinMaxDomain result = currencyStatsService.getCurrencyStats(symbol, startDateTime, endDateTime);
+
+        // then
+        assertEquals(stats, result);
+        verify(currencyStatsRepository, never()).findStatsBySymbol(any(), any(), any());
+    }
+
     /**
      * Verifies that the stats are correctly fetched even when optional parameters startDateTime & endDateTime
      * are not provided. The repository is mocked, so no actual database query occurs.
@@ -227,6 +742,32 @@ class CurrencyStatsServiceTest {
         assertEquals(new BigDecimal("60000"), result.maxPrice());
     }
 
+    /**
+     * Verifies that the default period ends at the current date and time snapped up to the minute
+     * and starts the default period before it.
+     */
+    @Test
+    void getCurrencyStatsWithSnappedDefaultPeriod() {
+        // given
+        String symbol = "BTC";
+        LocalDateTime before = LocalDateTime.now();
+        CurrencyStatsMinMaxProjection projection = mockCurrencyStatsMinMaxProjection(symbol, before, before);
+        ArgumentCaptor<LocalDateTime> startCaptor = ArgumentCaptor.forClass(LocalDateTime.class);
+        ArgumentCaptor<LocalDateTime> endCaptor = ArgumentCaptor.forClass(LocalDateTime.class);
+        when(currencyStatsRepository.findStatsBySymbol(eq(symbol), startCaptor.capture(), endCaptor.capture()))
+                .thenReturn(Optional.of(projection));
+
+        // when
+        currencyStatsService.getCurrencyStats(symbol, null, null);
+
+        // then
+        LocalDateTime end = endCaptor.getValue();
+        assertEquals(0, end.getSecond());
+        assertEquals(0, end.getNano());
+        assertTrue(!end.isBefore(before) && end.isBefore(before.plusMinutes(1)));
+        assertEquals(end.minusDays(2), startCaptor.getValue());
+    }
+
     /**
      * Verifies that an exception is thrown if the repository returns empty data.
      * The repository is mocked, so no actual database query occurs.
@@ -0,0 +1,134 @@
+package org.cryptos.service;
+
+import org.cryptos.service.domain.CurrencyStatsIngestDomain;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InOrder;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CurrencyStatsWatchServiceTest {
+
+    private static final String HEADER = "Timestamp,Symbol,Price\n";
+    private static final String FIRST_LINE = "1641308400000,BTC,47111.11\n";
+    private static final String SECOND_LINE = "1641492000000,BTC,43112.12\n";
+    private static final String THIRD_LINE = "1643626800000,BTC,37115.15\n";
+
+    private final CurrencyStatsService currencyStatsService = mock(CurrencyStatsService.class);
+    private final List<String> storedParts = Collections.synchronizedList(new ArrayList<>());
+    private final List<String> storedSymbols = Collections.synchronizedList(new ArrayList<>());
+
+    @TempDir
+    private Path tempDir;
+
+    private Path directory;
+
+    @BeforeEach
+    void setUp() {
+        directory = tempDir.resolve("drops");
+        when(currencyStatsService.createStatsPart(any(InputStream.class), any(), anyBoolean())).thenAnswer(invocation -> {
+            String part;
+            try (InputStream inputStream = invocation.getArgument(0)) {
+                part = new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
+            }
+            storedParts.add(part);
+            storedSymbols.add(invocation.getArgument(1));
+            long rows = part.lines().filter(line -> line.contains("BTC")).count();
+            return new CurrencyStatsIngestDomain("BTC", rows, 1, 1000.0);
+        });
+    }
+
+    /**
+     * Verifies that only the complete lines are stored, and after the restart only the lines appended since then
+     * are stored with the currency of the file.
+     */
+    @Test
+    void storeAppendedLinesOnly() throws Exception {
+        // given
+        Files.createDirectories(directory);
+        Path file = Files.writeString(directory.resolve("BTC_values.csv"),
+                HEADER + FIRST_LINE + SECOND_LINE.substring(0, 10));
+        watchOnce(DataSize.ofMegabytes(16));
+
+        // when
+        Files.writeString(file, SECOND_LINE.substring(10) + THIRD_LINE, StandardOpenOption.APPEND);
+        watchOnce(DataSize.ofMegabytes(16));
+
+        // then
+        assertEquals(List.of(HEADER + FIRST_LINE, SECOND_LINE + THIRD_LINE), storedParts);
+        assertEquals(Arrays.asList(null, "BTC"), storedSymbols);
+    }
+
+    /**
+     * Verifies that the lines are stored in the parts of at most the part size, the first part contains
+     * at least the first line of statistics.
+     */
+    @Test
+    void storeLinesInParts() throws Exception {
+        // given
+        Files.createDirectories(directory);
+        Files.writeString(directory.resolve("BTC_values.csv"), HEADER + FIRST_LINE + SECOND_LINE + THIRD_LINE);
+
+        // when
+        watchOnce(DataSize.ofBytes(FIRST_LINE.length() * 2L));
+
+        // then
+        assertEquals(List.of(HEADER + FIRST_LINE, SECOND_LINE + THIRD_LINE), storedParts);
+    }
+
+    /**
+     * Verifies that the part pending when the application crashed is stored again ignoring the existing rows,
+     * and the next parts are stored as usual.
+     */
+    @Test
+    void storePendingPartIgnoringDuplicatesAfterCrash() throws Exception {
+        // given
+        Files.createDirectories(directory);
+        Files.writeString(directory.resolve("BTC_values.csv"), HEADER + FIRST_LINE + SECOND_LINE + THIRD_LINE);
+        Files.writeString(tempDir.resolve("offsets.properties"), """
+                offset.BTC_values.csv=0
+                pending.BTC_values.csv=%d
+                """.formatted(HEADER.length() + FIRST_LINE.length()));
+
+        // when
+        watchOnce(DataSize.ofBytes(FIRST_LINE.length() * 2L));
+
+        // then
+        assertEquals(List.of(HEADER + FIRST_LINE, SECOND_LINE + THIRD_LINE), storedParts);
+        InOrder storeOrder = inOrder(currencyStatsService);
+        storeOrder.verify(currencyStatsService).createStatsPart(any(InputStream.class), isNull(), eq(true));
+        storeOrder.verify(currencyStatsService).createStatsPart(any(InputStream.class), eq("BTC"), eq(false));
+    }
+
+    /**
+     * Starts the watcher, which scans the directory immediately, and stops it after the scan.
+     *
+     * @param partSize the maximum size of the stored part
+     */
+    private void watchOnce(DataSize partSize) throws InterruptedException, IOException {
+        var watchService = new CurrencyStatsWatchService(currencyStatsService, true, directory,
+                tempDir.resolve("offsets.properties"), Duration.ofMinutes(1), partSize);
+        watchService.shutdown();
+    }
+}
@@ -0,0 +1,150 @@
+package org.cryptos.service;
+
+import org.cryptos.service.domain.CurrencyStatsIngestDomain;
+import org.cryptos.service.domain.IngestJobDomain;
+import org.cryptos.service.exception.CSVFileProcessException;
+import org.cryptos.service.exception.EntityNotFoundException;
+import org.cryptos.service.exception.IngestJobRejectedException;
+import org.cryptos.service.ingest.IngestJobStatus;
+import org.cryptos.service.ingest.IngestProgressListener;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class IngestJobServiceTest {
+
+    private static final Resource CSV_FILE = new ByteArrayResource("""
+            Timestamp,Symbol,Price
+            1641308400000,BTC,47111.11
+            """.getBytes(StandardCharsets.UTF_8));
+
+    @Mock
+    private CurrencyStatsService currencyStatsService;
+
+    private IngestJobService ingestJobService;
+
+    @BeforeEach
+    void init() {
+        ingestJobService = new IngestJobService(currencyStatsService, 1, 1, Duration.ofHours(1));
+    }
+
+    @AfterEach
+    void shutdown() {
+        ingestJobService.shutdown();
+    }
+
+    /**
+     * Verifies that the accepted job is processed in the background and its result is available by the job id.
+     */
+    @Test
+    void submitJobAndCompleteSuccessfully() throws InterruptedException {
+        // given
+        when(currencyStatsService.createStats(any(Resource.class), any(IngestProgressListener.class)))
+                .thenReturn(new CurrencyStatsIngestDomain("BTC", 1, 10, 100.0));
+
+        // when
+        IngestJobDomain submitted = ingestJobService.submit(CSV_FILE);
+        IngestJobDomain finished = awaitFinished(submitted.id());
+
+        // then
+        assertEquals(CSV_FILE.contentLength(), submitted.totalBytes());
+        assertEquals(IngestJobStatus.COMPLETED, finished.status());
+        assertEquals("BTC", finished.symbol());
+        assertEquals(1, finished.rows());
+        assertEquals(0L, finished.etaMillis());
+        assertNull(finished.error());
+        assertNotNull(finished.finishedAt());
+    }
+
+    /**
+     * Verifies that the failure of the upload is reported by the job status with the error message.
+     */
+    @Test
+    void submitJobAndFail() throws InterruptedException {
+        // given
+        when(currencyStatsService.createStats(any(Resource.class), any(IngestProgressListener.class)))
+                .thenThrow(new CSVFileProcessException("CSV file must contain exactly 3 columns per line"));
+
+        // when
+        IngestJobDomain finished = awaitFinished(ingestJobService.submit(CSV_FILE).id());
+
+        // then
+        assertEquals(IngestJobStatus.FAILED, finished.status());
+        assertEquals("CSV file must contain exactly 3 columns per line", finished.error());
+        assertNull(finished.etaMillis());
+    }
+
+    /**
+     * Verifies that the job is rejected when the only worker is busy and the queue is full,
+     * and the progress of the running job is reported with the estimated remaining time.
+     */
+    @Test
+    void throwIngestJobRejectedExceptionWhenSaturated() throws InterruptedException {
+        // given
+        var running = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        when(currencyStatsService.createStats(any(Resource.class), any(IngestProgressListener.class)))
+                .thenAnswer(invocation -> {
+                    IngestProgressListener listener = invocation.getArgument(1);
+                    listener.onProgress(1, CSV_FILE.contentLength() / 2);
+                    running.countDown();
+                    assertTrue(release.await(5, TimeUnit.SECONDS));
+                    return new CurrencyStatsIngestDomain("BTC", 1, 10, 100.0);
+                });
+        IngestJobDomain first = ingestJobService.submit(CSV_FILE);
+        assertTrue(running.await(5, TimeUnit.SECONDS));
+        ingestJobService.submit(CSV_FILE);
+
+        // when & then
+        assertThrows(IngestJobRejectedException.class, () -> ingestJobService.submit(CSV_FILE));
+        IngestJobDomain progress = ingestJobService.getJob(first.id());
+        assertEquals(IngestJobStatus.RUNNING, progress.status());
+        assertEquals(1, progress.rows());
+        assertNotNull(progress.etaMillis());
+        release.countDown();
+        assertEquals(IngestJobStatus.COMPLETED, awaitFinished(first.id()).status());
+    }
+
+    /**
+     * Verifies that {@link EntityNotFoundException} is thrown for the unknown job id.
+     */
+    @Test
+    void throwEntityNotFoundExceptionWhenJobUnknown() {
+        UUID id = UUID.randomUUID();
+        EntityNotFoundException exception = assertThrows(EntityNotFoundException.class, () -> ingestJobService.getJob(id));
+        assertEquals("Job '%s' not found".formatted(id), exception.getMessage());
+    }
+
+    private IngestJobDomain awaitFinished(UUID id) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (System.nanoTime() < deadline) {
+            IngestJobDomain job = ingestJobService.getJob(id);
+            if (job.status() == IngestJobStatus.COMPLETED || job.status() == IngestJobStatus.FAILED) {
+                return job;
+            }
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        return fail("Job %s is not finished".formatted(id));
+    }
+}
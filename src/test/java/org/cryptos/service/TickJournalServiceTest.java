@@ -0,0 +1,138 @@
+package org.cryptos.service;
+
+import org.cryptos.service.exception.EntityNotFoundException;
+import org.cryptos.service.ingest.CurrencyStatsTick;
+import org.cryptos.service.ingest.TickJournal;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TickJournalServiceTest {
+
+    private static final CurrencyStatsTick BTC_TICK = new CurrencyStatsTick(1641308400000L, "BTC", new BigDecimal("47111.11"));
+    private static final CurrencyStatsTick XRP_TICK = new CurrencyStatsTick(1641308400000L, "XRP", new BigDecimal("0.83"));
+
+    private final CurrencyStatsService currencyStatsService = mock(CurrencyStatsService.class);
+
+    @TempDir
+    private Path tempDir;
+
+    private TickJournalService tickJournalService;
+
+    @AfterEach
+    void shutdown() throws InterruptedException {
+        tickJournalService.shutdown();
+    }
+
+    /**
+     * Verifies that the ticks are written into the database directly if the journal is disabled.
+     */
+    @Test
+    void writeDirectlyWhenJournalDisabled() {
+        // given
+        tickJournalService = createService(false);
+        when(currencyStatsService.createTicks(List.of(BTC_TICK))).thenReturn(1L);
+
+        // when
+        long rows = tickJournalService.write(List.of(BTC_TICK));
+
+        // then
+        assertEquals(1, rows);
+        verify(currencyStatsService).createTicks(List.of(BTC_TICK));
+    }
+
+    /**
+     * Verifies that the journaled ticks are drained into the database in one batch in the background.
+     */
+    @Test
+    void drainJournaledTicks() {
+        // given
+        tickJournalService = createService(true);
+
+        // when
+        long rows = tickJournalService.write(List.of(BTC_TICK, BTC_TICK));
+
+        // then
+        assertEquals(2, rows);
+        verify(currencyStatsService, timeout(5000)).createTicks(List.of(BTC_TICK, BTC_TICK));
+    }
+
+    /**
+     * Verifies that the rejected batch is written tick by tick, so the tick of the unknown currency is skipped
+     * and the other ticks are still stored.
+     */
+    @Test
+    void skipRejectedTickWhileDraining() {
+        // given
+        tickJournalService = createService(true);
+        when(currencyStatsService.createTicks(List.of(XRP_TICK, BTC_TICK)))
+                .thenThrow(new EntityNotFoundException("Currency 'XRP' not found, need to enable the currency first"));
+        when(currencyStatsService.createTicks(List.of(XRP_TICK)))
+                .thenThrow(new EntityNotFoundException("Currency 'XRP' not found, need to enable the currency first"));
+
+        // when
+        tickJournalService.write(List.of(XRP_TICK, BTC_TICK));
+
+        // then
+        verify(currencyStatsService, timeout(5000)).createTicks(List.of(BTC_TICK));
+    }
+
+    /**
+     * Verifies that the batch with a tick of an unknown currency is rejected to the sender before it is journaled,
+     * so it is never drained.
+     */
+    @Test
+    void rejectTickOfUnknownCurrencyBeforeJournaling() throws InterruptedException {
+        // given
+        tickJournalService = createService(true);
+        doThrow(new EntityNotFoundException("Currency 'XRP' not found, need to enable the currency first"))
+                .when(currencyStatsService).validateTicks(List.of(XRP_TICK, BTC_TICK));
+
+        // when
+        assertThrows(EntityNotFoundException.class, () -> tickJournalService.write(List.of(XRP_TICK, BTC_TICK)));
+        tickJournalService.write(List.of(BTC_TICK));
+
+        // then
+        verify(currencyStatsService, timeout(5000)).createTicks(List.of(BTC_TICK));
+        tickJournalService.shutdown();
+        verify(currencyStatsService, never()).createTicks(List.of(XRP_TICK, BTC_TICK));
+    }
+
+    /**
+     * Verifies that the ticks journaled before the restart are drained after it.
+     */
+    @Test
+    void replayJournalAfterRestart() throws IOException {
+        // given
+        try (var journal = new TickJournal(tempDir, Math.toIntExact(DataSize.ofKilobytes(64).toBytes()))) {
+            journal.append(List.of(BTC_TICK));
+        }
+
+        // when
+        tickJournalService = createService(true);
+
+        // then
+        verify(currencyStatsService, timeout(5000)).createTicks(List.of(BTC_TICK));
+    }
+
+    private TickJournalService createService(boolean enabled) {
+        return new TickJournalService(currencyStatsService, enabled, tempDir, DataSize.ofKilobytes(64),
+                Duration.ofMillis(20), 100);
+    }
+}
@@ -0,0 +1,139 @@
+package org.cryptos.service.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.cryptos.persistence.entity.CurrencyStatsRow;
+import org.cryptos.persistence.repository.CurrencyStatsWriter;
+import org.cryptos.service.domain.CurrencyNormalizedPriceDomain;
+import org.cryptos.service.domain.CurrencyStatsMinMaxDomain;
+import org.cryptos.service.exception.EntityNotFoundException;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+
+class CurrencyStatsCacheTest {
+
+    private static final LocalDateTime DAY = LocalDateTime.of(2022, 1, 1, 0, 0);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CurrencyStatsCache currencyStatsCache =
+            new CurrencyStatsCache(true, 1000, Duration.ofMinutes(10), meterRegistry);
+    private final CurrencyStatsWriter currencyStatsWriter = mock(CurrencyStatsWriter.class);
+    private final AtomicInteger loads = new AtomicInteger();
+
+    /**
+     * Verifies that the statistics of the same currency and period are loaded once, and the hits and the misses
+     * are published.
+     */
+    @Test
+    void loadStatsOnce() {
+        // given
+        currencyStatsCache.getStats("BTC", DAY, DAY.plusDays(1), countingStats("BTC"));
+
+        // when
+        CurrencyStatsMinMaxDomain result = currencyStatsCache.getStats("BTC", DAY, DAY.plusDays(1), countingStats("BTC"));
+
+        // then
+        assertEquals("BTC", result.symbol());
+        assertEquals(1, loads.get());
+        assertEquals(1, meterRegistry.get("cache.gets").tag("cache", "currency.stats").tag("result", "hit")
+                .functionCounter().count());
+        assertEquals(1, meterRegistry.get("cache.gets").tag("cache", "currency.stats").tag("result", "miss")
+                .functionCounter().count());
+    }
+
+    /**
+     * Verifies that the written prices invalidate the statistics of the written currency overlapping
+     * the written period and the normalized prices of all the currencies, but not the statistics
+     * of the other periods and of the other currencies.
+     */
+    @Test
+    void invalidateOverlappingResultsOfWrittenCurrency() {
+        // given
+        currencyStatsCache.getStats("BTC", DAY, DAY.plusDays(1), countingStats("BTC"));
+        currencyStatsCache.getStats("BTC", DAY.plusDays(1), DAY.plusDays(2), countingStats("BTC"));
+        currencyStatsCache.getStats("ETH", DAY, DAY.plusDays(1), countingStats("ETH"));
+        currencyStatsCache.getNormalizedPrices(DAY, DAY.plusDays(1), countingNormalizedPrices());
+
+        // when
+        try (CurrencyStatsWriter writer = currencyStatsCache.track(currencyStatsWriter)) {
+            writer.write(List.of(
+                    new CurrencyStatsRow("BTC", DAY.plusHours(5), new BigDecimal("47000")),
+                    new CurrencyStatsRow("BTC", DAY.plusHours(2), new BigDecimal("46000"))));
+            writer.finish();
+        }
+
+        // then
+        loads.set(0);
+        currencyStatsCache.getStats("BTC", DAY, DAY.plusDays(1), countingStats("BTC"));
+        currencyStatsCache.getNormalizedPrices(DAY, DAY.plusDays(1), countingNormalizedPrices());
+        assertEquals(2, loads.get());
+        currencyStatsCache.getStats("BTC", DAY.plusDays(1), DAY.plusDays(2), countingStats("BTC"));
+        currencyStatsCache.getStats("ETH", DAY, DAY.plusDays(1), countingStats("ETH"));
+        assertEquals(2, loads.get());
+        assertEquals(2, meterRegistry.get("currency.stats.cache.invalidations").counter().count());
+    }
+
+    /**
+     * Verifies that the result loaded while a write of its currency was completed is returned, but not cached.
+     */
+    @Test
+    void skipResultLoadedDuringWrite() {
+        // given
+        Supplier<CurrencyStatsMinMaxDomain> loaderRacingWrite = () -> {
+            try (CurrencyStatsWriter writer = currencyStatsCache.track(currencyStatsWriter)) {
+                writer.write(List.of(new CurrencyStatsRow("BTC", DAY.minusDays(5), new BigDecimal("47000"))));
+                writer.finish();
+            }
+            return countingStats("BTC").get();
+        };
+
+        // when
+        currencyStatsCache.getStats("BTC", DAY, DAY.plusDays(1), loaderRacingWrite);
+        currencyStatsCache.getStats("BTC", DAY, DAY.plusDays(1), countingStats("BTC"));
+
+        // then
+        assertEquals(2, loads.get());
+    }
+
+    /**
+     * Verifies that the failed load is propagated and not cached.
+     */
+    @Test
+    void doNotCacheFailedLoad() {
+        // given
+        Supplier<CurrencyStatsMinMaxDomain> failingLoader = () -> {
+            throw new EntityNotFoundException("Currency 'BTC' not found");
+        };
+
+        // when
+        assertThrows(EntityNotFoundException.class,
+                () -> currencyStatsCache.getStats("BTC", DAY, DAY.plusDays(1), failingLoader));
+        currencyStatsCache.getStats("BTC", DAY, DAY.plusDays(1), countingStats("BTC"));
+
+        // then
+        assertEquals(1, loads.get());
+    }
+
+    private Supplier<CurrencyStatsMinMaxDomain> countingStats(String symbol) {
+        return () -> {
+            loads.incrementAndGet();
+            return new CurrencyStatsMinMaxDomain(symbol, DAY, DAY.plusHours(1), BigDecimal.ONE, BigDecimal.TEN);
+        };
+    }
+
+    private Supplier<List<CurrencyNormalizedPriceDomain>> countingNormalizedPrices() {
+        return () -> {
+            loads.incrementAndGet();
+            return List.of(new CurrencyNormalizedPriceDomain("BTC", BigDecimal.ONE));
+        };
+    }
+}
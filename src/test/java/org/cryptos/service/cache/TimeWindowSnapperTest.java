@@ -0,0 +1,56 @@
+package org.cryptos.service.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TimeWindowSnapperTest {
+
+    private static final LocalDateTime DAY = LocalDateTime.of(2022, 1, 1, 0, 0);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    /**
+     * Verifies that the date and time within the interval is snapped up to the start of the next interval,
+     * the start of the interval is kept, and the interval is published.
+     */
+    @Test
+    void snapUpToNextInterval() {
+        // given
+        var snapper = new TimeWindowSnapper(Duration.ofMinutes(5), meterRegistry);
+
+        // when
+        LocalDateTime withinInterval = snapper.snap(DAY.plusMinutes(7).plusNanos(1));
+        LocalDateTime startOfInterval = snapper.snap(DAY.plusMinutes(10));
+        LocalDateTime endOfDay = snapper.snap(DAY.plusDays(1).minusNanos(1));
+
+        // then
+        assertEquals(DAY.plusMinutes(10), withinInterval);
+        assertEquals(DAY.plusMinutes(10), startOfInterval);
+        assertEquals(DAY.plusDays(1), endOfDay);
+        assertEquals(300, meterRegistry.get("currency.stats.default-window.snap").gauge().value());
+    }
+
+    /**
+     * Verifies that the zero interval keeps the exact date and time, and the interval longer than a day
+     * snaps to the start of the next day.
+     */
+    @Test
+    void keepOrLimitInterval() {
+        // given
+        var exactSnapper = new TimeWindowSnapper(Duration.ZERO, meterRegistry);
+        var dailySnapper = new TimeWindowSnapper(Duration.ofDays(7), new SimpleMeterRegistry());
+
+        // when
+        LocalDateTime exact = exactSnapper.snap(DAY.plusNanos(123));
+        LocalDateTime daily = dailySnapper.snap(DAY.plusHours(13));
+
+        // then
+        assertEquals(DAY.plusNanos(123), exact);
+        assertEquals(DAY.plusDays(1), daily);
+    }
+}
@@ -0,0 +1,57 @@
+package org.cryptos.service.ingest;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdaptiveBatchSizerTest {
+
+    private static final long FAST_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long SLOW_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AdaptiveBatchSizer adaptiveBatchSizer = new AdaptiveBatchSizer(true, 100, 50, 300, 100,
+            Duration.ofMillis(250), meterRegistry);
+
+    /**
+     * Verifies that the batch size grows after the fast full batches up to the max batch size,
+     * and does not grow after the batch not filled up.
+     */
+    @Test
+    void increaseBatchSizeAfterFastFullBatches() {
+        // when
+        adaptiveBatchSizer.onBatchWritten(100, FAST_NANOS);
+        adaptiveBatchSizer.onBatchWritten(50, FAST_NANOS);
+        int afterPartialBatch = adaptiveBatchSizer.getBatchSize();
+        adaptiveBatchSizer.onBatchWritten(200, FAST_NANOS);
+        adaptiveBatchSizer.onBatchWritten(300, FAST_NANOS);
+
+        // then
+        assertEquals(200, afterPartialBatch);
+        assertEquals(300, adaptiveBatchSizer.getBatchSize());
+        assertEquals(300.0, meterRegistry.get("currency.ingest.batch.size").gauge().value());
+        assertEquals(4, meterRegistry.get("currency.ingest.batch.latency").timer().count());
+        assertTrue(meterRegistry.get("currency.ingest.throughput").gauge().value() > 0);
+    }
+
+    /**
+     * Verifies that the batch size is halved after the slow batch down to the min batch size.
+     */
+    @Test
+    void halveBatchSizeAfterSlowBatch() {
+        // when
+        adaptiveBatchSizer.onBatchWritten(100, SLOW_NANOS);
+        int afterFirstSlowBatch = adaptiveBatchSizer.getBatchSize();
+        adaptiveBatchSizer.onBatchWritten(50, SLOW_NANOS);
+
+        // then
+        assertEquals(50, afterFirstSlowBatch);
+        assertEquals(50, adaptiveBatchSizer.getBatchSize());
+    }
+}
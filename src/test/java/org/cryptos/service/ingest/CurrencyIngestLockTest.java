@@ -0,0 +1,132 @@
+package org.cryptos.service.ingest;
+
+import org.cryptos.persistence.repository.CurrencyAdvisoryLockRepository;
+import org.cryptos.service.exception.IngestLockTimeoutException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.when;
+
+class CurrencyIngestLockTest {
+
+    private final CurrencyAdvisoryLockRepository advisoryLockRepository = mock(CurrencyAdvisoryLockRepository.class);
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdownNow();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            completeTransaction();
+        }
+    }
+
+    /**
+     * Verifies that the upload of another currency is not blocked by the running upload.
+     */
+    @Test
+    void lockDifferentCurrenciesConcurrently() throws Exception {
+        // given
+        var currencyIngestLock = createLock(IngestLockMode.LOCAL, Duration.ofMillis(100));
+        beginTransaction();
+        currencyIngestLock.lock(List.of("BTC"));
+
+        // when & then
+        executor.submit(() -> inTransaction(() -> currencyIngestLock.lock(List.of("ETH")))).get(5, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Verifies that the upload of the same currency waits until the transaction of the running upload is completed,
+     * and the symbols are matched ignoring case.
+     */
+    @Test
+    void serializeUploadsOfSameCurrency() throws Exception {
+        // given
+        var currencyIngestLock = createLock(IngestLockMode.LOCAL, Duration.ofMillis(100));
+        beginTransaction();
+        currencyIngestLock.lock(List.of("BTC"));
+
+        // when
+        var exception = assertThrows(ExecutionException.class, () -> executor.submit(
+                () -> inTransaction(() -> currencyIngestLock.lock(List.of("btc")))).get(5, TimeUnit.SECONDS));
+        completeTransaction();
+
+        // then
+        assertInstanceOf(IngestLockTimeoutException.class, exception.getCause());
+        executor.submit(() -> inTransaction(() -> currencyIngestLock.lock(List.of("btc")))).get(5, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Verifies that the advisory locks are taken in the order of their keys and the busy lock is polled until free.
+     */
+    @Test
+    void lockAdvisoryInOrderOfKeys() {
+        // given
+        var currencyIngestLock = createLock(IngestLockMode.ADVISORY, Duration.ofSeconds(5));
+        when(advisoryLockRepository.lockKey("BTC")).thenReturn(2L);
+        when(advisoryLockRepository.lockKey("ETH")).thenReturn(1L);
+        when(advisoryLockRepository.tryLock(1L)).thenReturn(false, true);
+        when(advisoryLockRepository.tryLock(2L)).thenReturn(true);
+
+        // when
+        inTransaction(() -> currencyIngestLock.lock(List.of("btc", "ETH")));
+
+        // then
+        InOrder lockOrder = inOrder(advisoryLockRepository);
+        lockOrder.verify(advisoryLockRepository, times(2)).tryLock(1L);
+        lockOrder.verify(advisoryLockRepository).tryLock(2L);
+    }
+
+    /**
+     * Verifies that the currency could not be locked outside of a transaction, as the lock would never be released.
+     */
+    @Test
+    void throwIllegalStateExceptionWithoutTransaction() {
+        // given
+        var currencyIngestLock = createLock(IngestLockMode.LOCAL, Duration.ofMillis(100));
+
+        // when & then
+        assertThrows(IllegalStateException.class, () -> currencyIngestLock.lock(List.of("BTC")));
+    }
+
+    private CurrencyIngestLock createLock(IngestLockMode mode, Duration timeout) {
+        return new CurrencyIngestLock(mode, 64, timeout, advisoryLockRepository);
+    }
+
+    private static Void inTransaction(Runnable action) {
+        beginTransaction();
+        try {
+            action.run();
+        } finally {
+            completeTransaction();
+        }
+        return null;
+    }
+
+    private static void beginTransaction() {
+        TransactionSynchronizationManager.initSynchronization();
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+    }
+
+    private static void completeTransaction() {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        TransactionSynchronizationManager.setActualTransactionActive(false);
+        synchronizations.forEach(synchronization ->
+                synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+    }
+}
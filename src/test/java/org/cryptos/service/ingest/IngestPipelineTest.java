@@ -0,0 +1,165 @@
+package org.cryptos.service.ingest;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.cryptos.persistence.entity.CurrencyStatsRow;
+import org.cryptos.service.exception.CSVFileProcessException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IngestPipelineTest {
+
+    private static final int BATCHES = 100;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final IngestPipeline ingestPipeline = new IngestPipeline(2, 1, meterRegistry);
+
+    @AfterEach
+    void shutdown() {
+        ingestPipeline.shutdown();
+    }
+
+    /**
+     * Verifies that all the batches are written in the order they were parsed, and the queue never holds
+     * more batches than its capacity while the writer is slower than the reader.
+     */
+    @Test
+    void writeAllBatchesInOrder() throws IOException {
+        // given
+        var parsedBatches = new AtomicInteger();
+        List<Long> writtenBatches = new ArrayList<>();
+
+        // when
+        IngestPipeline.Stats stats = ingestPipeline.run(() -> parsedBatches.get() == BATCHES
+                ? null
+                : createBatch(parsedBatches.incrementAndGet()), batch -> {
+            writtenBatches.add(batch.parsedBytes());
+            sleep();
+        });
+
+        // then
+        assertEquals(BATCHES, writtenBatches.size());
+        for (int i = 0; i < BATCHES; i++) {
+            assertEquals(i + 1, writtenBatches.get(i));
+        }
+        assertEquals(BATCHES, stats.batches());
+        assertEquals(BATCHES, stats.rows());
+        assertTrue(stats.maxQueueDepth() <= 3);
+        assertTrue(stats.parseBlockedMillis() > 0);
+        assertEquals(1, meterRegistry.get("currency.ingest.pipeline.throughput").tag("stage", "write")
+                .summary().count());
+        assertEquals(BATCHES, meterRegistry.get("currency.ingest.pipeline.queue.depth").summary().count());
+        assertTrue(meterRegistry.get("currency.ingest.pipeline.queue.depth").summary().max() <= 3);
+    }
+
+    /**
+     * Verifies that the ingest started while all the reading threads are busy runs both stages on the calling
+     * thread and still writes all the batches in order.
+     */
+    @Test
+    void runSequentiallyWhenReadingThreadsAreBusy() throws IOException {
+        // given
+        var parsedBatches = new AtomicInteger();
+        var nestedParsedBatches = new AtomicInteger();
+        var nestedIngestDone = new CountDownLatch(1);
+        List<Long> nestedWrittenBatches = new ArrayList<>();
+        List<String> nestedParsingThreads = new ArrayList<>();
+
+        // when
+        ingestPipeline.run(() -> {
+            if (parsedBatches.incrementAndGet() == 1) {
+                return createBatch(1);
+            }
+            //keep the only reading thread busy until the nested ingest is done
+            await(nestedIngestDone);
+            return null;
+        }, batch -> {
+            try {
+                ingestPipeline.run(() -> {
+                    nestedParsingThreads.add(Thread.currentThread().getName());
+                    return nestedParsedBatches.get() == 3 ? null : createBatch(nestedParsedBatches.incrementAndGet());
+                }, nestedBatch -> nestedWrittenBatches.add(nestedBatch.parsedBytes()));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } finally {
+                nestedIngestDone.countDown();
+            }
+        });
+
+        // then
+        assertEquals(List.of(1L, 2L, 3L), nestedWrittenBatches);
+        assertTrue(nestedParsingThreads.stream().allMatch(name -> name.equals(Thread.currentThread().getName())));
+        assertEquals(1, meterRegistry.get("currency.ingest.pipeline.sequential").counter().count());
+    }
+
+    /**
+     * Verifies that the failure of the reading stage is thrown to the caller and the pipeline is stopped.
+     */
+    @Test
+    void throwFailureOfReadingStage() {
+        // given
+        var parsedBatches = new AtomicInteger();
+
+        // when & then
+        var exception = assertThrows(CSVFileProcessException.class, () -> ingestPipeline.run(() -> {
+            if (parsedBatches.incrementAndGet() == 10) {
+                throw new CSVFileProcessException("CSV file must contain exactly 3 columns per line");
+            }
+            return createBatch(parsedBatches.get());
+        }, batch -> {
+        }));
+        assertEquals("CSV file must contain exactly 3 columns per line", exception.getMessage());
+        assertEquals(10, parsedBatches.get());
+    }
+
+    /**
+     * Verifies that the failure of the writer stops the reading stage and is thrown to the caller.
+     */
+    @Test
+    void stopReadingStageWhenWriterFails() {
+        // given
+        var parsedBatches = new AtomicInteger();
+
+        // when & then
+        assertThrows(IllegalStateException.class, () -> ingestPipeline.run(
+                () -> createBatch(parsedBatches.incrementAndGet()),
+                batch -> {
+                    throw new IllegalStateException("Database is not available");
+                }));
+        assertTrue(parsedBatches.get() < BATCHES);
+    }
+
+    private static IngestPipeline.Batch createBatch(long number) {
+        return new IngestPipeline.Batch(List.of(new CurrencyStatsRow("BTC", LocalDateTime.of(2022, 1, 1, 0, 0),
+                BigDecimal.valueOf(number))), number);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep() {
+        try {
+            Thread.sleep(1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package org.cryptos.service.ingest;
+
+import org.cryptos.service.exception.CSVFileProcessException;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class OpenCsvCurrencyStatsReaderTest {
+
+    /**
+     * Verifies that the exception with the line number is thrown when the value is not a number,
+     * the same as by {@link TickCsvReader}.
+     */
+    @Test
+    void throwCSVFileProcessExceptionWhenWrongNumber() throws IOException {
+        try (var reader = reader("timestamp,symbol,price\n16410x9600000,BTC,1.x\n")) {
+            reader.next();
+            reader.next();
+            CSVFileProcessException timestampException = assertThrows(CSVFileProcessException.class, reader::epochMillis);
+            CSVFileProcessException priceException = assertThrows(CSVFileProcessException.class, reader::price);
+            assertEquals("Wrong number '16410x9600000' at line 2", timestampException.getMessage());
+            assertEquals("Wrong number '1.x' at line 2", priceException.getMessage());
+        }
+    }
+
+    private OpenCsvCurrencyStatsReader reader(String csvContent) {
+        return new OpenCsvCurrencyStatsReader(new ByteArrayInputStream(csvContent.getBytes(StandardCharsets.UTF_8)));
+    }
+}
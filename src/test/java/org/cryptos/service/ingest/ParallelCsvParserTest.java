@@ -0,0 +1,108 @@
+package org.cryptos.service.ingest;
+
+import org.cryptos.persistence.entity.CurrencyStatsRow;
+import org.cryptos.service.exception.CSVFileProcessException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ParallelCsvParserTest {
+
+    private static final int LINES = 1000;
+
+    private final ParallelCsvParser parallelCsvParser = new ParallelCsvParser(4, DataSize.ofBytes(512), 2);
+
+    @TempDir
+    private Path tempDir;
+
+    @AfterEach
+    void shutdown() {
+        parallelCsvParser.shutdown();
+    }
+
+    /**
+     * Verifies that every line of the file split into many chunks is parsed exactly once and the header is skipped.
+     */
+    @Test
+    void parseAllLinesOfAllChunks() throws IOException {
+        // given
+        Path file = writeFile(null);
+        List<CurrencyStatsRow> rows = Collections.synchronizedList(new ArrayList<>());
+
+        // when
+        parallelCsvParser.parse(file, TickCsvReader::new, this::parseLine, 7, rows::addAll);
+
+        // then
+        assertEquals(LINES, rows.size());
+        rows.sort(Comparator.comparing(CurrencyStatsRow::price));
+        for (int i = 0; i < LINES; i++) {
+            assertEquals(i, rows.get(i).price().intValue());
+        }
+    }
+
+    /**
+     * Verifies that the rejected line is reported with its line number in the whole file.
+     */
+    @Test
+    void throwCSVFileProcessExceptionWithLineNumber() throws IOException {
+        // given
+        Path file = writeFile(700);
+
+        // when & then
+        CSVFileProcessException exception = assertThrows(CSVFileProcessException.class,
+                () -> parallelCsvParser.parse(file, TickCsvReader::new, this::parseLine, 7, rows -> {
+                }));
+        assertEquals("CSV file must contain exactly 3 columns per line at line 702", exception.getMessage());
+    }
+
+    /**
+     * Verifies that the malformed value reported by the reader with the line number in the chunk
+     * is reported with the line number in the whole file only.
+     */
+    @Test
+    void throwCSVFileProcessExceptionWithLineNumberOfWrongNumber() throws IOException {
+        // given
+        Path file = writeFile(null);
+        Files.writeString(file, Files.readString(file).replace("1704067200700,BTC,700\n", "1704067200700,BTC,7x0\n"));
+
+        // when & then
+        CSVFileProcessException exception = assertThrows(CSVFileProcessException.class,
+                () -> parallelCsvParser.parse(file, TickCsvReader::new, this::parseLine, 7, rows -> {
+                }));
+        assertEquals("Wrong number '7x0' at line 702", exception.getMessage());
+    }
+
+    private CurrencyStatsRow parseLine(CurrencyStatsCsvReader reader) {
+        if (reader.columnCount() != 3) {
+            throw new CSVFileProcessException("CSV file must contain exactly 3 columns per line");
+        }
+        return new CurrencyStatsRow(reader.symbol(), LocalDateTime.of(2024, 1, 1, 0, 0), reader.price());
+    }
+
+    private Path writeFile(Integer brokenLine) throws IOException {
+        var content = new StringBuilder("timestamp,symbol,price\n");
+        for (int i = 0; i < LINES; i++) {
+            content.append(1704067200000L + i).append(",BTC");
+            if (brokenLine == null || brokenLine != i) {
+                content.append(',').append(i);
+            }
+            content.append('\n');
+        }
+        Path file = tempDir.resolve("btc.csv");
+        Files.writeString(file, content);
+        return file;
+    }
+}
@@ -0,0 +1,64 @@
+package org.cryptos.service.ingest;
+
+import org.cryptos.persistence.repository.CurrencyStatsWriter;
+import org.cryptos.service.exception.IngestLockTimeoutException;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class StatelessSessionLimiterTest {
+
+    private final StatelessSessionLimiter statelessSessionLimiter =
+            new StatelessSessionLimiter(1, 5, Duration.ofMillis(50));
+
+    /**
+     * Verifies that the writer over the limit is not opened until the open one is closed.
+     */
+    @Test
+    void openNextWriterAfterPreviousOneIsClosed() {
+        // given
+        CurrencyStatsWriter firstWriter = mock(CurrencyStatsWriter.class);
+        CurrencyStatsWriter secondWriter = mock(CurrencyStatsWriter.class);
+        CurrencyStatsWriter openedWriter = statelessSessionLimiter.open(() -> firstWriter);
+
+        // when & then
+        assertThrows(IngestLockTimeoutException.class, () -> statelessSessionLimiter.open(() -> secondWriter));
+        openedWriter.close();
+        statelessSessionLimiter.open(() -> secondWriter).close();
+        verify(firstWriter).close();
+        verify(secondWriter).close();
+    }
+
+    /**
+     * Verifies that the permit is returned when the writer could not be opened.
+     */
+    @Test
+    void releasePermitWhenWriterCouldNotBeOpened() {
+        // given
+        CurrencyStatsWriter writer = mock(CurrencyStatsWriter.class);
+
+        // when
+        assertThrows(IllegalStateException.class, () -> statelessSessionLimiter.open(() -> {
+            throw new IllegalStateException("Connection is not available");
+        }));
+
+        // then
+        statelessSessionLimiter.open(() -> writer).close();
+        verify(writer).close();
+        verify(writer, never()).finish();
+    }
+
+    /**
+     * Verifies that the limit which could take all the pooled connections is rejected.
+     */
+    @Test
+    void rejectLimitNotLowerThanPoolSize() {
+        // when & then
+        assertThrows(IllegalStateException.class, () -> new StatelessSessionLimiter(5, 5, Duration.ofSeconds(1)));
+    }
+}
@@ -0,0 +1,65 @@
+package org.cryptos.service.ingest;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TickByteParserTest {
+
+    private final TickByteParser parser = new TickByteParser();
+
+    /**
+     * Verifies that the values are parsed from the given range of the buffer.
+     */
+    @Test
+    void parseValuesFromRangeOfBuffer() {
+        // given
+        ByteBuffer buffer = ByteBuffer.wrap("x1641308400000,BTC,-47111.110x".getBytes(StandardCharsets.US_ASCII));
+
+        // when & then
+        assertEquals(1641308400000L, parser.epochMillis(buffer, 1, 14));
+        assertEquals("BTC", parser.symbol(buffer, 15, 18));
+        assertEquals(new BigDecimal("-47111.110"), parser.price(buffer, 19, 29));
+    }
+
+    /**
+     * Verifies that the prices which do not fit the long value or have the exponent are parsed by
+     * {@link BigDecimal}, and the values which are not numbers are rejected.
+     */
+    @Test
+    void parsePricesNotFittingLongAndRejectWrongNumbers() {
+        // given
+        ByteBuffer longPrice = ByteBuffer.wrap("12345678901234567890.5".getBytes(StandardCharsets.US_ASCII));
+        ByteBuffer exponentPrice = ByteBuffer.wrap("1.5E3".getBytes(StandardCharsets.US_ASCII));
+        ByteBuffer wrongNumber = ByteBuffer.wrap("12a".getBytes(StandardCharsets.US_ASCII));
+
+        // when & then
+        assertEquals(new BigDecimal("12345678901234567890.5"), parser.price(longPrice, 0, 22));
+        assertEquals(new BigDecimal("1.5E3"), parser.price(exponentPrice, 0, 5));
+        assertThrows(NumberFormatException.class, () -> parser.price(wrongNumber, 0, 3));
+        assertThrows(NumberFormatException.class, () -> parser.epochMillis(wrongNumber, 0, 3));
+        assertThrows(NumberFormatException.class, () -> parser.price(wrongNumber, 0, 0));
+    }
+
+    /**
+     * Verifies that the same symbol is returned for the repeated bytes of the symbol.
+     */
+    @Test
+    void returnCachedSymbol() {
+        // given
+        ByteBuffer buffer = ByteBuffer.wrap("ETH,ETH".getBytes(StandardCharsets.US_ASCII));
+
+        // when
+        String first = parser.symbol(buffer, 0, 3);
+        String second = parser.symbol(buffer, 4, 7);
+
+        // then
+        assertSame(first, second);
+    }
+}
@@ -0,0 +1,85 @@
+package org.cryptos.service.ingest;
+
+import org.cryptos.service.exception.CSVFileProcessException;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TickCsvReaderTest {
+
+    /**
+     * Verifies that the values are parsed from bytes the same way as {@link Long#parseLong} and {@link BigDecimal}
+     * do, including CRLF line endings and quoted values.
+     */
+    @Test
+    void readLinesSuccessfully() throws IOException {
+        // given
+        String csvContent = "timestamp,symbol,price\r\n"
+                + "1641009600000,BTC,46813.21\r\n"
+                + "\"1641020400000\",\"BTC\",\"0.0001700\"\n"
+                + "1641031200000,BTC,12345678901234567890.123";
+
+        try (var reader = reader(csvContent)) {
+            // when & then
+            assertTrue(reader.next());
+            assertEquals(3, reader.columnCount());
+            assertEquals("symbol", reader.symbol());
+
+            assertTrue(reader.next());
+            assertEquals(1641009600000L, reader.epochMillis());
+            assertEquals("BTC", reader.symbol());
+            assertEquals(new BigDecimal("46813.21"), reader.price());
+            String symbol = reader.symbol();
+
+            assertTrue(reader.next());
+            assertEquals(3, reader.lineNumber());
+            assertEquals(1641020400000L, reader.epochMillis());
+            assertSame(symbol, reader.symbol());
+            assertEquals(new BigDecimal("0.0001700"), reader.price());
+
+            assertTrue(reader.next());
+            assertEquals(new BigDecimal("12345678901234567890.123"), reader.price());
+            assertFalse(reader.next());
+        }
+    }
+
+    /**
+     * Verifies that the columns are counted, so the lines with the wrong number of columns can be rejected.
+     */
+    @Test
+    void countColumns() throws IOException {
+        try (var reader = reader("1641009600000,BTC,1,wrong\n1641009600000,1\n")) {
+            assertTrue(reader.next());
+            assertEquals(4, reader.columnCount());
+            assertTrue(reader.next());
+            assertEquals(2, reader.columnCount());
+            assertFalse(reader.next());
+        }
+    }
+
+    /**
+     * Verifies that the exception with the line number is thrown when the value is not a number.
+     */
+    @Test
+    void throwCSVFileProcessExceptionWhenWrongNumber() throws IOException {
+        try (var reader = reader("timestamp,symbol,price\n16410x9600000,BTC,1\n")) {
+            reader.next();
+            reader.next();
+            CSVFileProcessException exception = assertThrows(CSVFileProcessException.class, reader::epochMillis);
+            assertEquals("Wrong number '16410x9600000' at line 2", exception.getMessage());
+        }
+    }
+
+    private TickCsvReader reader(String csvContent) {
+        return new TickCsvReader(new ByteArrayInputStream(csvContent.getBytes(StandardCharsets.UTF_8)));
+    }
+}
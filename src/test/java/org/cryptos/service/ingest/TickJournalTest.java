@@ -0,0 +1,187 @@
+package org.cryptos.service.ingest;
+
+import org.cryptos.service.exception.CSVFileProcessException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TickJournalTest {
+
+    private static final int SEGMENT_SIZE = 256;
+
+    @TempDir
+    private Path tempDir;
+
+    /**
+     * Verifies that the appended ticks are read back in order, across the segments, with the exact prices.
+     */
+    @Test
+    void readAppendedTicksAcrossSegments() throws IOException {
+        // given
+        var journal = new TickJournal(tempDir, SEGMENT_SIZE);
+        List<CurrencyStatsTick> ticks = createTicks(20);
+        journal.append(ticks.subList(0, 15));
+        journal.append(ticks.subList(15, 20));
+
+        // when
+        TickJournal.Batch batch = journal.read(journal.getCheckpoint(), 100);
+
+        // then
+        assertEquals(ticks, batch.ticks());
+        assertTrue(countSegments() > 1);
+        assertTrue(journal.read(batch.next(), 100).ticks().isEmpty());
+    }
+
+    /**
+     * Verifies that the journal reopened after a restart continues from the checkpoint, the drained segments
+     * are deleted and the appending continues after the last record.
+     */
+    @Test
+    void replayFromCheckpointAfterReopen() throws IOException {
+        // given
+        List<CurrencyStatsTick> ticks = createTicks(20);
+        var journal = new TickJournal(tempDir, SEGMENT_SIZE);
+        journal.append(ticks.subList(0, 15));
+        TickJournal.Batch drained = journal.read(journal.getCheckpoint(), 10);
+        journal.checkpoint(drained.next());
+        journal.close();
+
+        // when
+        var reopened = new TickJournal(tempDir, SEGMENT_SIZE);
+        reopened.append(ticks.subList(15, 20));
+        TickJournal.Batch replayed = reopened.read(reopened.getCheckpoint(), 100);
+
+        // then
+        assertEquals(drained.next(), reopened.getCheckpoint());
+        assertEquals(ticks.subList(10, 20), replayed.ticks());
+    }
+
+    /**
+     * Verifies that the torn record is detected by the checksum on reopen and overwritten by the next append.
+     */
+    @Test
+    void skipTornRecordOnReopen() throws IOException {
+        // given
+        List<CurrencyStatsTick> ticks = createTicks(3);
+        var journal = new TickJournal(tempDir, SEGMENT_SIZE * 4);
+        journal.append(ticks.subList(0, 2));
+        int tornOffset = journal.read(journal.getCheckpoint(), 1).next().offset();
+        journal.close();
+        Path segment = listSegments().getFirst();
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{0x7f}), tornOffset + 12);
+        }
+
+        // when
+        var reopened = new TickJournal(tempDir, SEGMENT_SIZE * 4);
+        reopened.append(ticks.subList(2, 3));
+
+        // then
+        assertEquals(List.of(ticks.get(0), ticks.get(2)), reopened.read(reopened.getCheckpoint(), 100).ticks());
+    }
+
+    /**
+     * Verifies that the batch with a tick too long for the record is rejected before anything is written.
+     */
+    @Test
+    void rejectTooLongTickBeforeAppending() throws IOException {
+        // given
+        var journal = new TickJournal(tempDir, 128 * 1024);
+        List<CurrencyStatsTick> ticks = createTicks(2);
+        var tooLongTick = new CurrencyStatsTick(1641308400000L, "B".repeat(70_000), BigDecimal.ONE);
+
+        // when
+        assertThrows(CSVFileProcessException.class, () -> journal.append(List.of(ticks.get(0), tooLongTick)));
+        journal.append(ticks.subList(1, 2));
+
+        // then
+        assertEquals(ticks.subList(1, 2), journal.read(journal.getCheckpoint(), 100).ticks());
+    }
+
+    /**
+     * Verifies that the batch failed while starting the next segment is rolled back, its records written
+     * into the previous segment are not read and the next batch continues after the previous one.
+     */
+    @Test
+    void rollBackFailedAppend() throws IOException {
+        // given
+        var journal = new TickJournal(tempDir, SEGMENT_SIZE);
+        List<CurrencyStatsTick> ticks = createTicks(20);
+        journal.append(ticks.subList(0, 2));
+        Path nextSegment = Files.createDirectory(tempDir.resolve("ticks-%020d.journal".formatted(1)));
+
+        // when
+        assertThrows(IOException.class, () -> journal.append(ticks.subList(2, 15)));
+        journal.append(ticks.subList(15, 17));
+
+        // then
+        assertEquals(List.of(ticks.get(0), ticks.get(1), ticks.get(15), ticks.get(16)),
+                journal.read(journal.getCheckpoint(), 100).ticks());
+        assertFalse(Files.exists(nextSegment));
+    }
+
+    /**
+     * Verifies that the complete record which could not be decoded is counted and skipped.
+     */
+    @Test
+    void skipCorruptedRecord() throws IOException {
+        // given
+        List<CurrencyStatsTick> ticks = createTicks(2);
+        var journal = new TickJournal(tempDir, SEGMENT_SIZE * 4);
+        journal.append(ticks);
+        journal.close();
+        try (FileChannel channel = FileChannel.open(listSegments().getFirst(), StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            ByteBuffer length = ByteBuffer.allocate(Integer.BYTES);
+            channel.read(length, 0);
+            ByteBuffer record = ByteBuffer.allocate(length.getInt(0));
+            channel.read(record, 8);
+            record.putShort(12, (short) 0xFFFF);
+            var crc = new CRC32();
+            crc.update(record.flip());
+            channel.write(ByteBuffer.allocate(Integer.BYTES).putInt(0, (int) crc.getValue()), 4);
+            channel.write(record.rewind(), 8);
+        }
+
+        // when
+        var reopened = new TickJournal(tempDir, SEGMENT_SIZE * 4);
+        TickJournal.Batch batch = reopened.read(reopened.getCheckpoint(), 100);
+
+        // then
+        assertEquals(ticks.subList(1, 2), batch.ticks());
+        assertEquals(1, batch.corrupted());
+    }
+
+    private List<CurrencyStatsTick> createTicks(int count) {
+        return Stream.iterate(0, i -> i + 1)
+                .limit(count)
+                .map(i -> new CurrencyStatsTick(1641308400000L + i, i % 2 == 0 ? "BTC" : "ETH",
+                        new BigDecimal("47111.1" + i)))
+                .toList();
+    }
+
+    private long countSegments() throws IOException {
+        return listSegments().size();
+    }
+
+    private List<Path> listSegments() throws IOException {
+        try (Stream<Path> files = Files.list(tempDir)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(".journal")).sorted().toList();
+        }
+    }
+}
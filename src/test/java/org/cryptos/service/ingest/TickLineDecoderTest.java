@@ -0,0 +1,88 @@
+package org.cryptos.service.ingest;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TickLineDecoderTest {
+
+    private final TickLineDecoder decoder = new TickLineDecoder();
+
+    /**
+     * Verifies that the complete lines of the direct buffer are decoded, the header is skipped
+     * and the incomplete line stays in the buffer until the rest of it is received.
+     */
+    @Test
+    void decodeCompleteLinesAndKeepIncompleteLine() {
+        // given
+        ByteBuffer buffer = toDirectBuffer("timestamp,symbol,price\r\n1641308400000,BTC,47111.11\r\n1641492000000,BT");
+        List<CurrencyStatsTick> ticks = new ArrayList<>();
+
+        // when
+        boolean decoded = decoder.decode(buffer, ticks::add);
+
+        // then
+        assertTrue(decoded);
+        assertEquals(List.of(new CurrencyStatsTick(1641308400000L, "BTC", new BigDecimal("47111.11"))), ticks);
+        assertEquals("1641492000000,BT", StandardCharsets.US_ASCII.decode(buffer).toString());
+    }
+
+    /**
+     * Verifies that the malformed lines are counted and skipped, the following lines are still decoded.
+     */
+    @Test
+    void skipMalformedLines() {
+        // given
+        ByteBuffer buffer = toDirectBuffer("""
+                1641308400000,BTC,wrong
+                1641308400000,BTC
+                1641492000000,ETH,1E+3
+                """);
+        List<CurrencyStatsTick> ticks = new ArrayList<>();
+
+        // when
+        decoder.decode(buffer, ticks::add);
+
+        // then
+        assertEquals(List.of(new CurrencyStatsTick(1641492000000L, "ETH", new BigDecimal("1E+3"))), ticks);
+        assertEquals(2, decoder.rejectedLines());
+        assertEquals("Line 2 must contain exactly 3 columns", decoder.lastError());
+        assertEquals(3, decoder.lineNumber());
+    }
+
+    /**
+     * Verifies that the decoding stops before the line whose tick is not accepted by the sink,
+     * so the line is decoded again next time.
+     */
+    @Test
+    void stopBeforeLineNotAcceptedBySink() {
+        // given
+        ByteBuffer buffer = toDirectBuffer("""
+                1641308400000,BTC,47111.11
+                1641492000000,BTC,43112.12
+                """);
+        List<CurrencyStatsTick> ticks = new ArrayList<>();
+
+        // when
+        boolean decoded = decoder.decode(buffer, tick -> ticks.isEmpty() && ticks.add(tick));
+
+        // then
+        assertFalse(decoded);
+        assertEquals(1, ticks.size());
+        assertEquals(1, decoder.lineNumber());
+        assertEquals("1641492000000,BTC,43112.12\n", StandardCharsets.US_ASCII.decode(buffer).toString());
+    }
+
+    private ByteBuffer toDirectBuffer(String content) {
+        byte[] bytes = content.getBytes(StandardCharsets.US_ASCII);
+        return ByteBuffer.allocateDirect(bytes.length).put(bytes).flip();
+    }
+}
@@ -0,0 +1,150 @@
+package org.cryptos.service.ingest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.cryptos.service.domain.TickStreamAckDomain;
+import org.cryptos.service.exception.EntityNotFoundException;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TickStreamTest {
+
+    private final ObjectReader tickReader = new ObjectMapper().readerFor(CurrencyStatsTick.class);
+    private final List<List<CurrencyStatsTick>> batches = Collections.synchronizedList(new ArrayList<>());
+
+    /**
+     * Verifies that the ticks are written in the batches of the configured size, the last batch is written
+     * at the end of the stream and every batch is acknowledged.
+     */
+    @Test
+    void ingestWritesBatchesOfConfiguredSize() {
+        // given
+        TickStream stream = openStream(Duration.ofMinutes(1));
+        List<TickStreamAckDomain> acks = Collections.synchronizedList(new ArrayList<>());
+
+        // when
+        TickStreamAckDomain result = stream.ingest(toInputStream("""
+                {"timestamp":1641308400000,"symbol":"BTC","price":47111.11}
+                {"timestamp":1641308400000,"symbol":"ETH","price":3715.32}
+                {"timestamp":1641492000000,"symbol":"BTC","price":43112.12}
+                """), acks::add);
+
+        // then
+        assertEquals(2, batches.size());
+        assertEquals(2, batches.get(0).size());
+        assertEquals(1, batches.get(1).size());
+        CurrencyStatsTick lastTick = batches.get(1).getFirst();
+        assertEquals(1641492000000L, lastTick.timestamp());
+        assertEquals("BTC", lastTick.symbol());
+        assertEquals(new BigDecimal("43112.12"), lastTick.price());
+        assertEquals(List.of(2L, 3L), acks.stream().map(TickStreamAckDomain::rows).toList());
+        assertFalse(acks.getFirst().finished());
+        assertTrue(result.finished());
+        assertEquals(3, result.received());
+        assertEquals(3, result.rows());
+        assertNull(result.error());
+    }
+
+    /**
+     * Verifies that the incomplete batch is written after the flush interval while the stream is still open.
+     */
+    @Test
+    void ingestFlushesIncompleteBatchAfterInterval() throws Exception {
+        // given
+        TickStream stream = openStream(Duration.ofMillis(50));
+        var input = new PipedInputStream();
+        var output = new PipedOutputStream(input);
+        CompletableFuture<TickStreamAckDomain> result =
+                CompletableFuture.supplyAsync(() -> stream.ingest(input, ack -> { }));
+
+        // when
+        output.write("{\"timestamp\":1641308400000,\"symbol\":\"BTC\",\"price\":47111.11}\n"
+                .getBytes(StandardCharsets.UTF_8));
+        output.flush();
+
+        // then
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (batches.isEmpty() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(1, batches.size());
+        output.close();
+        assertEquals(1, result.get(5, TimeUnit.SECONDS).rows());
+    }
+
+    /**
+     * Verifies that the stream is stopped at the tick without a price, the ticks before it are still written.
+     */
+    @Test
+    void ingestStopsAtInvalidTick() {
+        // given
+        TickStream stream = openStream(Duration.ofMinutes(1));
+
+        // when
+        TickStreamAckDomain result = stream.ingest(toInputStream("""
+                {"timestamp":1641308400000,"symbol":"BTC","price":47111.11}
+                {"timestamp":1641492000000,"symbol":"BTC"}
+                {"timestamp":1643626800000,"symbol":"BTC","price":37115.15}
+                """), ack -> { });
+
+        // then
+        assertEquals(1, result.rows());
+        assertEquals("Tick 2 must contain timestamp, symbol and price", result.error());
+    }
+
+    /**
+     * Verifies that the failure of the writer stops the stream and is reported in the final acknowledgement.
+     */
+    @Test
+    void ingestReportsWriterFailure() {
+        // given
+        var stream = new TickStream(tickReader, batch -> {
+            throw new EntityNotFoundException("Currency 'XRP' not found, need to enable the currency first");
+        }, 2, Duration.ofMinutes(1), 16);
+        startWriter(stream);
+
+        // when
+        TickStreamAckDomain result = stream.ingest(toInputStream("""
+                {"timestamp":1641308400000,"symbol":"XRP","price":0.83}
+                """), ack -> { });
+
+        // then
+        assertEquals(0, result.rows());
+        assertEquals("Currency 'XRP' not found, need to enable the currency first", result.error());
+    }
+
+    private TickStream openStream(Duration flushInterval) {
+        var stream = new TickStream(tickReader, batch -> {
+            batches.add(List.copyOf(batch));
+            return batch.size();
+        }, 2, flushInterval, 16);
+        startWriter(stream);
+        return stream;
+    }
+
+    private void startWriter(TickStream stream) {
+        var writer = new Thread(stream, "tick-stream-test");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    private ByteArrayInputStream toInputStream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
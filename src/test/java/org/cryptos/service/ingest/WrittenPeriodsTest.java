@@ -0,0 +1,59 @@
+package org.cryptos.service.ingest;
+
+import org.cryptos.persistence.entity.CurrencyStatsRow;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WrittenPeriodsTest {
+
+    private static final LocalDateTime FIRST_DAY = LocalDateTime.of(2022, 1, 1, 0, 0);
+
+    /**
+     * Verifies that the period of every currency is extended by the rows of all the batches in any order.
+     */
+    @Test
+    void collectPeriodOfEveryCurrency() {
+        // given
+        var periods = new WrittenPeriods();
+
+        // when
+        periods.add(List.of(createRow("BTC", FIRST_DAY.plusDays(2)), createRow("ETH", FIRST_DAY.plusDays(5))));
+        periods.add(List.of(createRow("BTC", FIRST_DAY), createRow("BTC", FIRST_DAY.plusDays(3))));
+
+        // then
+        assertFalse(periods.isEmpty());
+        assertEquals(Set.of("BTC", "ETH"), periods.symbols());
+        assertEquals(FIRST_DAY, periods.oldest("BTC"));
+        assertEquals(FIRST_DAY.plusDays(3), periods.newest("BTC"));
+        assertEquals(FIRST_DAY.plusDays(5), periods.oldest("ETH"));
+        assertEquals(FIRST_DAY.plusDays(5), periods.newest("ETH"));
+    }
+
+    /**
+     * Verifies that no periods are collected until the rows are written.
+     */
+    @Test
+    void emptyWithoutRows() {
+        // given
+        var periods = new WrittenPeriods();
+
+        // when
+        periods.add(List.of());
+
+        // then
+        assertTrue(periods.isEmpty());
+        assertTrue(periods.symbols().isEmpty());
+    }
+
+    private static CurrencyStatsRow createRow(String symbol, LocalDateTime dateTime) {
+        return new CurrencyStatsRow(symbol, dateTime, BigDecimal.ONE);
+    }
+}
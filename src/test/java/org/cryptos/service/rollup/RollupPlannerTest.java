@@ -0,0 +1,56 @@
+package org.cryptos.service.rollup;
+
+import org.cryptos.persistence.repository.CurrencyStatsRollupRepository.RollupRange;
+import org.cryptos.persistence.repository.RollupGranularity;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RollupPlannerTest {
+
+    private static final LocalDateTime DAY = LocalDateTime.of(2022, 1, 1, 0, 0);
+
+    /**
+     * Verifies that the whole days are read from the days, the ragged edges from the hours and minutes,
+     * and the parts of the minutes from the prices.
+     */
+    @Test
+    void planCoarsestBucketsWithRaggedEdges() {
+        // given
+        LocalDateTime from = DAY.withHour(22).withMinute(58).withSecond(30);
+        LocalDateTime to = DAY.plusDays(3).withHour(1).withMinute(2).withSecond(15);
+
+        // when
+        List<RollupRange> ranges = RollupPlanner.plan(from, to);
+
+        // then
+        assertEquals(List.of(
+                new RollupRange(null, from, DAY.withHour(22).withMinute(59)),
+                new RollupRange(RollupGranularity.MINUTE, DAY.withHour(22).withMinute(59), DAY.withHour(23)),
+                new RollupRange(RollupGranularity.HOUR, DAY.withHour(23), DAY.plusDays(1)),
+                new RollupRange(RollupGranularity.DAY, DAY.plusDays(1), DAY.plusDays(3)),
+                new RollupRange(RollupGranularity.HOUR, DAY.plusDays(3), DAY.plusDays(3).withHour(1)),
+                new RollupRange(RollupGranularity.MINUTE, DAY.plusDays(3).withHour(1), DAY.plusDays(3).withHour(1).withMinute(2)),
+                new RollupRange(null, DAY.plusDays(3).withHour(1).withMinute(2), to)), ranges);
+    }
+
+    /**
+     * Verifies that the period aligned to the days is read from the days only,
+     * and the period shorter than a minute from the prices only.
+     */
+    @Test
+    void planAlignedAndShortPeriods() {
+        // when
+        List<RollupRange> day = RollupPlanner.plan(DAY, DAY.plusDays(1));
+        List<RollupRange> seconds = RollupPlanner.plan(DAY.plusSeconds(10), DAY.plusSeconds(20));
+        List<RollupRange> empty = RollupPlanner.plan(DAY, DAY);
+
+        // then
+        assertEquals(List.of(new RollupRange(RollupGranularity.DAY, DAY, DAY.plusDays(1))), day);
+        assertEquals(List.of(new RollupRange(null, DAY.plusSeconds(10), DAY.plusSeconds(20))), seconds);
+        assertEquals(List.of(), empty);
+    }
+}
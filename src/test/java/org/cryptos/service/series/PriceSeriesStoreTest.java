@@ -0,0 +1,117 @@
+package org.cryptos.service.series;
+
+import org.cryptos.persistence.entity.CurrencyStatsRow;
+import org.cryptos.persistence.repository.CurrencyStatsSeriesRepository;
+import org.cryptos.persistence.repository.CurrencyStatsWriter;
+import org.cryptos.service.domain.CurrencyNormalizedPriceDomain;
+import org.cryptos.service.domain.CurrencyStatsMinMaxDomain;
+import org.cryptos.service.ingest.IngestMode;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+class PriceSeriesStoreTest {
+
+    private static final LocalDateTime DAY = LocalDateTime.of(2022, 1, 1, 0, 0);
+
+    private final CurrencyStatsSeriesRepository currencyStatsSeriesRepository = mock(CurrencyStatsSeriesRepository.class);
+    private final CurrencyStatsWriter currencyStatsWriter = mock(CurrencyStatsWriter.class);
+    private final PriceSeriesStore priceSeriesStore =
+            new PriceSeriesStore(StatsBackend.MEMORY, IngestMode.BULK, currencyStatsSeriesRepository);
+
+    /**
+     * Verifies that the loaded prices and the prices of the finished writer, also older and unsorted ones,
+     * are aggregated in the requested range only.
+     */
+    @Test
+    void findStatsOfLoadedAndWrittenPrices() {
+        // given
+        loadPrices(
+                new CurrencyStatsRow("BTC", DAY.plusHours(1), new BigDecimal("47000.5")),
+                new CurrencyStatsRow("BTC", DAY.plusHours(5), new BigDecimal("46000")));
+
+        // when
+        try (CurrencyStatsWriter writer = priceSeriesStore.track(currencyStatsWriter, false)) {
+            writer.write(List.of(
+                    new CurrencyStatsRow("BTC", DAY.plusHours(3), new BigDecimal("45000")),
+                    new CurrencyStatsRow("BTC", DAY.plusHours(2), new BigDecimal("48000")),
+                    new CurrencyStatsRow("BTC", DAY.plusDays(1), new BigDecimal("10000"))));
+            writer.finish();
+        }
+        Optional<CurrencyStatsMinMaxDomain> result = priceSeriesStore.findStats("BTC", DAY, DAY.plusDays(1));
+
+        // then
+        assertTrue(priceSeriesStore.isReady());
+        assertEquals(Optional.of(new CurrencyStatsMinMaxDomain("BTC", DAY.plusHours(1), DAY.plusHours(5),
+                new BigDecimal("45000.0000000"), new BigDecimal("48000.0000000"))), result);
+        assertFalse(priceSeriesStore.findStats("BTC", DAY.minusDays(1), DAY).isPresent());
+        assertFalse(priceSeriesStore.findStats("ETH", DAY, DAY.plusDays(1)).isPresent());
+    }
+
+    /**
+     * Verifies that the price of the existing date and time is kept or replaced as configured,
+     * and the normalized prices are sorted descending.
+     */
+    @Test
+    void findNormalizedPricesDesc() {
+        // given
+        loadPrices(
+                new CurrencyStatsRow("BTC", DAY.plusHours(1), new BigDecimal("100")),
+                new CurrencyStatsRow("BTC", DAY.plusHours(2), new BigDecimal("110")),
+                new CurrencyStatsRow("ETH", DAY.plusHours(1), new BigDecimal("10")),
+                new CurrencyStatsRow("ETH", DAY.plusHours(2), new BigDecimal("15")));
+
+        // when
+        try (CurrencyStatsWriter writer = priceSeriesStore.track(currencyStatsWriter, true)) {
+            writer.write(List.of(new CurrencyStatsRow("BTC", DAY.plusHours(2), new BigDecimal("200"))));
+            writer.finish();
+        }
+        try (CurrencyStatsWriter writer = priceSeriesStore.track(currencyStatsWriter, false)) {
+            writer.write(List.of(new CurrencyStatsRow("ETH", DAY.plusHours(2), new BigDecimal("50"))));
+            writer.finish();
+        }
+        List<CurrencyNormalizedPriceDomain> result = priceSeriesStore.findNormalizedPricesDesc(DAY, DAY.plusDays(1));
+
+        // then
+        assertEquals(List.of("BTC", "ETH"), result.stream().map(CurrencyNormalizedPriceDomain::symbol).toList());
+        assertEquals(0, new BigDecimal("1").compareTo(result.get(0).normalizedPrice()));
+        assertEquals(0, new BigDecimal("0.5").compareTo(result.get(1).normalizedPrice()));
+    }
+
+    /**
+     * Loads the prices into the store as if they were stored in the database.
+     *
+     * @param rows the stored rows ordered by the currency and the date and time
+     */
+    /**
+     * Verifies that the memory backend is rejected with the stateless mode committing the rows on its own.
+     */
+    @Test
+    void rejectMemoryBackendWithStatelessMode() {
+        // when & then
+        assertThrows(IllegalStateException.class,
+                () -> new PriceSeriesStore(StatsBackend.MEMORY, IngestMode.STATELESS, currencyStatsSeriesRepository));
+    }
+
+    private void loadPrices(CurrencyStatsRow... rows) {
+        doAnswer(invocation -> {
+            CurrencyStatsSeriesRepository.PriceConsumer consumer = invocation.getArgument(0);
+            for (CurrencyStatsRow row : rows) {
+                consumer.accept(row.symbol(), row.dateTime(), row.price());
+            }
+            return null;
+        }).when(currencyStatsSeriesRepository).streamAll(any());
+        priceSeriesStore.load();
+    }
+}
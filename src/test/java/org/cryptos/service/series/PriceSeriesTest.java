@@ -0,0 +1,105 @@
+package org.cryptos.service.series;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+import java.util.Random;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PriceSeriesTest {
+
+    private static final int SIZE = 300_000;
+
+    /**
+     * Verifies that the indexed min and max prices of the ranges within one block, one segment and across
+     * several segments, also of the segment being appended to, are the same as the scanned ones.
+     */
+    @Test
+    void findRangeSameAsScan() {
+        // given
+        var random = new Random(42);
+        long[] times = LongStream.range(0, SIZE).map(i -> i * 10).toArray();
+        long[] prices = LongStream.range(0, SIZE).map(i -> random.nextInt(1_000_000)).toArray();
+        var priceSeries = new PriceSeries();
+        priceSeries.merge(times, prices, SIZE / 2, false);
+        priceSeries.merge(times, prices, SIZE, false);
+
+        for (int i = 0; i < 1_000; i++) {
+            int from = random.nextInt(SIZE);
+            int to = Math.min(SIZE, from + 1 + random.nextInt(i % 2 == 0 ? 100 : SIZE));
+
+            // when
+            Optional<PriceSeries.PriceRange> result = priceSeries.findRange(times[from], times[to - 1] + 1);
+
+            // then
+            long[] scanned = LongStream.range(from, to).map(index -> prices[(int) index]).sorted().toArray();
+            assertEquals(Optional.of(new PriceSeries.PriceRange(times[from], times[to - 1],
+                    scanned[0], scanned[scanned.length - 1])), result);
+        }
+        assertEquals(SIZE, priceSeries.size());
+    }
+
+    /**
+     * Verifies that the price of the existing timestamp is replaced or kept when the older prices are merged.
+     */
+    @Test
+    void mergeOlderPrices() {
+        // given
+        var priceSeries = new PriceSeries();
+        priceSeries.merge(new long[]{10, 20, 30}, new long[]{5, 6, 7}, 3, false);
+
+        // when
+        priceSeries.merge(new long[]{5, 20}, new long[]{1, 100}, 2, false);
+        priceSeries.merge(new long[]{30}, new long[]{-3}, 1, true);
+
+        // then
+        assertEquals(Optional.of(new PriceSeries.PriceRange(5, 30, -3, 6)), priceSeries.findRange(0, 40));
+        assertEquals(Optional.of(new PriceSeries.PriceRange(10, 20, 5, 6)), priceSeries.findRange(6, 30));
+        assertEquals(Optional.empty(), priceSeries.findRange(31, 40));
+        assertEquals(4, priceSeries.size());
+    }
+
+    /**
+     * Verifies that the prices merged into the middle of a series of several segments, also replacing the existing
+     * ones, are aggregated together with the kept older segments and the rebuilt newer ones.
+     */
+    @Test
+    void mergeOlderPricesIntoMiddleSegment() {
+        // given
+        var random = new Random(7);
+        long[] times = LongStream.range(0, SIZE).map(i -> i * 10).toArray();
+        long[] prices = LongStream.range(0, SIZE).map(i -> random.nextInt(1_000_000)).toArray();
+        var priceSeries = new PriceSeries();
+        priceSeries.merge(times, prices, SIZE, false);
+        long[] lateTimes = LongStream.range(0, 1_000).map(i -> 150_000 * 10L + i * 5).toArray();
+        long[] latePrices = LongStream.range(0, 1_000).map(i -> i % 2 == 0 ? -i : 2_000_000 + i).toArray();
+
+        // when
+        priceSeries.merge(lateTimes, latePrices, lateTimes.length, true);
+
+        // then
+        long[] mergedPrices = prices.clone();
+        for (int i = 0; i < lateTimes.length; i += 2) {
+            mergedPrices[(int) (lateTimes[i] / 10)] = latePrices[i];
+        }
+        for (int i = 0; i < 1_000; i++) {
+            int from = random.nextInt(SIZE);
+            int to = Math.min(SIZE, from + 1 + random.nextInt(SIZE));
+            long[] scanned = LongStream.range(from, to).map(index -> mergedPrices[(int) index]).toArray();
+            long min = LongStream.of(scanned).min().getAsLong();
+            long max = LongStream.of(scanned).max().getAsLong();
+            if (times[from] <= lateTimes[lateTimes.length - 1] && times[to - 1] >= lateTimes[0]) {
+                for (int late = 1; late < lateTimes.length; late += 2) {
+                    if (lateTimes[late] >= times[from] && lateTimes[late] <= times[to - 1]) {
+                        max = Math.max(max, latePrices[late]);
+                    }
+                }
+            }
+            assertEquals(Optional.of(new PriceSeries.PriceRange(times[from], times[to - 1], min, max)),
+                    priceSeries.findRange(times[from], times[to - 1] + 1));
+        }
+        assertEquals(SIZE + lateTimes.length / 2, priceSeries.size());
+    }
+}